@@ -43,12 +43,18 @@ android {
 }
 
 dependencies {
+    // Domain logic shared with the benchmarks
+    implementation(project(":core"))
+    annotationProcessor(project(":codegen"))
+
     // Core libraries
     implementation(libs.appcompat)
     implementation(libs.material)
     implementation(libs.constraintlayout)
     implementation(libs.navigation.fragment)
     implementation(libs.navigation.ui)
+    implementation(libs.tracing)
+    implementation(libs.exifinterface)
 
     // Firebase
     implementation(platform("com.google.firebase:firebase-bom:33.5.1"))
@@ -18,6 +18,7 @@ import androidx.annotation.Nullable;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.wizard_project.Classes.Entrant;
+import com.example.wizard_project.Core.EntrantFilter;
 import com.example.wizard_project.R;
 
 import java.util.ArrayList;
@@ -31,6 +32,7 @@ public class BrowseEntrantAdapter extends ArrayAdapter<Entrant> implements Filte
     private final List<Entrant> filteredList; // Filtered list of entrants
     private final List<Entrant> checkedList; // Filtered list of entrants
     private final Context context;
+    private CharSequence currentFilter; // The status filter currently applied
 
     /**
      * Constructs a new BrowseEntrantAdapter with a list of entrants and the application context.
@@ -109,6 +111,31 @@ public class BrowseEntrantAdapter extends ArrayAdapter<Entrant> implements Filte
         return convertView;
     }
 
+    /**
+     * Appends a page of entrants to the list, applying the current status filter to them.
+     *
+     * @param entrants The entrants to append.
+     */
+    public void addEntrants(List<Entrant> entrants) {
+        originalList.addAll(entrants);
+        for (Entrant entrant : entrants) {
+            if (EntrantFilter.matches(entrant, currentFilter)) {
+                filteredList.add(entrant);
+            }
+        }
+        notifyDataSetChanged();
+    }
+
+    /**
+     * Removes all entrants from the list.
+     */
+    public void clearEntrants() {
+        originalList.clear();
+        filteredList.clear();
+        checkedList.clear();
+        notifyDataSetChanged();
+    }
+
     /**
      * Returns a list of all checked entrants.
      *
@@ -132,16 +159,10 @@ public class BrowseEntrantAdapter extends ArrayAdapter<Entrant> implements Filte
                 FilterResults results = new FilterResults();
                 List<Entrant> filtered = new ArrayList<>();
 
-                // If no constraint is provided, show all entrants
-                if (constraint == null || constraint.toString().isEmpty() || constraint.toString().equals("All")) {
-                    filtered.addAll(originalList);
-
-                    // Otherwise, filter entrants based on the selected status
-                } else {
-                    for (Entrant entrant : originalList) {
-                        if (entrant.getStatus().equalsIgnoreCase(constraint.toString())) {
-                            filtered.add(entrant);
-                        }
+                // Show the entrants whose status matches the selected filter
+                for (Entrant entrant : originalList) {
+                    if (EntrantFilter.matches(entrant, constraint)) {
+                        filtered.add(entrant);
                     }
                 }
 
@@ -154,6 +175,7 @@ public class BrowseEntrantAdapter extends ArrayAdapter<Entrant> implements Filte
             @Override
             protected void publishResults(CharSequence constraint, FilterResults results) {
                 // Update the filtered list and notify the adapter
+                currentFilter = constraint;
                 filteredList.clear();
                 filteredList.addAll((List<Entrant>) results.values);
                 notifyDataSetChanged();
@@ -1,7 +1,6 @@
 package com.example.wizard_project.Adapters;
 
 import android.content.Context;
-import android.net.Uri;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -15,6 +14,7 @@ import androidx.annotation.Nullable;
 import com.bumptech.glide.Glide;
 import com.bumptech.glide.load.engine.DiskCacheStrategy;
 import com.example.wizard_project.Classes.Event;
+import com.example.wizard_project.Classes.StoredImage;
 import com.example.wizard_project.R;
 
 import java.text.SimpleDateFormat;
@@ -67,7 +67,7 @@ public class BrowseEventAdapter extends ArrayAdapter<Event> {
         // Set the event image
         if (event.getPosterUri() != null && !event.getPosterUri().isEmpty()) {
             Glide.with(context)
-                    .load(Uri.parse(event.getPosterUri()))
+                    .load(StoredImage.of(event.getEvent_image_path(), event.getPosterUri()))
                     .diskCacheStrategy(DiskCacheStrategy.ALL)
                     .placeholder(R.drawable.example_event)
                     .error(R.drawable.example_event)
@@ -1,7 +1,6 @@
 package com.example.wizard_project.Adapters;
 
 import android.content.Context;
-import android.net.Uri;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -15,6 +14,7 @@ import androidx.annotation.Nullable;
 import com.bumptech.glide.Glide;
 import com.bumptech.glide.load.engine.DiskCacheStrategy;
 import com.example.wizard_project.Classes.Facility;
+import com.example.wizard_project.Classes.StoredImage;
 import com.example.wizard_project.R;
 
 import java.util.ArrayList;
@@ -63,7 +63,7 @@ public class BrowseFacilityAdapter extends ArrayAdapter<Facility> {
         // Set the facility image
         if (facility.getposterUri() != null && !facility.getposterUri().isEmpty()) {
             Glide.with(context)
-                    .load(Uri.parse(facility.getposterUri()))
+                    .load(StoredImage.of(facility.getFacilityImagePath(), facility.getposterUri()))
                     .diskCacheStrategy(DiskCacheStrategy.ALL)
                     .placeholder(R.drawable.example_facility)
                     .error(R.drawable.example_facility)
@@ -2,7 +2,6 @@ package com.example.wizard_project.Adapters;
 
 import android.content.Context;
 import android.media.Image;
-import android.net.Uri;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -15,6 +14,7 @@ import androidx.annotation.Nullable;
 
 import com.bumptech.glide.Glide;
 import com.example.wizard_project.Classes.ImageHolder;
+import com.example.wizard_project.Classes.StoredImage;
 import com.example.wizard_project.R;
 
 import java.util.ArrayList;
@@ -47,9 +47,11 @@ public class BrowseImageAdapter extends ArrayAdapter<ImageHolder> {
         TextView imageName = convertView.findViewById(R.id.AdminImageName);
 
         // Set data to views
-        if (!image_obj.getImageUrl().equals("")) {
-            Uri imageUri = Uri.parse(image_obj.getImageUrl());
-            Glide.with(context).load(imageUri).circleCrop().into(image);
+        if (!image_obj.getImagePath().equals("")) {
+            StoredImage storedImage = new StoredImage(image_obj.getImagePath(), image_obj.getImageUrl());
+            Glide.with(context).load(storedImage).circleCrop().into(image);
+        } else {
+            Glide.with(context).clear(image); // A recycled row may still show another image
         }
         imageName.setText(image_obj.getImagePath());
         return convertView;
@@ -0,0 +1,37 @@
+package com.example.wizard_project.Adapters;
+
+import android.widget.AbsListView;
+
+/**
+ * PagingScrollListener requests the next page of a paged list once the user scrolls near its end,
+ * so the next page is usually loaded before the user reaches the last row.
+ */
+public class PagingScrollListener implements AbsListView.OnScrollListener {
+    public static final int DEFAULT_PREFETCH_DISTANCE = 10;
+
+    private final int prefetchDistance;
+    private final Runnable loadNextPage;
+
+    /**
+     * Constructs a PagingScrollListener.
+     *
+     * @param prefetchDistance How many rows before the end of the list the next page is requested.
+     * @param loadNextPage     Requests the next page. It is called on every scroll near the end of the list,
+     *                         so it must ignore requests while a page is loading.
+     */
+    public PagingScrollListener(int prefetchDistance, Runnable loadNextPage) {
+        this.prefetchDistance = prefetchDistance;
+        this.loadNextPage = loadNextPage;
+    }
+
+    @Override
+    public void onScrollStateChanged(AbsListView view, int scrollState) {
+    }
+
+    @Override
+    public void onScroll(AbsListView view, int firstVisibleItem, int visibleItemCount, int totalItemCount) {
+        if (totalItemCount > 0 && firstVisibleItem + visibleItemCount >= totalItemCount - prefetchDistance) {
+            loadNextPage.run();
+        }
+    }
+}
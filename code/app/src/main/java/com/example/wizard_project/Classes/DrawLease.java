@@ -0,0 +1,149 @@
+package com.example.wizard_project.Classes;
+
+import com.example.wizard_project.Store.StoredDocument;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Represents a client's claim to run the lottery draw for an event.
+ * The lease is stored on the event document so only one client draws at a time.
+ * A lease that expires without the draw completing can be taken over by another client,
+ * which resumes the same draw using the same draw ID and seed.
+ * Once the draw has pinned the entrants it ranks, the lease records how many there were,
+ * so a resumed draw reuses the persisted ranking instead of reading a waiting list that may have changed.
+ */
+public class DrawLease {
+    private final String drawId;
+    private final String owner;
+    private final long seed;
+    private final Date startedAt;
+    private final Date expiresAt;
+    private final Integer pinnedCount;
+
+    /**
+     * Constructs a new DrawLease object with the provided details.
+     *
+     * @param drawId    The unique identifier of the draw.
+     * @param owner     The device ID of the client holding the lease.
+     * @param seed      The seed driving the draw.
+     * @param startedAt The time the draw was first started.
+     * @param expiresAt The time after which another client may take over the draw.
+     */
+    public DrawLease(String drawId, String owner, long seed, Date startedAt, Date expiresAt) {
+        this(drawId, owner, seed, startedAt, expiresAt, null);
+    }
+
+    private DrawLease(String drawId, String owner, long seed, Date startedAt, Date expiresAt, Integer pinnedCount) {
+        this.drawId = drawId;
+        this.owner = owner;
+        this.seed = seed;
+        this.startedAt = startedAt;
+        this.expiresAt = expiresAt;
+        this.pinnedCount = pinnedCount;
+    }
+
+    /**
+     * Reads the draw lease stored on an event document.
+     *
+     * @param document The stored document of the event.
+     * @return The stored lease, or null if the event has no lease.
+     */
+    public static DrawLease fromDocument(StoredDocument document) {
+        String drawId = document.getString("drawLease.drawId");
+        Long seed = document.getLong("drawLease.seed");
+        if (drawId == null || seed == null) {
+            return null;
+        }
+        Date startedAt = document.getDate("drawLease.startedAt");
+        Date expiresAt = document.getDate("drawLease.expiresAt");
+        Long pinnedCount = document.getLong("drawLease.pinnedCount");
+        return new DrawLease(
+                drawId,
+                document.getString("drawLease.owner"),
+                seed,
+                startedAt != null ? startedAt : new Date(),
+                expiresAt != null ? expiresAt : new Date(0),
+                pinnedCount != null ? pinnedCount.intValue() : null
+        );
+    }
+
+    /**
+     * Creates a copy of this lease held by a new owner with a new expiry.
+     * The draw ID, seed, start time and pinned entrants are kept so the draw resumes instead of starting over.
+     *
+     * @param newOwner     The device ID of the client taking over the lease.
+     * @param newExpiresAt The new expiry time.
+     * @return The renewed lease.
+     */
+    public DrawLease renew(String newOwner, Date newExpiresAt) {
+        return new DrawLease(drawId, newOwner, seed, startedAt, newExpiresAt, pinnedCount);
+    }
+
+    /**
+     * Creates a copy of this lease recording that the draw's entrants have been pinned and ranked.
+     *
+     * @param pinnedCount The number of entrants ranked by the draw.
+     * @return The pinned lease.
+     */
+    public DrawLease pin(int pinnedCount) {
+        return new DrawLease(drawId, owner, seed, startedAt, expiresAt, pinnedCount);
+    }
+
+    /**
+     * Creates a map of the lease data to be stored in the database.
+     *
+     * @return A map of lease data.
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> leaseData = new HashMap<>();
+        leaseData.put("drawId", drawId);
+        leaseData.put("owner", owner);
+        leaseData.put("seed", seed);
+        leaseData.put("startedAt", startedAt);
+        leaseData.put("expiresAt", expiresAt);
+        if (pinnedCount != null) {
+            leaseData.put("pinnedCount", pinnedCount);
+        }
+        return leaseData;
+    }
+
+    /**
+     * Checks whether the lease has expired.
+     *
+     * @param now The current time.
+     * @return True if the lease has expired, false otherwise.
+     */
+    public boolean isExpired(Date now) {
+        return !now.before(expiresAt);
+    }
+
+    // Getters
+    public String getDrawId() {
+        return drawId;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public Date getStartedAt() {
+        return startedAt;
+    }
+
+    public Date getExpiresAt() {
+        return expiresAt;
+    }
+
+    /**
+     * @return The number of entrants the draw ranked, or null if they have not been pinned yet.
+     */
+    public Integer getPinnedCount() {
+        return pinnedCount;
+    }
+}
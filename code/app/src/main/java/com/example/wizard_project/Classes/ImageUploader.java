@@ -0,0 +1,386 @@
+package com.example.wizard_project.Classes;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Matrix;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.exifinterface.media.ExifInterface;
+
+import com.example.wizard_project.Controllers.FirestoreDataStore;
+import com.example.wizard_project.Core.ImageReferences;
+import com.example.wizard_project.Core.ImageRenditions;
+import com.example.wizard_project.Core.ImageRenditions.Rendition;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.storage.FirebaseStorage;
+import com.google.firebase.storage.StorageMetadata;
+import com.google.firebase.storage.StorageReference;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * ImageUploader is the upload pipeline shared by every screen that uploads a picture.
+ * It decodes the picked image subsampled to about the size of the largest rendition, turns it upright according
+ * to its EXIF orientation, encodes each {@link Rendition} as WebP, and uploads the renditions in parallel.
+ * Images are decoded one at a time on a background thread, so a large camera photo never blocks the UI
+ * and at most one is held in memory.
+ *
+ * <p>Each image is stored under the SHA-256 hash of the picked file, computed while the file is first read.
+ * Uploading a picture that is already stored skips the upload. The reference to the picture is counted when the
+ * document recording it is saved, and deleting a picture only deletes its files once no document refers to it
+ * any more; see {@link ImageReferences}.
+ */
+public class ImageUploader {
+    private static final String CONTENT_TYPE = "image/webp";
+    private static final String HASH_ALGORITHM = "SHA-256";
+    private static ImageUploader instance;
+
+    private final ContentResolver contentResolver;
+    private final ImageReferences references;
+    private final ExecutorService encoder = Executors.newSingleThreadExecutor();
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    public ImageUploader(Context context) {
+        this.contentResolver = context.getApplicationContext().getContentResolver();
+        this.references = new ImageReferences(FirestoreDataStore.getInstance());
+    }
+
+    public static synchronized ImageUploader getInstance(Context context) {
+        if (instance == null) {
+            instance = new ImageUploader(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Encodes and uploads every rendition of an image under a new image ID.
+     *
+     * @param source   The URI of the picked image.
+     * @param callback The callback receiving the uploaded image on the main thread, or the failure.
+     */
+    public void upload(Uri source, uploadCallback callback) {
+        encoder.execute(() -> {
+            BitmapFactory.Options bounds = new BitmapFactory.Options();
+            String imageId;
+            try {
+                imageId = hashAndMeasure(source, bounds);
+            } catch (IOException | RuntimeException e) {
+                Log.e("ImageUploader", "Failed to read " + source, e);
+                handler.post(() -> callback.onFailure(e));
+                return;
+            }
+            handler.post(() -> references.isStored(imageId)
+                    .addOnSuccessListener(stored -> {
+                        if (stored) {
+                            // Already uploaded, so the document saving it only needs to count its reference.
+                            returnUploaded(imageId, callback);
+                        } else {
+                            encoder.execute(() -> encodeAndUpload(source, bounds, imageId, callback));
+                        }
+                    })
+                    .addOnFailureListener(e -> {
+                        Log.e("ImageUploader", "Failed to look up image " + imageId, e);
+                        callback.onFailure(e);
+                    }));
+        });
+    }
+
+    /**
+     * Releases a document's reference to an image, deleting the image and its renditions if it was the last one.
+     *
+     * @param fullPath The storage path of the full image.
+     * @return The task releasing the reference, and deleting the full image if it was the last reference.
+     */
+    public static Task<Void> delete(String fullPath) {
+        String imageId = ImageRenditions.imageId(fullPath);
+        TaskCompletionSource<Void> deleted = new TaskCompletionSource<>();
+        new ImageReferences(FirestoreDataStore.getInstance()).release(imageId)
+                .addOnSuccessListener(last -> {
+                    if (!last) {
+                        deleted.setResult(null);
+                        return;
+                    }
+                    deleteFiles(imageId)
+                            .addOnSuccessListener(aVoid -> deleted.setResult(null))
+                            .addOnFailureListener(deleted::setException);
+                })
+                .addOnFailureListener(deleted::setException);
+        return deleted.getTask();
+    }
+
+    /**
+     * Deletes an image and its renditions however many documents refer to it, such as when an admin removes it.
+     *
+     * @param fullPath The storage path of the full image.
+     * @return The task deleting the full image.
+     */
+    public static Task<Void> purge(String fullPath) {
+        String imageId = ImageRenditions.imageId(fullPath);
+        TaskCompletionSource<Void> purged = new TaskCompletionSource<>();
+        // The count goes first, so a document saved meanwhile fails to count a reference to files that are gone.
+        new ImageReferences(FirestoreDataStore.getInstance()).clear(imageId)
+                .addOnSuccessListener(aVoid -> deleteFiles(imageId)
+                        .addOnSuccessListener(deleted -> purged.setResult(null))
+                        .addOnFailureListener(purged::setException))
+                .addOnFailureListener(e -> {
+                    Log.e("ImageUploader", "Failed to clear the references to " + imageId, e);
+                    purged.setException(e);
+                });
+        return purged.getTask();
+    }
+
+    /**
+     * Deletes the files of an image. Images uploaded before renditions were introduced have none,
+     * so only the deletion of the full image is reported.
+     */
+    private static Task<Void> deleteFiles(String imageId) {
+        StorageReference root = FirebaseStorage.getInstance().getReference();
+        for (Rendition rendition : Rendition.values()) {
+            if (rendition != Rendition.FULL) {
+                root.child(ImageRenditions.path(imageId, rendition)).delete();
+            }
+        }
+        return root.child(ImageRenditions.path(imageId, Rendition.FULL)).delete();
+    }
+
+    /**
+     * Measures the picked image, then reads the whole file to hash it. The hash is a read of its own, since
+     * decoding the bounds may skip over bytes of the stream, which a digest of that stream would leave out.
+     *
+     * @return The hex SHA-256 hash of the file, which is the image's ID.
+     */
+    private String hashAndMeasure(Uri source, BitmapFactory.Options bounds) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance(HASH_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(HASH_ALGORITHM + " is not available", e);
+        }
+
+        bounds.inJustDecodeBounds = true;
+        try (InputStream in = open(source)) {
+            BitmapFactory.decodeStream(in, null, bounds);
+        }
+        if (bounds.outWidth <= 0 || bounds.outHeight <= 0) {
+            throw new IOException("Not a decodable image: " + source);
+        }
+
+        byte[] buffer = new byte[8192];
+        try (InputStream in = open(source)) {
+            for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+                digest.update(buffer, 0, read);
+            }
+        }
+
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    private void encodeAndUpload(Uri source, BitmapFactory.Options bounds, String imageId, uploadCallback callback) {
+        Map<Rendition, byte[]> renditions;
+        try {
+            renditions = encode(source, bounds);
+        } catch (IOException | RuntimeException e) {
+            Log.e("ImageUploader", "Failed to encode " + source, e);
+            handler.post(() -> callback.onFailure(e));
+            return;
+        }
+        handler.post(() -> uploadRenditions(imageId, renditions, callback));
+    }
+
+    private Map<Rendition, byte[]> encode(Uri source, BitmapFactory.Options bounds) throws IOException {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = ImageRenditions.sampleSize(bounds.outWidth, bounds.outHeight);
+        Bitmap decoded;
+        try (InputStream in = open(source)) {
+            decoded = BitmapFactory.decodeStream(in, null, options);
+        }
+        if (decoded == null) {
+            throw new IOException("Failed to decode " + source);
+        }
+
+        int orientation;
+        try (InputStream in = open(source)) {
+            orientation = new ExifInterface(in).getAttributeInt(ExifInterface.TAG_ORIENTATION,
+                    ExifInterface.ORIENTATION_NORMAL);
+        }
+
+        Map<Rendition, byte[]> renditions = new EnumMap<>(Rendition.class);
+        for (Rendition rendition : Rendition.values()) {
+            float scale = ImageRenditions.scale(decoded.getWidth(), decoded.getHeight(), rendition);
+            Matrix matrix = orientationMatrix(orientation);
+            matrix.postScale(scale, scale);
+            Bitmap rendered = Bitmap.createBitmap(decoded, 0, 0, decoded.getWidth(), decoded.getHeight(), matrix, true);
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            rendered.compress(webpFormat(), ImageRenditions.QUALITY, out);
+            renditions.put(rendition, out.toByteArray());
+            if (rendered != decoded) {
+                rendered.recycle();
+            }
+        }
+        decoded.recycle();
+        return renditions;
+    }
+
+    private InputStream open(Uri source) throws IOException {
+        InputStream in = contentResolver.openInputStream(source);
+        if (in == null) {
+            throw new IOException("Cannot open " + source);
+        }
+        return in;
+    }
+
+    /**
+     * @return The transform that turns an image with the given EXIF orientation upright.
+     */
+    private static Matrix orientationMatrix(int orientation) {
+        Matrix matrix = new Matrix();
+        switch (orientation) {
+            case ExifInterface.ORIENTATION_FLIP_HORIZONTAL:
+                matrix.setScale(-1, 1);
+                break;
+            case ExifInterface.ORIENTATION_ROTATE_180:
+                matrix.setRotate(180);
+                break;
+            case ExifInterface.ORIENTATION_FLIP_VERTICAL:
+                matrix.setScale(1, -1);
+                break;
+            case ExifInterface.ORIENTATION_TRANSPOSE:
+                matrix.setRotate(90);
+                matrix.postScale(-1, 1);
+                break;
+            case ExifInterface.ORIENTATION_ROTATE_90:
+                matrix.setRotate(90);
+                break;
+            case ExifInterface.ORIENTATION_TRANSVERSE:
+                matrix.setRotate(-90);
+                matrix.postScale(-1, 1);
+                break;
+            case ExifInterface.ORIENTATION_ROTATE_270:
+                matrix.setRotate(-90);
+                break;
+            default:
+                break;
+        }
+        return matrix;
+    }
+
+    @SuppressWarnings("deprecation")
+    private static Bitmap.CompressFormat webpFormat() {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.R
+                ? Bitmap.CompressFormat.WEBP_LOSSY
+                : Bitmap.CompressFormat.WEBP;
+    }
+
+    /**
+     * Uploads the encoded renditions in parallel, then records that the image is stored.
+     * If any upload fails, the renditions this call uploaded are deleted again, unless the image has been stored
+     * meanwhile by another upload of the same picture, whose files are the same paths.
+     */
+    private void uploadRenditions(String imageId, Map<Rendition, byte[]> renditions, uploadCallback callback) {
+        StorageReference root = FirebaseStorage.getInstance().getReference();
+        StorageMetadata metadata = new StorageMetadata.Builder().setContentType(CONTENT_TYPE).build();
+        List<Task<?>> uploads = new ArrayList<>();
+        List<String> paths = new ArrayList<>();
+        for (Map.Entry<Rendition, byte[]> rendition : renditions.entrySet()) {
+            String path = ImageRenditions.path(imageId, rendition.getKey());
+            paths.add(path);
+            uploads.add(root.child(path).putBytes(rendition.getValue(), metadata));
+        }
+
+        Tasks.whenAllComplete(uploads).addOnSuccessListener(completed -> {
+            for (Task<?> upload : completed) {
+                if (!upload.isSuccessful()) {
+                    Log.e("ImageUploader", "Failed to upload a rendition of " + imageId, upload.getException());
+                    deleteUploaded(imageId, paths, completed);
+                    callback.onFailure(upload.getException());
+                    return;
+                }
+            }
+            references.store(imageId)
+                    .addOnSuccessListener(aVoid -> returnUploaded(imageId, callback))
+                    .addOnFailureListener(e -> {
+                        Log.e("ImageUploader", "Failed to record image " + imageId, e);
+                        callback.onFailure(e);
+                    });
+        });
+    }
+
+    /**
+     * Deletes the renditions a failed upload did upload, once it is clear no other upload has stored the image.
+     */
+    private void deleteUploaded(String imageId, List<String> paths, List<Task<?>> uploads) {
+        references.isStored(imageId)
+                .addOnSuccessListener(stored -> {
+                    if (stored) {
+                        return;
+                    }
+                    StorageReference root = FirebaseStorage.getInstance().getReference();
+                    for (int i = 0; i < uploads.size(); i++) {
+                        if (uploads.get(i).isSuccessful()) {
+                            root.child(paths.get(i)).delete();
+                        }
+                    }
+                })
+                .addOnFailureListener(e -> Log.e("ImageUploader", "Failed to look up image " + imageId, e));
+    }
+
+    /**
+     * Reads the full rendition's download URL and passes the uploaded image on.
+     */
+    private void returnUploaded(String imageId, uploadCallback callback) {
+        FirebaseStorage.getInstance().getReference().child(ImageRenditions.path(imageId, Rendition.FULL)).getDownloadUrl()
+                .addOnSuccessListener(uri -> callback.onUploaded(new UploadedImage(imageId, uri.toString())))
+                .addOnFailureListener(callback::onFailure);
+    }
+
+    /**
+     * An uploaded image: the storage path of each rendition, and the download URL of the full rendition.
+     */
+    public static class UploadedImage {
+        private final String imageId;
+        private final String url;
+
+        private UploadedImage(String imageId, String url) {
+            this.imageId = imageId;
+            this.url = url;
+        }
+
+        public String getPath(Rendition rendition) {
+            return ImageRenditions.path(imageId, rendition);
+        }
+
+        public String getUrl() {
+            return url;
+        }
+    }
+
+    // Callback interfaces
+    public interface uploadCallback {
+        void onUploaded(UploadedImage image);
+
+        void onFailure(Exception e);
+    }
+}
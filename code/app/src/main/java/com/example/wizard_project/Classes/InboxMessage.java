@@ -0,0 +1,35 @@
+package com.example.wizard_project.Classes;
+
+/**
+ * InboxMessage is a notification message delivered to the user, along with the event it is about.
+ */
+public class InboxMessage {
+    private final String id;
+    private final String eventId;
+    private final String message;
+
+    /**
+     * Constructs an InboxMessage.
+     *
+     * @param id      The ID of the notification or broadcast the message was delivered from.
+     * @param eventId The ID of the event the message is about, or null if it is not about an event.
+     * @param message The message text.
+     */
+    public InboxMessage(String id, String eventId, String message) {
+        this.id = id;
+        this.eventId = eventId;
+        this.message = message;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getEventId() {
+        return eventId;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
@@ -5,30 +5,72 @@ import android.app.NotificationManager;
 import android.app.PendingIntent;
 import android.content.Context;
 import android.content.Intent;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.service.notification.StatusBarNotification;
 import androidx.core.app.NotificationCompat;
 
 import com.example.wizard_project.MainActivity;
 import com.example.wizard_project.R;
 
-import java.util.Random;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * NotificationHandler Handles the creation of System notifications
  *  createNotificationChannel - Sets up the app with the system to be able to send notifcations
- *  sendNotification - Handles the display of notifications
+ *  post - Groups messages into one notification per event, under a single summary
+ * Messages are coalesced: notifications are updated at most once every {@link #MIN_POST_INTERVAL_MILLIS},
+ * so a burst of messages costs one update instead of one heads-up notification per message.
+ * Every event keeps the same notification ID, so later messages update its notification in place.
+ * Once the user dismisses or opens an event's notification its messages are forgotten, so they are not shown
+ * again with the next message, and the summary only covers the notifications still showing.
  */
 public class NotificationHandler {
 
     private static final String CHANNEL_ID = "high_priority_channel";
+    private static final String GROUP_KEY = "com.example.wizard_project.EVENT_NOTIFICATIONS";
+    private static final String GENERAL_GROUP = ""; // Messages that are not about an event
+    private static final int SUMMARY_ID = 0;
+    private static final long MIN_POST_INTERVAL_MILLIS = 2000;
+    private static final int MAX_LINES = 5; // Lines shown in an expanded notification
+    private static final int MAX_KEPT_MESSAGES = 50; // Messages remembered per event
+    private static NotificationHandler instance;
 
     private final Context context;
+    private final PendingIntent contentIntent;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    // Event ID -> message key -> message text, oldest first. Guarded by this.
+    private final Map<String, LinkedHashMap<String, String>> groups = new LinkedHashMap<>();
+    private final Set<String> changedGroups = new HashSet<>(); // Guarded by this
+    private long lastPostMillis = -MIN_POST_INTERVAL_MILLIS; // Guarded by this
+    private boolean postScheduled = false; // Guarded by this
 
 
     public NotificationHandler(Context context) {
-        this.context = context;
+        this.context = context.getApplicationContext();
+        Intent intent = new Intent(this.context, MainActivity.class);
+        intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
+        this.contentIntent = PendingIntent.getActivity(this.context, 0, intent, PendingIntent.FLAG_IMMUTABLE);
         createNotificationChannel();
     }
 
+    /**
+     * @return The app's notification handler, shared so messages from every screen are coalesced together.
+     */
+    public static synchronized NotificationHandler getInstance(Context context) {
+        if (instance == null) {
+            instance = new NotificationHandler(context);
+        }
+        return instance;
+    }
+
     private void createNotificationChannel() {
         if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.O) {
             String channelName = "Default Channel";
@@ -44,30 +86,129 @@ public class NotificationHandler {
             }
         }
     }
+
     /**
-     * Displays a system Notification with message, title and app Icon
+     * Adds messages to their events' notifications. The notifications are updated once the rate limit allows.
+     * A message delivered twice is only shown once.
      *
-     * @param title A callback that will be executed once the user is available.
-     * @param message A callback that will be executed once the user is available.
+     * @param messages The messages to display.
      */
-    public void sendNotification(String title, String message) {
-        Intent intent = new Intent(context, MainActivity.class);
-        intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
-        PendingIntent pendingIntent = PendingIntent.getActivity(context, 0, intent, PendingIntent.FLAG_IMMUTABLE);
+    public void post(List<InboxMessage> messages) {
+        Set<Integer> shownIds = shownNotificationIds();
+        long delay;
+        synchronized (this) {
+            forgetDismissedGroups(shownIds);
+            for (InboxMessage message : messages) {
+                String group = message.getEventId() != null ? message.getEventId() : GENERAL_GROUP;
+                String key = message.getId() != null ? message.getId() : message.getMessage();
+                LinkedHashMap<String, String> groupMessages = groups.computeIfAbsent(group, g -> new LinkedHashMap<>());
+                groupMessages.put(key, message.getMessage());
+                Iterator<String> oldest = groupMessages.keySet().iterator();
+                while (groupMessages.size() > MAX_KEPT_MESSAGES) {
+                    oldest.next();
+                    oldest.remove();
+                }
+                changedGroups.add(group);
+            }
+            if (postScheduled || changedGroups.isEmpty()) {
+                return;
+            }
+            postScheduled = true;
+            delay = Math.max(0, lastPostMillis + MIN_POST_INTERVAL_MILLIS - SystemClock.uptimeMillis());
+        }
+        handler.postDelayed(this::postChangedGroups, delay);
+    }
+
+    /**
+     * Updates the notification of every event with new messages, then the group summary.
+     */
+    private void postChangedGroups() {
+        NotificationManager notificationManager = (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
+        Set<Integer> shownIds = shownNotificationIds();
+        Map<String, List<String>> changed = new LinkedHashMap<>();
+        List<String> latestMessages = new ArrayList<>();
+        synchronized (this) {
+            postScheduled = false;
+            lastPostMillis = SystemClock.uptimeMillis();
+            forgetDismissedGroups(shownIds);
+            for (Map.Entry<String, LinkedHashMap<String, String>> group : groups.entrySet()) {
+                List<String> groupMessages = new ArrayList<>(group.getValue().values());
+                if (changedGroups.contains(group.getKey())) {
+                    changed.put(group.getKey(), groupMessages);
+                }
+                latestMessages.add(groupMessages.get(groupMessages.size() - 1));
+            }
+            changedGroups.clear();
+        }
+        if (notificationManager == null) {
+            return;
+        }
+
+        for (Map.Entry<String, List<String>> group : changed.entrySet()) {
+            List<String> groupMessages = group.getValue();
+            NotificationCompat.Builder builder = newBuilder(groupMessages)
+                    .setGroup(GROUP_KEY);
+            notificationManager.notify(notificationId(group.getKey()), builder.build());
+        }
+
+        NotificationCompat.Builder summary = newBuilder(latestMessages)
+                .setGroup(GROUP_KEY)
+                .setGroupSummary(true);
+        notificationManager.notify(SUMMARY_ID, summary.build());
+    }
 
-        NotificationCompat.Builder builder = new NotificationCompat.Builder(context, CHANNEL_ID)
+    /**
+     * @return The IDs of the app's notifications that are still showing.
+     */
+    private Set<Integer> shownNotificationIds() {
+        NotificationManager notificationManager = (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
+        Set<Integer> ids = new HashSet<>();
+        if (notificationManager != null) {
+            for (StatusBarNotification notification : notificationManager.getActiveNotifications()) {
+                ids.add(notification.getId());
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Forgets the messages of every group whose notification is no longer showing, except groups waiting to be posted.
+     * Must be called while holding this object's lock.
+     */
+    private void forgetDismissedGroups(Set<Integer> shownIds) {
+        groups.keySet().removeIf(group -> !changedGroups.contains(group) && !shownIds.contains(notificationId(group)));
+    }
+
+    /**
+     * Builds a notification listing the most recent of the given messages.
+     */
+    private NotificationCompat.Builder newBuilder(List<String> messages) {
+        NotificationCompat.InboxStyle style = new NotificationCompat.InboxStyle();
+        int first = Math.max(0, messages.size() - MAX_LINES);
+        for (int i = messages.size() - 1; i >= first; i--) {
+            style.addLine(messages.get(i));
+        }
+        if (first > 0) {
+            style.setSummaryText("+" + first + " more");
+        }
+
+        String title = messages.size() == 1 ? "Welcome Back!" : messages.size() + " new notifications";
+        return new NotificationCompat.Builder(context, CHANNEL_ID)
                 .setSmallIcon(R.drawable.event_wizard_logo)
                 .setContentTitle(title)
-                .setContentText(message)
+                .setContentText(messages.get(messages.size() - 1))
+                .setStyle(style)
+                .setNumber(messages.size())
                 .setPriority(NotificationCompat.PRIORITY_HIGH)
-                .setContentIntent(pendingIntent)
+                .setContentIntent(contentIntent)
+                .setOnlyAlertOnce(true)
                 .setAutoCancel(true);
+    }
 
-        NotificationManager notificationManager = (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
-        if (notificationManager != null) {
-            // Use a unique ID for each notification
-            int notificationId = new Random().nextInt(100000); // Generate a random ID
-            notificationManager.notify(notificationId, builder.build());
-        }
+    /**
+     * @return The stable notification ID of an event's notification, never the summary's ID.
+     */
+    private static int notificationId(String group) {
+        return 1 + (group.hashCode() & 0x7fffffff) % (Integer.MAX_VALUE - 1);
     }
 }
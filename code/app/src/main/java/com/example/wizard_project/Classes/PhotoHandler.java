@@ -7,17 +7,16 @@ import android.content.Context;
 import android.content.Intent;
 import android.net.Uri;
 import android.provider.MediaStore;
+import android.util.Log;
 import android.widget.ImageView;
-import android.widget.Toast;
 
 
 import com.bumptech.glide.Glide;
+import com.example.wizard_project.Controllers.CascadeDeleter;
+import com.example.wizard_project.Core.ImageRenditions;
 import com.google.android.gms.tasks.OnFailureListener;
 import com.google.android.gms.tasks.OnSuccessListener;
-import com.google.firebase.storage.FirebaseStorage;
-import com.google.firebase.storage.StorageReference;
 
-import java.util.UUID;
 /**
  *  PhotoHandler is a Utility class used for the User profile picture
  *  that has the method functionality:
@@ -29,55 +28,68 @@ public class PhotoHandler {
     public static final int PICK_IMAGE_REQUEST = 1; // Request code for image selection
 
     /**
-     * Uploads an image to Firebase.
-     * This method uses Glide or a similar image loading library to display the image
+     * Uploads an image to Firebase as a set of WebP renditions, and records their paths on the user.
+     * The user's previous picture is released in the same write, and its files deleted if no one else uses it.
      *
+     * @param context         the context used to read the image
      * @param imageUri        the Uri of the image to upload
      * @param successListener the listener triggered on successful upload, returns the download Uri
      * @param failureListener the listener triggered on upload failure, returns an exception
      */
-    public void uploadImage(User currentUser, Uri imageUri, OnSuccessListener<Uri> successListener, OnFailureListener failureListener) {
-        String path = "images/" + UUID.randomUUID().toString();
-        currentUser.setProfilePath(path);
-        StorageReference imageRef = FirebaseStorage.getInstance().getReference().child(path);
-        imageRef.putFile(imageUri)
-                .addOnSuccessListener(taskSnapshot -> imageRef.getDownloadUrl().addOnSuccessListener(successListener))
-                .addOnFailureListener(failureListener);
+    public void uploadImage(Context context, User currentUser, Uri imageUri, OnSuccessListener<Uri> successListener, OnFailureListener failureListener) {
+        ImageUploader.getInstance(context).upload(imageUri, new ImageUploader.uploadCallback() {
+            @Override
+            public void onUploaded(ImageUploader.UploadedImage image) {
+                currentUser.saveProfileImage(image.getPath(ImageRenditions.Rendition.FULL),
+                                image.getPath(ImageRenditions.Rendition.CARD),
+                                image.getPath(ImageRenditions.Rendition.THUMBNAIL))
+                        .addOnSuccessListener(releasedImageId -> {
+                            if (releasedImageId != null) {
+                                CascadeDeleter.getInstance().deleteImage(releasedImageId, new CascadeDeleter.fileCallback() {
+                                    @Override
+                                    public void onDeleted() {
+                                    }
+
+                                    @Override
+                                    public void onFailure(Exception e) {
+                                        Log.e("PhotoHandler", "Failed to delete image " + releasedImageId, e);
+                                    }
+                                });
+                            }
+                            successListener.onSuccess(Uri.parse(image.getUrl()));
+                        })
+                        .addOnFailureListener(failureListener::onFailure);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                failureListener.onFailure(e);
+            }
+        });
     }
 
     /**
-     * Deletes an image to Firebase.
-     * This method uses Glide or a similar image loading library to display the image
+     * Deletes an image and its renditions from Firebase.
      *
      * @param imageName       the String path of the image to delete
      * @param successListener the listener triggered on successful upload, returns the download Uri
      * @param failureListener the listener triggered on upload failure, returns an exception
      */
     public void deleteImage(String imageName, OnSuccessListener<Void> successListener, OnFailureListener failureListener) {
-        // Get a reference to the image in Firebase Storage
-        StorageReference imageRef = FirebaseStorage.getInstance().getReference().child(imageName);
-        // Delete the image
-        imageRef.delete()
+        ImageUploader.delete(imageName)
                 .addOnSuccessListener(successListener)
                 .addOnFailureListener(failureListener);
     }
 
     /**
      * Loads an image from Firebase Storage into an ImageView.
-     * This method uses Glide or a similar image loading library to display the image
+     * Glide loads the smallest rendition that fills the view, using the cached download URL if there is one
      *
      * @param imageName the path to the image in Firebase Storage
      * @param imageView the ImageView where the image will be displayed
      *
      */
     public void loadImage(String imageName, ImageView imageView, Context context) {
-
-        StorageReference imageRef = FirebaseStorage.getInstance().getReference().child(imageName);
-
-        imageRef.getDownloadUrl().addOnSuccessListener(uri -> {
-            Glide.with(context).load(uri).into(imageView);
-        }).addOnFailureListener(e -> {
-            Toast.makeText(context, "Failed to retrieve image", Toast.LENGTH_SHORT).show();
-        });
+        Glide.with(context).load(new StoredImage(imageName, null)).into(imageView);
     }
 }
@@ -0,0 +1,158 @@
+package com.example.wizard_project.Classes;
+
+import android.app.Activity;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+import androidx.tracing.Trace;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * StartupTracer times the stages of the app's startup.
+ * Every stage is emitted as a trace section, so it shows up in system traces and Perfetto, and a timing report
+ * is logged once the startup work has finished. Times are measured from the start of the process, so cold starts
+ * can be compared across releases with {@code adb logcat -s StartupTrace}.
+ */
+public class StartupTracer {
+    private static final String TAG = "StartupTrace";
+    private final long processStartMillis = Process.getStartUptimeMillis();
+    private final List<Stage> stages = new ArrayList<>();
+    private int nextCookie = 0;
+    private long firstFrameMillis = -1;
+    private long interactiveMillis = -1;
+
+    /**
+     * Runs a stage on the calling thread.
+     *
+     * @param name The name of the stage.
+     * @param work The work done in the stage.
+     */
+    public void run(String name, Runnable work) {
+        Stage stage = new Stage(name, -1);
+        Trace.beginSection(name);
+        try {
+            work.run();
+        } finally {
+            Trace.endSection();
+            stage.finish();
+        }
+    }
+
+    /**
+     * Starts a stage that ends asynchronously, such as one waiting on the database.
+     *
+     * @param name The name of the stage.
+     * @return The stage, to be ended with {@link Stage#end()}.
+     */
+    public synchronized Stage begin(String name) {
+        Stage stage = new Stage(name, nextCookie++);
+        Trace.beginAsyncSection(name, stage.cookie);
+        return stage;
+    }
+
+    /**
+     * Records the first frame of a view, then runs work after that frame has been drawn.
+     *
+     * @param view           The root view of the first screen.
+     * @param afterFirstFrame Work deferred until after the first frame.
+     */
+    public void onFirstFrame(View view, Runnable afterFirstFrame) {
+        view.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                view.getViewTreeObserver().removeOnPreDrawListener(this);
+                synchronized (StartupTracer.this) {
+                    firstFrameMillis = elapsed();
+                }
+                view.post(afterFirstFrame);
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Records that the app is interactive and reports it to the system. Only the first call has an effect.
+     *
+     * @param activity The activity that became interactive.
+     */
+    public void markInteractive(Activity activity) {
+        synchronized (this) {
+            if (interactiveMillis >= 0) {
+                return;
+            }
+            interactiveMillis = elapsed();
+        }
+        activity.reportFullyDrawn();
+    }
+
+    /**
+     * Logs the timing report. Call this once the stages that startup waits on have ended.
+     */
+    public void logReport() {
+        Log.i(TAG, report());
+    }
+
+    /**
+     * @return The timing report: time to first frame, time to interactive and the start and duration of each stage.
+     */
+    public synchronized String report() {
+        StringBuilder report = new StringBuilder(String.format(Locale.ROOT,
+                "Startup: first frame %d ms, interactive %d ms", firstFrameMillis, interactiveMillis));
+        for (Stage stage : stages) {
+            report.append(String.format(Locale.ROOT, "%n  %-14s started %5d ms, took %s",
+                    stage.name, stage.startMillis, stage.endMillis >= 0 ? (stage.endMillis - stage.startMillis) + " ms" : "(running)"));
+        }
+        return report.toString();
+    }
+
+    private long elapsed() {
+        return SystemClock.uptimeMillis() - processStartMillis;
+    }
+
+    /**
+     * A stage of startup.
+     */
+    public class Stage {
+        private final String name;
+        private final int cookie;
+        private final long startMillis;
+        private long endMillis = -1;
+
+        private Stage(String name, int cookie) {
+            this.name = name;
+            this.cookie = cookie;
+            this.startMillis = elapsed();
+            synchronized (StartupTracer.this) {
+                stages.add(this);
+            }
+        }
+
+        /**
+         * Ends the stage. Only the first call has an effect.
+         *
+         * @return True if this call ended the stage, false if it had ended already.
+         */
+        public boolean end() {
+            synchronized (StartupTracer.this) {
+                if (endMillis >= 0) {
+                    return false;
+                }
+                finish();
+            }
+            Trace.endAsyncSection(name, cookie);
+            return true;
+        }
+
+        private void finish() {
+            synchronized (StartupTracer.this) {
+                endMillis = elapsed();
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.wizard_project.Classes;
+
+import android.net.Uri;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Objects;
+
+/**
+ * StoredImage is the model Glide loads an uploaded image from: the storage path of the full image, and its download
+ * URL if it is already known. {@link StoredImageLoader} loads the smallest rendition that fills the target view.
+ */
+public class StoredImage {
+    private final String path;
+    private final String url;
+
+    /**
+     * Constructs a StoredImage.
+     *
+     * @param path The storage path of the full image, as recorded on the owning document.
+     * @param url  The download URL of the full image, or an empty string or null if it is not known.
+     */
+    public StoredImage(@NonNull String path, @Nullable String url) {
+        this.path = path.startsWith("/") ? path.substring(1) : path;
+        this.url = url != null ? url : "";
+    }
+
+    /**
+     * Picks what to load an image from. Images recorded with only a URL are loaded from the URL.
+     *
+     * @param path The storage path of the full image, or an empty string or null if there is none.
+     * @param url  The download URL of the full image, or an empty string or null if there is none.
+     * @return The model to pass to Glide, or null if there is no image.
+     */
+    @Nullable
+    public static Object of(@Nullable String path, @Nullable String url) {
+        if (path != null && !path.isEmpty()) {
+            return new StoredImage(path, url);
+        }
+        if (url != null && !url.isEmpty()) {
+            return Uri.parse(url);
+        }
+        return null;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof StoredImage)) {
+            return false;
+        }
+        StoredImage other = (StoredImage) o;
+        return path.equals(other.path) && url.equals(other.url);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(path, url);
+    }
+}
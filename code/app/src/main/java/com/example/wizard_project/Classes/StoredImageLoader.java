@@ -0,0 +1,265 @@
+package com.example.wizard_project.Classes;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.bumptech.glide.Priority;
+import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.HttpException;
+import com.bumptech.glide.load.Options;
+import com.bumptech.glide.load.data.DataFetcher;
+import com.bumptech.glide.load.model.GlideUrl;
+import com.bumptech.glide.load.model.ModelLoader;
+import com.bumptech.glide.load.model.ModelLoaderFactory;
+import com.bumptech.glide.load.model.MultiModelLoaderFactory;
+import com.bumptech.glide.signature.ObjectKey;
+import com.example.wizard_project.Controllers.DownloadUrlCache;
+import com.example.wizard_project.Core.ImageRenditions;
+import com.example.wizard_project.Core.ImageRenditions.Rendition;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.storage.StorageException;
+import com.google.firebase.storage.StorageReference;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * StoredImageLoader loads a {@link StoredImage} at the smallest rendition that fills the target view.
+ * Loads are keyed by the rendition's storage path, so an image in Glide's disk cache is shown without asking
+ * storage for anything. Otherwise the rendition's download URL is read from the {@link DownloadUrlCache}, and only
+ * requested from storage the first time the rendition is shown. Images uploaded before renditions existed have
+ * only the full image, which is then loaded in place of the missing rendition; its URL is cached under the
+ * rendition's fallback key rather than the rendition's own path. A cached URL that storage refuses, such as once
+ * its token is revoked or the file is replaced, is dropped and requested again, and the download retried once.
+ */
+public class StoredImageLoader implements ModelLoader<StoredImage, InputStream> {
+    private static final long URL_TIMEOUT_SECONDS = 15;
+
+    private final ModelLoader<GlideUrl, InputStream> urlLoader;
+    private final DownloadUrlCache urlCache;
+    private final StorageReference root;
+
+    /**
+     * Constructs a StoredImageLoader.
+     *
+     * @param urlLoader The loader that downloads from a URL.
+     * @param urlCache  The cache of download URLs to read from and add to.
+     * @param root      The root of the storage the images are in.
+     */
+    public StoredImageLoader(ModelLoader<GlideUrl, InputStream> urlLoader, DownloadUrlCache urlCache,
+                             StorageReference root) {
+        this.urlLoader = urlLoader;
+        this.urlCache = urlCache;
+        this.root = root;
+    }
+
+    @Nullable
+    @Override
+    public LoadData<InputStream> buildLoadData(@NonNull StoredImage image, int width, int height,
+                                               @NonNull Options options) {
+        Rendition rendition = ImageRenditions.forSize(width, height);
+        String path = ImageRenditions.renditionPath(image.getPath(), rendition);
+        return new LoadData<>(new ObjectKey(path), new Fetcher(image, rendition, path, width, height, options));
+    }
+
+    @Override
+    public boolean handles(@NonNull StoredImage image) {
+        return true;
+    }
+
+    /**
+     * Resolves the download URL of a rendition, then downloads it with the URL loader.
+     * Glide runs fetchers on its own background threads, so the URL is waited for there.
+     */
+    private class Fetcher implements DataFetcher<InputStream> {
+        private final StoredImage image;
+        private final Rendition rendition;
+        private final String path;
+        private final int width;
+        private final int height;
+        private final Options options;
+        private volatile boolean cancelled = false;
+        private volatile DataFetcher<InputStream> download;
+        private volatile String urlKey; // The cache key the URL being downloaded was stored under
+
+        Fetcher(StoredImage image, Rendition rendition, String path, int width, int height, Options options) {
+            this.image = image;
+            this.rendition = rendition;
+            this.path = path;
+            this.width = width;
+            this.height = height;
+            this.options = options;
+        }
+
+        @Override
+        public void loadData(@NonNull Priority priority, @NonNull DataCallback<? super InputStream> callback) {
+            load(priority, callback, false);
+        }
+
+        /**
+         * Downloads the rendition. The first attempt may use a cached URL; if storage refuses it, the URL is
+         * dropped from the cache and the download is tried once more with a URL requested from storage.
+         */
+        private void load(Priority priority, DataCallback<? super InputStream> callback, boolean refresh) {
+            String url;
+            try {
+                url = resolveUrl(refresh);
+            } catch (ExecutionException | TimeoutException e) {
+                Log.e("StoredImageLoader", "Failed to get the download URL of " + path, e);
+                callback.onLoadFailed(e);
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                callback.onLoadFailed(e);
+                return;
+            }
+            if (cancelled) {
+                return;
+            }
+
+            LoadData<InputStream> loadData = urlLoader.buildLoadData(new GlideUrl(url), width, height, options);
+            if (loadData == null) {
+                callback.onLoadFailed(new IOException("Cannot download " + url));
+                return;
+            }
+            DataFetcher<InputStream> fetcher = loadData.fetcher;
+            download = fetcher;
+            fetcher.loadData(priority, new DataCallback<InputStream>() {
+                @Override
+                public void onDataReady(@Nullable InputStream data) {
+                    callback.onDataReady(data);
+                }
+
+                @Override
+                public void onLoadFailed(@NonNull Exception e) {
+                    if (refresh || cancelled || !isRefused(e)) {
+                        callback.onLoadFailed(e);
+                        return;
+                    }
+                    Log.d("StoredImageLoader", "Download URL of " + path + " was refused, requesting a new one");
+                    urlCache.remove(urlKey);
+                    fetcher.cleanup();
+                    load(priority, callback, true);
+                }
+            });
+        }
+
+        /**
+         * @param refresh True to ignore the cached URLs and the URL recorded on the image, which were refused.
+         * @return The download URL of the rendition, from the cache if it is there.
+         */
+        private String resolveUrl(boolean refresh) throws ExecutionException, InterruptedException, TimeoutException {
+            String fallbackKey = DownloadUrlCache.fallbackKey(path);
+            if (!refresh) {
+                for (String key : new String[]{path, fallbackKey}) {
+                    String url = urlCache.get(key);
+                    if (url != null) {
+                        urlKey = key;
+                        return url;
+                    }
+                }
+            }
+
+            String url;
+            if (rendition == Rendition.FULL) {
+                url = !refresh && !image.getUrl().isEmpty() ? image.getUrl() : requestUrl(path);
+            } else {
+                try {
+                    url = requestUrl(path);
+                } catch (ExecutionException e) {
+                    if (!isNotFound(e)) {
+                        throw e;
+                    }
+                    // Uploaded before renditions existed, so the full image stands in for the rendition.
+                    String fullPath = ImageRenditions.renditionPath(image.getPath(), Rendition.FULL);
+                    url = !refresh ? urlCache.get(fullPath) : null;
+                    if (url == null) {
+                        url = !refresh && !image.getUrl().isEmpty() ? image.getUrl() : requestUrl(fullPath);
+                        urlCache.put(fullPath, url);
+                    }
+                    urlCache.put(fallbackKey, url);
+                    urlKey = fallbackKey;
+                    return url;
+                }
+            }
+            urlCache.put(path, url);
+            urlKey = path;
+            return url;
+        }
+
+        private String requestUrl(String path) throws ExecutionException, InterruptedException, TimeoutException {
+            return Tasks.await(root.child(path).getDownloadUrl(), URL_TIMEOUT_SECONDS, TimeUnit.SECONDS).toString();
+        }
+
+        /**
+         * @return True if storage refused a download, as it does for a URL whose token was revoked
+         * or whose file is gone.
+         */
+        private boolean isRefused(Exception e) {
+            return e instanceof HttpException
+                    && (((HttpException) e).getStatusCode() == 403 || ((HttpException) e).getStatusCode() == 404);
+        }
+
+        private boolean isNotFound(ExecutionException e) {
+            return e.getCause() instanceof StorageException
+                    && ((StorageException) e.getCause()).getErrorCode() == StorageException.ERROR_OBJECT_NOT_FOUND;
+        }
+
+        @Override
+        public void cleanup() {
+            DataFetcher<InputStream> download = this.download;
+            if (download != null) {
+                download.cleanup();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            DataFetcher<InputStream> download = this.download;
+            if (download != null) {
+                download.cancel();
+            }
+        }
+
+        @NonNull
+        @Override
+        public Class<InputStream> getDataClass() {
+            return InputStream.class;
+        }
+
+        @NonNull
+        @Override
+        public DataSource getDataSource() {
+            return DataSource.REMOTE;
+        }
+    }
+
+    /**
+     * Builds StoredImageLoaders on top of the URL loader Glide is configured with.
+     */
+    public static class Factory implements ModelLoaderFactory<StoredImage, InputStream> {
+        private final DownloadUrlCache urlCache;
+        private final StorageReference root;
+
+        public Factory(DownloadUrlCache urlCache, StorageReference root) {
+            this.urlCache = urlCache;
+            this.root = root;
+        }
+
+        @NonNull
+        @Override
+        public ModelLoader<StoredImage, InputStream> build(@NonNull MultiModelLoaderFactory multiFactory) {
+            return new StoredImageLoader(multiFactory.build(GlideUrl.class, InputStream.class), urlCache, root);
+        }
+
+        @Override
+        public void teardown() {
+        }
+    }
+}
@@ -1,33 +1,51 @@
 package com.example.wizard_project.Classes;
 
+import com.example.wizard_project.Codec.StoredField;
+import com.example.wizard_project.Codec.StoredModel;
+import com.example.wizard_project.Controllers.FirestoreDataStore;
+import com.example.wizard_project.Core.ImageReferences;
 import com.example.wizard_project.R;
-import com.google.firebase.firestore.DocumentReference;
-import com.google.firebase.firestore.DocumentSnapshot;
-import com.google.firebase.firestore.FirebaseFirestore;
+import com.example.wizard_project.Store.DataStore;
+import com.example.wizard_project.Store.StoreTask;
+
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * The User class represents a user in the application, and provides methods to manage user data.
- * This class is designed to interact with Firestore to store and retrieve user data.
+ * This class is designed to interact with the database to store and retrieve user data.
+ * Users are read from and written to their documents through the generated {@link UserCodec}.
  */
+@StoredModel
 public class User {
-    private final FirebaseFirestore db;
-    private String deviceId;
-    private String name;
-    private String email;
-    private String phoneNumber;
-    private boolean isAdmin;
-    private boolean isEntrant;
-    private boolean isOrganizer;
-    private String profilePictureUri;
-    private String profilePath;
-    private DocumentReference userRef;
+    private final DataStore db;
+    @StoredField(value = "deviceId", documentId = true) String deviceId;
+    @StoredField("name") String name;
+    @StoredField("email") String email;
+    @StoredField("phoneNumber") String phoneNumber;
+    @StoredField("IsAdmin") boolean isAdmin;
+    @StoredField("IsEntrant") boolean isEntrant;
+    @StoredField("isOrganizer") boolean isOrganizer;
+    @StoredField("photoId") String profilePictureUri;
+    @StoredField("profilePath") String profilePath;
+    @StoredField("profileCardPath") String profileCardPath;
+    @StoredField("profileThumbnailPath") String profileThumbnailPath;
 
     /**
-     * Default constructor initializes fields with default values and sets up Firestore reference.
+     * Default constructor initializes fields with default values and sets up the Firestore reference.
      */
     public User() {
+        this(FirestoreDataStore.getInstance());
+    }
+
+    /**
+     * Constructor initializing fields with default values, storing the user's data in the given data store.
+     *
+     * @param db The data store holding the user's document.
+     */
+    public User(DataStore db) {
         // Initialize fields with default values if needed
-        db = FirebaseFirestore.getInstance();
+        this.db = db;
         this.deviceId = "";
         this.email = "";
         this.isAdmin = false;
@@ -37,7 +55,8 @@ public class User {
         this.phoneNumber = "";
         this.profilePictureUri = "";
         this.profilePath = "";
-        initializeDocumentReference();
+        this.profileCardPath = "";
+        this.profileThumbnailPath = "";
     }
 
     /**
@@ -54,7 +73,7 @@ public class User {
      * @param profilePath       The URI for the user's profile picture.
      */
     public User(String deviceId, String email,boolean isAdmin, boolean isEntrant, boolean isOrganizer, String name, String phoneNumber, String profilePictureUri, String profilePath) {
-        db = FirebaseFirestore.getInstance();
+        db = FirestoreDataStore.getInstance();
         this.deviceId = deviceId;
         this.email = email;
         this.isAdmin = isAdmin;
@@ -64,7 +83,8 @@ public class User {
         this.phoneNumber = phoneNumber;
         this.profilePictureUri = profilePictureUri;
         this.profilePath = profilePath;
-        initializeDocumentReference();
+        this.profileCardPath = "";
+        this.profileThumbnailPath = "";
     }
 
     // Getters and Setters with corresponding Firestore updates
@@ -74,8 +94,7 @@ public class User {
 
     public void setDeviceId(String deviceId) {
         this.deviceId = deviceId;
-        initializeDocumentReference();
-        updateFieldInDatabase("deviceId", deviceId);
+        updateFieldInDatabase(UserCodec.DEVICE_ID, deviceId);
     }
 
     public String getEmail() {
@@ -84,7 +103,7 @@ public class User {
 
     public void setEmail(String email) {
         this.email = email;
-        updateFieldInDatabase("email", email);
+        updateFieldInDatabase(UserCodec.EMAIL, email);
     }
 
     public boolean isAdmin() {
@@ -93,7 +112,7 @@ public class User {
 
     public void setAdmin(boolean admin) {
         isAdmin = admin;
-        updateFieldInDatabase("isAdmin", admin);
+        updateFieldInDatabase(UserCodec.IS_ADMIN, admin);
     }
 
     public boolean isEntrant() {
@@ -102,7 +121,7 @@ public class User {
 
     public void setEntrant(boolean entrant) {
         isEntrant = entrant;
-        updateFieldInDatabase("isEntrant", entrant);
+        updateFieldInDatabase(UserCodec.IS_ENTRANT, entrant);
     }
 
     public boolean isOrganizer() {
@@ -111,7 +130,7 @@ public class User {
 
     public void setOrganizer(boolean organizer) {
         isOrganizer = organizer;
-        updateFieldInDatabase("isOrganizer", organizer);
+        updateFieldInDatabase(UserCodec.IS_ORGANIZER, organizer);
     }
 
     public String getName() {
@@ -120,7 +139,7 @@ public class User {
 
     public void setName(String name) {
         this.name = name;
-        updateFieldInDatabase("name", name);
+        updateFieldInDatabase(UserCodec.NAME, name);
     }
 
     public String getPhoneNumber() {
@@ -129,7 +148,7 @@ public class User {
 
     public void setPhoneNumber(String phoneNumber) {
         this.phoneNumber = phoneNumber;
-        updateFieldInDatabase("phoneNumber", phoneNumber);
+        updateFieldInDatabase(UserCodec.PHONE_NUMBER, phoneNumber);
     }
 
     public String getProfilePictureUri() {
@@ -138,7 +157,7 @@ public class User {
 
     public void setProfilePictureUri(String profilePictureUri) {
         this.profilePictureUri = profilePictureUri;
-        updateFieldInDatabase("photoId", profilePictureUri);
+        updateFieldInDatabase(UserCodec.PROFILE_PICTURE_URI, profilePictureUri);
     }
 
     public String getProfilePath() {
@@ -147,7 +166,54 @@ public class User {
 
     public void setProfilePath(String profilePath) {
         this.profilePath = profilePath;
-        updateFieldInDatabase("profilePath", profilePath);
+        updateFieldInDatabase(UserCodec.PROFILE_PATH, profilePath);
+    }
+
+    public String getProfileCardPath() {
+        return this.profileCardPath;
+    }
+
+    public void setProfileCardPath(String profileCardPath) {
+        this.profileCardPath = profileCardPath;
+        updateFieldInDatabase(UserCodec.PROFILE_CARD_PATH, profileCardPath);
+    }
+
+    public String getProfileThumbnailPath() {
+        return this.profileThumbnailPath;
+    }
+
+    public void setProfileThumbnailPath(String profileThumbnailPath) {
+        this.profileThumbnailPath = profileThumbnailPath;
+        updateFieldInDatabase(UserCodec.PROFILE_THUMBNAIL_PATH, profileThumbnailPath);
+    }
+
+    /**
+     * Saves the paths of a new profile picture. The reference to the new picture is counted, and the reference to
+     * the previous one released, in the same write as the paths, so a picture is only counted once it is saved.
+     *
+     * @param fullPath      The storage path of the full picture.
+     * @param cardPath      The storage path of its card rendition.
+     * @param thumbnailPath The storage path of its thumbnail rendition.
+     * @return A task resolving to the ID of the previous picture if that was its last reference, so its files should
+     * be deleted, or to null otherwise.
+     */
+    public StoreTask<String> saveProfileImage(String fullPath, String cardPath, String thumbnailPath) {
+        String userPath = DataStore.path("users", deviceId);
+        Map<String, Object> paths = new HashMap<>();
+        paths.put(UserCodec.PROFILE_PATH, fullPath);
+        paths.put(UserCodec.PROFILE_CARD_PATH, cardPath);
+        paths.put(UserCodec.PROFILE_THUMBNAIL_PATH, thumbnailPath);
+        return db.<String>runTransaction(transaction -> {
+            String releasedImageId = new ImageReferences(db).moveReference(transaction, userPath,
+                    UserCodec.PROFILE_PATH, fullPath);
+            transaction.update(userPath, paths);
+            return releasedImageId;
+        }).onSuccessTask(releasedImageId -> {
+            this.profilePath = fullPath;
+            this.profileCardPath = cardPath;
+            this.profileThumbnailPath = thumbnailPath;
+            return StoreTask.forResult(releasedImageId);
+        });
     }
 
     /**
@@ -163,6 +229,8 @@ public class User {
         this.phoneNumber = "";
         this.profilePictureUri = "";
         this.profilePath = "";
+        this.profileCardPath = "";
+        this.profileThumbnailPath = "";
     }
 
     /**
@@ -182,25 +250,14 @@ public class User {
     }
 
     /**
-     * Initializes the user document reference if the device ID is valid.
-     */
-    private void initializeDocumentReference() {
-        if (deviceId != null && !deviceId.isEmpty()) {
-            userRef = db.collection("users").document(deviceId);
-        } else {
-            userRef = null;
-        }
-    }
-
-    /**
-     * Updates a specific field in the Firestore user document.
+     * Updates a specific field in the user document.
      *
      * @param field The field to be updated.
      * @param value The new value for the field.
      */
     private void updateFieldInDatabase(String field, Object value) {
-        if (userRef != null) {
-            userRef.update(field, value)
+        if (deviceId != null && !deviceId.isEmpty()) {
+            db.update(DataStore.path("users", deviceId), field, value)
                     .addOnSuccessListener(aVoid -> System.out.println("Field " + field + " updated successfully."))
                     .addOnFailureListener(e -> System.err.println("Failed to update field " + field + ": " + e.getMessage()));
         } else {
@@ -208,24 +265,6 @@ public class User {
         }
     }
 
-    /**
-     * Populates the user object with data from a Firestore document.
-     *
-     * @param document The Firestore document containing user data.
-     */
-    public void setUserData(DocumentSnapshot document) {
-        this.deviceId = (String) document.get("deviceId");
-        this.email = (String) document.get("email");
-        this.isAdmin = (Boolean) document.get("IsAdmin");
-        this.isEntrant = (Boolean) document.get("IsEntrant");
-        this.isOrganizer = (Boolean) document.get("isOrganizer");
-        this.name = (String) document.get("name");
-        this.phoneNumber = (String) document.get("phoneNumber");
-        this.profilePictureUri = (String) document.get("photoId");
-        this.profilePath = (String) document.get("profilePath");
-        initializeDocumentReference();
-    }
-
     /**
      * Generates a deterministic profile picture based on the user's name.
      *
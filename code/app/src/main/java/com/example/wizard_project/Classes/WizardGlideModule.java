@@ -0,0 +1,47 @@
+package com.example.wizard_project.Classes;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.GlideBuilder;
+import com.bumptech.glide.Registry;
+import com.bumptech.glide.annotation.GlideModule;
+import com.bumptech.glide.load.engine.cache.InternalCacheDiskCacheFactory;
+import com.bumptech.glide.load.engine.cache.MemorySizeCalculator;
+import com.bumptech.glide.module.AppGlideModule;
+import com.example.wizard_project.Controllers.DownloadUrlCache;
+import com.google.firebase.storage.FirebaseStorage;
+
+import java.io.InputStream;
+
+/**
+ * WizardGlideModule configures Glide for the app: cache sizes suited to scrolling lists of event and facility
+ * cards, and the {@link StoredImageLoader} that loads uploaded images by their storage path.
+ */
+@GlideModule
+public class WizardGlideModule extends AppGlideModule {
+    public static final float MEMORY_CACHE_SCREENS = 3; // Decoded images kept for about three screens of a list
+    public static final float BITMAP_POOL_SCREENS = 3;
+    public static final long DISK_CACHE_BYTES = 200L * 1024 * 1024; // Renditions are small, so this holds thousands
+
+    @Override
+    public void applyOptions(@NonNull Context context, @NonNull GlideBuilder builder) {
+        builder.setMemorySizeCalculator(new MemorySizeCalculator.Builder(context)
+                .setMemoryCacheScreens(MEMORY_CACHE_SCREENS)
+                .setBitmapPoolScreens(BITMAP_POOL_SCREENS));
+        builder.setDiskCache(new InternalCacheDiskCacheFactory(context, DISK_CACHE_BYTES));
+    }
+
+    @Override
+    public void registerComponents(@NonNull Context context, @NonNull Glide glide, @NonNull Registry registry) {
+        registry.prepend(StoredImage.class, InputStream.class, new StoredImageLoader.Factory(
+                DownloadUrlCache.getInstance(context), FirebaseStorage.getInstance().getReference()));
+    }
+
+    @Override
+    public boolean isManifestParsingEnabled() {
+        return false;
+    }
+}
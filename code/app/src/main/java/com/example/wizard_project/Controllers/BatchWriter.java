@@ -0,0 +1,155 @@
+package com.example.wizard_project.Controllers;
+
+import android.util.Log;
+
+import com.example.wizard_project.Store.DataStore;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * BatchWriter groups a list of items into write batches and commits them.
+ * Each batch holds at most {@link #MAX_BATCH_SIZE} operations, and at most
+ * {@link #MAX_CONCURRENT_BATCHES} batches are in flight at any time.
+ *
+ * @param <T> The type of item written to the database.
+ */
+public class BatchWriter<T> {
+    public static final int MAX_BATCH_SIZE = 500; // Firestore's limit on operations per batch
+    public static final int MAX_CONCURRENT_BATCHES = 4;
+
+    private final DataStore db;
+    private final ItemWriter<T> itemWriter;
+
+    /**
+     * Constructs a BatchWriter that writes items using the given item writer.
+     *
+     * @param db         The database instance to create batches from.
+     * @param itemWriter Adds the operations for a single item to a batch.
+     */
+    public BatchWriter(DataStore db, ItemWriter<T> itemWriter) {
+        this.db = db;
+        this.itemWriter = itemWriter;
+    }
+
+    /**
+     * Splits the items into chunks that each fit within a single batch.
+     *
+     * @param items The items to split.
+     * @return A list of chunks, in the same order as the items.
+     */
+    public List<List<T>> chunk(List<T> items) {
+        List<List<T>> chunks = new ArrayList<>();
+        List<T> chunk = new ArrayList<>();
+        int operations = 0;
+        for (T item : items) {
+            int itemOperations = itemWriter.countOperations(item);
+            if (operations + itemOperations > MAX_BATCH_SIZE && !chunk.isEmpty()) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>();
+                operations = 0;
+            }
+            chunk.add(item);
+            operations += itemOperations;
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    /**
+     * Writes all items to the database in chunked batches.
+     * Progress is reported after each batch completes, and failed batches are reported individually.
+     *
+     * @param items    The items to write.
+     * @param callback The callback to report progress, failures and completion.
+     */
+    public void write(List<T> items, BatchCallback<T> callback) {
+        List<List<T>> chunks = chunk(items);
+        if (chunks.isEmpty()) {
+            callback.onComplete(new ArrayList<>());
+            return;
+        }
+
+        AtomicInteger nextChunk = new AtomicInteger(0);
+        AtomicInteger finishedChunks = new AtomicInteger(0);
+        List<T> failedItems = Collections.synchronizedList(new ArrayList<>());
+
+        int initialChunks = Math.min(MAX_CONCURRENT_BATCHES, chunks.size());
+        for (int i = 0; i < initialChunks; i++) {
+            commitNextChunk(chunks, nextChunk, finishedChunks, failedItems, callback);
+        }
+    }
+
+    /**
+     * Commits the next pending chunk, then starts another one when it finishes.
+     */
+    private void commitNextChunk(List<List<T>> chunks, AtomicInteger nextChunk, AtomicInteger finishedChunks,
+                                 List<T> failedItems, BatchCallback<T> callback) {
+        int index = nextChunk.getAndIncrement();
+        if (index >= chunks.size()) {
+            return;
+        }
+
+        List<T> chunk = chunks.get(index);
+        DataStore.Batch batch = db.batch();
+        for (T item : chunk) {
+            itemWriter.write(batch, item);
+        }
+
+        batch.commit().addOnCompleteListener(task -> {
+            if (!task.isSuccessful()) {
+                Log.e("BatchWriter", "Failed to commit batch " + (index + 1) + " of " + chunks.size(), task.getException());
+                failedItems.addAll(chunk);
+                callback.onChunkFailure(chunk, task.getException());
+            }
+
+            int finished = finishedChunks.incrementAndGet();
+            callback.onProgress(finished, chunks.size());
+            if (finished == chunks.size()) {
+                callback.onComplete(new ArrayList<>(failedItems));
+            } else {
+                commitNextChunk(chunks, nextChunk, finishedChunks, failedItems, callback);
+            }
+        });
+    }
+
+    /**
+     * Adds the operations for a single item to a write batch.
+     *
+     * @param <T> The type of item written.
+     */
+    public interface ItemWriter<T> {
+        /**
+         * @return The number of operations {@link #write} adds for the item.
+         */
+        int countOperations(T item);
+
+        void write(DataStore.Batch batch, T item);
+    }
+
+    /**
+     * Callback interface for reporting the result of a chunked write.
+     *
+     * @param <T> The type of item written.
+     */
+    public interface BatchCallback<T> {
+        default void onProgress(int committedBatches, int totalBatches) {
+        }
+
+        default void onChunkFailure(List<T> items, Exception e) {
+        }
+
+        /**
+         * Called with items left out of the write because they no longer exist, such as entrants who left
+         * the waiting list. Dropped items are not reported as failed.
+         */
+        default void onDropped(List<T> items) {
+        }
+
+        void onComplete(List<T> failedItems);
+    }
+}
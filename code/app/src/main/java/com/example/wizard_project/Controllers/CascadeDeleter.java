@@ -0,0 +1,620 @@
+package com.example.wizard_project.Controllers;
+
+import android.util.Log;
+
+import com.example.wizard_project.Classes.EventCodec;
+import com.example.wizard_project.Classes.FacilityCodec;
+import com.example.wizard_project.Core.ImageReferences;
+import com.example.wizard_project.Core.ImageRenditions;
+import com.example.wizard_project.Core.ImageRenditions.Rendition;
+import com.example.wizard_project.Core.RegistrationIndex;
+import com.example.wizard_project.Store.DataStore;
+import com.example.wizard_project.Store.FieldTransform;
+import com.example.wizard_project.Store.StoreQuery;
+import com.example.wizard_project.Store.StoredDocument;
+import com.google.firebase.storage.FirebaseStorage;
+import com.google.firebase.storage.StorageException;
+
+import java.util.ArrayDeque;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * CascadeDeleter deletes events and facilities together with everything stored under or about them.
+ * Deleting an event deletes its waiting list and each entrant's registration, its draw order, its draw records,
+ * its entrant counter, its notifications and broadcasts, and releases its poster, deleting every rendition once no other document refers
+ * to it. Deleting a facility deletes each of its events and releases its image the same way.
+ *
+ * <p>Each collection is read one page at a time and deleted in batches of up to {@link #MAX_BATCH_SIZE} operations,
+ * and the next page is read while earlier batches commit. At most {@link #MAX_CONCURRENT_BATCHES} batches of a
+ * deleter are in flight at once, however many deletes are running.
+ *
+ * <p>An event or facility is marked as deleting before anything under it is deleted, and is itself deleted last.
+ * Every step only deletes what is still there, so an interrupted delete is finished by running it again,
+ * which {@link #resumeInterruptedDeletes()} does for every document still marked, and
+ * {@link #resumeInterruptedDeletes(String)} for those of one facility. The mark records which deleter owns the
+ * delete and a server-time heartbeat the owner renews as it makes progress, so a resume leaves alone a delete
+ * whose heartbeat is less than {@link #DELETE_LEASE_MILLIS} old.
+ */
+public class CascadeDeleter {
+    public static final String DELETING_FIELD = "deleting";
+    public static final String DELETING_OWNER_FIELD = "deletingOwner";
+    public static final String DELETING_HEARTBEAT_FIELD = "deletingHeartbeat";
+    public static final long DELETE_LEASE_MILLIS = 5 * 60 * 1000L; // A delete without a heartbeat this long is resumed
+    public static final long HEARTBEAT_MILLIS = 30 * 1000L; // Least time between heartbeats of a running delete
+    private static final String DELETE_CLOCK_FIELD = "deletingCheckedAt"; // Server time a mark was last checked at
+    public static final int MAX_BATCH_SIZE = BatchWriter.MAX_BATCH_SIZE;
+    public static final int MAX_CONCURRENT_BATCHES = BatchWriter.MAX_CONCURRENT_BATCHES;
+    public static final int MAX_CONCURRENT_EVENTS = 4; // Events of one facility deleted at the same time
+    public static final int EVENT_PAGE_SIZE = 20; // Events of a facility read per page
+    public static final int MAX_RESUMED_DELETES = 20; // Interrupted deletes of each kind resumed at once
+    private static CascadeDeleter instance;
+
+    private final DataStore db;
+    private final fileDeleter files;
+    private final ImageReferences images;
+    private final String ownerId = UUID.randomUUID().toString(); // Identifies this deleter's marks
+    private final ArrayDeque<Runnable> pendingCommits = new ArrayDeque<>(); // Guarded by this
+    private int commitsInFlight = 0; // Guarded by this
+
+    /**
+     * Constructs a CascadeDeleter.
+     *
+     * @param db    The data store to delete from.
+     * @param files Deletes the stored files, such as posters, that documents refer to.
+     */
+    public CascadeDeleter(DataStore db, fileDeleter files) {
+        this.db = db;
+        this.files = files;
+        this.images = new ImageReferences(db);
+    }
+
+    /**
+     * @return The deleter for the Firestore database and Firebase Storage.
+     */
+    public static synchronized CascadeDeleter getInstance() {
+        if (instance == null) {
+            instance = new CascadeDeleter(FirestoreDataStore.getInstance(), CascadeDeleter::deleteStorageFile);
+        }
+        return instance;
+    }
+
+    /**
+     * Deletes a file from Firebase Storage. A file that no longer exists counts as deleted,
+     * so a resumed delete does not fail on a poster it already removed.
+     *
+     * @param path     The path of the file.
+     * @param callback The callback for success or failure.
+     */
+    public static void deleteStorageFile(String path, fileCallback callback) {
+        FirebaseStorage.getInstance().getReference().child(path).delete()
+                .addOnSuccessListener(aVoid -> callback.onDeleted())
+                .addOnFailureListener(e -> {
+                    if (e instanceof StorageException
+                            && ((StorageException) e).getErrorCode() == StorageException.ERROR_OBJECT_NOT_FOUND) {
+                        callback.onDeleted();
+                    } else {
+                        callback.onFailure(e);
+                    }
+                });
+    }
+
+    /**
+     * Deletes an event and everything stored under or about it.
+     *
+     * @param eventId  The ID of the event.
+     * @param callback The callback for progress, success or failure.
+     */
+    public void deleteEvent(String eventId, cascadeCallback callback) {
+        deleteEvent(eventId, false, callback);
+    }
+
+    private void deleteEvent(String eventId, boolean resumed, cascadeCallback callback) {
+        Run run = new Run(resumed, callback);
+        deleteEvent(run, eventId, run::succeed);
+    }
+
+    /**
+     * Deletes a facility, each of its events, and everything stored under or about them.
+     *
+     * @param facilityId The ID of the facility.
+     * @param callback   The callback for progress, success or failure.
+     */
+    public void deleteFacility(String facilityId, cascadeCallback callback) {
+        deleteFacility(facilityId, false, callback);
+    }
+
+    private void deleteFacility(String facilityId, boolean resumed, cascadeCallback callback) {
+        Run run = new Run(resumed, callback);
+        String facilityPath = DataStore.path("facilities", facilityId);
+        db.get(facilityPath)
+                .addOnSuccessListener(facility -> markDeleting(run, facility, () ->
+                        deleteFacilityEvents(run, facilityId, () ->
+                                releaseImage(run, facilityPath, FacilityCodec.FACILITY_IMAGE_PATH, () ->
+                                        deleteDocument(run, facilityPath, run::succeed))), run::succeed))
+                .addOnFailureListener(run::fail);
+    }
+
+    /**
+     * Finishes the deletes of facilities and events that were interrupted, such as by the app closing.
+     * Every device could resume them, so only an admin's device should.
+     */
+    public void resumeInterruptedDeletes() {
+        resumeInterruptedDeletes(StoreQuery.collection("facilities").whereEqualTo(DELETING_FIELD, true),
+                (id, callback) -> deleteFacility(id, true, callback));
+        resumeInterruptedDeletes(StoreQuery.collection("events").whereEqualTo(DELETING_FIELD, true),
+                (id, callback) -> deleteEvent(id, true, callback));
+    }
+
+    /**
+     * Finishes the interrupted deletes of a facility and its events, for the device of the facility's owner.
+     * A facility being deleted takes its events with it, so its events are only looked at if it is not.
+     *
+     * @param facilityId The ID of the facility.
+     */
+    public void resumeInterruptedDeletes(String facilityId) {
+        db.get(DataStore.path("facilities", facilityId))
+                .addOnSuccessListener(facility -> {
+                    if (Boolean.TRUE.equals(facility.getBoolean(DELETING_FIELD))) {
+                        resumeDelete(facility, (id, callback) -> deleteFacility(id, true, callback));
+                        return;
+                    }
+                    resumeInterruptedDeletes(StoreQuery.collection("events")
+                                    .whereEqualTo(EventCodec.FACILITY_ID, facilityId)
+                                    .whereEqualTo(DELETING_FIELD, true),
+                            (id, callback) -> deleteEvent(id, true, callback));
+                })
+                .addOnFailureListener(e -> Log.e("CascadeDeleter", "Error reading facility " + facilityId, e));
+    }
+
+    private void resumeInterruptedDeletes(StoreQuery marked, deleteFunction delete) {
+        db.query(marked.limit(MAX_RESUMED_DELETES))
+                .addOnSuccessListener(documents -> {
+                    for (StoredDocument document : documents) {
+                        resumeDelete(document, delete);
+                    }
+                })
+                .addOnFailureListener(e -> Log.e("CascadeDeleter", "Error finding interrupted deletes", e));
+    }
+
+    private void resumeDelete(StoredDocument document, deleteFunction delete) {
+        delete.delete(document.getId(), new cascadeCallback() {
+            @Override
+            public void onSuccess() {
+                Log.d("CascadeDeleter", "Resumed delete of " + document.getPath());
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                Log.e("CascadeDeleter", "Failed to resume delete of " + document.getPath(), e);
+            }
+        });
+    }
+
+    private void deleteEvent(Run run, String eventId, Runnable onDeleted) {
+        String eventPath = DataStore.path("events", eventId);
+        db.get(eventPath)
+                .addOnSuccessListener(event -> markDeleting(run, event, () -> {
+                    // The parts of an event are independent, so they are deleted at the same time.
+                    Runnable partDeleted = countDown(8, () -> deleteDocument(run, eventPath, () -> {
+                        run.eventDeleted(eventId);
+                        onDeleted.run();
+                    }));
+                    sweep(run, StoreQuery.collection(DataStore.path(eventPath, "waitingList")), 2, (batch, entry) -> {
+                        batch.delete(entry.getPath());
+                        batch.delete(RegistrationIndex.registrationPath(entry.getId(), eventId));
+                    }, partDeleted);
+                    sweep(run, StoreQuery.collection(DataStore.path(eventPath, "drawOrder")), 1,
+                            (batch, document) -> batch.delete(document.getPath()), partDeleted);
+                    sweep(run, StoreQuery.collection(DataStore.path(eventPath, "drawClaims")), 1,
+                            (batch, document) -> batch.delete(document.getPath()), partDeleted);
+                    sweep(run, StoreQuery.collection(DataStore.path(eventPath, "entrantCounter")), 1,
+                            (batch, document) -> batch.delete(document.getPath()), partDeleted);
+                    sweep(run, StoreQuery.collection(DataStore.path(eventPath, "draws")), 1,
+                            (batch, document) -> batch.delete(document.getPath()), partDeleted);
+                    sweep(run, StoreQuery.collection("notifications").whereEqualTo("eventId", eventId), 1,
+                            (batch, document) -> batch.delete(document.getPath()), partDeleted);
+                    sweep(run, StoreQuery.collection("broadcasts").whereEqualTo("eventId", eventId), 1,
+                            (batch, document) -> batch.delete(document.getPath()), partDeleted);
+                    releaseImage(run, eventPath, EventCodec.EVENT_IMAGE_PATH, partDeleted);
+                }, onDeleted))
+                .addOnFailureListener(run::fail);
+    }
+
+    /**
+     * Deletes the events of a facility, reading them one page at a time and deleting
+     * at most {@link #MAX_CONCURRENT_EVENTS} of them at once.
+     */
+    private void deleteFacilityEvents(Run run, String facilityId, Runnable onDeleted) {
+        StoreQuery events = StoreQuery.collection("events")
+                .whereEqualTo(EventCodec.FACILITY_ID, facilityId)
+                .limit(EVENT_PAGE_SIZE);
+        deleteEventPage(run, events, null, onDeleted);
+    }
+
+    private void deleteEventPage(Run run, StoreQuery events, StoredDocument cursor, Runnable onDeleted) {
+        if (run.isFinished()) {
+            return;
+        }
+        db.query(cursor != null ? events.startAfter(cursor) : events)
+                .addOnSuccessListener(page -> {
+                    if (page.isEmpty()) {
+                        onDeleted.run();
+                        return;
+                    }
+                    Runnable pageDeleted = page.size() < EVENT_PAGE_SIZE
+                            ? onDeleted
+                            : () -> deleteEventPage(run, events, page.get(page.size() - 1), onDeleted);
+                    Runnable eventDeleted = countDown(page.size(), pageDeleted);
+                    AtomicInteger nextEvent = new AtomicInteger(0);
+                    for (int i = 0; i < Math.min(MAX_CONCURRENT_EVENTS, page.size()); i++) {
+                        deleteNextEvent(run, page, nextEvent, eventDeleted);
+                    }
+                })
+                .addOnFailureListener(run::fail);
+    }
+
+    /**
+     * Deletes the next event of a page that is not being deleted yet, then starts another one when it finishes.
+     */
+    private void deleteNextEvent(Run run, List<StoredDocument> page, AtomicInteger nextEvent, Runnable eventDeleted) {
+        int index = nextEvent.getAndIncrement();
+        if (index >= page.size() || run.isFinished()) {
+            return;
+        }
+        deleteEvent(run, page.get(index).getId(), () -> {
+            eventDeleted.run();
+            deleteNextEvent(run, page, nextEvent, eventDeleted);
+        });
+    }
+
+    /**
+     * Marks a document as deleting by this deleter, with a fresh heartbeat, unless it no longer exists.
+     * A resumed delete instead skips a document another delete is still running on. The server's time is stamped
+     * on the document first and read back as "now", so the heartbeat and the time it is compared to are both
+     * server times.
+     */
+    private void markDeleting(Run run, StoredDocument document, Runnable onMarked, Runnable onSkipped) {
+        if (!document.exists()) {
+            onMarked.run();
+            return;
+        }
+        String path = document.getPath();
+        db.update(path, DELETE_CLOCK_FIELD, FieldTransform.serverTimestamp())
+                .onSuccessTask(stamped -> db.<Boolean>runTransaction(transaction -> {
+                    StoredDocument snapshot = transaction.get(path);
+                    Date now = snapshot.getDate(DELETE_CLOCK_FIELD);
+                    if (!snapshot.exists() || now == null) {
+                        return true;
+                    }
+                    if (run.resumed && isRunning(snapshot, now)) {
+                        return false;
+                    }
+                    Map<String, Object> mark = new HashMap<>();
+                    mark.put(DELETING_FIELD, true);
+                    mark.put(DELETING_OWNER_FIELD, ownerId);
+                    mark.put(DELETING_HEARTBEAT_FIELD, now);
+                    transaction.update(path, mark);
+                    return true;
+                }))
+                .addOnSuccessListener(marked -> {
+                    if (marked) {
+                        run.marked(path);
+                        onMarked.run();
+                    } else {
+                        Log.d("CascadeDeleter", path + " is still being deleted elsewhere");
+                        onSkipped.run();
+                    }
+                })
+                .addOnFailureListener(run::fail);
+    }
+
+    /**
+     * @return True if the document's delete is owned by a deleter whose heartbeat is recent.
+     */
+    private static boolean isRunning(StoredDocument document, Date now) {
+        Date heartbeat = document.getDate(DELETING_HEARTBEAT_FIELD);
+        return Boolean.TRUE.equals(document.getBoolean(DELETING_FIELD))
+                && document.getString(DELETING_OWNER_FIELD) != null
+                && heartbeat != null
+                && now.getTime() - heartbeat.getTime() < DELETE_LEASE_MILLIS;
+    }
+
+    private void deleteDocument(Run run, String path, Runnable onDeleted) {
+        db.delete(path)
+                .addOnSuccessListener(aVoid -> {
+                    run.unmarked(path);
+                    run.deleted(1);
+                    onDeleted.run();
+                })
+                .addOnFailureListener(run::fail);
+    }
+
+    /**
+     * Releases a document's reference to its image. If it was the last reference, every rendition of the image
+     * is deleted at the same time.
+     */
+    private void releaseImage(Run run, String ownerPath, String field, Runnable onReleased) {
+        images.releaseFrom(ownerPath, field)
+                .addOnSuccessListener(imageId -> {
+                    if (imageId == null) {
+                        onReleased.run();
+                        return;
+                    }
+                    deleteImage(imageId, new fileCallback() {
+                        @Override
+                        public void onDeleted() {
+                            onReleased.run();
+                        }
+
+                        @Override
+                        public void onFailure(Exception e) {
+                            run.fail(e);
+                        }
+                    });
+                })
+                .addOnFailureListener(run::fail);
+    }
+
+    /**
+     * Deletes the files of every rendition of an image at the same time, such as once its last reference
+     * has been released.
+     *
+     * @param imageId  The ID of the image.
+     * @param callback The callback for success, or the first failure.
+     */
+    public void deleteImage(String imageId, fileCallback callback) {
+        Rendition[] renditions = Rendition.values();
+        AtomicBoolean failed = new AtomicBoolean(false);
+        Runnable fileDeleted = countDown(renditions.length, callback::onDeleted);
+        for (Rendition rendition : renditions) {
+            files.deleteFile(ImageRenditions.path(imageId, rendition), new fileCallback() {
+                @Override
+                public void onDeleted() {
+                    fileDeleted.run();
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    if (failed.compareAndSet(false, true)) {
+                        callback.onFailure(e);
+                    }
+                }
+            });
+        }
+    }
+
+    private void sweep(Run run, StoreQuery query, int operationsPerDocument, documentDeleter deleter, Runnable onSwept) {
+        new Sweep(run, query, MAX_BATCH_SIZE / operationsPerDocument, deleter, onSwept).advance();
+    }
+
+    /**
+     * Commits a batch once fewer than {@link #MAX_CONCURRENT_BATCHES} batches are in flight.
+     *
+     * @param batch       The batch to commit.
+     * @param onCommitted Receives null once the batch is committed, or the failure.
+     */
+    private void commit(DataStore.Batch batch, commitCallback onCommitted) {
+        Runnable start = () -> batch.commit().addOnCompleteListener(task -> {
+            onCommitted.onComplete(task.isSuccessful() ? null : task.getException());
+            Runnable next;
+            synchronized (this) {
+                next = pendingCommits.poll();
+                if (next == null) {
+                    commitsInFlight--;
+                }
+            }
+            if (next != null) {
+                next.run();
+            }
+        });
+        synchronized (this) {
+            if (commitsInFlight >= MAX_CONCURRENT_BATCHES) {
+                pendingCommits.add(start);
+                return;
+            }
+            commitsInFlight++;
+        }
+        start.run();
+    }
+
+    /**
+     * @return A runnable that runs {@code onDone} the {@code count}th time it is run.
+     */
+    private static Runnable countDown(int count, Runnable onDone) {
+        AtomicInteger remaining = new AtomicInteger(count);
+        return () -> {
+            if (remaining.decrementAndGet() == 0) {
+                onDone.run();
+            }
+        };
+    }
+
+    /**
+     * Sweep deletes every document of a query, one page per batch. The next page is read while earlier pages
+     * commit, up to {@link #MAX_CONCURRENT_BATCHES} pages ahead. Pages start after the last document read rather
+     * than at the start of the query, so documents whose batch has not committed yet are not read again.
+     */
+    private class Sweep {
+        private final Run run;
+        private final StoreQuery query;
+        private final int pageSize;
+        private final documentDeleter deleter;
+        private final Runnable onSwept;
+        private StoredDocument cursor; // Guarded by this
+        private boolean reading = false; // Guarded by this
+        private boolean exhausted = false; // Guarded by this
+        private boolean swept = false; // Guarded by this
+        private int batchesInFlight = 0; // Guarded by this
+
+        private Sweep(Run run, StoreQuery query, int pageSize, documentDeleter deleter, Runnable onSwept) {
+            this.run = run;
+            this.query = query.limit(pageSize);
+            this.pageSize = pageSize;
+            this.deleter = deleter;
+            this.onSwept = onSwept;
+        }
+
+        /**
+         * Reads the next page if one is due, or finishes the sweep once every page is read and committed.
+         */
+        private void advance() {
+            StoreQuery pageQuery = null;
+            boolean finished = false;
+            synchronized (this) {
+                if (run.isFinished() || swept || reading) {
+                    return;
+                }
+                if (!exhausted && batchesInFlight < MAX_CONCURRENT_BATCHES) {
+                    reading = true;
+                    pageQuery = cursor != null ? query.startAfter(cursor) : query;
+                } else if (exhausted && batchesInFlight == 0) {
+                    swept = true;
+                    finished = true;
+                }
+            }
+            if (finished) {
+                onSwept.run();
+            } else if (pageQuery != null) {
+                db.query(pageQuery)
+                        .addOnSuccessListener(this::onPage)
+                        .addOnFailureListener(run::fail);
+            }
+        }
+
+        private void onPage(List<StoredDocument> page) {
+            synchronized (this) {
+                reading = false;
+                exhausted = page.size() < pageSize;
+                if (!page.isEmpty()) {
+                    cursor = page.get(page.size() - 1);
+                    batchesInFlight++;
+                }
+            }
+            if (!page.isEmpty()) {
+                DataStore.Batch batch = db.batch();
+                for (StoredDocument document : page) {
+                    deleter.delete(batch, document);
+                }
+                commit(batch, e -> {
+                    if (e != null) {
+                        run.fail(e);
+                        return;
+                    }
+                    run.deleted(page.size());
+                    synchronized (this) {
+                        batchesInFlight--;
+                    }
+                    advance();
+                });
+            }
+            advance();
+        }
+    }
+
+    /**
+     * Run tracks one top-level delete, so that its callback hears of each failure at most once,
+     * and no further work is started after the first failure. It also renews the heartbeat on the documents
+     * it has marked, at most once every {@link #HEARTBEAT_MILLIS} as documents are deleted.
+     */
+    private class Run {
+        private final boolean resumed;
+        private final cascadeCallback callback;
+        private final AtomicInteger deletedDocuments = new AtomicInteger(0);
+        private final AtomicBoolean finished = new AtomicBoolean(false);
+        private final Set<String> markedPaths = ConcurrentHashMap.newKeySet();
+        private final AtomicLong lastHeartbeat = new AtomicLong(System.currentTimeMillis());
+
+        private Run(boolean resumed, cascadeCallback callback) {
+            this.resumed = resumed;
+            this.callback = callback;
+        }
+
+        private boolean isFinished() {
+            return finished.get();
+        }
+
+        private void marked(String path) {
+            markedPaths.add(path);
+        }
+
+        private void unmarked(String path) {
+            markedPaths.remove(path);
+        }
+
+        private void deleted(int documents) {
+            callback.onProgress(deletedDocuments.addAndGet(documents));
+            long now = System.currentTimeMillis();
+            long last = lastHeartbeat.get();
+            if (now - last >= HEARTBEAT_MILLIS && lastHeartbeat.compareAndSet(last, now)) {
+                for (String path : markedPaths) {
+                    db.update(path, DELETING_HEARTBEAT_FIELD, FieldTransform.serverTimestamp())
+                            .addOnFailureListener(e -> Log.e("CascadeDeleter", "Failed to renew the heartbeat of " + path, e));
+                }
+            }
+        }
+
+        private void eventDeleted(String eventId) {
+            callback.onEventDeleted(eventId);
+        }
+
+        private void succeed() {
+            if (finished.compareAndSet(false, true)) {
+                callback.onSuccess();
+            }
+        }
+
+        private void fail(Exception e) {
+            if (finished.compareAndSet(false, true)) {
+                Log.e("CascadeDeleter", "Delete failed after " + deletedDocuments.get() + " documents", e);
+                callback.onFailure(e);
+            }
+        }
+    }
+
+    // Callback interfaces
+    public interface cascadeCallback {
+        /**
+         * @param deletedDocuments The number of documents deleted so far.
+         */
+        default void onProgress(int deletedDocuments) {
+        }
+
+        default void onEventDeleted(String eventId) {
+        }
+
+        void onSuccess();
+
+        void onFailure(Exception e);
+    }
+
+    public interface fileDeleter {
+        void deleteFile(String path, fileCallback callback);
+    }
+
+    public interface fileCallback {
+        void onDeleted();
+
+        void onFailure(Exception e);
+    }
+
+    private interface documentDeleter {
+        void delete(DataStore.Batch batch, StoredDocument document);
+    }
+
+    private interface commitCallback {
+        void onComplete(Exception e);
+    }
+
+    private interface deleteFunction {
+        void delete(String id, cascadeCallback callback);
+    }
+}
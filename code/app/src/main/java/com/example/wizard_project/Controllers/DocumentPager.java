@@ -0,0 +1,140 @@
+package com.example.wizard_project.Controllers;
+
+import android.util.Log;
+
+import com.example.wizard_project.Store.DataStore;
+import com.example.wizard_project.Store.StoreQuery;
+import com.example.wizard_project.Store.StoredDocument;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DocumentPager reads the results of an ordered query one page at a time, decoding each document into a model.
+ * Each page starts after the last document of the previous page, so browsing a large collection only reads
+ * the pages that are actually shown, and {@link #readAll} holds only one page in memory at a time.
+ *
+ * @param <T> The model the documents are decoded into.
+ */
+public class DocumentPager<T> {
+    private final DataStore db;
+    private final StoreQuery query;
+    private final int pageSize;
+    private final documentDecoder<T> decoder;
+    private StoredDocument cursor;
+    private boolean hasMore = true;
+    private boolean loading = false;
+
+    /**
+     * Constructs a DocumentPager.
+     *
+     * @param db       The database instance to read from.
+     * @param query    The query to page through. It must be ordered, so that pages do not overlap.
+     * @param pageSize The maximum number of documents read per page.
+     * @param decoder  The decoder turning each document into a model.
+     */
+    public DocumentPager(DataStore db, StoreQuery query, int pageSize, documentDecoder<T> decoder) {
+        this.db = db;
+        this.query = query.limit(pageSize);
+        this.pageSize = pageSize;
+        this.decoder = decoder;
+    }
+
+    /**
+     * Returns whether there may be more documents to read.
+     *
+     * @return True if another page should be requested, false if the end of the results was reached.
+     */
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    /**
+     * Returns whether a page is currently being read.
+     *
+     * @return True if a page request is in flight.
+     */
+    public boolean isLoading() {
+        return loading;
+    }
+
+    /**
+     * Reads the next page.
+     * Requests made while a page is already being read, or after the end of the results, are ignored.
+     *
+     * @param callback The callback to receive the page or the failure.
+     */
+    public void nextPage(pageCallback<T> callback) {
+        if (loading || !hasMore) {
+            return;
+        }
+        loading = true;
+
+        StoreQuery pageQuery = cursor != null ? query.startAfter(cursor) : query;
+        db.query(pageQuery)
+                .addOnSuccessListener(documents -> {
+                    List<T> page = new ArrayList<>(documents.size());
+                    for (StoredDocument document : documents) {
+                        page.add(decoder.decode(document));
+                    }
+                    if (!documents.isEmpty()) {
+                        cursor = documents.get(documents.size() - 1);
+                    }
+                    hasMore = documents.size() == pageSize;
+                    loading = false;
+                    callback.onPage(page);
+                })
+                .addOnFailureListener(e -> {
+                    Log.e("DocumentPager", "Failed to fetch page of " + query.getCollectionPath(), e);
+                    loading = false;
+                    callback.onFailure(e);
+                });
+    }
+
+    /**
+     * Reads every remaining page in order, requesting the next page only after the previous one was handled.
+     *
+     * @param listener The listener to receive each page and the end of the results.
+     */
+    public void readAll(streamListener<T> listener) {
+        nextPage(new pageCallback<T>() {
+            @Override
+            public void onPage(List<T> page) {
+                listener.onPage(page, () -> {
+                    if (hasMore) {
+                        nextPage(this);
+                    } else {
+                        listener.onComplete();
+                    }
+                });
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                listener.onFailure(e);
+            }
+        });
+    }
+
+    // Callback interfaces
+    public interface documentDecoder<T> {
+        T decode(StoredDocument document);
+    }
+
+    public interface pageCallback<T> {
+        void onPage(List<T> page);
+
+        void onFailure(Exception e);
+    }
+
+    public interface streamListener<T> {
+        /**
+         * Receives the next page. The listener must run {@code next} once the page has been handled.
+         */
+        void onPage(List<T> page, Runnable next);
+
+        void onComplete();
+
+        void onFailure(Exception e);
+    }
+}
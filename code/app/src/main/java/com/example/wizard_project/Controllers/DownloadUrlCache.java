@@ -0,0 +1,115 @@
+package com.example.wizard_project.Controllers;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import com.example.wizard_project.Core.ImageRenditions;
+import com.example.wizard_project.Core.ImageRenditions.Rendition;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * DownloadUrlCache keeps the download URLs of recently shown stored files, keyed by the file's path,
+ * so a file shown again does not need another request for its URL. A file's download URL stays the same
+ * until the file is deleted or its access token is revoked, so entries are removed when their file is deleted,
+ * or when a download from the cached URL is refused.
+ * The URLs are kept on disk as well, so they are still known after the app restarts.
+ * The least recently used URLs are evicted once {@link #MAX_URLS} are cached.
+ */
+public class DownloadUrlCache {
+    public static final int MAX_URLS = 2000;
+    private static final String FALLBACK_SUFFIX = "#fallback";
+    private static final String PREFERENCES_NAME = "download_urls";
+    private static DownloadUrlCache instance;
+
+    private final SharedPreferences preferences;
+
+    // File path -> download URL, least recently used first. Guarded by this.
+    private final LinkedHashMap<String, String> urls = new LinkedHashMap<String, String>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            if (size() > MAX_URLS) {
+                preferences.edit().remove(eldest.getKey()).apply();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    /**
+     * Constructs a DownloadUrlCache, loading the URLs kept on disk.
+     *
+     * @param preferences The preferences the URLs are kept in.
+     */
+    public DownloadUrlCache(SharedPreferences preferences) {
+        this.preferences = preferences;
+        for (Map.Entry<String, ?> entry : preferences.getAll().entrySet()) {
+            if (entry.getValue() instanceof String) {
+                urls.put(entry.getKey(), (String) entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * @return The cache keeping its URLs in the app's preferences.
+     */
+    public static synchronized DownloadUrlCache getInstance(Context context) {
+        if (instance == null) {
+            instance = new DownloadUrlCache(
+                    context.getApplicationContext().getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE));
+        }
+        return instance;
+    }
+
+    /**
+     * @param path The path of the file.
+     * @return The file's download URL, or null if it is not cached.
+     */
+    public synchronized String get(String path) {
+        return urls.get(path);
+    }
+
+    public synchronized void put(String path, String url) {
+        if (!url.equals(urls.put(path, url))) {
+            preferences.edit().putString(path, url).apply();
+        }
+    }
+
+    /**
+     * Removes a file's URL, such as once the file is deleted.
+     *
+     * @param path The path of the file.
+     */
+    public synchronized void remove(String path) {
+        if (urls.remove(path) != null) {
+            preferences.edit().remove(path).apply();
+        }
+    }
+
+    /**
+     * Returns the key the URL of a stand-in for a missing file is cached under, such as the full image shown
+     * in place of a rendition that was never uploaded. Keeping it apart from the file's own key means the file's
+     * key only ever holds the file's own URL.
+     *
+     * @param path The path of the missing file.
+     * @return The key of its stand-in's URL.
+     */
+    public static String fallbackKey(String path) {
+        return path + FALLBACK_SUFFIX;
+    }
+
+    /**
+     * Removes the URLs of every rendition of an image, and of their stand-ins, such as once the image is deleted.
+     *
+     * @param fullPath The path of the full image.
+     */
+    public synchronized void removeImage(String fullPath) {
+        remove(fullPath);
+        for (Rendition rendition : Rendition.values()) {
+            String path = ImageRenditions.renditionPath(fullPath, rendition);
+            remove(path);
+            remove(fallbackKey(path));
+        }
+    }
+}
@@ -2,33 +2,86 @@ package com.example.wizard_project.Controllers;
 
 import android.util.Log;
 
-import androidx.annotation.NonNull;
-
+import com.example.wizard_project.Classes.DrawLease;
 import com.example.wizard_project.Classes.Entrant;
+import com.example.wizard_project.Classes.EntrantCodec;
 import com.example.wizard_project.Classes.Event;
-import com.google.firebase.Timestamp;
-import com.google.firebase.firestore.DocumentReference;
-import com.google.firebase.firestore.DocumentSnapshot;
-import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.example.wizard_project.Classes.EventCodec;
+import com.example.wizard_project.Core.BroadcastAudience;
+import com.example.wizard_project.Core.ImageReferences;
+import com.example.wizard_project.Core.NotificationFanout;
+import com.example.wizard_project.Core.RegistrationIndex;
+import com.example.wizard_project.Core.WaitingListOperations;
+import com.example.wizard_project.Store.DataStore;
+import com.example.wizard_project.Store.DataStoreException;
+import com.example.wizard_project.Store.FieldTransform;
+import com.example.wizard_project.Store.StoreQuery;
+import com.example.wizard_project.Store.StoreTask;
+import com.example.wizard_project.Store.StoredDocument;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 /**
  * EventController acts as a communicator between the database and Event objects.
- * It provides methods to create, retrieve, update, and delete events in the Firestore database.
+ * It provides methods to create, retrieve, update, and delete events in the database.
  */
 public class EventController {
-    private final FirebaseFirestore db;
+    public static final int DRAW_ORDER_PAGE_SIZE = 1000; // Waiting list IDs and draw ranks read per page
+    private static final String DRAW_CLOCK_FIELD = "drawCheckedAt"; // Server time a lease was last checked at
+    private static final long DRAW_CLOCK_SKEW_MILLIS = 60 * 1000; // Allowed between a device and the server clock
+    private final DataStore db;
+    private final EventRepository eventRepository;
+    private final CascadeDeleter cascadeDeleter;
+    private final ImageReferences images;
 
     /**
-     * Constructs an EventController to manage event operations.
+     * Constructs an EventController to manage event operations in the Firestore database.
      */
     public EventController() {
-        this.db = FirebaseFirestore.getInstance();
+        this(FirestoreDataStore.getInstance(), EventRepository.getInstance(), CascadeDeleter.getInstance());
+    }
+
+    /**
+     * Constructs an EventController to manage event operations in the given data store.
+     *
+     * @param db The data store holding the events.
+     */
+    public EventController(DataStore db) {
+        this(db, new EventRepository(db, EventRepository.DEFAULT_CAPACITY));
+    }
+
+    /**
+     * Constructs an EventController that caches the events it reads in the given repository.
+     *
+     * @param db              The data store holding the events.
+     * @param eventRepository The repository caching events read from the data store.
+     */
+    public EventController(DataStore db, EventRepository eventRepository) {
+        this(db, eventRepository, new CascadeDeleter(db, CascadeDeleter::deleteStorageFile));
+    }
+
+    /**
+     * Constructs an EventController that caches the events it reads in the given repository
+     * and deletes events with the given deleter.
+     *
+     * @param db              The data store holding the events.
+     * @param eventRepository The repository caching events read from the data store.
+     * @param cascadeDeleter  The deleter removing events together with everything stored about them.
+     */
+    public EventController(DataStore db, EventRepository eventRepository, CascadeDeleter cascadeDeleter) {
+        this.db = db;
+        this.eventRepository = eventRepository;
+        this.images = new ImageReferences(db);
+        this.cascadeDeleter = cascadeDeleter;
     }
 
     /**
@@ -39,25 +92,22 @@ public class EventController {
      * @param callback The callback to handle success or failure.
      */
     public void createEvent(Event newEvent, String userId, createCallback callback) {
-        Map<String, Object> eventData = new HashMap<>();
-        eventData.put("event_name", newEvent.getEvent_name());
-        eventData.put("event_description", newEvent.getEvent_description());
-        eventData.put("event_price", newEvent.getEvent_price());
-        eventData.put("event_max_entrants", newEvent.getEvent_max_entrants());
-        eventData.put("registration_open", new Timestamp(newEvent.getRegistration_open()));
-        eventData.put("registration_close", new Timestamp(newEvent.getRegistration_close()));
-        eventData.put("geolocation_requirement", newEvent.isGeolocation_requirement());
-        eventData.put("facilityId", newEvent.getFacilityId());
-        eventData.put("event_location", newEvent.getEvent_location());
-        eventData.put("eventId", newEvent.getEventId());
-        eventData.put("posterUri", newEvent.getPosterUri());
-        eventData.put("event_image_path", newEvent.getEvent_image_path());
-        eventData.put("isDrawn", false);
-
-        // Create the event document in the database.
-        db.collection("events").document(newEvent.getEventId()).set(eventData)
-                .addOnSuccessListener(aVoid -> {
+        Map<String, Object> eventData = EventCodec.getInstance().encode(newEvent);
+        eventData.put(EventCodec.IS_DRAWN, false);
+        // Every entrant of a new event joins with a registration, so there is nothing to backfill.
+        eventData.put(RegistrationIndex.INDEXED_FIELD, true);
+        String eventPath = DataStore.path("events", newEvent.getEventId());
+
+        // Create the event document in the database, counting the reference to its poster in the same write.
+        db.<String>runTransaction(transaction -> {
+                    String releasedImageId = images.moveReference(transaction, eventPath, EventCodec.EVENT_IMAGE_PATH,
+                            newEvent.getEvent_image_path());
+                    transaction.set(eventPath, eventData);
+                    return releasedImageId;
+                })
+                .addOnSuccessListener(releasedImageId -> {
                     Log.d("EventController", "Event created successfully");
+                    deleteReleasedImage(releasedImageId);
                     callback.onSuccess();
                 })
                 .addOnFailureListener(e -> {
@@ -75,11 +125,11 @@ public class EventController {
     public void getEventList(String facilityId, eventCallback callback) {
         ArrayList<Event> events = new ArrayList<>();
 
-        db.collection("events").whereEqualTo("facilityId", facilityId).get()
+        db.query(StoreQuery.collection("events").whereEqualTo(EventCodec.FACILITY_ID, facilityId))
                 .addOnSuccessListener(documentSnapshots -> {
                     if (!documentSnapshots.isEmpty()) {
-                        for (DocumentSnapshot eventRef : documentSnapshots) {
-                            Event event = buildEventFromDocument(eventRef, facilityId);
+                        for (StoredDocument eventRef : documentSnapshots) {
+                            Event event = buildEventFromDocument(eventRef);
                             events.add(event);
                         }
                     }
@@ -92,7 +142,9 @@ public class EventController {
     }
 
     /**
-     * Updates an existing event in the database.
+     * Updates an existing event in the database. If the event's poster changed, the reference to the new poster
+     * is counted and the reference to the old one released in the same write, and the old poster's files are
+     * deleted if that was its last reference.
      *
      * @param event    The event to be updated.
      * @param callback The callback to handle success or failure.
@@ -104,23 +156,33 @@ public class EventController {
         }
 
         // Prepare the updated event data
-        Map<String, Object> updatedData = new HashMap<>();
-        updatedData.put("event_name", event.getEvent_name());
-        updatedData.put("event_description", event.getEvent_description());
-        updatedData.put("event_price", event.getEvent_price());
-        updatedData.put("event_max_entrants", event.getEvent_max_entrants());
-        updatedData.put("registration_open", new Timestamp(event.getRegistration_open()));
-        updatedData.put("registration_close", new Timestamp(event.getRegistration_close()));
-        updatedData.put("geolocation_requirement", event.isGeolocation_requirement());
-        updatedData.put("facilityId", event.getFacilityId());
-        updatedData.put("event_location", event.getEvent_location());
-        updatedData.put("event_image_path", event.getEvent_image_path());
-        updatedData.put("posterUri", event.getPosterUri());
-        updatedData.put("isDrawn", event.isDrawn());
-
-        db.collection("events").document(event.getEventId()).update(updatedData)
-                .addOnSuccessListener(aVoid -> {
+        Map<String, Object> updatedData = EventCodec.getInstance().encode(event);
+        String eventPath = DataStore.path("events", event.getEventId());
+
+        db.<String>runTransaction(transaction -> {
+                    String releasedImageId = images.moveReference(transaction, eventPath, EventCodec.EVENT_IMAGE_PATH,
+                            event.getEvent_image_path());
+                    transaction.update(eventPath, updatedData);
+                    return releasedImageId;
+                })
+                .addOnSuccessListener(releasedImageId -> {
                     Log.d("EventController", "Event updated successfully");
+                    deleteReleasedImage(releasedImageId);
+                    eventRepository.invalidate(event.getEventId());
+                    // The maximum may have changed, so whether the waiting list is full is worked out again.
+                    new WaitingListOperations(db).rollupEntrantCount(event.getEventId())
+                            .addOnFailureListener(e -> Log.e("EventController", "Error recounting entrants", e));
+                    // Entrants list the event from their registrations, which copy its name, dates and poster.
+                    syncRegistrations(event.getEventId(), new updateCallback() {
+                        @Override
+                        public void onSuccess() {
+                        }
+
+                        @Override
+                        public void onFailure(Exception e) {
+                            Log.e("EventController", "Error updating registrations", e);
+                        }
+                    });
                     callback.onSuccess();
                 })
                 .addOnFailureListener(e -> {
@@ -130,27 +192,375 @@ public class EventController {
     }
 
     /**
-     * Retrieve the list of users in the waiting list for an event.
+     * Deletes the files of an image whose last reference a save released.
+     *
+     * @param imageId The ID of the image, or null if no image was released.
+     */
+    private void deleteReleasedImage(String imageId) {
+        if (imageId == null) {
+            return;
+        }
+        cascadeDeleter.deleteImage(imageId, new CascadeDeleter.fileCallback() {
+            @Override
+            public void onDeleted() {
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                Log.e("EventController", "Error deleting the files of image " + imageId, e);
+            }
+        });
+    }
+
+    /**
+     * Copies an event's summary onto the registration of every entrant on its waiting list.
+     * The waiting list is read one page at a time, and each page's registrations are patched in one batch,
+     * leaving the entrants' statuses alone. A batch fails if any of its entrants has no registration, such as one
+     * who joined before registrations existed or who left meanwhile, so the entrants of a failed batch are repaired
+     * one transaction each: a registration is written whole from the entrant's current status, or not at all if the
+     * entrant is gone. Once every entrant has a registration, the event is marked as indexed.
+     *
+     * @param eventId  The ID of the event.
+     * @param callback The callback to handle success, or the failure to read or write some registrations.
+     */
+    public void syncRegistrations(String eventId, updateCallback callback) {
+        String eventPath = DataStore.path("events", eventId);
+        db.get(eventPath)
+                .addOnSuccessListener(document -> {
+                    if (!document.exists()) {
+                        callback.onSuccess();
+                        return;
+                    }
+                    Map<String, Object> eventData = document.getData();
+                    boolean indexed = Boolean.TRUE.equals(document.getBoolean(RegistrationIndex.INDEXED_FIELD));
+                    syncRegistrationPages(eventId, eventData, () -> {
+                        if (indexed) {
+                            callback.onSuccess();
+                            return;
+                        }
+                        db.update(eventPath, RegistrationIndex.INDEXED_FIELD, true)
+                                .addOnSuccessListener(aVoid -> callback.onSuccess())
+                                .addOnFailureListener(callback::onFailure);
+                    }, callback::onFailure);
+                })
+                .addOnFailureListener(e -> {
+                    Log.e("EventController", "Error reading event " + eventId, e);
+                    callback.onFailure(e);
+                });
+    }
+
+    /**
+     * Patches the registrations of each page of an event's waiting list, then repairs those of failed batches.
+     */
+    private void syncRegistrationPages(String eventId, Map<String, Object> eventData, Runnable onSynced,
+                                       Consumer<Exception> onFailure) {
+        Map<String, Object> summary = RegistrationIndex.toSummary(eventId, eventData);
+        AtomicInteger failedRepairs = new AtomicInteger(0);
+        BatchWriter<Entrant> writer = new BatchWriter<>(db, new BatchWriter.ItemWriter<Entrant>() {
+            @Override
+            public int countOperations(Entrant entrant) {
+                return 1;
+            }
+
+            @Override
+            public void write(DataStore.Batch batch, Entrant entrant) {
+                batch.update(RegistrationIndex.registrationPath(entrant.getUserId(), eventId), summary);
+            }
+        });
+
+        getWaitingListPager(eventId, BatchWriter.MAX_BATCH_SIZE).readAll(new DocumentPager.streamListener<Entrant>() {
+            @Override
+            public void onPage(List<Entrant> page, Runnable next) {
+                writer.write(page, failedEntrants -> repairRegistrations(eventId, eventData, failedEntrants,
+                        failedRepairs, next));
+            }
+
+            @Override
+            public void onComplete() {
+                if (failedRepairs.get() == 0) {
+                    onSynced.run();
+                } else {
+                    onFailure.accept(new IllegalStateException(
+                            failedRepairs.get() + " registrations of event " + eventId + " could not be written"));
+                }
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                Log.e("EventController", "Failed to read the waiting list of " + eventId, e);
+                onFailure.accept(e);
+            }
+        });
+    }
+
+    /**
+     * Writes the registration of each entrant whose batch failed from their waiting list entry, then runs
+     * {@code onDone} once every repair has finished.
+     */
+    private void repairRegistrations(String eventId, Map<String, Object> eventData, List<Entrant> entrants,
+                                     AtomicInteger failedRepairs, Runnable onDone) {
+        if (entrants.isEmpty()) {
+            onDone.run();
+            return;
+        }
+        String waitingListPath = DataStore.path("events", eventId, "waitingList");
+        AtomicInteger remaining = new AtomicInteger(entrants.size());
+        for (Entrant entrant : entrants) {
+            String entrantPath = DataStore.path(waitingListPath, entrant.getUserId());
+            String registrationPath = RegistrationIndex.registrationPath(entrant.getUserId(), eventId);
+            db.runTransaction(transaction -> {
+                StoredDocument entry = transaction.get(entrantPath);
+                if (entry.exists()) {
+                    transaction.set(registrationPath, RegistrationIndex.toRegistration(eventId, eventData,
+                            entry.getString("status")));
+                }
+                return null;
+            }).addOnCompleteListener(task -> {
+                if (!task.isSuccessful()) {
+                    Log.e("EventController", "Failed to repair the registration at " + registrationPath,
+                            task.getException());
+                    failedRepairs.incrementAndGet();
+                }
+                if (remaining.decrementAndGet() == 0) {
+                    onDone.run();
+                }
+            });
+        }
+    }
+
+    /**
+     * Gives the entrants of a facility's events that joined before registrations existed a registration,
+     * so the events show up in their lists. Events already marked as indexed are skipped, so after the first
+     * run this costs one query. Events are backfilled one after another.
+     *
+     * @param facilityId The ID of the facility whose events are backfilled.
+     * @param callback   The callback to handle success, or the first event that could not be backfilled.
+     */
+    public void backfillRegistrations(String facilityId, updateCallback callback) {
+        db.query(StoreQuery.collection("events").whereEqualTo(EventCodec.FACILITY_ID, facilityId))
+                .addOnSuccessListener(documents -> {
+                    List<String> eventIds = new ArrayList<>();
+                    for (StoredDocument document : documents) {
+                        if (!Boolean.TRUE.equals(document.getBoolean(RegistrationIndex.INDEXED_FIELD))) {
+                            eventIds.add(document.getId());
+                        }
+                    }
+                    backfillNext(eventIds, 0, callback);
+                })
+                .addOnFailureListener(e -> {
+                    Log.e("EventController", "Error reading the events of facility " + facilityId, e);
+                    callback.onFailure(e);
+                });
+    }
+
+    /**
+     * Counts the entrants of a facility's events that joined before the events had entrant counters, so the
+     * counters enforce each event's maximum over its whole waiting list. Events already marked as counted are
+     * skipped, so after the first run this costs one query. Events are seeded one after another.
      *
-     * @param eventId  The event whose waiting list is checked.
-     * @param callback A callback interface containing the list of waitlisted users.
+     * @param facilityId The ID of the facility whose events are seeded.
+     * @param callback   The callback to handle success, or the first event that could not be seeded.
      */
-    public void getWaitingList(String eventId, @NonNull WaitingListCallback callback) {
-        db.collection("events").document(eventId).collection("waitingList")
-                .get()
-                .addOnSuccessListener(queryDocumentSnapshots -> {
-                    ArrayList<Map<String, String>> waitingList = new ArrayList<>();
-                    for (QueryDocumentSnapshot doc : queryDocumentSnapshots) {
-                        Map<String, String> userData = new HashMap<>();
-                        userData.put("name", doc.getString("name")); // Get name
-                        userData.put("userId", doc.getString("userId")); // Get device ID
-                        userData.put("status", doc.getString("status")); // Get status
-                        waitingList.add(userData);
+    public void backfillEntrantCounters(String facilityId, updateCallback callback) {
+        WaitingListOperations operations = new WaitingListOperations(db);
+        db.query(StoreQuery.collection("events").whereEqualTo(EventCodec.FACILITY_ID, facilityId))
+                .onSuccessTask(documents -> {
+                    StoreTask<Long> seeding = StoreTask.forResult(0L);
+                    for (StoredDocument document : documents) {
+                        if (!Boolean.TRUE.equals(document.getBoolean(WaitingListOperations.COUNTER_SEEDED_FIELD))) {
+                            seeding = seeding.onSuccessTask(seeded -> operations.seedEntrantCounter(document.getId()));
+                        }
                     }
-                    callback.onSuccess(waitingList);
+                    return seeding;
                 })
+                .addOnSuccessListener(seeded -> callback.onSuccess())
                 .addOnFailureListener(e -> {
-                    Log.e("EventController", "Failed to fetch waiting list", e);
+                    Log.e("EventController", "Error seeding the entrant counters of facility " + facilityId, e);
+                    callback.onFailure(e);
+                });
+    }
+
+    private void backfillNext(List<String> eventIds, int index, updateCallback callback) {
+        if (index == eventIds.size()) {
+            callback.onSuccess();
+            return;
+        }
+        syncRegistrations(eventIds.get(index), new updateCallback() {
+            @Override
+            public void onSuccess() {
+                backfillNext(eventIds, index + 1, callback);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                callback.onFailure(e);
+            }
+        });
+    }
+
+    /**
+     * Creates a pager that reads the waiting list for an event one page at a time.
+     *
+     * @param eventId  The event whose waiting list is read.
+     * @param pageSize The maximum number of entrants read per page.
+     * @return A pager positioned at the start of the waiting list, ordered by user ID.
+     */
+    public DocumentPager<Entrant> getWaitingListPager(String eventId, int pageSize) {
+        return new DocumentPager<>(db, StoreQuery.collection(DataStore.path("events", eventId, "waitingList")).orderBy("userId"),
+                pageSize, EntrantCodec.getInstance()::decode);
+    }
+
+    /**
+     * Counts the entrants in the waiting list for an event without reading their documents.
+     *
+     * @param eventId  The event whose waiting list is counted.
+     * @param callback A callback containing the number of entrants.
+     */
+    public void countWaitingList(String eventId, waitingListCountCallback callback) {
+        db.count(StoreQuery.collection(DataStore.path("events", eventId, "waitingList")))
+                .addOnSuccessListener(callback::onSuccess)
+                .addOnFailureListener(e -> {
+                    Log.e("EventController", "Failed to count waiting list", e);
+                    callback.onFailure(e);
+                });
+    }
+
+    /**
+     * Reads the user IDs of every entrant in the waiting list for an event, in user ID order.
+     * Only the IDs are kept, so the entrants a draw ranks can be pinned without holding their documents.
+     * The list grows with the waiting list; see {@link com.example.wizard_project.LotterySystem} for why a draw
+     * holds it.
+     *
+     * @param eventId  The event whose waiting list is read.
+     * @param callback A callback containing the user IDs.
+     */
+    public void readWaitingListIds(String eventId, idsCallback callback) {
+        StoreQuery query = StoreQuery.collection(DataStore.path("events", eventId, "waitingList")).orderBy("userId");
+        List<String> userIds = new ArrayList<>();
+        collectPages(new DocumentPager<>(db, query, DRAW_ORDER_PAGE_SIZE, document -> document.getString("userId")),
+                userIds, () -> callback.onSuccess(userIds), callback::onFailure);
+    }
+
+    /**
+     * Reads the persisted draw order of an event.
+     *
+     * @param eventId  The event whose draw order is read.
+     * @param callback A callback containing a map of user IDs to their rank in the draw order.
+     */
+    public void readDrawOrder(String eventId, drawOrderCallback callback) {
+        StoreQuery query = StoreQuery.collection(DataStore.path("events", eventId, "drawOrder"));
+        List<StoredDocument> rankDocuments = new ArrayList<>();
+        collectPages(new DocumentPager<>(db, query, DRAW_ORDER_PAGE_SIZE, document -> document), rankDocuments, () -> {
+            Map<String, Integer> drawRanks = new HashMap<>();
+            for (StoredDocument rankDocument : rankDocuments) {
+                String userId = rankDocument.getString("userId");
+                Long rank = rankDocument.getLong("rank");
+                if (userId != null && rank != null) {
+                    drawRanks.put(userId, rank.intValue());
+                }
+            }
+            callback.onSuccess(drawRanks);
+        }, callback::onFailure);
+    }
+
+    /**
+     * Reads every remaining page of a pager into a list, one page at a time.
+     */
+    private <T> void collectPages(DocumentPager<T> pager, List<T> collected, Runnable onComplete,
+                                  Consumer<Exception> onFailure) {
+        pager.readAll(new DocumentPager.streamListener<T>() {
+            @Override
+            public void onPage(List<T> page, Runnable next) {
+                collected.addAll(page);
+                next.run();
+            }
+
+            @Override
+            public void onComplete() {
+                onComplete.run();
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                Log.e("EventController", "Failed to read pages", e);
+                onFailure.accept(e);
+            }
+        });
+    }
+
+    /**
+     * Writes entrants' ranks to an event's draw order, one document per rank, so replacements can later be
+     * promoted in rank order without redrawing. Writing a rank again overwrites it.
+     *
+     * @param event     The event that was drawn.
+     * @param drawRanks A map of user IDs to their rank in the draw order.
+     * @param callback  The callback containing the user IDs whose ranks failed to write.
+     */
+    public void writeDrawOrder(Event event, Map<String, Integer> drawRanks, BatchWriter.BatchCallback<String> callback) {
+        String drawOrderPath = DataStore.path("events", event.getEventId(), "drawOrder");
+        BatchWriter<String> writer = new BatchWriter<>(db, new BatchWriter.ItemWriter<String>() {
+            @Override
+            public int countOperations(String userId) {
+                return 1;
+            }
+
+            @Override
+            public void write(DataStore.Batch batch, String userId) {
+                int rank = drawRanks.get(userId);
+                Map<String, Object> rankData = new HashMap<>();
+                rankData.put("userId", userId);
+                rankData.put("rank", rank);
+                batch.set(DataStore.path(drawOrderPath, String.valueOf(rank)), rankData);
+            }
+        });
+        writer.write(new ArrayList<>(drawRanks.keySet()), callback);
+    }
+
+    /**
+     * Deletes the ranks of an event's draw order from the given rank on, such as those left by an earlier
+     * attempt at a draw that ranked more entrants.
+     *
+     * @param event    The event whose draw order is trimmed.
+     * @param fromRank The first rank to delete.
+     * @param callback The callback to handle success or failure.
+     */
+    public void clearDrawOrderFrom(Event event, int fromRank, updateCallback callback) {
+        deleteAll(StoreQuery.collection(DataStore.path("events", event.getEventId(), "drawOrder"))
+                .whereGreaterThanOrEqualTo("rank", fromRank), callback);
+    }
+
+    /**
+     * Deletes the claims promotions have made on an event's draw order, such as those made while an interrupted
+     * draw was being written, so promotions start again from the ranks the draw leaves unselected.
+     *
+     * @param event    The event whose claims are deleted.
+     * @param callback The callback to handle success or failure.
+     */
+    public void clearDrawClaims(Event event, updateCallback callback) {
+        deleteAll(StoreQuery.collection(DataStore.path("events", event.getEventId(), "drawClaims")), callback);
+    }
+
+    /**
+     * Deletes every document a query matches, one batch at a time.
+     */
+    private void deleteAll(StoreQuery query, updateCallback callback) {
+        db.query(query.limit(BatchWriter.MAX_BATCH_SIZE))
+                .onSuccessTask(rankDocuments -> {
+                    DataStore.Batch batch = db.batch();
+                    for (StoredDocument rankDocument : rankDocuments) {
+                        batch.delete(rankDocument.getPath());
+                    }
+                    return batch.commit().onSuccessTask(committed -> StoreTask.forResult(rankDocuments.size()));
+                })
+                .addOnSuccessListener(deleted -> {
+                    if (deleted == BatchWriter.MAX_BATCH_SIZE) {
+                        deleteAll(query, callback);
+                    } else {
+                        callback.onSuccess();
+                    }
+                })
+                .addOnFailureListener(e -> {
+                    Log.e("EventController", "Failed to delete " + query.getCollectionPath(), e);
                     callback.onFailure(e);
                 });
     }
@@ -162,8 +572,249 @@ public class EventController {
      * @param drawCount The new draw count.
      */
     public void setDrawCount(Event event, int drawCount) {
-        DocumentReference eventRef = db.collection("events").document(event.getEventId());
-        eventRef.update("drawCount", drawCount);
+        db.update(DataStore.path("events", event.getEventId()), "drawCount", drawCount);
+    }
+
+    /**
+     * Records the seed and the selected entrants of a lottery draw, so the draw can be audited and replayed.
+     * Each draw is stored as its own document at events/{eventId}/draws/{drawId}, so redraws do not overwrite
+     * the initial draw and the event document does not grow with every draw. Recording the same draw twice
+     * overwrites its document, so a resumed draw can safely record again. The draw history that events drawn
+     * before draws had their own documents kept on the event is removed in the same batch.
+     *
+     * @param event       The event the draw was performed on.
+     * @param drawId      The unique identifier of the draw.
+     * @param seed        The seed that drove the draw.
+     * @param selectedIds The user IDs of the selected entrants, in draw order.
+     * @param startedAt   The time the draw was started.
+     */
+    public void recordDraw(Event event, String drawId, long seed, List<String> selectedIds, Date startedAt) {
+        Map<String, Object> drawRecord = new HashMap<>();
+        drawRecord.put("drawId", drawId);
+        drawRecord.put("seed", seed);
+        drawRecord.put("drawOrder", selectedIds);
+        drawRecord.put("drawnAt", startedAt);
+
+        String eventPath = DataStore.path("events", event.getEventId());
+        db.batch()
+                .set(DataStore.path(eventPath, "draws", drawId), drawRecord)
+                .update(eventPath, "drawHistory", FieldTransform.delete())
+                .commit()
+                .addOnFailureListener(e -> Log.e("EventController", "Error recording draw", e));
+    }
+
+    /**
+     * Sends a broadcast notification about an event. The broadcast is written as a single document,
+     * and each user's device delivers it if the user is in its audience.
+     * When a broadcast ID is given, sending again overwrites the broadcast instead of sending a second one.
+     *
+     * @param eventId     The ID of the event the broadcast is about.
+     * @param broadcastId The ID of the broadcast, or null to generate one.
+     * @param message     The notification message.
+     * @param audience    The users the broadcast is for.
+     */
+    public void sendBroadcast(String eventId, String broadcastId, String message, BroadcastAudience audience) {
+        String id = broadcastId != null ? broadcastId : db.newDocumentId("broadcasts");
+        db.set(DataStore.path("broadcasts", id), NotificationFanout.toBroadcast(eventId, message, audience))
+                .addOnFailureListener(e -> Log.e("EventController", "Error sending broadcast", e));
+    }
+
+    /**
+     * Tells the entrants of an event the outcome of a draw with two broadcasts, one for the selected entrants
+     * and one for the others. It must be called after the entrants' statuses are written, since the broadcasts
+     * are matched against them.
+     *
+     * @param event  The event that was drawn.
+     * @param drawId The unique identifier of the draw, so sending the outcome again overwrites it.
+     */
+    public void broadcastDrawOutcome(Event event, String drawId) {
+        sendBroadcast(event.getEventId(), drawId + "_selected",
+                NotificationFanout.drawOutcomeMessage(event.getEvent_name(), true), BroadcastAudience.withStatus("Selected"));
+        sendBroadcast(event.getEventId(), drawId + "_notSelected",
+                NotificationFanout.drawOutcomeMessage(event.getEvent_name(), false), BroadcastAudience.withStatus("Not Selected"));
+    }
+
+    /**
+     * Attempts to acquire the lease to run the lottery draw for an event.
+     * The lease is granted inside a transaction, so exactly one client wins it. If a previous
+     * lease has expired without the draw completing, the draw ID and seed are kept so the
+     * interrupted draw is resumed rather than run again with a different outcome.
+     * Expiry is judged against the server's clock, see {@link #stampDrawClock}, so a device whose clock
+     * is ahead cannot take over a live lease. The event is read first, and the clock is only stamped if the lease
+     * may be taken, so a drawn event or a lease another client still holds costs no write.
+     *
+     * @param event       The event to draw.
+     * @param ownerId     The device ID of the client requesting the lease.
+     * @param leaseMillis How long the lease is held before another client may take over.
+     * @param callback    A callback containing the acquired lease, or null if the lease was not acquired.
+     */
+    public void acquireDrawLease(Event event, String ownerId, long leaseMillis, drawLeaseCallback callback) {
+        String eventPath = DataStore.path("events", event.getEventId());
+
+        db.get(eventPath).onSuccessTask(current -> !mayTakeDrawLease(current, ownerId)
+                ? StoreTask.<DrawLease>forResult(null)
+                : stampDrawClock(eventPath).onSuccessTask(stamped -> db.<DrawLease>runTransaction(transaction -> {
+                    StoredDocument snapshot = transaction.get(eventPath);
+                    Date now = snapshot.getDate(DRAW_CLOCK_FIELD);
+                    if (!snapshot.exists() || Boolean.TRUE.equals(snapshot.getBoolean("isDrawn")) || now == null) {
+                        return null;
+                    }
+
+                    Date expiresAt = new Date(now.getTime() + leaseMillis);
+                    DrawLease currentLease = DrawLease.fromDocument(snapshot);
+                    DrawLease lease;
+                    if (currentLease == null) {
+                        lease = new DrawLease(UUID.randomUUID().toString(), ownerId, new SplittableRandom().nextLong(), now, expiresAt);
+                    } else if (ownerId.equals(currentLease.getOwner()) || currentLease.isExpired(now)) {
+                        lease = currentLease.renew(ownerId, expiresAt);
+                    } else {
+                        return null; // Another client holds a live lease.
+                    }
+
+                    transaction.update(eventPath, "drawLease", lease.toMap());
+                    return lease;
+                })))
+                .addOnSuccessListener(callback::onCallback)
+                .addOnFailureListener(e -> {
+                    Log.e("EventController", "Error acquiring draw lease", e);
+                    callback.onCallback(null);
+                });
+    }
+
+    /**
+     * Extends a draw lease this client holds, so a draw that takes longer than one lease is not taken over
+     * while it is still writing. A lease that has been taken over by another client, or whose draw has
+     * completed, is not renewed.
+     *
+     * @param event       The event being drawn.
+     * @param lease       The lease held by this client.
+     * @param leaseMillis How long the lease is held from now before another client may take over.
+     * @param callback    A callback containing the renewed lease, or null if the lease is no longer held.
+     */
+    public void renewDrawLease(Event event, DrawLease lease, long leaseMillis, drawLeaseCallback callback) {
+        String eventPath = DataStore.path("events", event.getEventId());
+
+        stampDrawClock(eventPath).onSuccessTask(stamped -> db.<DrawLease>runTransaction(transaction -> {
+                    StoredDocument snapshot = transaction.get(eventPath);
+                    Date now = snapshot.getDate(DRAW_CLOCK_FIELD);
+                    DrawLease currentLease = DrawLease.fromDocument(snapshot);
+                    if (now == null || currentLease == null || !lease.getDrawId().equals(currentLease.getDrawId())
+                            || !lease.getOwner().equals(currentLease.getOwner())) {
+                        return null;
+                    }
+
+                    DrawLease renewed = currentLease.renew(lease.getOwner(), new Date(now.getTime() + leaseMillis));
+                    transaction.update(eventPath, "drawLease", renewed.toMap());
+                    return renewed;
+                }))
+                .addOnSuccessListener(callback::onCallback)
+                .addOnFailureListener(e -> {
+                    Log.e("EventController", "Error renewing draw lease", e);
+                    callback.onCallback(null);
+                });
+    }
+
+    /**
+     * Records on a draw lease this client holds that the draw's entrants have been pinned and ranked,
+     * so a client resuming the draw reads the persisted ranking instead of ranking the waiting list again.
+     *
+     * @param event       The event being drawn.
+     * @param lease       The lease held by this client.
+     * @param pinnedCount The number of entrants ranked.
+     * @param callback    A callback containing the pinned lease, or null if the lease is no longer held.
+     */
+    public void pinDrawEntrants(Event event, DrawLease lease, int pinnedCount, drawLeaseCallback callback) {
+        String eventPath = DataStore.path("events", event.getEventId());
+
+        db.<DrawLease>runTransaction(transaction -> {
+                    DrawLease currentLease = DrawLease.fromDocument(transaction.get(eventPath));
+                    if (currentLease == null || !lease.getDrawId().equals(currentLease.getDrawId())
+                            || !lease.getOwner().equals(currentLease.getOwner())) {
+                        return null;
+                    }
+
+                    DrawLease pinned = currentLease.pin(pinnedCount);
+                    transaction.update(eventPath, "drawLease", pinned.toMap());
+                    return pinned;
+                })
+                .addOnSuccessListener(callback::onCallback)
+                .addOnFailureListener(e -> {
+                    Log.e("EventController", "Error pinning draw entrants", e);
+                    callback.onCallback(null);
+                });
+    }
+
+    /**
+     * Checks, without writing, whether this client may be able to take an event's draw lease: the event is not
+     * drawn, and its lease is missing, held by this client, or close to expiring by this device's clock.
+     * The transaction taking the lease judges expiry again by the server's clock.
+     */
+    private static boolean mayTakeDrawLease(StoredDocument snapshot, String ownerId) {
+        if (!snapshot.exists() || Boolean.TRUE.equals(snapshot.getBoolean("isDrawn"))) {
+            return false;
+        }
+        DrawLease currentLease = DrawLease.fromDocument(snapshot);
+        return currentLease == null || ownerId.equals(currentLease.getOwner())
+                || currentLease.isExpired(new Date(System.currentTimeMillis() + DRAW_CLOCK_SKEW_MILLIS));
+    }
+
+    /**
+     * Records the server's current time on an event, next to its draw lease. A transaction cannot read a server
+     * timestamp it writes itself, so the time is written first and then read back inside the lease transaction
+     * as "now". The lease's expiry is computed from that time as well, so both sides of the comparison are server
+     * times. Only called when the lease is about to be taken or renewed, and removed when the draw completes;
+     * a stamp that lands after the draw completes is ignored, since a drawn event's lease is never taken.
+     */
+    private StoreTask<Void> stampDrawClock(String eventPath) {
+        return db.update(eventPath, DRAW_CLOCK_FIELD, FieldTransform.serverTimestamp());
+    }
+
+    /**
+     * Marks an event as drawn and releases its draw lease.
+     * Nothing is changed if the lease has since been taken over by a different draw.
+     *
+     * @param event    The event that was drawn.
+     * @param drawId   The unique identifier of the completed draw.
+     * @param callback The callback to handle success or failure.
+     */
+    public void completeDraw(Event event, String drawId, updateCallback callback) {
+        String eventPath = DataStore.path("events", event.getEventId());
+
+        db.<Void>runTransaction(transaction -> {
+                    StoredDocument snapshot = transaction.get(eventPath);
+                    DrawLease currentLease = DrawLease.fromDocument(snapshot);
+                    if (currentLease == null || !drawId.equals(currentLease.getDrawId())) {
+                        // Not a conflict to retry: another draw holds the event now.
+                        throw new DataStoreException("Draw lease is no longer held by draw " + drawId,
+                                DataStoreException.Code.FAILED_PRECONDITION);
+                    }
+
+                    Map<String, Object> updates = new HashMap<>();
+                    updates.put(EventCodec.IS_DRAWN, true);
+                    updates.put("drawLease", FieldTransform.delete());
+                    updates.put(DRAW_CLOCK_FIELD, FieldTransform.delete());
+                    transaction.update(eventPath, updates);
+                    return null;
+                })
+                .addOnSuccessListener(result -> {
+                    event.setDrawn(true);
+                    callback.onSuccess();
+                })
+                .addOnFailureListener(e -> {
+                    Log.e("EventController", "Error completing draw", e);
+                    callback.onFailure(e);
+                });
+    }
+
+    /**
+     * Sets the rank of the next entrant to promote when a selected entrant is cancelled or declines.
+     *
+     * @param event        The event to update.
+     * @param nextDrawRank The rank in the draw order of the next entrant to promote.
+     */
+    public void setNextDrawRank(Event event, int nextDrawRank) {
+        db.update(DataStore.path("events", event.getEventId()), "nextDrawRank", nextDrawRank)
+                .addOnFailureListener(e -> Log.e("FieldUpdateError", "Error updating next draw rank", e));
     }
 
     /**
@@ -172,7 +823,7 @@ public class EventController {
      * @param event The event whose draw count is retrieved.
      */
     public void getDrawCount(Event event, drawCountCallback callback) {
-        db.collection("events").document(event.getEventId()).get()
+        db.get(DataStore.path("events", event.getEventId()))
                 .addOnSuccessListener(documentSnapshot -> {
                     if (documentSnapshot.exists() && documentSnapshot.contains("drawCount")) {
                         long drawCount = documentSnapshot.getLong("drawCount");
@@ -196,94 +847,125 @@ public class EventController {
      * @param update The new value for the field.
      */
     public void updateField(Event event, String field, String update) {
+        eventRepository.invalidate(event.getEventId());
         if (field.equals("isDrawn")) {
             boolean drawn = Boolean.parseBoolean(update);
-            db.collection("events").document(event.getEventId()).update(field, drawn)
+            db.update(DataStore.path("events", event.getEventId()), field, drawn)
                     .addOnFailureListener(e -> Log.e("FieldUpdateError", "Error updating field", e));
         }
         else {
-            db.collection("events").document(event.getEventId()).update(field, update)
+            db.update(DataStore.path("events", event.getEventId()), field, update)
                     .addOnFailureListener(e -> Log.e("FieldUpdateError", "Error updating field", e));
         }
     }
 
     /**
-     * Deletes an event from the database.
+     * Deletes an event from the database, together with its waiting list, the entrants' registrations,
+     * its draw order, its entrant counter, its notifications and its poster.
+     * A delete that fails part way can be finished by deleting the event again.
      *
      * @param eventId  The ID of the event to delete.
-     * @param callback Callback for success or failure.
+     * @param callback Callback for progress, success or failure.
      */
     public void deleteEvent(String eventId, deleteCallback callback) {
-        db.collection("events").document(eventId).delete()
-                .addOnSuccessListener(aVoid -> {
-                    Log.d("EventController", "Event deleted successfully");
-                    callback.onSuccess();
-                })
-                .addOnFailureListener(e -> {
-                    Log.e("EventController", "Error deleting event", e);
-                    callback.onFailure(e);
-                });
+        cascadeDeleter.deleteEvent(eventId, new CascadeDeleter.cascadeCallback() {
+            @Override
+            public void onProgress(int deletedDocuments) {
+                callback.onProgress(deletedDocuments);
+            }
+
+            @Override
+            public void onSuccess() {
+                Log.d("EventController", "Event deleted successfully");
+                eventRepository.invalidate(eventId);
+                callback.onSuccess();
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                Log.e("EventController", "Error deleting event", e);
+                callback.onFailure(e);
+            }
+        });
     }
 
     /**
-     * Helper method to construct an Event object from a Firestore document.
+     * Helper method to construct an Event object from a stored document.
+     * The event is added to the event repository, so opening it afterwards costs no read.
      *
-     * @param document   The Firestore document containing event data.
-     * @param facilityId The ID of the facility the event belongs to.
+     * @param document The stored document containing event data.
      * @return An Event object populated with the document's data.
      */
-    private Event buildEventFromDocument(DocumentSnapshot document, String facilityId) {
-        String eventId = document.getString("eventId");
-        String eventName = document.getString("event_name");
-        String eventDescription = document.getString("event_description");
-        int eventPrice = document.getLong("event_price") != null ? document.getLong("event_price").intValue() : 0;
-        int maxEntrants = document.getLong("event_max_entrants") != null ? document.getLong("event_max_entrants").intValue() : 0;
-        Date registrationOpen = document.getTimestamp("registration_open") != null ? document.getTimestamp("registration_open").toDate() : null;
-        Date registrationClose = document.getTimestamp("registration_close") != null ? document.getTimestamp("registration_close").toDate() : null;
-        boolean geolocationRequirement = Boolean.TRUE.equals(document.getBoolean("geolocation_requirement"));
-        String eventLocation = document.getString("event_location");
-        String eventImagePath = document.getString("event_image_path");
-        String posterUri = document.getString("posterUri");
-        boolean isDrawn = Boolean.TRUE.equals(document.getBoolean("isDrawn"));
-
-        Event event = new Event(
-                eventId,
-                eventName,
-                eventDescription,
-                eventPrice,
-                maxEntrants,
-                registrationOpen,
-                registrationClose,
-                facilityId,
-                eventLocation,
-                geolocationRequirement,
-                eventImagePath
-        );
-        event.setPosterUri(posterUri);
-        event.setEventId(eventId);
-        event.setDrawn(isDrawn);
-        return event;
-    }
-
-    /**
-     * Fetches all events from the database.
-     * @param callback A callback interface containing a list with all events.
-     */
-    public void fetchAllEvents(eventCallback callback) {
-        ArrayList<Event> events = new ArrayList<Event>();
-        db.collection("events").get()
+    private Event buildEventFromDocument(StoredDocument document) {
+        return eventRepository.cache(document);
+    }
+
+    /**
+     * Gets an event through the event repository, which serves recently seen events without a read.
+     *
+     * @param eventId  The ID of the event.
+     * @param callback The callback receiving the event.
+     */
+    public void getEvent(String eventId, EventRepository.eventCallback callback) {
+        eventRepository.getEvent(eventId, callback);
+    }
+
+    /**
+     * Creates a pager that reads every event one page at a time, ordered by event ID.
+     * The events read are cached, so opening one of them costs no further read.
+     *
+     * @param pageSize The maximum number of events read per page.
+     * @return A pager positioned at the first event.
+     */
+    public DocumentPager<Event> getEventPager(int pageSize) {
+        return new DocumentPager<>(db, StoreQuery.collection("events").orderBy(EventCodec.EVENT_ID), pageSize,
+                this::buildEventFromDocument);
+    }
+
+    /**
+     * Fetches the events whose registration has closed but whose entrants have not been drawn yet.
+     * The query is served by the composite index on (isDrawn, registration_close), so only due
+     * events are read. Results are read one page at a time, and the callback is invoked once per non-empty page,
+     * then once when every page has been read or a page could not be read.
+     *
+     * @param now      The current time; events whose registration closed at or before it are due.
+     * @param limit    The maximum number of events read per page.
+     * @param callback A callback invoked with each page of due events, then with the completion or failure.
+     */
+    public void fetchEventsDueForDraw(Date now, int limit, dueEventsCallback callback) {
+        StoreQuery dueQuery = StoreQuery.collection("events")
+                .whereEqualTo("isDrawn", false)
+                .whereLessThanOrEqualTo("registration_close", now)
+                .orderBy("registration_close")
+                .limit(limit);
+        fetchEventsDueForDrawPage(dueQuery, null, limit, callback);
+    }
+
+    /**
+     * Reads one page of due events starting after the given document, then reads the next page if this one was full.
+     */
+    private void fetchEventsDueForDrawPage(StoreQuery dueQuery, StoredDocument lastDocument, int limit,
+                                           dueEventsCallback callback) {
+        StoreQuery pageQuery = lastDocument != null ? dueQuery.startAfter(lastDocument) : dueQuery;
+        db.query(pageQuery)
                 .addOnSuccessListener(documentSnapshots -> {
-                    if(!(documentSnapshots.isEmpty())) {
-                        for (DocumentSnapshot eventRef : documentSnapshots) {
-                            Event event = buildEventFromDocument(eventRef, eventRef.getString("facilityId"));
-                            events.add(event);
-                        }
+                    ArrayList<Event> events = new ArrayList<>();
+                    for (StoredDocument eventRef : documentSnapshots) {
+                        events.add(buildEventFromDocument(eventRef));
+                    }
+                    if (!events.isEmpty()) {
+                        callback.onPage(events);
+                    }
+                    if (documentSnapshots.size() == limit) {
+                        StoredDocument pageEnd = documentSnapshots.get(documentSnapshots.size() - 1);
+                        fetchEventsDueForDrawPage(dueQuery, pageEnd, limit, callback);
+                    } else {
+                        callback.onComplete();
                     }
-                    callback.onCallback(events);
                 })
                 .addOnFailureListener(e -> {
-                    Log.e("EventRetrievalError", "Error retrieving events: ", e);
-                    callback.onCallback(events);
+                    Log.e("EventRetrievalError", "Error retrieving events due for draw: ", e);
+                    callback.onFailure(e);
                 });
     }
 
@@ -293,8 +975,175 @@ public class EventController {
      * @param entrant The entrant whose status is updated.
      */
     public void updateEntrantStatus(Event event, Entrant entrant) {
-        db.collection("events").document(event.getEventId()).collection("waitingList").document(entrant.getUserId()).update("status", entrant.getStatus())
-                .addOnFailureListener(e -> Log.e("FieldUpdateError", "Error updating field", e));
+        updateEntrantStatuses(event, Collections.singletonList(entrant), failedEntrants -> {
+            if (!failedEntrants.isEmpty()) {
+                Log.e("FieldUpdateError", "Error updating status for entrant: " + entrant.getUserId());
+            }
+        });
+    }
+
+    /**
+     * Updates the status attribute of several entrants in the database using batched writes.
+     *
+     * @param event    The event the entrants are registered under.
+     * @param entrants The entrants whose statuses are updated.
+     * @param callback The callback to report progress, failed batches and completion.
+     */
+    public void updateEntrantStatuses(Event event, List<Entrant> entrants, BatchWriter.BatchCallback<Entrant> callback) {
+        updateEntrantStatuses(event, entrants, null, callback);
+    }
+
+    /**
+     * Updates the status attribute of several entrants in the database, and sends each entrant
+     * a notification in the same batch as their status update.
+     *
+     * @param event    The event the entrants are registered under.
+     * @param entrants The entrants whose statuses are updated.
+     * @param messages A map of user IDs to the notification message sent to that user, or null for no notifications.
+     * @param callback The callback to report progress, failed batches and completion.
+     */
+    public void updateEntrantStatuses(Event event, List<Entrant> entrants, Map<String, String> messages, BatchWriter.BatchCallback<Entrant> callback) {
+        updateEntrantStatuses(event, entrants, messages, null, callback);
+    }
+
+    /**
+     * Updates the status attribute of several entrants in the database, and sends each entrant
+     * a notification in the same batch as their status update.
+     * When a notification key is given, each notification is written to a document ID derived from
+     * the key and the user ID, so repeating the update overwrites notifications instead of duplicating them.
+     *
+     * @param event           The event the entrants are registered under.
+     * @param entrants        The entrants whose statuses are updated.
+     * @param messages        A map of user IDs to the notification message sent to that user, or null for no notifications.
+     * @param notificationKey A key identifying this update's notifications, or null to generate notification IDs.
+     * @param callback        The callback to report progress, failed batches and completion.
+     */
+    public void updateEntrantStatuses(Event event, List<Entrant> entrants, Map<String, String> messages, String notificationKey,
+                                      BatchWriter.BatchCallback<Entrant> callback) {
+        writeEntrantUpdates(event, entrants, messages, notificationKey, null, callback);
+    }
+
+    /**
+     * Writes the outcome of a ranked draw for several entrants using batched writes.
+     * Along with each entrant's status and any notification, the entrant's rank in the full draw order is stored
+     * on their waiting list document. The draw order itself is written by {@link #writeDrawOrder}.
+     *
+     * @param event           The event the entrants are registered under.
+     * @param entrants        The entrants whose outcomes are written.
+     * @param drawRanks       A map of user IDs to the entrant's rank in the draw order.
+     * @param messages        A map of user IDs to the notification message sent to that user, or null for no notifications.
+     * @param notificationKey A key identifying this draw's notifications.
+     * @param callback        The callback to report progress, failed batches and completion.
+     */
+    public void updateDrawOutcomes(Event event, List<Entrant> entrants, Map<String, Integer> drawRanks, Map<String, String> messages,
+                                   String notificationKey, BatchWriter.BatchCallback<Entrant> callback) {
+        writeEntrantUpdates(event, entrants, messages, notificationKey, drawRanks, callback);
+    }
+
+    /**
+     * Writes status updates, and optionally notifications and draw ranks, for several entrants in chunked batches.
+     * Each entrant's registration is rewritten in the same batch as their status.
+     * An entrant who left the waiting list after it was read fails their whole batch, so the entrants of failed
+     * batches who are still on the waiting list are written again without those who left, who are reported
+     * through {@link BatchWriter.BatchCallback#onDropped}.
+     */
+    private void writeEntrantUpdates(Event event, List<Entrant> entrants, Map<String, String> messages, String notificationKey,
+                                     Map<String, Integer> drawRanks, BatchWriter.BatchCallback<Entrant> callback) {
+        String waitingListPath = DataStore.path("events", event.getEventId(), "waitingList");
+        Map<String, Object> eventData = EventCodec.getInstance().encode(event);
+
+        BatchWriter<Entrant> writer = new BatchWriter<>(db, new BatchWriter.ItemWriter<Entrant>() {
+            @Override
+            public int countOperations(Entrant entrant) {
+                return 2 + (hasMessage(entrant) ? 1 : 0);
+            }
+
+            @Override
+            public void write(DataStore.Batch batch, Entrant entrant) {
+                String entrantPath = DataStore.path(waitingListPath, entrant.getUserId());
+                if (hasRank(entrant)) {
+                    int rank = drawRanks.get(entrant.getUserId());
+                    Map<String, Object> entrantUpdates = new HashMap<>();
+                    entrantUpdates.put("status", entrant.getStatus());
+                    entrantUpdates.put("drawRank", rank);
+                    batch.update(entrantPath, entrantUpdates);
+                } else {
+                    batch.update(entrantPath, "status", entrant.getStatus());
+                }
+                batch.set(RegistrationIndex.registrationPath(entrant.getUserId(), event.getEventId()),
+                        RegistrationIndex.toRegistration(event.getEventId(), eventData, entrant.getStatus()));
+
+                if (hasMessage(entrant)) {
+                    Map<String, Object> notificationData = NotificationFanout.toNotification(entrant.getUserId(), event.getEventId(), messages.get(entrant.getUserId()));
+                    String notificationId = notificationKey != null
+                            ? notificationKey + "_" + entrant.getUserId()
+                            : db.newDocumentId("notifications");
+                    batch.set(DataStore.path("notifications", notificationId), notificationData);
+                }
+            }
+
+            private boolean hasMessage(Entrant entrant) {
+                return messages != null && messages.get(entrant.getUserId()) != null;
+            }
+
+            private boolean hasRank(Entrant entrant) {
+                return drawRanks != null && drawRanks.get(entrant.getUserId()) != null;
+            }
+        });
+        writeRemainingEntrants(writer, waitingListPath, entrants, callback);
+    }
+
+    /**
+     * Writes entrants, then writes the entrants of failed batches again once those who left are dropped.
+     * Each retry writes fewer entrants, so this stops once a retry has nobody left to drop.
+     */
+    private void writeRemainingEntrants(BatchWriter<Entrant> writer, String waitingListPath, List<Entrant> entrants,
+                                        BatchWriter.BatchCallback<Entrant> callback) {
+        writer.write(entrants, new BatchWriter.BatchCallback<Entrant>() {
+            @Override
+            public void onProgress(int committedBatches, int totalBatches) {
+                callback.onProgress(committedBatches, totalBatches);
+            }
+
+            @Override
+            public void onComplete(List<Entrant> failedEntrants) {
+                if (failedEntrants.isEmpty()) {
+                    callback.onComplete(failedEntrants);
+                    return;
+                }
+                findLeftEntrants(waitingListPath, failedEntrants, leftEntrants -> {
+                    if (leftEntrants.isEmpty()) {
+                        callback.onComplete(failedEntrants);
+                        return;
+                    }
+                    Log.d("EventController", leftEntrants.size() + " entrants left the waiting list before their "
+                            + "status was written");
+                    callback.onDropped(leftEntrants);
+                    List<Entrant> remaining = new ArrayList<>(failedEntrants);
+                    remaining.removeAll(leftEntrants);
+                    writeRemainingEntrants(writer, waitingListPath, remaining, callback);
+                });
+            }
+        });
+    }
+
+    /**
+     * Reads the waiting list entry of each entrant and finds those who are no longer on the waiting list.
+     * An entrant whose entry cannot be read is assumed to still be on it.
+     */
+    private void findLeftEntrants(String waitingListPath, List<Entrant> entrants, Consumer<List<Entrant>> onFound) {
+        List<Entrant> leftEntrants = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger remaining = new AtomicInteger(entrants.size());
+        for (Entrant entrant : entrants) {
+            db.get(DataStore.path(waitingListPath, entrant.getUserId())).addOnCompleteListener(task -> {
+                if (task.isSuccessful() && !task.getResult().exists()) {
+                    leftEntrants.add(entrant);
+                }
+                if (remaining.decrementAndGet() == 0) {
+                    onFound.accept(new ArrayList<>(leftEntrants));
+                }
+            });
+        }
     }
 
     // Callback Interfaces
@@ -302,13 +1151,24 @@ public class EventController {
         void onCallback(ArrayList<Event> events);
     }
 
-    public interface WaitingListCallback {
-        void onSuccess(ArrayList<Map<String, String>> waitingList);
+    public interface dueEventsCallback {
+        void onPage(ArrayList<Event> events);
+
+        void onComplete();
+
+        void onFailure(Exception e);
+    }
+
+    public interface waitingListCountCallback {
+        void onSuccess(long count);
 
         void onFailure(Exception e);
     }
 
     public interface deleteCallback {
+        default void onProgress(int deletedDocuments) {
+        }
+
         void onSuccess();
 
         void onFailure(Exception e);
@@ -326,6 +1186,22 @@ public class EventController {
         void onFailure(Exception e);
     }
 
+    public interface idsCallback {
+        void onSuccess(List<String> ids);
+
+        void onFailure(Exception e);
+    }
+
+    public interface drawOrderCallback {
+        void onSuccess(Map<String, Integer> drawRanks);
+
+        void onFailure(Exception e);
+    }
+
+    public interface drawLeaseCallback {
+        void onCallback(DrawLease lease);
+    }
+
     public interface drawCountCallback {
         void onSuccess(int drawCount);
 
@@ -0,0 +1,357 @@
+package com.example.wizard_project.Controllers;
+
+import android.util.Log;
+
+import com.example.wizard_project.Classes.Event;
+import com.example.wizard_project.Classes.EventCodec;
+import com.example.wizard_project.Store.DataStore;
+import com.example.wizard_project.Store.DataStoreException;
+import com.example.wizard_project.Store.DocumentChange;
+import com.example.wizard_project.Store.StoreQuery;
+import com.example.wizard_project.Store.StoredDocument;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * EventRepository keeps recently used events in a bounded least-recently-used cache shared by every screen.
+ * While a screen observes an event, a single snapshot listener shared by all of the event's observers keeps
+ * the cached event up to date, and the event is never evicted. Events nobody observes are served from the cache
+ * for {@link #MAX_UNOBSERVED_AGE_MILLIS}, so opening an event that was just seen costs no reads.
+ * A read that was in flight when its event was invalidated may predate the change, so its result is passed to
+ * the requests that waited for it but not cached.
+ */
+public class EventRepository {
+    public static final int DEFAULT_CAPACITY = 64;
+    public static final long MAX_UNOBSERVED_AGE_MILLIS = 60 * 1000; // How long an unobserved event is trusted
+    private static EventRepository instance;
+
+    private final DataStore db;
+    private final int capacity;
+    // Event ID -> cached event, least recently used first. Guarded by this.
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Read> inFlight = new HashMap<>(); // Guarded by this
+    private long hits = 0; // Guarded by this
+    private long misses = 0; // Guarded by this
+    private long evictions = 0; // Guarded by this
+
+    /**
+     * Constructs an EventRepository.
+     *
+     * @param db       The data store holding the events.
+     * @param capacity The maximum number of unobserved events kept in the cache.
+     */
+    public EventRepository(DataStore db, int capacity) {
+        this.db = db;
+        this.capacity = capacity;
+    }
+
+    /**
+     * @return The repository for the Firestore database.
+     */
+    public static synchronized EventRepository getInstance() {
+        if (instance == null) {
+            instance = new EventRepository(FirestoreDataStore.getInstance(), DEFAULT_CAPACITY);
+        }
+        return instance;
+    }
+
+    /**
+     * Gets an event from the cache, or reads it if it is not cached or is no longer fresh.
+     * Requests for an event while a read of that event is already in flight wait for the same read.
+     *
+     * @param eventId  The ID of the event.
+     * @param callback The callback receiving the event.
+     */
+    public void getEvent(String eventId, eventCallback callback) {
+        Event cached = null;
+        Read read = null;
+        synchronized (this) {
+            Entry entry = entries.get(eventId);
+            if (entry != null && entry.event != null && entry.isFresh()) {
+                hits++;
+                cached = entry.event;
+            } else {
+                misses++;
+                Read waiting = inFlight.get(eventId);
+                if (waiting != null) {
+                    waiting.callbacks.add(callback);
+                    return;
+                }
+                read = new Read();
+                read.callbacks.add(callback);
+                inFlight.put(eventId, read);
+            }
+        }
+        if (cached != null) {
+            callback.onEventLoaded(cached);
+            return;
+        }
+
+        Read started = read;
+        db.get(DataStore.path("events", eventId))
+                .addOnSuccessListener(document -> {
+                    if (!document.exists()) {
+                        invalidate(eventId);
+                        complete(eventId, started, null, new DataStoreException("Event " + eventId + " does not exist",
+                                DataStoreException.Code.NOT_FOUND));
+                        return;
+                    }
+                    complete(eventId, started, EventCodec.getInstance().decode(document), null);
+                })
+                .addOnFailureListener(e -> {
+                    Log.e("EventRepository", "Error reading event " + eventId, e);
+                    complete(eventId, started, null, e);
+                });
+    }
+
+    /**
+     * Observes an event. The listener receives the event whenever it changes, starting with its current state,
+     * and is told if the event is deleted. All observers of an event share one snapshot listener, which is removed with the last observer.
+     *
+     * @param eventId  The ID of the event.
+     * @param listener The listener receiving the event.
+     * @return The registration to remove once the event is no longer shown.
+     */
+    public DataStore.Registration observe(String eventId, eventListener listener) {
+        Event current = null;
+        synchronized (this) {
+            Entry entry = entries.get(eventId);
+            if (entry == null) {
+                entry = new Entry();
+                entries.put(eventId, entry);
+            }
+            entry.observers.add(listener);
+            if (entry.registration == null) {
+                entry.registration = db.listen(StoreQuery.collection("events").whereEqualTo(EventCodec.EVENT_ID, eventId),
+                        new DataStore.QueryListener() {
+                            @Override
+                            public void onChanges(List<DocumentChange> changes) {
+                                onEventChanged(eventId, changes);
+                            }
+
+                            @Override
+                            public void onError(DataStoreException e) {
+                                Log.e("EventRepository", "Event listener failed for " + eventId, e);
+                            }
+                        });
+            } else {
+                current = entry.event;
+            }
+        }
+        if (current != null) {
+            listener.onEventChanged(current);
+        }
+        return () -> stopObserving(eventId, listener);
+    }
+
+    /**
+     * Returns an event from the cache without reading it, whether or not it is still fresh.
+     *
+     * @param eventId The ID of the event.
+     * @return The cached event, or null if the event is not cached.
+     */
+    public synchronized Event getCachedEvent(String eventId) {
+        Entry entry = entries.get(eventId);
+        return entry != null ? entry.event : null;
+    }
+
+    /**
+     * Adds an event read by another query, such as a list of events, to the cache.
+     *
+     * @param document The event document.
+     * @return The event built from the document.
+     */
+    public Event cache(StoredDocument document) {
+        Event event = EventCodec.getInstance().decode(document);
+        synchronized (this) {
+            store(document.getId(), event);
+        }
+        return event;
+    }
+
+    /**
+     * Removes an event from the cache, so the next request reads it again. Observed events are kept,
+     * since their listener keeps them up to date. A read of the event already in flight is not cached,
+     * and later requests do not wait for it.
+     *
+     * @param eventId The ID of the event.
+     */
+    public synchronized void invalidate(String eventId) {
+        inFlight.remove(eventId);
+        Entry entry = entries.get(eventId);
+        if (entry != null && entry.observers.isEmpty()) {
+            entries.remove(eventId);
+        }
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * @return The cache's hit, miss and eviction counts.
+     */
+    public synchronized String stats() {
+        return String.format(Locale.ROOT, "events cached %d, hits %d, misses %d, evictions %d",
+                entries.size(), hits, misses, evictions);
+    }
+
+    private void onEventChanged(String eventId, List<DocumentChange> changes) {
+        List<eventListener> observers;
+        Event event = null;
+        for (DocumentChange change : changes) {
+            if (change.getType() == DocumentChange.Type.REMOVED) {
+                event = null;
+            } else {
+                event = EventCodec.getInstance().decode(change.getDocument());
+            }
+        }
+        synchronized (this) {
+            Entry entry = entries.get(eventId);
+            if (entry == null || entry.registration == null) {
+                return;
+            }
+            entry.event = event; // Null once the event is deleted.
+            entry.loadedAtMillis = System.currentTimeMillis();
+            observers = new ArrayList<>(entry.observers);
+        }
+        for (eventListener observer : observers) {
+            if (event != null) {
+                observer.onEventChanged(event);
+            } else {
+                observer.onEventRemoved(eventId);
+            }
+        }
+    }
+
+    private void stopObserving(String eventId, eventListener listener) {
+        DataStore.Registration registration = null;
+        synchronized (this) {
+            Entry entry = entries.get(eventId);
+            if (entry == null || !entry.observers.remove(listener) || !entry.observers.isEmpty()) {
+                return;
+            }
+            registration = entry.registration;
+            entry.registration = null;
+            if (entry.event == null) {
+                entries.remove(eventId);
+            }
+            evict();
+        }
+        if (registration != null) {
+            registration.remove();
+        }
+    }
+
+    /**
+     * Passes the result of a read to every request that waited for it, and caches it unless the event was
+     * invalidated while it was in flight.
+     */
+    private void complete(String eventId, Read read, Event event, Exception e) {
+        synchronized (this) {
+            if (inFlight.get(eventId) == read) {
+                inFlight.remove(eventId);
+                if (event != null) {
+                    store(eventId, event);
+                }
+            }
+        }
+        for (eventCallback callback : read.callbacks) {
+            if (event != null) {
+                callback.onEventLoaded(event);
+            } else {
+                callback.onFailure(e);
+            }
+        }
+    }
+
+    /**
+     * Caches an event. Must be called while holding the lock.
+     */
+    private void store(String eventId, Event event) {
+        Entry entry = entries.get(eventId);
+        if (entry == null) {
+            entry = new Entry();
+            entries.put(eventId, entry);
+        }
+        entry.event = event;
+        entry.loadedAtMillis = System.currentTimeMillis();
+        evict();
+    }
+
+    /**
+     * Evicts the least recently used unobserved events until the cache is within its capacity.
+     * Must be called while holding the lock.
+     */
+    private void evict() {
+        int unobserved = 0;
+        for (Entry entry : entries.values()) {
+            if (entry.observers.isEmpty()) {
+                unobserved++;
+            }
+        }
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (unobserved > capacity && eldest.hasNext()) {
+            if (eldest.next().observers.isEmpty()) {
+                eldest.remove();
+                unobserved--;
+                evictions++;
+            }
+        }
+    }
+
+    /**
+     * A cached event and its observers.
+     */
+    private static class Entry {
+        private Event event;
+        private long loadedAtMillis;
+        private final List<eventListener> observers = new ArrayList<>();
+        private DataStore.Registration registration;
+
+        private boolean isFresh() {
+            return registration != null || System.currentTimeMillis() - loadedAtMillis < MAX_UNOBSERVED_AGE_MILLIS;
+        }
+    }
+
+    /**
+     * A read of an event and the requests waiting for it. Once the read is replaced in {@link #inFlight},
+     * no more requests join it.
+     */
+    private static class Read {
+        private final List<eventCallback> callbacks = new ArrayList<>();
+    }
+
+    /**
+     * Callback interface for receiving an event.
+     */
+    public interface eventCallback {
+        void onEventLoaded(Event event);
+
+        void onFailure(Exception e);
+    }
+
+    /**
+     * Listener interface for observing an event.
+     */
+    public interface eventListener {
+        void onEventChanged(Event event);
+
+        default void onEventRemoved(String eventId) {
+        }
+    }
+}
@@ -3,9 +3,11 @@ package com.example.wizard_project.Controllers;
 import android.util.Log;
 
 import com.example.wizard_project.Classes.Facility;
-import com.google.firebase.firestore.DocumentSnapshot;
-import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.example.wizard_project.Classes.FacilityCodec;
+import com.example.wizard_project.Core.ImageReferences;
+import com.example.wizard_project.Store.DataStore;
+import com.example.wizard_project.Store.StoreQuery;
+import com.example.wizard_project.Store.StoredDocument;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -13,16 +15,39 @@ import java.util.Map;
 
 /**
  * FacilityController acts as a communicator between the database and Facility objects.
- * It provides methods to create, retrieve, update, and delete facilities in the Firestore database.
+ * It provides methods to create, retrieve, update, and delete facilities in the database.
  */
 public class FacilityController {
-    private final FirebaseFirestore db;
+    private final DataStore db;
+    private final CascadeDeleter cascadeDeleter;
+    private final ImageReferences images;
 
     /**
-     * Constructs a FacilityController with a database instance.
+     * Constructs a FacilityController with the Firestore database.
      */
     public FacilityController() {
-        this.db = FirebaseFirestore.getInstance();
+        this(FirestoreDataStore.getInstance(), CascadeDeleter.getInstance());
+    }
+
+    /**
+     * Constructs a FacilityController with the given data store.
+     *
+     * @param db The data store holding the facilities.
+     */
+    public FacilityController(DataStore db) {
+        this(db, new CascadeDeleter(db, CascadeDeleter::deleteStorageFile));
+    }
+
+    /**
+     * Constructs a FacilityController with the given data store and deleter.
+     *
+     * @param db             The data store holding the facilities.
+     * @param cascadeDeleter The deleter removing facilities together with their events.
+     */
+    public FacilityController(DataStore db, CascadeDeleter cascadeDeleter) {
+        this.db = db;
+        this.cascadeDeleter = cascadeDeleter;
+        this.images = new ImageReferences(db);
     }
 
     /**
@@ -33,18 +58,19 @@ public class FacilityController {
      * @param callback    Callback for success or failure.
      */
     public void createFacility(Facility newFacility, String userId, createCallback callback) {
-        Map<String, Object> facilityData = new HashMap<>();
-        facilityData.put("userId", newFacility.getUserId());
-        facilityData.put("name", newFacility.getFacility_name());
-        facilityData.put("location", newFacility.getFacility_location());
-        facilityData.put("facilityId", newFacility.getFacilityId());
-        facilityData.put("facility_imagePath", newFacility.getFacilityImagePath());
-        facilityData.put("posterUri", newFacility.getposterUri());
-
-        // Create the facility document in the database.
-        db.collection("facilities").document(newFacility.getFacilityId()).set(facilityData)
-                .addOnSuccessListener(aVoid -> {
+        Map<String, Object> facilityData = FacilityCodec.getInstance().encode(newFacility);
+        String facilityPath = DataStore.path("facilities", newFacility.getFacilityId());
+
+        // Create the facility document in the database, counting the reference to its image in the same write.
+        db.<String>runTransaction(transaction -> {
+                    String releasedImageId = images.moveReference(transaction, facilityPath,
+                            FacilityCodec.FACILITY_IMAGE_PATH, newFacility.getFacilityImagePath());
+                    transaction.set(facilityPath, facilityData);
+                    return releasedImageId;
+                })
+                .addOnSuccessListener(releasedImageId -> {
                     Log.d("FacilityController", "Successfully added facility.");
+                    deleteReleasedImage(releasedImageId);
                     // Update the user's isOrganizer field
                     updateIsOrganizer(userId, true, new updateCallback() {
                         @Override
@@ -73,13 +99,11 @@ public class FacilityController {
      * @param callback A callback interface containing the retrieved facility.
      */
     public void getFacility(String userId, facilityCallback callback) {
-        db.collection("facilities").whereEqualTo("userId", userId).get()
+        db.query(StoreQuery.collection("facilities").whereEqualTo(FacilityCodec.USER_ID, userId))
                 .addOnSuccessListener(queryDocumentSnapshots -> {
                     if (!queryDocumentSnapshots.isEmpty()) {
-                        DocumentSnapshot documentSnapshot = queryDocumentSnapshots.getDocuments().get(0);
-                        Facility facility = new Facility();
-                        facility.setFacilityData(documentSnapshot);
-                        callback.onCallback(facility);
+                        StoredDocument documentSnapshot = queryDocumentSnapshots.get(0);
+                        callback.onCallback(FacilityCodec.getInstance().decode(documentSnapshot));
                     } else {
                         callback.onCallback(null);
                     }
@@ -91,7 +115,9 @@ public class FacilityController {
     }
 
     /**
-     * Updates facility details in the database.
+     * Updates facility details in the database. If the facility's image changed, the reference to the new image
+     * is counted and the reference to the old one released in the same write, and the old image's files are
+     * deleted if that was its last reference.
      *
      * @param facility The facility object containing updated values.
      * @param callback Callback for handling success or failure.
@@ -103,14 +129,23 @@ public class FacilityController {
         }
 
         Map<String, Object> updates = new HashMap<>();
-        updates.put("name", facility.getFacility_name());
-        updates.put("location", facility.getFacility_location());
-        updates.put("facility_imagePath", facility.getFacilityImagePath());
-        updates.put("posterUri", facility.getposterUri());
+        updates.put(FacilityCodec.FACILITY_NAME, facility.getFacility_name());
+        updates.put(FacilityCodec.FACILITY_LOCATION, facility.getFacility_location());
+        updates.put(FacilityCodec.FACILITY_IMAGE_PATH, facility.getFacilityImagePath());
+        updates.put(FacilityCodec.FACILITY_CARD_PATH, facility.getFacilityCardPath());
+        updates.put(FacilityCodec.FACILITY_THUMBNAIL_PATH, facility.getFacilityThumbnailPath());
+        updates.put(FacilityCodec.POSTER_URI, facility.getposterUri());
 
-        db.collection("facilities").document(facility.getFacilityId()).update(updates)
-                .addOnSuccessListener(aVoid -> {
+        String facilityPath = DataStore.path("facilities", facility.getFacilityId());
+        db.<String>runTransaction(transaction -> {
+                    String releasedImageId = images.moveReference(transaction, facilityPath,
+                            FacilityCodec.FACILITY_IMAGE_PATH, facility.getFacilityImagePath());
+                    transaction.update(facilityPath, updates);
+                    return releasedImageId;
+                })
+                .addOnSuccessListener(releasedImageId -> {
                     Log.d("FacilityController", "Facility updated successfully");
+                    deleteReleasedImage(releasedImageId);
                     callback.onSuccess();
                 })
                 .addOnFailureListener(e -> {
@@ -127,10 +162,31 @@ public class FacilityController {
      * @param update   The new value for the field.
      */
     public void updateField(Facility facility, String field, String update) {
-        db.collection("facilities").document(facility.getFacilityId()).update(field, update)
+        db.update(DataStore.path("facilities", facility.getFacilityId()), field, update)
                 .addOnFailureListener(e -> Log.e("FacilityController", "Error updating field.", e));
     }
 
+    /**
+     * Deletes the files of an image whose last reference a save released.
+     *
+     * @param imageId The ID of the image, or null if no image was released.
+     */
+    private void deleteReleasedImage(String imageId) {
+        if (imageId == null) {
+            return;
+        }
+        cascadeDeleter.deleteImage(imageId, new CascadeDeleter.fileCallback() {
+            @Override
+            public void onDeleted() {
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                Log.e("FacilityController", "Error deleting the files of image " + imageId, e);
+            }
+        });
+    }
+
     /**
      * Deletes a facility from the database.
      *
@@ -138,7 +194,7 @@ public class FacilityController {
      * @param callback   Callback for success or failure.
      */
     public void deleteFacility(String facilityId, deleteCallback callback) {
-        db.collection("facilities").document(facilityId).delete()
+        db.delete(DataStore.path("facilities", facilityId))
                 .addOnSuccessListener(aVoid -> {
                     Log.d("FacilityController", "Facility deleted successfully");
                     callback.onSuccess();
@@ -150,30 +206,47 @@ public class FacilityController {
     }
 
     /**
-     * Deletes a facility and all associated events from the database.
+     * Deletes a facility and all associated events from the database, along with everything stored
+     * about those events and the facility's image. The facility is deleted last, once its events are gone.
+     * A delete that fails part way can be finished by deleting the facility again.
      *
      * @param facilityId The ID of the facility to delete.
-     * @param callback   Callback for success or failure.
+     * @param callback   Callback for progress, success or failure.
      */
     public void deleteFacilityWithEvents(String facilityId, deleteCallback callback) {
-        // First, delete all events associated with the facility
-        db.collection("events").whereEqualTo("facilityId", facilityId).get()
-                .addOnSuccessListener(querySnapshot -> {
-                    if (!querySnapshot.isEmpty()) {
-                        // Batch delete all events
-                        for (DocumentSnapshot eventDoc : querySnapshot.getDocuments()) {
-                            db.collection("events").document(eventDoc.getId()).delete()
-                                    .addOnSuccessListener(aVoid -> Log.d("FacilityController", "Deleted event: " + eventDoc.getId()))
-                                    .addOnFailureListener(e -> Log.e("FacilityController", "Failed to delete event: " + eventDoc.getId(), e));
-                        }
-                    }
-                    // After deleting events, delete the facility
-                    deleteFacility(facilityId, callback);
-                })
-                .addOnFailureListener(e -> {
-                    Log.e("FacilityController", "Error fetching events for facility", e);
-                    callback.onFailure(e);
-                });
+        cascadeDeleter.deleteFacility(facilityId, new CascadeDeleter.cascadeCallback() {
+            @Override
+            public void onProgress(int deletedDocuments) {
+                callback.onProgress(deletedDocuments);
+            }
+
+            @Override
+            public void onEventDeleted(String eventId) {
+                EventRepository.getInstance().invalidate(eventId);
+            }
+
+            @Override
+            public void onSuccess() {
+                Log.d("FacilityController", "Facility deleted successfully");
+                callback.onSuccess();
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                Log.e("FacilityController", "Error deleting facility and its events", e);
+                callback.onFailure(e);
+            }
+        });
+    }
+
+    /**
+     * Finishes the deletes of a facility and its events that were interrupted, such as by the app closing.
+     * Only the facility's owner resumes them, so other devices never read or join these deletes.
+     *
+     * @param facilityId The ID of the facility.
+     */
+    public void resumeInterruptedDeletes(String facilityId) {
+        cascadeDeleter.resumeInterruptedDeletes(facilityId);
     }
 
     /**
@@ -184,8 +257,7 @@ public class FacilityController {
      * @param callback    Callback for success or failure.
      */
     public void updateIsOrganizer(String userId, boolean isOrganizer, updateCallback callback) {
-        db.collection("users").document(userId)
-                .update("isOrganizer", isOrganizer)
+        db.update(DataStore.path("users", userId), "isOrganizer", isOrganizer)
                 .addOnSuccessListener(aVoid -> {
                     Log.d("FacilityController", "User isOrganizer updated to " + isOrganizer);
                     callback.onSuccess();
@@ -196,20 +268,29 @@ public class FacilityController {
                 });
     }
 
+    /**
+     * Creates a pager that reads every facility one page at a time, ordered by facility ID.
+     *
+     * @param pageSize The maximum number of facilities read per page.
+     * @return A pager positioned at the first facility.
+     */
+    public DocumentPager<Facility> getFacilityPager(int pageSize) {
+        return new DocumentPager<>(db, StoreQuery.collection("facilities").orderBy(FacilityCodec.FACILITY_ID), pageSize,
+                FacilityCodec.getInstance()::decode);
+    }
+
     /**
      * Retrieves a list of all facilities from the database.
      *
      * @param callback A callback containing the retrieved facilities.
      */
     public void getFacilities(facilitiesCallback callback) {
-        db.collection("facilities").get()
+        db.query(StoreQuery.collection("facilities"))
                 .addOnCompleteListener(task -> {
                     if (task.isSuccessful()) {
                         ArrayList<Facility> facilities = new ArrayList<>();
-                        for (QueryDocumentSnapshot document : task.getResult()) {
-                            Facility facility = new Facility();
-                            facility.setFacilityData(document);
-                            facilities.add(facility);
+                        for (StoredDocument document : task.getResult()) {
+                            facilities.add(FacilityCodec.getInstance().decode(document));
                         }
                         callback.onCallback(facilities);
                     } else {
@@ -229,6 +310,9 @@ public class FacilityController {
     }
 
     public interface deleteCallback {
+        default void onProgress(int deletedDocuments) {
+        }
+
         void onSuccess();
 
         void onFailure(Exception e);
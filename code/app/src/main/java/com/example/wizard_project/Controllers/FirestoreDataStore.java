@@ -0,0 +1,371 @@
+package com.example.wizard_project.Controllers;
+
+import com.example.wizard_project.Store.DataStore;
+import com.example.wizard_project.Store.DataStoreException;
+import com.example.wizard_project.Store.DocumentChange;
+import com.example.wizard_project.Store.FieldTransform;
+import com.example.wizard_project.Store.StoreQuery;
+import com.example.wizard_project.Store.StoreTask;
+import com.example.wizard_project.Store.StoredDocument;
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.AggregateSource;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * FirestoreDataStore is the {@link DataStore} backed by the app's Firestore database.
+ * Timestamps are read back as dates and field transforms are written as Firestore field values,
+ * so callers see the same values as on any other store.
+ */
+public class FirestoreDataStore implements DataStore {
+    private static FirestoreDataStore instance;
+
+    private final FirebaseFirestore db;
+
+    /**
+     * Constructs a FirestoreDataStore reading from and writing to the given database.
+     *
+     * @param db The database instance.
+     */
+    public FirestoreDataStore(FirebaseFirestore db) {
+        this.db = db;
+    }
+
+    /**
+     * @return The store backed by the default Firestore instance.
+     */
+    public static synchronized FirestoreDataStore getInstance() {
+        if (instance == null) {
+            instance = new FirestoreDataStore(FirebaseFirestore.getInstance());
+        }
+        return instance;
+    }
+
+    @Override
+    public StoreTask<StoredDocument> get(String path) {
+        return adapt(db.document(path).get(), FirestoreDataStore::toStoredDocument);
+    }
+
+    @Override
+    public StoreTask<List<StoredDocument>> query(StoreQuery query) {
+        return adapt(toFirestoreQuery(query).get(), snapshots -> {
+            List<StoredDocument> documents = new ArrayList<>(snapshots.size());
+            for (DocumentSnapshot snapshot : snapshots.getDocuments()) {
+                documents.add(toStoredDocument(snapshot));
+            }
+            return documents;
+        });
+    }
+
+    @Override
+    public StoreTask<Long> count(StoreQuery query) {
+        return adapt(toFirestoreQuery(query).count().get(AggregateSource.SERVER), snapshot -> snapshot.getCount());
+    }
+
+    @Override
+    public Registration listen(StoreQuery query, QueryListener listener) {
+        ListenerRegistration registration = toFirestoreQuery(query).addSnapshotListener((snapshots, e) -> {
+            if (e != null) {
+                listener.onError(toStoreException(e));
+                return;
+            }
+            List<DocumentChange> changes = new ArrayList<>();
+            for (com.google.firebase.firestore.DocumentChange change : snapshots.getDocumentChanges()) {
+                changes.add(new DocumentChange(DocumentChange.Type.valueOf(change.getType().name()),
+                        toStoredDocument(change.getDocument())));
+            }
+            listener.onChanges(changes);
+        });
+        return registration::remove;
+    }
+
+    @Override
+    public StoreTask<Void> set(String path, Map<String, Object> data) {
+        return adapt(db.document(path).set(toFirestoreFields(data)), result -> null);
+    }
+
+    @Override
+    public StoreTask<Void> update(String path, Map<String, Object> updates) {
+        return adapt(db.document(path).update(toFirestoreFields(updates)), result -> null);
+    }
+
+    @Override
+    public StoreTask<Void> delete(String path) {
+        return adapt(db.document(path).delete(), result -> null);
+    }
+
+    @Override
+    public String newDocumentId(String collectionPath) {
+        return db.collection(collectionPath).document().getId();
+    }
+
+    @Override
+    public Batch batch() {
+        return new FirestoreBatch(db.batch());
+    }
+
+    @Override
+    public <T> StoreTask<T> runTransaction(TransactionFunction<T> function) {
+        return adapt(db.<T>runTransaction(transaction -> {
+            try {
+                return function.apply(new FirestoreTransaction(transaction));
+            } catch (DataStoreException e) {
+                if (e.getCause() instanceof FirebaseFirestoreException) {
+                    throw (FirebaseFirestoreException) e.getCause();
+                }
+                throw new FirebaseFirestoreException(e.getMessage(), FirebaseFirestoreException.Code.valueOf(e.getCode().name()), e);
+            }
+        }), result -> result);
+    }
+
+    /**
+     * Builds the Firestore query for a store query.
+     * A cursor is applied by field values followed by the document ID, which is how Firestore
+     * orders documents with equal orderBy values.
+     */
+    private Query toFirestoreQuery(StoreQuery storeQuery) {
+        Query query = db.collection(storeQuery.getCollectionPath());
+        for (StoreQuery.Filter filter : storeQuery.getFilters()) {
+            Object value = toFirestoreValue(filter.getValue());
+            switch (filter.getOperator()) {
+                case EQUAL_TO:
+                    query = query.whereEqualTo(filter.getField(), value);
+                    break;
+                case LESS_THAN:
+                    query = query.whereLessThan(filter.getField(), value);
+                    break;
+                case LESS_THAN_OR_EQUAL_TO:
+                    query = query.whereLessThanOrEqualTo(filter.getField(), value);
+                    break;
+                case GREATER_THAN:
+                    query = query.whereGreaterThan(filter.getField(), value);
+                    break;
+                case GREATER_THAN_OR_EQUAL_TO:
+                    query = query.whereGreaterThanOrEqualTo(filter.getField(), value);
+                    break;
+                case IN:
+                    query = query.whereIn(filter.getField(), (List<?>) value);
+                    break;
+            }
+        }
+
+        Query.Direction direction = Query.Direction.ASCENDING;
+        for (StoreQuery.Order order : storeQuery.getOrders()) {
+            direction = order.getDirection() == StoreQuery.Direction.DESCENDING
+                    ? Query.Direction.DESCENDING
+                    : Query.Direction.ASCENDING;
+            query = query.orderBy(order.getField(), direction);
+        }
+
+        if (storeQuery.getCursorId() != null) {
+            List<Object> cursor = new ArrayList<>();
+            for (Object value : storeQuery.getCursorValues()) {
+                cursor.add(toFirestoreValue(value));
+            }
+            cursor.add(storeQuery.getCursorId());
+            query = query.orderBy(FieldPath.documentId(), direction).startAfter(cursor.toArray());
+        }
+        if (storeQuery.getLimit() > 0) {
+            query = query.limit(storeQuery.getLimit());
+        }
+        return query;
+    }
+
+    /**
+     * Completes a store task from a Firestore task, converting the result and any failure.
+     */
+    private static <S, T> StoreTask<T> adapt(Task<S> task, ResultConverter<S, T> converter) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        task.addOnCompleteListener(completedTask -> {
+            if (!completedTask.isSuccessful()) {
+                future.completeExceptionally(toStoreException(completedTask.getException()));
+                return;
+            }
+            try {
+                future.complete(converter.convert(completedTask.getResult()));
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return new StoreTask<>(future);
+    }
+
+    private static DataStoreException toStoreException(Exception e) {
+        if (e instanceof DataStoreException) {
+            return (DataStoreException) e;
+        }
+        DataStoreException.Code code = DataStoreException.Code.UNKNOWN;
+        if (e instanceof FirebaseFirestoreException) {
+            if (e.getCause() instanceof DataStoreException) {
+                return (DataStoreException) e.getCause(); // Thrown by a transaction function.
+            }
+            try {
+                code = DataStoreException.Code.valueOf(((FirebaseFirestoreException) e).getCode().name());
+            } catch (IllegalArgumentException unmappedCode) {
+                code = DataStoreException.Code.UNKNOWN;
+            }
+        }
+        return new DataStoreException(String.valueOf(e != null ? e.getMessage() : null), code, e);
+    }
+
+    private static StoredDocument toStoredDocument(DocumentSnapshot snapshot) {
+        Map<String, Object> data = snapshot.getData();
+        return new StoredDocument(snapshot.getReference().getPath(), data != null ? fromFirestoreFields(data) : null);
+    }
+
+    private static Map<String, Object> toFirestoreFields(Map<String, Object> fields) {
+        Map<String, Object> converted = new HashMap<>();
+        for (Map.Entry<String, Object> field : fields.entrySet()) {
+            converted.put(field.getKey(), toFirestoreValue(field.getValue()));
+        }
+        return converted;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object toFirestoreValue(Object value) {
+        if (value instanceof FieldTransform) {
+            FieldTransform transform = (FieldTransform) value;
+            switch (transform.getKind()) {
+                case DELETE:
+                    return FieldValue.delete();
+                case SERVER_TIMESTAMP:
+                    return FieldValue.serverTimestamp();
+                case INCREMENT:
+                    return FieldValue.increment(transform.getAmount().longValue());
+                case ARRAY_UNION:
+                    return FieldValue.arrayUnion(toFirestoreList(transform.getElements()).toArray());
+                default:
+                    return FieldValue.arrayRemove(toFirestoreList(transform.getElements()).toArray());
+            }
+        }
+        if (value instanceof Map) {
+            return toFirestoreFields((Map<String, Object>) value);
+        }
+        if (value instanceof List) {
+            return toFirestoreList((List<Object>) value);
+        }
+        if (value instanceof Date) {
+            return new Timestamp((Date) value);
+        }
+        return value;
+    }
+
+    private static List<Object> toFirestoreList(List<Object> values) {
+        List<Object> converted = new ArrayList<>(values.size());
+        for (Object value : values) {
+            converted.add(toFirestoreValue(value));
+        }
+        return converted;
+    }
+
+    private static Map<String, Object> fromFirestoreFields(Map<String, Object> fields) {
+        Map<String, Object> converted = new HashMap<>();
+        for (Map.Entry<String, Object> field : fields.entrySet()) {
+            converted.put(field.getKey(), fromFirestoreValue(field.getValue()));
+        }
+        return converted;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object fromFirestoreValue(Object value) {
+        if (value instanceof Timestamp) {
+            return ((Timestamp) value).toDate();
+        }
+        if (value instanceof Map) {
+            return fromFirestoreFields((Map<String, Object>) value);
+        }
+        if (value instanceof List) {
+            List<Object> converted = new ArrayList<>();
+            for (Object element : (List<Object>) value) {
+                converted.add(fromFirestoreValue(element));
+            }
+            return converted;
+        }
+        return value;
+    }
+
+    private interface ResultConverter<S, T> {
+        T convert(S result);
+    }
+
+    private class FirestoreBatch implements Batch {
+        private final WriteBatch batch;
+
+        private FirestoreBatch(WriteBatch batch) {
+            this.batch = batch;
+        }
+
+        @Override
+        public Batch set(String path, Map<String, Object> data) {
+            batch.set(db.document(path), toFirestoreFields(data));
+            return this;
+        }
+
+        @Override
+        public Batch update(String path, Map<String, Object> updates) {
+            batch.update(db.document(path), toFirestoreFields(updates));
+            return this;
+        }
+
+        @Override
+        public Batch delete(String path) {
+            batch.delete(db.document(path));
+            return this;
+        }
+
+        @Override
+        public StoreTask<Void> commit() {
+            return adapt(batch.commit(), result -> null);
+        }
+    }
+
+    private class FirestoreTransaction implements Transaction {
+        // Qualified because DataStore.Transaction shadows the Firestore class inside this store.
+        private final com.google.firebase.firestore.Transaction transaction;
+
+        private FirestoreTransaction(com.google.firebase.firestore.Transaction transaction) {
+            this.transaction = transaction;
+        }
+
+        @Override
+        public StoredDocument get(String path) throws DataStoreException {
+            try {
+                return toStoredDocument(transaction.get(db.document(path)));
+            } catch (FirebaseFirestoreException e) {
+                throw toStoreException(e);
+            }
+        }
+
+        @Override
+        public Transaction set(String path, Map<String, Object> data) {
+            transaction.set(db.document(path), toFirestoreFields(data));
+            return this;
+        }
+
+        @Override
+        public Transaction update(String path, Map<String, Object> updates) {
+            transaction.update(db.document(path), toFirestoreFields(updates));
+            return this;
+        }
+
+        @Override
+        public Transaction delete(String path) {
+            transaction.delete(db.document(path));
+            return this;
+        }
+    }
+}
@@ -0,0 +1,355 @@
+package com.example.wizard_project.Controllers;
+
+import android.util.Log;
+
+import com.example.wizard_project.Classes.EventCodec;
+import com.example.wizard_project.Classes.FacilityCodec;
+import com.example.wizard_project.Classes.UserCodec;
+import com.example.wizard_project.Core.ImageReferences;
+import com.example.wizard_project.Core.ImageRenditions;
+import com.example.wizard_project.Core.ImageRenditions.Rendition;
+import com.example.wizard_project.Store.DataStore;
+import com.example.wizard_project.Store.StoreQuery;
+import com.google.firebase.storage.FirebaseStorage;
+import com.google.firebase.storage.StorageException;
+import com.google.firebase.storage.StorageReference;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ImageCollector finds and deletes stored images that no document refers to any more.
+ * It first pages through the users, events and facilities to mark every image their image paths refer to,
+ * then pages through each storage folder of renditions and sweeps the files of unmarked images.
+ * At most {@link #MAX_CONCURRENT_REQUESTS} files are inspected or deleted at once.
+ *
+ * <p>Files uploaded less than {@link #MIN_AGE_MILLIS} before the collection started are kept, since they may
+ * belong to an event or profile that has not been saved yet. A dry run finds the same files without deleting them.
+ * Before a file is deleted its image is marked as being swept with {@link ImageReferences#markSweeping}, in a
+ * transaction that keeps the file if the image was stored or referenced after the documents were read, such as
+ * by a duplicate upload that skipped uploading its files. An image marked as being swept counts as not stored,
+ * so an upload racing the sweep uploads its files again.
+ */
+public class ImageCollector {
+    public static final int DOCUMENT_PAGE_SIZE = 500;
+    public static final int FILE_PAGE_SIZE = 500;
+    public static final int MAX_CONCURRENT_REQUESTS = 8;
+    public static final long MIN_AGE_MILLIS = 24 * 60 * 60 * 1000L; // Newer files may not be saved on a document yet
+    public static final long CLOCK_SKEW_MILLIS = 10 * 60 * 1000L; // Allowed between this device and the server clock
+    // The collections whose documents refer to images, and the field each refers to them in
+    private static final String[][] IMAGE_FIELDS = {
+            {"users", UserCodec.PROFILE_PATH},
+            {"events", EventCodec.EVENT_IMAGE_PATH},
+            {"facilities", FacilityCodec.FACILITY_IMAGE_PATH}
+    };
+    private static ImageCollector instance;
+
+    private final DataStore db;
+    private final StorageReference root;
+    private final ImageReferences references;
+
+    /**
+     * Constructs an ImageCollector.
+     *
+     * @param db   The data store holding the documents that refer to images.
+     * @param root The root of the storage the images are in.
+     */
+    public ImageCollector(DataStore db, StorageReference root) {
+        this.db = db;
+        this.root = root;
+        this.references = new ImageReferences(db);
+    }
+
+    /**
+     * @return The collector for the Firestore database and Firebase Storage.
+     */
+    public static synchronized ImageCollector getInstance() {
+        if (instance == null) {
+            instance = new ImageCollector(FirestoreDataStore.getInstance(), FirebaseStorage.getInstance().getReference());
+        }
+        return instance;
+    }
+
+    /**
+     * Finds the files of images no document refers to, and deletes them unless this is a dry run.
+     *
+     * @param dryRun   True to only report the files that would be deleted.
+     * @param callback The callback receiving the report, or the failure. A collection fails if the documents
+     *                 cannot all be read, since the images of unread documents would look unused.
+     */
+    public void collect(boolean dryRun, collectCallback callback) {
+        Report report = new Report(dryRun, System.currentTimeMillis());
+        Set<String> marked = new HashSet<>();
+        mark(0, marked, callback, () -> sweep(0, null, marked, report, callback));
+    }
+
+    /**
+     * Marks the images referred to by each document of the collections from the given one on.
+     */
+    private void mark(int collection, Set<String> marked, collectCallback callback, Runnable onMarked) {
+        if (collection == IMAGE_FIELDS.length) {
+            onMarked.run();
+            return;
+        }
+        String field = IMAGE_FIELDS[collection][1];
+        DocumentPager<String> pager = new DocumentPager<>(db, StoreQuery.collection(IMAGE_FIELDS[collection][0]),
+                DOCUMENT_PAGE_SIZE, document -> document.getString(field));
+        markPages(pager, marked, callback, () -> mark(collection + 1, marked, callback, onMarked));
+    }
+
+    private void markPages(DocumentPager<String> pager, Set<String> marked, collectCallback callback,
+                           Runnable onMarked) {
+        pager.nextPage(new DocumentPager.pageCallback<String>() {
+            @Override
+            public void onPage(List<String> paths) {
+                for (String path : paths) {
+                    if (path != null && !path.isEmpty()) {
+                        marked.add(ImageRenditions.imageId(path));
+                    }
+                }
+                if (pager.hasMore()) {
+                    markPages(pager, marked, callback, onMarked);
+                } else {
+                    onMarked.run();
+                }
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                Log.e("ImageCollector", "Failed to read the documents referring to images", e);
+                callback.onFailure(e);
+            }
+        });
+    }
+
+    /**
+     * Sweeps one page of a rendition's folder, then the next page or the next rendition's folder.
+     */
+    private void sweep(int rendition, String pageToken, Set<String> marked, Report report, collectCallback callback) {
+        Rendition[] renditions = Rendition.values();
+        if (rendition == renditions.length) {
+            finish(report, callback);
+            return;
+        }
+        StorageReference folder = root.child(ImageRenditions.folder(renditions[rendition]));
+        (pageToken != null ? folder.list(FILE_PAGE_SIZE, pageToken) : folder.list(FILE_PAGE_SIZE))
+                .addOnSuccessListener(listResult -> {
+                    List<StorageReference> unmarked = new ArrayList<>();
+                    for (StorageReference file : listResult.getItems()) {
+                        report.scannedFiles++;
+                        if (!marked.contains(file.getName())) {
+                            unmarked.add(file);
+                        }
+                    }
+                    String nextPageToken = listResult.getPageToken();
+                    forEach(unmarked, (file, onDone) -> sweepFile(file, report, onDone), () -> {
+                        if (nextPageToken != null) {
+                            sweep(rendition, nextPageToken, marked, report, callback);
+                        } else {
+                            sweep(rendition + 1, null, marked, report, callback);
+                        }
+                    });
+                })
+                .addOnFailureListener(e -> {
+                    Log.e("ImageCollector", "Failed to list " + folder.getPath(), e);
+                    callback.onFailure(e);
+                });
+    }
+
+    /**
+     * Deletes a file of an unmarked image if it is old enough and its image is not in use again,
+     * recording its size.
+     */
+    private void sweepFile(StorageReference file, Report report, Runnable onDone) {
+        file.getMetadata()
+                .addOnSuccessListener(metadata -> {
+                    if (metadata.getCreationTimeMillis() > report.startedAt - MIN_AGE_MILLIS) {
+                        report.recentFiles++;
+                        onDone.run();
+                        return;
+                    }
+                    if (report.dryRun) {
+                        report.addOrphan(file, metadata.getSizeBytes());
+                        onDone.run();
+                        return;
+                    }
+                    Date since = new Date(report.startedAt - CLOCK_SKEW_MILLIS);
+                    references.markSweeping(file.getName(), since)
+                            .addOnSuccessListener(sweepable -> {
+                                if (!sweepable) {
+                                    report.referencedFiles++;
+                                    onDone.run();
+                                    return;
+                                }
+                                deleteFile(file, metadata.getSizeBytes(), report, onDone);
+                            })
+                            .addOnFailureListener(e -> {
+                                Log.e("ImageCollector", "Failed to mark " + file.getName() + " as sweeping", e);
+                                report.failedFiles++;
+                                onDone.run();
+                            });
+                })
+                .addOnFailureListener(e -> {
+                    if (!isNotFound(e)) {
+                        Log.e("ImageCollector", "Failed to read the metadata of " + file.getPath(), e);
+                        report.failedFiles++;
+                    }
+                    onDone.run();
+                });
+    }
+
+    private void deleteFile(StorageReference file, long bytes, Report report, Runnable onDone) {
+        file.delete().addOnCompleteListener(task -> {
+            if (task.isSuccessful() || isNotFound(task.getException())) {
+                report.addOrphan(file, bytes);
+            } else {
+                Log.e("ImageCollector", "Failed to delete " + file.getPath(), task.getException());
+                report.failedFiles++;
+            }
+            onDone.run();
+        });
+    }
+
+    /**
+     * Forgets the reference counts of the swept images, which no document refers to any more,
+     * unless an image was stored again while it was being swept.
+     */
+    private void finish(Report report, collectCallback callback) {
+        if (report.dryRun) {
+            callback.onCollected(report);
+            return;
+        }
+        List<String> imageIds = new ArrayList<>(report.orphanedImages);
+        forEach(imageIds, (imageId, onDone) -> references.clearSwept(imageId).addOnCompleteListener(task -> {
+            if (!task.isSuccessful()) {
+                Log.e("ImageCollector", "Failed to clear the references to " + imageId, task.getException());
+            }
+            onDone.run();
+        }), () -> callback.onCollected(report));
+    }
+
+    private static boolean isNotFound(Exception e) {
+        return e instanceof StorageException
+                && ((StorageException) e).getErrorCode() == StorageException.ERROR_OBJECT_NOT_FOUND;
+    }
+
+    /**
+     * Runs a task for each item, with at most {@link #MAX_CONCURRENT_REQUESTS} running at once.
+     * Each task starts the next one when it finishes, and the last to finish runs {@code onDone}.
+     */
+    private static <T> void forEach(List<T> items, itemTask<T> task, Runnable onDone) {
+        if (items.isEmpty()) {
+            onDone.run();
+            return;
+        }
+        AtomicInteger next = new AtomicInteger(0);
+        AtomicInteger finished = new AtomicInteger(0);
+        for (int i = 0; i < Math.min(MAX_CONCURRENT_REQUESTS, items.size()); i++) {
+            runNext(items, task, next, finished, onDone);
+        }
+    }
+
+    private static <T> void runNext(List<T> items, itemTask<T> task, AtomicInteger next, AtomicInteger finished,
+                                    Runnable onDone) {
+        int index = next.getAndIncrement();
+        if (index >= items.size()) {
+            return;
+        }
+        task.run(items.get(index), () -> {
+            if (finished.incrementAndGet() == items.size()) {
+                onDone.run();
+            } else {
+                runNext(items, task, next, finished, onDone);
+            }
+        });
+    }
+
+    /**
+     * The outcome of a collection: the files of unused images that were deleted, or would be in a dry run,
+     * and the bytes they took up.
+     */
+    public static class Report {
+        private final boolean dryRun;
+        private final long startedAt;
+        private final List<String> orphanedFiles = new ArrayList<>();
+        private final Set<String> orphanedImages = new HashSet<>();
+        private long bytesReclaimed = 0;
+        private int scannedFiles = 0;
+        private int recentFiles = 0;
+        private int referencedFiles = 0;
+        private int failedFiles = 0;
+
+        private Report(boolean dryRun, long startedAt) {
+            this.dryRun = dryRun;
+            this.startedAt = startedAt;
+        }
+
+        private void addOrphan(StorageReference file, long bytes) {
+            orphanedFiles.add(file.getPath());
+            orphanedImages.add(file.getName());
+            bytesReclaimed += bytes;
+        }
+
+        public boolean isDryRun() {
+            return dryRun;
+        }
+
+        /**
+         * @return The paths of the files of unused images, deleted unless this was a dry run.
+         */
+        public List<String> getOrphanedFiles() {
+            return Collections.unmodifiableList(orphanedFiles);
+        }
+
+        /**
+         * @return The bytes taken up by the files of unused images, freed unless this was a dry run.
+         */
+        public long getBytesReclaimed() {
+            return bytesReclaimed;
+        }
+
+        /**
+         * @return The number of files listed.
+         */
+        public int getScannedFiles() {
+            return scannedFiles;
+        }
+
+        /**
+         * @return The number of unused files kept because they were uploaded too recently.
+         */
+        public int getRecentFiles() {
+            return recentFiles;
+        }
+
+        /**
+         * @return The number of files kept because their image was stored or referenced during the collection.
+         */
+        public int getReferencedFiles() {
+            return referencedFiles;
+        }
+
+        /**
+         * @return The number of unused files that could not be inspected or deleted.
+         */
+        public int getFailedFiles() {
+            return failedFiles;
+        }
+    }
+
+    // Callback interfaces
+    public interface collectCallback {
+        void onCollected(Report report);
+
+        void onFailure(Exception e);
+    }
+
+    private interface itemTask<T> {
+        void run(T item, Runnable onDone);
+    }
+}
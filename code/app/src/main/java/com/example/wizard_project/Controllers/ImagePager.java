@@ -0,0 +1,110 @@
+package com.example.wizard_project.Controllers;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.example.wizard_project.Classes.ImageHolder;
+import com.google.firebase.storage.FirebaseStorage;
+import com.google.firebase.storage.ListResult;
+import com.google.firebase.storage.StorageReference;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ImagePager lists the files of a storage folder one page at a time.
+ * Each page is listed with the page token of the previous one, so only the pages that are shown are listed.
+ * Download URLs are not requested while listing: each image's URL is resolved by the image loader when its row
+ * is shown, so only the rows the admin scrolls to cost a URL request.
+ */
+public class ImagePager {
+    public static final String IMAGES_FOLDER = "images";
+    public static final int MAX_PAGE_SIZE = 1000; // Storage's limit on files listed per request
+
+    private final StorageReference folder;
+    private final int pageSize;
+    private final DownloadUrlCache urlCache;
+    private String pageToken;
+    private boolean hasMore = true;
+    private boolean loading = false;
+
+    /**
+     * Constructs an ImagePager.
+     *
+     * @param folder   The folder to list.
+     * @param pageSize The maximum number of files listed per page, at most {@link #MAX_PAGE_SIZE}.
+     * @param urlCache The cache of download URLs to read from.
+     */
+    public ImagePager(StorageReference folder, int pageSize, DownloadUrlCache urlCache) {
+        this.folder = folder;
+        this.pageSize = Math.min(pageSize, MAX_PAGE_SIZE);
+        this.urlCache = urlCache;
+    }
+
+    /**
+     * Creates a pager over the uploaded images in Firebase Storage.
+     *
+     * @param context  The context the download URL cache is kept in.
+     * @param pageSize The maximum number of images listed per page.
+     * @return A pager positioned at the first image.
+     */
+    public static ImagePager forImages(Context context, int pageSize) {
+        return new ImagePager(FirebaseStorage.getInstance().getReference().child(IMAGES_FOLDER), pageSize,
+                DownloadUrlCache.getInstance(context));
+    }
+
+    /**
+     * Returns whether there may be more files to list.
+     *
+     * @return True if another page should be requested, false if the last page was listed.
+     */
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    /**
+     * Returns whether a page is currently being listed.
+     *
+     * @return True if a page request is in flight.
+     */
+    public boolean isLoading() {
+        return loading;
+    }
+
+    /**
+     * Lists the next page.
+     * Requests made while a page is already being listed, or after the last page, are ignored.
+     *
+     * @param callback The callback to receive the page or the failure.
+     */
+    public void nextPage(DocumentPager.pageCallback<ImageHolder> callback) {
+        if (loading || !hasMore) {
+            return;
+        }
+        loading = true;
+
+        (pageToken != null ? folder.list(pageSize, pageToken) : folder.list(pageSize))
+                .addOnSuccessListener(listResult -> onListed(listResult, callback))
+                .addOnFailureListener(e -> {
+                    Log.e("ImagePager", "Failed to list " + folder.getPath(), e);
+                    loading = false;
+                    callback.onFailure(e);
+                });
+    }
+
+    /**
+     * Passes a listed page on in listing order. Download URLs already in the cache are filled in; the others are
+     * left empty and resolved when the image is shown.
+     */
+    private void onListed(ListResult listResult, DocumentPager.pageCallback<ImageHolder> callback) {
+        List<ImageHolder> page = new ArrayList<>(listResult.getItems().size());
+        for (StorageReference item : listResult.getItems()) {
+            String url = urlCache.get(item.getPath());
+            page.add(new ImageHolder(url != null ? url : "", item.getPath()));
+        }
+        pageToken = listResult.getPageToken();
+        hasMore = pageToken != null;
+        loading = false;
+        callback.onPage(page);
+    }
+}
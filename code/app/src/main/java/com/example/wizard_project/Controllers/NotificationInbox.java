@@ -0,0 +1,416 @@
+package com.example.wizard_project.Controllers;
+
+import android.util.Log;
+
+import com.example.wizard_project.Classes.InboxMessage;
+import com.example.wizard_project.Core.BroadcastAudience;
+import com.example.wizard_project.Core.RegistrationIndex;
+import com.example.wizard_project.Store.DataStore;
+import com.example.wizard_project.Store.DataStoreException;
+import com.example.wizard_project.Store.DocumentChange;
+import com.example.wizard_project.Store.StoreQuery;
+import com.example.wizard_project.Store.StoredDocument;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * NotificationInbox delivers a user's notifications as they arrive.
+ * Every notification carries a sequence number, the server timestamp of the write that sent it, and the user's
+ * inbox document records the sequence number of the last notification delivered. The inbox listens for
+ * notifications after that cursor, so delivering a notification costs one cursor write rather than a delete,
+ * and delivered notifications are removed later in bulk by {@link #compact()}.
+ * Broadcasts, single documents addressed to an audience of an event's entrants, are followed with a second
+ * cursor. Only the broadcasts of the events the user is registered for are listened to, and each is delivered
+ * when the user's status in their registration matches its audience; see {@link RegistrationIndex}.
+ *
+ * <p>Notifications sent before sequence numbers existed have none, so the listener never sees them. They are
+ * delivered and deleted once by {@link #deliverUnsequenced}, as they were before, and the inbox records that
+ * this has been done.
+ */
+public class NotificationInbox {
+    public static final long RETENTION_MILLIS = 7L * 24 * 60 * 60 * 1000; // How long delivered notifications are kept
+    private static final String SEQUENCE_FIELD = "seq";
+    private static final String CURSOR_FIELD = "cursor";
+    private static final String BROADCAST_CURSOR_FIELD = "broadcastCursor";
+    private static final String UNSEQUENCED_DELIVERED_FIELD = "unsequencedDelivered";
+
+    private final DataStore db;
+    private final String userId;
+    private final String inboxPath;
+    private DataStore.Registration registration;
+    private DataStore.Registration registrationsRegistration;
+    private final List<DataStore.Registration> broadcastRegistrations = new ArrayList<>(); // Guarded by this
+    private final Map<String, String> statuses = new HashMap<>(); // The user's status per registered event; guarded by this
+    private final Set<String> deliveredBroadcasts = new HashSet<>(); // Guarded by this
+    private Date cursor; // Guarded by this
+    private Date broadcastCursor; // Guarded by this
+    private boolean firstDelivery = true; // Guarded by this
+    private boolean unsequencedDelivered = false; // Guarded by this
+
+    /**
+     * Constructs a NotificationInbox for a user.
+     *
+     * @param db     The data store holding the notifications.
+     * @param userId The ID of the user receiving the notifications.
+     */
+    public NotificationInbox(DataStore db, String userId) {
+        this.db = db;
+        this.userId = userId;
+        this.inboxPath = DataStore.path("inboxes", userId);
+    }
+
+    /**
+     * Starts delivering the notifications sent after the last delivered one, including those sent while listening.
+     * The callback is called once the inbox has been read, even if there is nothing new, and then whenever
+     * new notifications arrive.
+     *
+     * @param callback The callback receiving each group of new notification messages.
+     */
+    public void start(inboxCallback callback) {
+        db.get(inboxPath)
+                .addOnSuccessListener(inbox -> {
+                    Date lastDelivered = inbox.getDate(CURSOR_FIELD);
+                    Date lastBroadcast = inbox.getDate(BROADCAST_CURSOR_FIELD);
+                    // Broadcasts are shared by every user, so a new inbox only looks back over the retention window.
+                    Date oldestBroadcast = new Date(System.currentTimeMillis() - RETENTION_MILLIS);
+                    boolean unsequencedPending = false;
+                    synchronized (this) {
+                        cursor = lastDelivered != null ? lastDelivered : new Date(0);
+                        broadcastCursor = lastBroadcast != null && lastBroadcast.after(oldestBroadcast) ? lastBroadcast : oldestBroadcast;
+                        if (registration == null) {
+                            unsequencedDelivered = Boolean.TRUE.equals(inbox.getBoolean(UNSEQUENCED_DELIVERED_FIELD));
+                            unsequencedPending = !unsequencedDelivered;
+                            registration = db.listen(newNotificationsQuery(cursor), new DataStore.QueryListener() {
+                                @Override
+                                public void onChanges(List<DocumentChange> changes) {
+                                    deliver(changes, callback);
+                                }
+
+                                @Override
+                                public void onError(DataStoreException e) {
+                                    Log.e("NotificationInbox", "Notification listener failed", e);
+                                    callback.onFailure(e);
+                                }
+                            });
+                            // The broadcast listeners are started once the registrations are read.
+                            registrationsRegistration = db.listen(StoreQuery.collection(RegistrationIndex.registrationsPath(userId)),
+                                    new DataStore.QueryListener() {
+                                        @Override
+                                        public void onChanges(List<DocumentChange> changes) {
+                                            updateRegistrations(changes, callback);
+                                        }
+
+                                        @Override
+                                        public void onError(DataStoreException e) {
+                                            Log.e("NotificationInbox", "Registration listener failed", e);
+                                            callback.onFailure(e);
+                                        }
+                                    });
+                        }
+                    }
+                    if (unsequencedPending) {
+                        StoreQuery userNotifications = StoreQuery.collection("notifications").whereEqualTo("Userid", userId);
+                        deliverUnsequenced(new DocumentPager<>(db, userNotifications, BatchWriter.MAX_BATCH_SIZE,
+                                document -> document), 0, callback);
+                    }
+                })
+                .addOnFailureListener(e -> {
+                    Log.e("NotificationInbox", "Error reading inbox", e);
+                    callback.onFailure(e);
+                });
+    }
+
+    /**
+     * Stops delivering notifications.
+     */
+    public synchronized void stop() {
+        if (registration != null) {
+            registration.remove();
+            registrationsRegistration.remove();
+            for (DataStore.Registration broadcastRegistration : broadcastRegistrations) {
+                broadcastRegistration.remove();
+            }
+            registration = null;
+            registrationsRegistration = null;
+            broadcastRegistrations.clear();
+            statuses.clear();
+        }
+    }
+
+    /**
+     * Deletes the user's delivered notifications that are older than {@link #RETENTION_MILLIS},
+     * in batches of {@link BatchWriter#MAX_BATCH_SIZE}.
+     */
+    public void compact() {
+        Date cutoff = new Date(System.currentTimeMillis() - RETENTION_MILLIS);
+        synchronized (this) {
+            if (cursor == null) {
+                return; // The inbox has not been read, so it is unknown what has been delivered.
+            }
+            if (cursor.before(cutoff)) {
+                cutoff = cursor; // Never delete a notification that has not been delivered.
+            }
+        }
+        StoreQuery expired = StoreQuery.collection("notifications")
+                .whereEqualTo("Userid", userId)
+                .whereLessThanOrEqualTo(SEQUENCE_FIELD, cutoff)
+                .orderBy(SEQUENCE_FIELD)
+                .limit(BatchWriter.MAX_BATCH_SIZE);
+        compactPage(expired, 0);
+    }
+
+    /**
+     * Deletes one page of expired notifications, then the next page if this one was full.
+     */
+    private void compactPage(StoreQuery expired, int deletedSoFar) {
+        db.query(expired)
+                .addOnSuccessListener(notifications -> {
+                    if (notifications.isEmpty()) {
+                        Log.d("NotificationInbox", "Compacted " + deletedSoFar + " notifications");
+                        return;
+                    }
+                    deleter().write(notifications, failedItems -> {
+                        int deleted = deletedSoFar + notifications.size() - failedItems.size();
+                        if (failedItems.isEmpty() && notifications.size() == BatchWriter.MAX_BATCH_SIZE) {
+                            compactPage(expired, deleted);
+                        } else {
+                            Log.d("NotificationInbox", "Compacted " + deleted + " notifications");
+                        }
+                    });
+                })
+                .addOnFailureListener(e -> Log.e("NotificationInbox", "Error compacting notifications", e));
+    }
+
+    /**
+     * Passes newly added notifications to the callback, then moves the cursor past them.
+     * Removals, such as those made by compaction, are not delivered.
+     */
+    private void deliver(List<DocumentChange> changes, inboxCallback callback) {
+        List<InboxMessage> messages = new ArrayList<>();
+        Date lastSequence;
+        boolean first;
+        boolean advanced;
+        synchronized (this) {
+            first = firstDelivery;
+            firstDelivery = false;
+            lastSequence = cursor;
+            for (DocumentChange change : changes) {
+                StoredDocument notification = change.getDocument();
+                Date sequence = notification.getDate(SEQUENCE_FIELD);
+                if (change.getType() != DocumentChange.Type.ADDED || sequence == null || !sequence.after(cursor)) {
+                    continue;
+                }
+                String message = notification.getString("message");
+                if (message != null) {
+                    messages.add(new InboxMessage(notification.getId(), notification.getString("eventId"), message));
+                }
+                if (sequence.after(lastSequence)) {
+                    lastSequence = sequence;
+                }
+            }
+            advanced = lastSequence.after(cursor);
+            cursor = lastSequence;
+        }
+
+        if (first || !messages.isEmpty()) {
+            callback.onNotifications(messages);
+        }
+        if (advanced) {
+            saveCursors();
+        }
+    }
+
+    /**
+     * Delivers and deletes the user's notifications that have no sequence number, one page at a time.
+     * Once every page is done the inbox records it, so later starts skip this; after a failure it is tried
+     * again on the next start.
+     */
+    private void deliverUnsequenced(DocumentPager<StoredDocument> pager, int failedSoFar, inboxCallback callback) {
+        pager.nextPage(new DocumentPager.pageCallback<StoredDocument>() {
+            @Override
+            public void onPage(List<StoredDocument> page) {
+                List<StoredDocument> unsequenced = new ArrayList<>();
+                List<InboxMessage> messages = new ArrayList<>();
+                for (StoredDocument notification : page) {
+                    if (notification.getDate(SEQUENCE_FIELD) != null) {
+                        continue;
+                    }
+                    unsequenced.add(notification);
+                    String message = notification.getString("message");
+                    if (message != null) {
+                        messages.add(new InboxMessage(notification.getId(), notification.getString("eventId"), message));
+                    }
+                }
+                if (!messages.isEmpty()) {
+                    callback.onNotifications(messages);
+                }
+
+                deleter().write(unsequenced, failedItems -> {
+                    int failed = failedSoFar + failedItems.size();
+                    if (pager.hasMore()) {
+                        deliverUnsequenced(pager, failed, callback);
+                        return;
+                    }
+                    if (failed > 0) {
+                        // They are looked for again on the next start, and delivered again if still there.
+                        Log.e("NotificationInbox", "Failed to delete " + failed + " delivered notifications");
+                    } else {
+                        synchronized (NotificationInbox.this) {
+                            unsequencedDelivered = true;
+                        }
+                        saveCursors();
+                    }
+                });
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                Log.e("NotificationInbox", "Error reading notifications without a sequence number", e);
+            }
+        });
+    }
+
+    /**
+     * Records the user's status on each event they are registered for. When the set of events changes, the
+     * broadcast listeners are replaced by ones covering the new set, in groups of {@link StoreQuery#MAX_IN_VALUES}
+     * events, each starting at the current broadcast cursor.
+     */
+    private void updateRegistrations(List<DocumentChange> changes, inboxCallback callback) {
+        synchronized (this) {
+            if (registration == null) {
+                return; // Stopped
+            }
+            Set<String> registeredBefore = new HashSet<>(statuses.keySet());
+            for (DocumentChange change : changes) {
+                String eventId = change.getDocument().getId();
+                if (change.getType() == DocumentChange.Type.REMOVED) {
+                    statuses.remove(eventId);
+                } else {
+                    statuses.put(eventId, change.getDocument().getString(RegistrationIndex.STATUS_FIELD));
+                }
+            }
+            if (statuses.keySet().equals(registeredBefore)) {
+                return;
+            }
+
+            for (DataStore.Registration broadcastRegistration : broadcastRegistrations) {
+                broadcastRegistration.remove();
+            }
+            broadcastRegistrations.clear();
+            List<String> eventIds = new ArrayList<>(statuses.keySet());
+            Collections.sort(eventIds);
+            for (int from = 0; from < eventIds.size(); from += StoreQuery.MAX_IN_VALUES) {
+                List<String> group = eventIds.subList(from, Math.min(from + StoreQuery.MAX_IN_VALUES, eventIds.size()));
+                broadcastRegistrations.add(db.listen(newBroadcastsQuery(group, broadcastCursor), new DataStore.QueryListener() {
+                    @Override
+                    public void onChanges(List<DocumentChange> changes) {
+                        deliverBroadcasts(changes, callback);
+                    }
+
+                    @Override
+                    public void onError(DataStoreException e) {
+                        Log.e("NotificationInbox", "Broadcast listener failed", e);
+                        callback.onFailure(e);
+                    }
+                }));
+            }
+        }
+    }
+
+    /**
+     * Passes the newly added broadcasts whose audience includes the user to the callback, matching them against
+     * the user's status from their registration, then moves the broadcast cursor past them.
+     * A broadcast is delivered once even if the listeners were replaced and it is read again.
+     */
+    private void deliverBroadcasts(List<DocumentChange> changes, inboxCallback callback) {
+        List<InboxMessage> messages = new ArrayList<>();
+        boolean advanced = false;
+        synchronized (this) {
+            for (DocumentChange change : changes) {
+                StoredDocument broadcast = change.getDocument();
+                Date sequence = broadcast.getDate(SEQUENCE_FIELD);
+                if (change.getType() != DocumentChange.Type.ADDED || sequence == null
+                        || !deliveredBroadcasts.add(broadcast.getId())) {
+                    continue;
+                }
+                BroadcastAudience audience = BroadcastAudience.fromMap(broadcast.get("audience"));
+                String eventId = broadcast.getString("eventId");
+                String message = broadcast.getString("message");
+                if (audience != null && message != null && audience.matches(userId, statuses.get(eventId))) {
+                    messages.add(new InboxMessage(broadcast.getId(), eventId, message));
+                }
+                if (sequence.after(broadcastCursor)) {
+                    broadcastCursor = sequence;
+                    advanced = true;
+                }
+            }
+        }
+        if (!messages.isEmpty()) {
+            callback.onNotifications(messages);
+        }
+        if (advanced) {
+            saveCursors();
+        }
+    }
+
+    /**
+     * @return A writer deleting notifications in batches.
+     */
+    private BatchWriter<StoredDocument> deleter() {
+        return new BatchWriter<>(db, new BatchWriter.ItemWriter<StoredDocument>() {
+            @Override
+            public int countOperations(StoredDocument notification) {
+                return 1;
+            }
+
+            @Override
+            public void write(DataStore.Batch batch, StoredDocument notification) {
+                batch.delete(notification.getPath());
+            }
+        });
+    }
+
+    /**
+     * Writes the cursors to the user's inbox document.
+     */
+    private void saveCursors() {
+        Map<String, Object> inboxData = new HashMap<>();
+        synchronized (this) {
+            inboxData.put(CURSOR_FIELD, cursor);
+            inboxData.put(BROADCAST_CURSOR_FIELD, broadcastCursor);
+            inboxData.put(UNSEQUENCED_DELIVERED_FIELD, unsequencedDelivered);
+        }
+        db.set(inboxPath, inboxData)
+                .addOnFailureListener(e -> Log.e("NotificationInbox", "Error saving inbox cursor", e));
+    }
+
+    private StoreQuery newBroadcastsQuery(List<String> eventIds, Date after) {
+        return StoreQuery.collection("broadcasts")
+                .whereIn("eventId", eventIds)
+                .whereGreaterThan(SEQUENCE_FIELD, after)
+                .orderBy(SEQUENCE_FIELD);
+    }
+
+    private StoreQuery newNotificationsQuery(Date after) {
+        return StoreQuery.collection("notifications")
+                .whereEqualTo("Userid", userId)
+                .whereGreaterThan(SEQUENCE_FIELD, after)
+                .orderBy(SEQUENCE_FIELD);
+    }
+
+    /**
+     * Callback interface for receiving notifications.
+     */
+    public interface inboxCallback {
+        void onNotifications(List<InboxMessage> messages);
+
+        void onFailure(Exception e);
+    }
+}
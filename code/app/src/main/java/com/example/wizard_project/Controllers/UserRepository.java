@@ -0,0 +1,235 @@
+package com.example.wizard_project.Controllers;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import com.example.wizard_project.Classes.User;
+import com.example.wizard_project.Classes.UserCodec;
+import com.example.wizard_project.Store.DataStore;
+import com.example.wizard_project.Store.StoreQuery;
+import com.example.wizard_project.Store.StoredDocument;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * UserRepository loads user profiles, serving the last known profile from disk straight away and
+ * revalidating it against the database in the background.
+ * Requests for a user while a read of that user is already in flight wait for the same read,
+ * so screens asking for the user at the same time cost a single read.
+ */
+public class UserRepository {
+    private static final String PREFERENCES_NAME = "user_profiles";
+    private static final String[] STRING_FIELDS = {UserCodec.DEVICE_ID, UserCodec.EMAIL, UserCodec.NAME,
+            UserCodec.PHONE_NUMBER, UserCodec.PROFILE_PICTURE_URI, UserCodec.PROFILE_PATH, UserCodec.PROFILE_CARD_PATH,
+            UserCodec.PROFILE_THUMBNAIL_PATH};
+    private static final String[] BOOLEAN_FIELDS = {UserCodec.IS_ADMIN, UserCodec.IS_ENTRANT, UserCodec.IS_ORGANIZER};
+    private static UserRepository instance;
+
+    private final DataStore db;
+    private final SharedPreferences preferences;
+    private final Map<String, User> users = new HashMap<>();
+    private final Map<String, List<userCallback>> inFlight = new HashMap<>();
+
+    /**
+     * Constructs a UserRepository.
+     *
+     * @param db          The data store holding the user documents.
+     * @param preferences The preferences the last known profiles are kept in.
+     */
+    public UserRepository(DataStore db, SharedPreferences preferences) {
+        this.db = db;
+        this.preferences = preferences;
+    }
+
+    /**
+     * @return The repository for the Firestore database, keeping profiles in the app's preferences.
+     */
+    public static synchronized UserRepository getInstance(Context context) {
+        if (instance == null) {
+            instance = new UserRepository(FirestoreDataStore.getInstance(),
+                    context.getApplicationContext().getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE));
+        }
+        return instance;
+    }
+
+    /**
+     * Gets a user, creating their document if they have none.
+     * The last known profile is passed to the callback immediately, if there is one. The profile is then read from
+     * the database, and the callback is called again if the profile changed.
+     *
+     * @param deviceId The user's device ID.
+     * @param callback The callback receiving the user, once or twice.
+     */
+    public void getUser(String deviceId, userCallback callback) {
+        User cached = getCachedUser(deviceId);
+        if (cached != null) {
+            callback.onUserLoaded(cached);
+        }
+        Map<String, Object> cachedData = cached != null ? toMap(cached) : null;
+
+        refresh(deviceId, new userCallback() {
+            @Override
+            public void onUserLoaded(User user) {
+                if (cachedData == null || !cachedData.equals(toMap(user))) {
+                    callback.onUserLoaded(user);
+                }
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                if (cachedData == null) {
+                    callback.onFailure(e);
+                } else {
+                    Log.e("UserRepository", "Failed to revalidate user " + deviceId, e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Reads a user from the database, joining the read already in flight for the user if there is one.
+     *
+     * @param deviceId The user's device ID.
+     * @param callback The callback receiving the user.
+     */
+    public void refresh(String deviceId, userCallback callback) {
+        synchronized (this) {
+            List<userCallback> waiting = inFlight.get(deviceId);
+            if (waiting != null) {
+                waiting.add(callback);
+                return;
+            }
+            waiting = new ArrayList<>();
+            waiting.add(callback);
+            inFlight.put(deviceId, waiting);
+        }
+
+        String userPath = DataStore.path("users", deviceId);
+        db.get(userPath)
+                .addOnSuccessListener(document -> {
+                    if (document.exists()) {
+                        User user = toUser(document);
+                        cache(user);
+                        complete(deviceId, user, null);
+                        return;
+                    }
+                    // First launch on this device: create the user's document.
+                    User user = new User(deviceId, "", false, false, false, "", "", "", "");
+                    db.set(userPath, toMap(user))
+                            .addOnSuccessListener(aVoid -> {
+                                Log.d("UserRepository", "New user created");
+                                cache(user);
+                                complete(deviceId, user, null);
+                            })
+                            .addOnFailureListener(e -> complete(deviceId, null, e));
+                })
+                .addOnFailureListener(e -> complete(deviceId, null, e));
+    }
+
+    /**
+     * Returns the last known profile of a user, from memory or disk, without reading the database.
+     *
+     * @param deviceId The user's device ID.
+     * @return The user, or null if the user has never been loaded on this device.
+     */
+    public synchronized User getCachedUser(String deviceId) {
+        User user = users.get(deviceId);
+        if (user == null && preferences.getBoolean(key(deviceId, "cached"), false)) {
+            Map<String, Object> data = new HashMap<>();
+            for (String field : STRING_FIELDS) {
+                data.put(field, preferences.getString(key(deviceId, field), ""));
+            }
+            for (String field : BOOLEAN_FIELDS) {
+                data.put(field, preferences.getBoolean(key(deviceId, field), false));
+            }
+            user = toUser(new StoredDocument(DataStore.path("users", deviceId), data));
+            users.put(deviceId, user);
+        }
+        return user;
+    }
+
+    /**
+     * Stores a user's profile in memory and on disk.
+     *
+     * @param user The user to store.
+     */
+    public synchronized void cache(User user) {
+        users.put(user.getDeviceId(), user);
+        SharedPreferences.Editor editor = preferences.edit();
+        for (Map.Entry<String, Object> field : toMap(user).entrySet()) {
+            if (field.getValue() instanceof Boolean) {
+                editor.putBoolean(key(user.getDeviceId(), field.getKey()), (Boolean) field.getValue());
+            } else {
+                editor.putString(key(user.getDeviceId(), field.getKey()), (String) field.getValue());
+            }
+        }
+        editor.putBoolean(key(user.getDeviceId(), "cached"), true);
+        editor.apply();
+    }
+
+    /**
+     * Creates a pager that reads every user one page at a time, ordered by device ID.
+     * Users read through the pager are not cached, since browsing users does not load them as the current user.
+     *
+     * @param pageSize The maximum number of users read per page.
+     * @return A pager positioned at the first user.
+     */
+    public DocumentPager<User> getUserPager(int pageSize) {
+        return new DocumentPager<>(db, StoreQuery.collection("users").orderBy(UserCodec.DEVICE_ID), pageSize,
+                UserCodec.getInstance()::decode);
+    }
+
+    /**
+     * Passes the result of a read to every request that waited for it.
+     */
+    private void complete(String deviceId, User user, Exception e) {
+        List<userCallback> waiting;
+        synchronized (this) {
+            waiting = inFlight.remove(deviceId);
+        }
+        if (waiting == null) {
+            return;
+        }
+        for (userCallback callback : waiting) {
+            if (user != null) {
+                callback.onUserLoaded(user);
+            } else {
+                callback.onFailure(e);
+            }
+        }
+    }
+
+    /**
+     * Creates a map of user data to be stored in the database.
+     *
+     * @param user The user object containing data to be stored.
+     * @return A map of user data.
+     */
+    public static Map<String, Object> toMap(User user) {
+        return UserCodec.getInstance().encode(user);
+    }
+
+    /**
+     * Constructs a user from their document. Fields missing from the document are left empty.
+     */
+    private static User toUser(StoredDocument document) {
+        return UserCodec.getInstance().decode(document);
+    }
+
+    private static String key(String deviceId, String field) {
+        return deviceId + "/" + field;
+    }
+
+    /**
+     * Callback interface for receiving a user.
+     */
+    public interface userCallback {
+        void onUserLoaded(User user);
+
+        void onFailure(Exception e);
+    }
+}
@@ -2,22 +2,46 @@ package com.example.wizard_project.Controllers;
 
 import android.util.Log;
 
+import com.example.wizard_project.Classes.Entrant;
+import com.example.wizard_project.Classes.EntrantCodec;
 import com.example.wizard_project.Classes.User;
+import com.example.wizard_project.Core.WaitingListOperations;
+import com.example.wizard_project.Store.DataStore;
+import com.example.wizard_project.Store.StoreQuery;
 import com.google.android.gms.tasks.OnFailureListener;
 import com.google.android.gms.tasks.OnSuccessListener;
-import com.google.firebase.firestore.DocumentSnapshot;
-import com.google.firebase.firestore.FirebaseFirestore;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 
 /**
- * WaitingListController manages interactions with the waiting list for events in Firestore.
+ * WaitingListController manages interactions with the waiting list for events in the database.
  */
 public class WaitingListController {
-    private final FirebaseFirestore db = FirebaseFirestore.getInstance();
+    // Each released entrant costs two writes, their entry and their registration; promotions run in transactions
+    // of their own, so this fills a transaction up to the write limit.
+    public static final int MAX_RELEASES_PER_TRANSACTION = BatchWriter.MAX_BATCH_SIZE / 2;
+    public static final int LOCATION_PAGE_SIZE = 500; // Entrants read per page when collecting their locations
+    private final DataStore db;
+    private final WaitingListOperations operations;
+
+    /**
+     * Constructs a WaitingListController for the waiting lists in the Firestore database.
+     */
+    public WaitingListController() {
+        this(FirestoreDataStore.getInstance());
+    }
+
+    /**
+     * Constructs a WaitingListController for the waiting lists in the given data store.
+     *
+     * @param db The data store holding the waiting lists.
+     */
+    public WaitingListController(DataStore db) {
+        this.db = db;
+        this.operations = new WaitingListOperations(db);
+    }
 
     /**
      * Checks if a user is on the waiting list for the given event.
@@ -32,9 +56,7 @@ public class WaitingListController {
             return;
         }
 
-        db.collection("events").document(eventId)
-                .collection("waitingList").document(userId)
-                .get()
+        db.get(DataStore.path("events", eventId, "waitingList", userId))
                 .addOnSuccessListener(documentSnapshot -> {
                     callback.onComplete(documentSnapshot.exists());
                 })
@@ -43,6 +65,8 @@ public class WaitingListController {
 
     /**
      * Adds a user to the waiting list for the given event.
+     * The join is rejected once the event has its maximum number of entrants;
+     * see {@link WaitingListOperations#isWaitingListFull(Exception)}.
      *
      * @param eventId   The ID of the event.
      * @param user      The user object to add.
@@ -58,16 +82,7 @@ public class WaitingListController {
             return;
         }
 
-        Map<String, Object> userData = new HashMap<>();
-        userData.put("userId", userId);
-        userData.put("name", user.getName());
-        userData.put("latitude", latitude);
-        userData.put("longitude", longitude);
-        userData.put("status", status);
-
-        db.collection("events").document(eventId)
-                .collection("waitingList").document(userId)
-                .set(userData)
+        operations.join(eventId, userId, user.getName(), latitude, longitude, status)
                 .addOnSuccessListener(aVoid -> callback.onSuccess())
                 .addOnFailureListener(callback::onFailure);
     }
@@ -85,15 +100,14 @@ public class WaitingListController {
             return;
         }
 
-        db.collection("events").document(eventId)
-                .collection("waitingList").document(userId)
-                .delete()
+        operations.leave(eventId, userId)
                 .addOnSuccessListener(aVoid -> callback.onSuccess())
                 .addOnFailureListener(callback::onFailure);
     }
 
     /**
      * Retrieves the locations of all entrants in the waiting list for a given event.
+     * The waiting list is read one page at a time, so only the coordinates are kept in memory.
      *
      * @param eventId   The ID of the event.
      * @param onSuccess Callback invoked with a list of locations on success.
@@ -105,21 +119,29 @@ public class WaitingListController {
             return;
         }
 
-        db.collection("events").document(eventId)
-                .collection("waitingList")
-                .get()
-                .addOnSuccessListener(queryDocumentSnapshots -> {
-                    List<double[]> locations = new ArrayList<>();
-                    for (DocumentSnapshot document : queryDocumentSnapshots) {
-                        Double latitude = document.getDouble("latitude");
-                        Double longitude = document.getDouble("longitude");
-                        if (latitude != null && longitude != null) {
-                            locations.add(new double[]{latitude, longitude});
-                        }
+        List<double[]> locations = new ArrayList<>();
+        StoreQuery waitingList = StoreQuery.collection(DataStore.path("events", eventId, "waitingList")).orderBy("userId");
+        new DocumentPager<>(db, waitingList, LOCATION_PAGE_SIZE, EntrantCodec.getInstance()::decode).readAll(new DocumentPager.streamListener<Entrant>() {
+            @Override
+            public void onPage(List<Entrant> entrants, Runnable next) {
+                for (Entrant entrant : entrants) {
+                    if (entrant.getLatitude() != null && entrant.getLongitude() != null) {
+                        locations.add(new double[]{entrant.getLatitude(), entrant.getLongitude()});
                     }
-                    onSuccess.onSuccess(locations);
-                })
-                .addOnFailureListener(onFailure::onFailure);
+                }
+                next.run();
+            }
+
+            @Override
+            public void onComplete() {
+                onSuccess.onSuccess(locations);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                onFailure.onFailure(e);
+            }
+        });
     }
 
     /**
@@ -136,9 +158,23 @@ public class WaitingListController {
             return;
         }
 
-        db.collection("events").document(eventId)
-                .collection("waitingList").document(userId)
-                .update("status", newStatus)
+        // Releasing a selected spot commits the new status, then promotes the next-ranked entrant.
+        if (isReleasingStatus(newStatus)) {
+            releaseEntrants(eventId, Collections.singletonList(userId), newStatus, new OnPromotionCompleteListener() {
+                @Override
+                public void onComplete(List<String> promotedIds, boolean hasDrawOrder) {
+                    callback.onSuccess();
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    callback.onFailure(e);
+                }
+            });
+            return;
+        }
+
+        operations.setStatus(eventId, userId, newStatus)
                 .addOnSuccessListener(aVoid -> callback.onSuccess())
                 .addOnFailureListener(callback::onFailure);
     }
@@ -152,11 +188,7 @@ public class WaitingListController {
      * @param callback The callback to handle the status or failure.
      */
     public void getUserStatus(String eventId, String userId, OnStatusFetchedCallback callback) {
-        db.collection("events")
-                .document(eventId)
-                .collection("waitingList")
-                .document(userId)
-                .get()
+        db.get(DataStore.path("events", eventId, "waitingList", userId))
                 .addOnSuccessListener(documentSnapshot -> {
                     String status = documentSnapshot.exists() ? documentSnapshot.getString("status") : "Not Found";
                     callback.onStatusFetched(status != null ? status : "Unknown");
@@ -167,6 +199,79 @@ public class WaitingListController {
 
 
 
+    /**
+     * Sets the status of several entrants to a releasing status such as "Cancelled" or "Declined", and promotes
+     * the next-ranked entrants in the event's draw order to fill every selected spot that was released.
+     * Each transaction releases at most {@link #MAX_RELEASES_PER_TRANSACTION} entrants; larger lists are released
+     * in consecutive transactions.
+     *
+     * @param eventId   The ID of the event.
+     * @param userIds   The IDs of the users being released.
+     * @param newStatus The releasing status to set.
+     * @param callback  The callback containing the IDs of the promoted users.
+     */
+    public void releaseEntrants(String eventId, List<String> userIds, String newStatus, OnPromotionCompleteListener callback) {
+        if (eventId == null || userIds == null || newStatus == null) {
+            callback.onFailure(new IllegalArgumentException("Event ID, User IDs, and New Status must not be null."));
+            return;
+        }
+        releaseEntrantChunk(eventId, userIds, 0, newStatus, new ArrayList<>(), callback);
+    }
+
+    /**
+     * Promotes the next-ranked entrants in the event's draw order without releasing anyone.
+     *
+     * @param eventId  The ID of the event.
+     * @param count    The number of entrants to promote.
+     * @param callback The callback containing the IDs of the promoted users.
+     */
+    public void promoteNextEntrants(String eventId, int count, OnPromotionCompleteListener callback) {
+        if (eventId == null) {
+            callback.onFailure(new IllegalArgumentException("Event ID must not be null."));
+            return;
+        }
+        operations.release(eventId, new ArrayList<>(), null, count)
+                .addOnSuccessListener(promotedIds -> {
+                    boolean hasDrawOrder = promotedIds != null;
+                    callback.onComplete(hasDrawOrder ? promotedIds : new ArrayList<>(), hasDrawOrder);
+                })
+                .addOnFailureListener(callback::onFailure);
+    }
+
+    /**
+     * Releases one chunk of entrants, then the next chunk once the transaction has committed.
+     */
+    private void releaseEntrantChunk(String eventId, List<String> userIds, int start, String newStatus,
+                                     List<String> promotedIds, OnPromotionCompleteListener callback) {
+        int end = Math.min(start + MAX_RELEASES_PER_TRANSACTION, userIds.size());
+        operations.release(eventId, userIds.subList(start, end), newStatus, 0)
+                .addOnSuccessListener(chunkPromotedIds -> {
+                    boolean hasDrawOrder = chunkPromotedIds != null;
+                    if (hasDrawOrder) {
+                        promotedIds.addAll(chunkPromotedIds);
+                    }
+                    if (end < userIds.size()) {
+                        releaseEntrantChunk(eventId, userIds, end, newStatus, promotedIds, callback);
+                    } else {
+                        callback.onComplete(promotedIds, hasDrawOrder);
+                    }
+                })
+                .addOnFailureListener(e -> {
+                    Log.e("WaitingListController", "Failed to release entrants", e);
+                    callback.onFailure(e);
+                });
+    }
+
+    /**
+     * Checks whether moving to a status releases the entrant's selected spot.
+     *
+     * @param status The new status.
+     * @return True if the status releases a spot, false otherwise.
+     */
+    public static boolean isReleasingStatus(String status) {
+        return "Cancelled".equals(status) || "Declined".equals(status);
+    }
+
     // Callback interfaces
     public interface OnCheckCompleteListener {
         void onComplete(boolean isOnList);
@@ -181,6 +286,12 @@ public class WaitingListController {
         void onFailure(Exception e);
     }
 
+    public interface OnPromotionCompleteListener {
+        void onComplete(List<String> promotedIds, boolean hasDrawOrder);
+
+        void onFailure(Exception e);
+    }
+
     public interface OnStatusFetchedCallback {
         void onStatusFetched(String status);
 
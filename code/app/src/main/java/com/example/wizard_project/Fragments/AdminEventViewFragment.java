@@ -6,6 +6,7 @@ import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.ListView;
+import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -14,23 +15,44 @@ import androidx.navigation.NavController;
 import androidx.navigation.fragment.NavHostFragment;
 
 import com.example.wizard_project.Adapters.BrowseEventAdapter;
+import com.example.wizard_project.Adapters.PagingScrollListener;
 import com.example.wizard_project.Classes.Event;
+import com.example.wizard_project.Controllers.DocumentPager;
+import com.example.wizard_project.Controllers.EventController;
+import com.example.wizard_project.Controllers.EventRepository;
 import com.example.wizard_project.R;
 import com.example.wizard_project.databinding.FragmentEventListBinding;
-import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.QueryDocumentSnapshot;
 
 import java.util.ArrayList;
-import java.util.Date;
+import java.util.List;
 
 /**
  * AdminEventViewFragment displays a list of all events for the admin user,
  * allowing navigation to event details.
+ * Events are loaded one page at a time as the admin scrolls. The loaded pages are kept while the admin
+ * views an event, so coming back to the list costs no reads.
  */
 public class AdminEventViewFragment extends Fragment {
+    private static final int PAGE_SIZE = 30;
     private final ArrayList<Event> eventList = new ArrayList<>();
     private FragmentEventListBinding binding;
     private BrowseEventAdapter adapter;
+    private DocumentPager<Event> eventPager;
+
+    @Override
+    public void onCreate(@Nullable Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        eventPager = new EventController().getEventPager(PAGE_SIZE);
+
+        // Remove events deleted from the event screen, instead of reloading the list.
+        getParentFragmentManager().setFragmentResultListener(ViewEventFragment.EVENT_DELETED, this, (key, result) -> {
+            String deletedId = result.getString("eventId");
+            eventList.removeIf(event -> event.getEventId().equals(deletedId));
+            if (adapter != null) {
+                adapter.notifyDataSetChanged();
+            }
+        });
+    }
 
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
@@ -50,8 +72,12 @@ public class AdminEventViewFragment extends Fragment {
         adapter = new BrowseEventAdapter(getContext(), eventList);
         eventListView.setAdapter(adapter);
 
-        // Load all events from the database
-        loadAllEvents();
+        // Load the first page, then the next pages as the admin scrolls near the end of the list
+        eventListView.setOnScrollListener(new PagingScrollListener(PagingScrollListener.DEFAULT_PREFETCH_DISTANCE,
+                this::loadNextPage));
+        if (eventList.isEmpty()) {
+            loadNextPage();
+        }
 
         // Handle item clicks to navigate to event details
         binding.eventListview.setOnItemClickListener((adapterView, itemView, position, id) -> {
@@ -63,77 +89,42 @@ public class AdminEventViewFragment extends Fragment {
     }
 
     /**
-     * Loads all events from Firestore and updates the event list.
-     */
-    private void loadAllEvents() {
-        FirebaseFirestore db = FirebaseFirestore.getInstance();
-        db.collection("events")
-                .get()
-                .addOnCompleteListener(task -> {
-                    if (task.isSuccessful()) {
-                        eventList.clear(); // Clear existing events before loading new ones
-                        for (QueryDocumentSnapshot document : task.getResult()) {
-                            // Parse Firestore document to Event object
-                            Event event = parseEventFromDocument(document);
-                            if (event != null) {
-                                eventList.add(event);
-                            }
-                        }
-                        adapter.notifyDataSetChanged(); // Refresh the ListView with new data
-                    } else {
-                        Log.e("FirestoreError", "Error loading events", task.getException());
-                    }
-                });
-    }
-
-    /**
-     * Parses a Firestore document into an Event object.
-     *
-     * @param document The Firestore document containing event data.
-     * @return A populated Event object or null if parsing fails.
+     * Loads the next page of events and appends it to the list.
+     * The loaded events are cached, so opening one of them costs no further read.
      */
-    private Event parseEventFromDocument(QueryDocumentSnapshot document) {
-        try {
-            String eventId = document.getString("eventId");
-            String eventName = document.getString("event_name");
-            String eventDescription = document.getString("event_description");
-            int eventPrice = document.contains("event_price") ? document.getLong("event_price").intValue() : 0;
-            int maxEntrants = document.contains("event_max_entrants") ? document.getLong("event_max_entrants").intValue() : 0;
-            Date registrationOpen = document.contains("registration_open") ? document.getTimestamp("registration_open").toDate() : null;
-            Date registrationClose = document.contains("registration_close") ? document.getTimestamp("registration_close").toDate() : null;
-            boolean geolocationRequirement = Boolean.TRUE.equals(document.getBoolean("geolocation_requirement"));
-            String facilityId = document.getString("facilityId");
-            String eventLocation = document.getString("event_location");
-            String eventImagePath = document.getString("event_image_path");
-            String posterUri = document.getString("posterUri");
-
-            Event event = new Event(
-                    eventId,
-                    eventName,
-                    eventDescription,
-                    eventPrice,
-                    maxEntrants,
-                    registrationOpen,
-                    registrationClose,
-                    facilityId,
-                    eventLocation,
-                    geolocationRequirement,
-                    eventImagePath
-            );
-            event.setPosterUri(posterUri);
-            event.setEventId(eventId);
-
-            return event;
-        } catch (Exception e) {
-            Log.e("ParseError", "Error parsing event document", e);
-            return null;
-        }
+    private void loadNextPage() {
+        eventPager.nextPage(new DocumentPager.pageCallback<Event>() {
+            @Override
+            public void onPage(List<Event> events) {
+                // Kept even if the view is gone, since the pager has moved past these events.
+                eventList.addAll(events);
+                if (binding != null) {
+                    adapter.notifyDataSetChanged();
+                }
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                Log.e("AdminEventViewFragment", "Error loading events", e);
+                if (binding != null) {
+                    Toast.makeText(requireContext(), "Failed to load events", Toast.LENGTH_SHORT).show();
+                }
+            }
+        });
     }
 
     @Override
     public void onResume() {
         super.onResume();
-        loadAllEvents(); // Refresh the event list when returning to this fragment
+        // Show the latest version of events edited since they were loaded, as kept by the event repository.
+        EventRepository eventRepository = EventRepository.getInstance();
+        for (int i = 0; i < eventList.size(); i++) {
+            Event cached = eventRepository.getCachedEvent(eventList.get(i).getEventId());
+            if (cached != null) {
+                eventList.set(i, cached);
+            }
+        }
+        adapter.notifyDataSetChanged();
     }
 
     @Override
@@ -1,10 +1,12 @@
 package com.example.wizard_project.Fragments;
 
 import android.os.Bundle;
+import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.ListView;
+import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -13,22 +15,43 @@ import androidx.navigation.NavController;
 import androidx.navigation.fragment.NavHostFragment;
 
 import com.example.wizard_project.Adapters.BrowseFacilityAdapter;
+import com.example.wizard_project.Adapters.PagingScrollListener;
 import com.example.wizard_project.Classes.Facility;
+import com.example.wizard_project.Controllers.DocumentPager;
 import com.example.wizard_project.Controllers.FacilityController;
 import com.example.wizard_project.R;
 import com.example.wizard_project.databinding.FragmentFacilityListBinding;
 
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * AdminFacilityViewFragment displays a list of all facilities for the admin user,
  * allowing navigation to facility details.
+ * Facilities are loaded one page at a time as the admin scrolls, and the loaded pages are kept
+ * while the admin views a facility.
  */
 public class AdminFacilityViewFragment extends Fragment {
+    private static final int PAGE_SIZE = 30;
     private final ArrayList<Facility> facilityList = new ArrayList<>();
     private FragmentFacilityListBinding binding;
     private BrowseFacilityAdapter adapter;
-    private FacilityController facilityController;
+    private DocumentPager<Facility> facilityPager;
+
+    @Override
+    public void onCreate(@Nullable Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        facilityPager = new FacilityController().getFacilityPager(PAGE_SIZE);
+
+        // Remove facilities deleted from the facility screen, instead of reloading the list.
+        getParentFragmentManager().setFragmentResultListener(ViewFacilityFragment.FACILITY_DELETED, this, (key, result) -> {
+            String deletedId = result.getString("facilityId");
+            facilityList.removeIf(facility -> deletedId != null && deletedId.equals(facility.getFacilityId()));
+            if (adapter != null) {
+                adapter.notifyDataSetChanged();
+            }
+        });
+    }
 
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
@@ -40,16 +63,19 @@ public class AdminFacilityViewFragment extends Fragment {
     public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
         super.onViewCreated(view, savedInstanceState);
 
-        // Initialize the FacilityController and adapter
-        facilityController = new FacilityController();
+        // Initialize the adapter
         adapter = new BrowseFacilityAdapter(getContext(), facilityList);
 
         // Set up the ListView and adapter
         ListView facilityListView = binding.facilityListview;
         facilityListView.setAdapter(adapter);
 
-        // Load all facilities from the database
-        loadFacilities();
+        // Load the first page, then the next pages as the admin scrolls near the end of the list
+        facilityListView.setOnScrollListener(new PagingScrollListener(PagingScrollListener.DEFAULT_PREFETCH_DISTANCE,
+                this::loadNextPage));
+        if (facilityList.isEmpty()) {
+            loadNextPage();
+        }
 
         // Handle item clicks to navigate to event details
         binding.facilityListview.setOnItemClickListener((adapterView, itemView, position, id) -> {
@@ -59,13 +85,26 @@ public class AdminFacilityViewFragment extends Fragment {
     }
 
     /**
-     * Loads all facilities from Firestore and updates the facility list.
+     * Loads the next page of facilities and appends it to the list.
      */
-    private void loadFacilities() {
-        facilityController.getFacilities(facilities -> {
-            facilityList.clear(); // Clear the current list to avoid duplicates
-            facilityList.addAll(facilities); // Add new facilities
-            adapter.notifyDataSetChanged(); // Notify the adapter to refresh the ListView
+    private void loadNextPage() {
+        facilityPager.nextPage(new DocumentPager.pageCallback<Facility>() {
+            @Override
+            public void onPage(List<Facility> facilities) {
+                // Kept even if the view is gone, since the pager has moved past these facilities.
+                facilityList.addAll(facilities);
+                if (binding != null) {
+                    adapter.notifyDataSetChanged();
+                }
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                Log.e("AdminFacilityViewFragment", "Error loading facilities", e);
+                if (binding != null) {
+                    Toast.makeText(requireContext(), "Failed to load facilities", Toast.LENGTH_SHORT).show();
+                }
+            }
         });
     }
 
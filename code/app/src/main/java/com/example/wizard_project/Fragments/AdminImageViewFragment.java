@@ -2,6 +2,8 @@ package com.example.wizard_project.Fragments;
 
 import android.app.AlertDialog;
 import android.os.Bundle;
+import android.text.format.Formatter;
+import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -9,23 +11,41 @@ import android.widget.ListView;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 
 import com.example.wizard_project.Adapters.BrowseImageAdapter;
+import com.example.wizard_project.Adapters.PagingScrollListener;
 import com.example.wizard_project.Classes.ImageHolder;
+import com.example.wizard_project.Classes.ImageUploader;
+import com.example.wizard_project.Controllers.DocumentPager;
+import com.example.wizard_project.Controllers.DownloadUrlCache;
+import com.example.wizard_project.Controllers.ImageCollector;
+import com.example.wizard_project.Controllers.ImagePager;
 import com.example.wizard_project.databinding.FragmentAdminImageBinding;
-import com.google.firebase.storage.FirebaseStorage;
-import com.google.firebase.storage.StorageReference;
 
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 /**
  * AdminImageViewFragment allows admin users to view and delete images from Firebase Storage.
+ * Images are listed one page at a time as the admin scrolls, and each page is added to the list at once.
+ * Admins can also delete every image no user, event or facility refers to any more.
  */
 public class AdminImageViewFragment extends Fragment {
+    private static final int PAGE_SIZE = 50;
     private FragmentAdminImageBinding binding;
     private final ArrayList<ImageHolder> imageList = new ArrayList<>();
     private BrowseImageAdapter imageAdapter;
+    private ImagePager imagePager;
+
+    @Override
+    public void onCreate(@Nullable Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        imagePager = ImagePager.forImages(requireContext(), PAGE_SIZE);
+    }
 
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
@@ -36,8 +56,15 @@ public class AdminImageViewFragment extends Fragment {
         imageAdapter = new BrowseImageAdapter(getContext(), imageList);
         imageListView.setAdapter(imageAdapter);
 
-        // Load images from Firebase
-        loadImages();
+        // Load the first page, then the next pages as the admin scrolls near the end of the list
+        imageListView.setOnScrollListener(new PagingScrollListener(PagingScrollListener.DEFAULT_PREFETCH_DISTANCE,
+                this::loadNextPage));
+        if (imageList.isEmpty()) {
+            loadNextPage();
+        }
+
+        // Find the unused images and confirm deleting them
+        binding.buttonCollectImages.setOnClickListener(v -> findUnusedImages());
 
         // Set click listener to handle image deletion
         imageListView.setOnItemClickListener((parent, view, position, id) -> {
@@ -71,29 +98,27 @@ public class AdminImageViewFragment extends Fragment {
     }
 
     /**
-     * Loads all images from the Firebase Storage "images" folder and updates the list.
+     * Loads the next page of images from the Firebase Storage "images" folder and appends it to the list.
      */
-    private void loadImages() {
-        StorageReference storageRef = FirebaseStorage.getInstance().getReference().child("images/");
-
-        // List all items in the "images" folder
-        storageRef.listAll()
-                .addOnSuccessListener(listResult -> {
-                    for (StorageReference item : listResult.getItems()) {
-                        // For each item, get the download URL
-                        item.getDownloadUrl().addOnSuccessListener(uri -> {
-                            // Add image URL and path to the list
-                            imageList.add(new ImageHolder(uri.toString(), item.getPath()));
-
-                            // Notify adapter to update RecyclerView after adding all URLs
-                            imageAdapter.notifyDataSetChanged();
-                        });
-                    }
-                })
-                .addOnFailureListener(e -> {
+    private void loadNextPage() {
+        imagePager.nextPage(new DocumentPager.pageCallback<ImageHolder>() {
+            @Override
+            public void onPage(List<ImageHolder> images) {
+                // Kept even if the view is gone, since the pager has moved past these images.
+                imageList.addAll(images);
+                if (binding != null) {
+                    imageAdapter.notifyDataSetChanged();
+                }
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                Log.e("AdminImageViewFragment", "Error loading images", e);
+                if (binding != null) {
                     Toast.makeText(getContext(), "Failed to load images", Toast.LENGTH_SHORT).show();
-                });
-
+                }
+            }
+        });
     }
 
     /**
@@ -103,15 +128,84 @@ public class AdminImageViewFragment extends Fragment {
      */
     private void deleteImage(ImageHolder imageToDelete) {
         if (!imageToDelete.getImagePath().equals("")) {
-            // Get a reference to the image in Firebase Storage
-            StorageReference imageRef = FirebaseStorage.getInstance().getReference().child(imageToDelete.getImagePath());
-            // Delete the image
-            imageRef.delete();
+            // Delete the image and its renditions, even if documents still refer to it
+            ImageUploader.purge(imageToDelete.getImagePath());
+            DownloadUrlCache.getInstance(requireContext()).removeImage(imageToDelete.getImagePath());
             imageToDelete.setImagePath("");
             imageToDelete.setImageUrl("");
         }
     }
 
+    /**
+     * Finds the images no user, event or facility refers to, without deleting them,
+     * and asks the admin to confirm deleting them.
+     */
+    private void findUnusedImages() {
+        binding.buttonCollectImages.setEnabled(false);
+        ImageCollector.getInstance().collect(true, new ImageCollector.collectCallback() {
+            @Override
+            public void onCollected(ImageCollector.Report report) {
+                if (binding == null) {
+                    return;
+                }
+                binding.buttonCollectImages.setEnabled(true);
+                if (report.getOrphanedFiles().isEmpty()) {
+                    Toast.makeText(getContext(), "No unused images found", Toast.LENGTH_SHORT).show();
+                    return;
+                }
+                new AlertDialog.Builder(getContext())
+                        .setTitle("Confirmation")
+                        .setMessage("Delete " + report.getOrphanedFiles().size() + " unused image files ("
+                                + Formatter.formatShortFileSize(getContext(), report.getBytesReclaimed()) + ")?")
+                        .setPositiveButton("Yes", (dialog, which) -> {
+                            deleteUnusedImages();
+                            dialog.dismiss();
+                        })
+                        .setNegativeButton("No", (dialog, which) -> dialog.dismiss())
+                        .show();
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                Log.e("AdminImageViewFragment", "Error finding unused images", e);
+                if (binding != null) {
+                    binding.buttonCollectImages.setEnabled(true);
+                    Toast.makeText(getContext(), "Failed to find unused images", Toast.LENGTH_SHORT).show();
+                }
+            }
+        });
+    }
+
+    /**
+     * Deletes the images no user, event or facility refers to, and removes them from the list.
+     */
+    private void deleteUnusedImages() {
+        binding.buttonCollectImages.setEnabled(false);
+        ImageCollector.getInstance().collect(false, new ImageCollector.collectCallback() {
+            @Override
+            public void onCollected(ImageCollector.Report report) {
+                Set<String> deleted = new HashSet<>(report.getOrphanedFiles());
+                imageList.removeIf(image -> deleted.contains(image.getImagePath()));
+                if (binding != null) {
+                    imageAdapter.notifyDataSetChanged();
+                    binding.buttonCollectImages.setEnabled(true);
+                    Toast.makeText(getContext(), "Deleted " + deleted.size() + " unused image files, freeing "
+                            + Formatter.formatShortFileSize(getContext(), report.getBytesReclaimed()),
+                            Toast.LENGTH_SHORT).show();
+                }
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                Log.e("AdminImageViewFragment", "Error deleting unused images", e);
+                if (binding != null) {
+                    binding.buttonCollectImages.setEnabled(true);
+                    Toast.makeText(getContext(), "Failed to delete unused images", Toast.LENGTH_SHORT).show();
+                }
+            }
+        });
+    }
+
     /**
      * Cleans up the View Binding to avoid memory leaks.
      */
@@ -6,31 +6,45 @@ import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.ListView;
+import android.widget.Toast;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 import androidx.navigation.NavController;
 import androidx.navigation.Navigation;
 
 import com.example.wizard_project.Adapters.BrowseProfileAdapter;
+import com.example.wizard_project.Adapters.PagingScrollListener;
 import com.example.wizard_project.Classes.User;
+import com.example.wizard_project.Controllers.DocumentPager;
+import com.example.wizard_project.Controllers.UserRepository;
 import com.example.wizard_project.MainActivity;
 import com.example.wizard_project.R;
 import com.example.wizard_project.databinding.FragmentAdminBinding;
-import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.QueryDocumentSnapshot;
 
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * AdminProfileViewFragment provides the UI and functionality for admin users,
  * allowing them to browse and select user profiles for further actions.
+ * Profiles are loaded one page at a time as the admin scrolls, and the loaded pages are kept
+ * while the admin views a profile.
  */
 public class AdminProfileViewFragment extends Fragment {
+    private static final int PAGE_SIZE = 30;
 
     private FragmentAdminBinding binding;
     private final ArrayList<User> profileList = new ArrayList<>();
     private BrowseProfileAdapter adapter;
+    private DocumentPager<User> userPager;
+
+    @Override
+    public void onCreate(@Nullable Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        userPager = UserRepository.getInstance(requireContext()).getUserPager(PAGE_SIZE);
+    }
 
     /**
      * Inflates the layout for this fragment using View Binding.
@@ -39,13 +53,20 @@ public class AdminProfileViewFragment extends Fragment {
     public View onCreateView(@NonNull LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
         binding = FragmentAdminBinding.inflate(inflater, container, false);
 
+        // Deleting a profile wipes the user's data in memory, so deleted profiles have no device ID.
+        profileList.removeIf(user -> user.getDeviceId() == null || user.getDeviceId().isEmpty());
+
         // Initialize the ListView with the profile list adapter
         ListView profileListView = binding.profilelistListview;
         adapter = new BrowseProfileAdapter(getContext(), profileList);
         profileListView.setAdapter(adapter);
 
-        // Load profiles from Firebase
-        loadUsers();
+        // Load the first page, then the next pages as the admin scrolls near the end of the list
+        profileListView.setOnScrollListener(new PagingScrollListener(PagingScrollListener.DEFAULT_PREFETCH_DISTANCE,
+                this::loadNextPage));
+        if (profileList.isEmpty()) {
+            loadNextPage();
+        }
 
         // Set item click listener for profile selection
         binding.profilelistListview.setOnItemClickListener((parent, view, position, id) -> {
@@ -67,29 +88,32 @@ public class AdminProfileViewFragment extends Fragment {
     }
 
     /**
-     * Loads user profiles from Firestore and updates the profile list.
+     * Loads the next page of user profiles and appends it to the profile list.
      */
-    private void loadUsers() {
-        FirebaseFirestore db = FirebaseFirestore.getInstance();
-        db.collection("users")
-                .get()
-                .addOnCompleteListener(task -> {
-                    if (task.isSuccessful()) {
-                        profileList.clear(); // Clear existing profiles before loading new ones
-                        for (QueryDocumentSnapshot document : task.getResult()) {
-                            User profile = new User(null, null, false, false, false, null, null, null, null);
-                            profile.setUserData(document);
-                            profileList.add(profile); // Add each user profile to the list
-                        }
-                        adapter.notifyDataSetChanged(); // Refresh the ListView with new data
-                    } else {
-                        Log.e("AdminProfileViewFragment", "Error getting documents", task.getException());
-                    }
-                });
+    private void loadNextPage() {
+        userPager.nextPage(new DocumentPager.pageCallback<User>() {
+            @Override
+            public void onPage(List<User> users) {
+                // Kept even if the view is gone, since the pager has moved past these profiles.
+                profileList.addAll(users);
+                if (binding != null) {
+                    adapter.notifyDataSetChanged();
+                }
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                Log.e("AdminProfileViewFragment", "Error getting documents", e);
+                if (binding != null) {
+                    Toast.makeText(requireContext(), "Failed to load profiles", Toast.LENGTH_SHORT).show();
+                }
+            }
+        });
     }
 
     @Override
     public void onDestroyView() {
         super.onDestroyView();
+        binding = null;
     }
 }
@@ -21,20 +21,20 @@ import androidx.navigation.fragment.NavHostFragment;
 
 import com.bumptech.glide.Glide;
 import com.example.wizard_project.Classes.Event;
+import com.example.wizard_project.Classes.ImageUploader;
 import com.example.wizard_project.Classes.PhotoHandler;
+import com.example.wizard_project.Classes.StoredImage;
 import com.example.wizard_project.Classes.User;
 import com.example.wizard_project.Controllers.EventController;
 import com.example.wizard_project.Controllers.FacilityController;
+import com.example.wizard_project.Core.ImageRenditions.Rendition;
 import com.example.wizard_project.MainActivity;
 import com.example.wizard_project.R;
 import com.example.wizard_project.databinding.FragmentEditEventBinding;
-import com.google.firebase.storage.FirebaseStorage;
-import com.google.firebase.storage.StorageReference;
 
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Date;
-import java.util.UUID;
 
 /**
  * EditEventFragment allows the user to create or edit their event.
@@ -141,7 +141,7 @@ public class EditEventFragment extends Fragment {
         // Set event image
         if (displayEvent.getPosterUri() != null && !displayEvent.getPosterUri().isEmpty()) {
             // Load existing event image
-            Glide.with(requireContext()).load(displayEvent.getPosterUri()).into(binding.eventEditImageview);
+            Glide.with(requireContext()).load(StoredImage.of(displayEvent.getEvent_image_path(), displayEvent.getPosterUri())).into(binding.eventEditImageview);
             binding.buttonDeleteEventImage.setVisibility(View.VISIBLE);
             binding.eventEditImageview.setClickable(false); // Prevent image picker
         } else {
@@ -266,21 +266,28 @@ public class EditEventFragment extends Fragment {
     }
 
     /**
-     * Uploads the selected image to Firebase Storage.
+     * Uploads the selected image to Firebase Storage as a set of renditions.
+     * The reference to the image is only counted when the event is saved, which also releases the old poster,
+     * so an edit that is never saved counts nothing.
      *
      * @param imageUri The URI of the selected image.
      */
     private void uploadImageToFirebase(Uri imageUri, EventController.updateCallback callback) {
-        String path = "images/" + UUID.randomUUID().toString();
-        StorageReference imageRef = FirebaseStorage.getInstance().getReference().child(path);
-
-        imageRef.putFile(imageUri)
-                .addOnSuccessListener(taskSnapshot -> imageRef.getDownloadUrl().addOnSuccessListener(uri -> {
-                    displayEvent.setPosterUri(uri.toString());
-                    displayEvent.setEvent_image_path(path);
-                    callback.onSuccess();
-                }))
-                .addOnFailureListener(callback::onFailure);
+        ImageUploader.getInstance(requireContext()).upload(imageUri, new ImageUploader.uploadCallback() {
+            @Override
+            public void onUploaded(ImageUploader.UploadedImage image) {
+                displayEvent.setPosterUri(image.getUrl());
+                displayEvent.setEvent_image_path(image.getPath(Rendition.FULL));
+                displayEvent.setEvent_card_path(image.getPath(Rendition.CARD));
+                displayEvent.setEvent_thumbnail_path(image.getPath(Rendition.THUMBNAIL));
+                callback.onSuccess();
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                callback.onFailure(e);
+            }
+        });
     }
 
     /**
@@ -330,14 +337,17 @@ public class EditEventFragment extends Fragment {
         if (displayEvent != null && displayEvent.getEvent_image_path() != null && !displayEvent.getEvent_image_path().isEmpty()) {
             // Delete the image from Firebase Storage
             String imagePath = displayEvent.getEvent_image_path();
-            StorageReference imageRef = FirebaseStorage.getInstance().getReference().child(imagePath);
 
-            imageRef.delete().addOnSuccessListener(aVoid -> {
+            ImageUploader.delete(imagePath).addOnSuccessListener(aVoid -> {
                 // Clear the event image fields
                 displayEvent.setPosterUri("");
                 displayEvent.setEvent_image_path("");
+                displayEvent.setEvent_card_path("");
+                displayEvent.setEvent_thumbnail_path("");
                 eventController.updateField(displayEvent, "posterUri", "");
                 eventController.updateField(displayEvent, "event_image_path", "");
+                eventController.updateField(displayEvent, "event_card_path", "");
+                eventController.updateField(displayEvent, "event_thumbnail_path", "");
 
                 // Reset the UI to show the placeholder image
                 binding.eventEditImageview.setImageResource(R.drawable.example_event);
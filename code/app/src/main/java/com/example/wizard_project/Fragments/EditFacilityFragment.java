@@ -20,14 +20,15 @@ import androidx.navigation.fragment.NavHostFragment;
 
 import com.bumptech.glide.Glide;
 import com.example.wizard_project.Classes.Facility;
+import com.example.wizard_project.Classes.ImageUploader;
 import com.example.wizard_project.Classes.PhotoHandler;
+import com.example.wizard_project.Classes.StoredImage;
 import com.example.wizard_project.Classes.User;
 import com.example.wizard_project.Controllers.FacilityController;
+import com.example.wizard_project.Core.ImageRenditions.Rendition;
 import com.example.wizard_project.MainActivity;
 import com.example.wizard_project.R;
 import com.example.wizard_project.databinding.FragmentEditFacilityBinding;
-import com.google.firebase.storage.FirebaseStorage;
-import com.google.firebase.storage.StorageReference;
 
 import java.util.UUID;
 
@@ -85,7 +86,7 @@ public class EditFacilityFragment extends Fragment {
 
             // Load existing facility image or placeholder if not available
             if (userFacility.getposterUri() != null && !userFacility.getposterUri().isEmpty()) {
-                Glide.with(requireContext()).load(userFacility.getposterUri()).into(binding.imageviewEditFacilityImage);
+                Glide.with(requireContext()).load(StoredImage.of(userFacility.getFacilityImagePath(), userFacility.getposterUri())).into(binding.imageviewEditFacilityImage);
                 binding.buttonDeleteFacilityImage.setVisibility(View.VISIBLE);
                 binding.imageviewEditFacilityImage.setClickable(false); // Disable image picker
             } else {
@@ -237,14 +238,17 @@ public class EditFacilityFragment extends Fragment {
         if (userFacility != null && userFacility.getFacilityImagePath() != null && !userFacility.getFacilityImagePath().isEmpty()) {
             // Delete the image from Firebase Storage
             String imagePath = userFacility.getFacilityImagePath();
-            StorageReference imageRef = FirebaseStorage.getInstance().getReference().child(imagePath);
-            imageRef.delete().addOnSuccessListener(aVoid -> {
+            ImageUploader.delete(imagePath).addOnSuccessListener(aVoid -> {
 
                 // Clear the facility image fields
                 userFacility.setposterUri("");
                 userFacility.setFacilityImagePath("");
+                userFacility.setFacilityCardPath("");
+                userFacility.setFacilityThumbnailPath("");
                 facilityController.updateField(userFacility, "posterUri", "");
                 facilityController.updateField(userFacility, "facility_imagePath", "");
+                facilityController.updateField(userFacility, "facility_cardPath", "");
+                facilityController.updateField(userFacility, "facility_thumbnailPath", "");
 
                 // Reset the UI to show the placeholder image
                 binding.imageviewEditFacilityImage.setImageResource(R.drawable.example_facility);
@@ -307,21 +311,28 @@ public class EditFacilityFragment extends Fragment {
 
     /**
      * Uploads the facility image to Firebase Storage.
+     * The reference to the image is only counted when the facility is saved, which also releases the old image,
+     * so an edit that is never saved counts nothing.
      */
     private void uploadImageToFirebase(Uri imageUri, FacilityController.updateCallback callback) {
-        String path = "images/" + UUID.randomUUID().toString();
-        StorageReference imageRef = FirebaseStorage.getInstance().getReference().child(path);
-
-        // Upload the image to Firebase Storage
-        imageRef.putFile(imageUri)
-                .addOnSuccessListener(taskSnapshot -> imageRef.getDownloadUrl().addOnSuccessListener(uri -> {
-                    if (userFacility != null) {
-                        userFacility.setposterUri(uri.toString());
-                        userFacility.setFacilityImagePath(path);
-                    }
-                    callback.onSuccess();
-                }))
-                .addOnFailureListener(callback::onFailure);
+        // Upload the image to Firebase Storage as a set of renditions
+        ImageUploader.getInstance(requireContext()).upload(imageUri, new ImageUploader.uploadCallback() {
+            @Override
+            public void onUploaded(ImageUploader.UploadedImage image) {
+                if (userFacility != null) {
+                    userFacility.setposterUri(image.getUrl());
+                    userFacility.setFacilityImagePath(image.getPath(Rendition.FULL));
+                    userFacility.setFacilityCardPath(image.getPath(Rendition.CARD));
+                    userFacility.setFacilityThumbnailPath(image.getPath(Rendition.THUMBNAIL));
+                }
+                callback.onSuccess();
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                callback.onFailure(e);
+            }
+        });
     }
 
     /**
@@ -23,9 +23,8 @@ import com.example.wizard_project.Classes.PhotoHandler;
 import com.example.wizard_project.MainActivity;
 import com.example.wizard_project.R;
 import com.example.wizard_project.databinding.FragmentEditProfileBinding;
+import com.example.wizard_project.Classes.StoredImage;
 import com.example.wizard_project.Classes.User;
-import com.google.firebase.storage.FirebaseStorage;
-import com.google.firebase.storage.StorageReference;
 
 /**
  * EditProfileFragment allows the user to edit their profile information.
@@ -70,7 +69,7 @@ public class EditProfileFragment extends Fragment {
             if (profilePictureUri != null && !profilePictureUri.isEmpty()) {
                 // Load existing profile picture
                 Glide.with(requireContext())
-                        .load(Uri.parse(profilePictureUri))
+                        .load(StoredImage.of(currentUser.getProfilePath(), profilePictureUri))
                         .circleCrop()
                         .into(binding.imageviewProfilePicture);
                 binding.framelayoutProfilePictureContainer.setClickable(false); // Disable image picker
@@ -169,6 +168,8 @@ public class EditProfileFragment extends Fragment {
                     aVoid -> {
                         currentUser.setProfilePictureUri("");
                         currentUser.setProfilePath("");
+                        currentUser.setProfileCardPath("");
+                        currentUser.setProfileThumbnailPath("");
 
                         binding.imageviewProfilePicture.setImageResource(R.drawable.noname); // Default placeholder
                         binding.framelayoutProfilePictureContainer.setClickable(true); // Enable image picker
@@ -203,20 +204,13 @@ public class EditProfileFragment extends Fragment {
             Uri imageUri = data.getData(); // Get the selected image URI
             if (imageUri != null) {
 
-                // Delete the old profile picture if it exists
-                if (!currentUser.getProfilePictureUri().isEmpty() && !currentUser.getProfilePath().isEmpty()) {
-                    String imagePath = currentUser.getProfilePath();
-                    StorageReference imageRef = FirebaseStorage.getInstance().getReference().child(imagePath);
-                    imageRef.delete();
-                }
-
                 // Update the user's profile picture URI
                 currentUser.setProfilePictureUri(imageUri.toString());
                 Glide.with(requireContext()).load(imageUri).circleCrop().into(binding.imageviewProfilePicture);
 
                 // Upload the new profile picture to Firebase
                 PhotoHandler photo = new PhotoHandler();
-                photo.uploadImage(currentUser, imageUri,
+                photo.uploadImage(requireContext(), currentUser, imageUri,
                         uri -> {
                             if (isAdded() && !isDetached()) { // Double-check before interacting with the context
                                 Toast.makeText(requireContext(), "Upload Success", Toast.LENGTH_SHORT).show();
@@ -237,7 +231,7 @@ public class EditProfileFragment extends Fragment {
      * @param imageUri The URI of the selected image.
      */
     private void uploadProfilePicture(Uri imageUri) {
-        photoHandler.uploadImage(currentUser, imageUri,
+        photoHandler.uploadImage(requireContext(), currentUser, imageUri,
                 uri -> {
                     currentUser.setProfilePictureUri(uri.toString());
                     Glide.with(requireContext()).load(uri).circleCrop().into(binding.imageviewProfilePicture);
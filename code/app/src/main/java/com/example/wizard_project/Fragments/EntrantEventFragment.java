@@ -18,22 +18,31 @@ import androidx.navigation.fragment.NavHostFragment;
 
 import com.example.wizard_project.Adapters.BrowseEventAdapter;
 import com.example.wizard_project.Classes.Event;
+import com.example.wizard_project.Classes.EventCodec;
 import com.example.wizard_project.Classes.User;
+import com.example.wizard_project.Classes.UserCodec;
+import com.example.wizard_project.Controllers.FirestoreDataStore;
+import com.example.wizard_project.Core.RegistrationIndex;
 import com.example.wizard_project.R;
-import com.google.firebase.firestore.DocumentSnapshot;
-import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.example.wizard_project.Store.DataStore;
+import com.example.wizard_project.Store.DataStoreException;
+import com.example.wizard_project.Store.DocumentChange;
+import com.example.wizard_project.Store.StoreQuery;
+import com.example.wizard_project.Store.StoredDocument;
 
 import java.util.ArrayList;
-import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * EntrantEventFragment displays the list of events the user is registered for.
  */
 public class EntrantEventFragment extends Fragment {
     private final ArrayList<Event> eventList = new ArrayList<>();
+    private final Map<String, Event> registeredEvents = new LinkedHashMap<>(); // Event ID -> event
     private BrowseEventAdapter adapter;
-    private FirebaseFirestore db;
+    private DataStore.Registration registrationsListener;
     private User currentUser;
     private String userId;
 
@@ -46,9 +55,6 @@ public class EntrantEventFragment extends Fragment {
     public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
         super.onViewCreated(view, savedInstanceState);
 
-        // Initialize Firestore
-        db = FirebaseFirestore.getInstance();
-
         // Set up ListView and adapter
         ListView eventListView = view.findViewById(R.id.event_listview);
         adapter = new BrowseEventAdapter(getContext(), eventList);
@@ -67,6 +73,16 @@ public class EntrantEventFragment extends Fragment {
         });
     }
 
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        if (registrationsListener != null) {
+            registrationsListener.remove();
+            registrationsListener = null;
+        }
+        registeredEvents.clear();
+    }
+
     /**
      * Sets up the navigation to the ProfileFragment when the profile picture button is clicked.
      *
@@ -95,37 +111,39 @@ public class EntrantEventFragment extends Fragment {
     }
 
     /**
-     * Loads the events the user is registered for.
+     * Listens to the user's registrations, which hold a summary of each event the user is registered for,
+     * so the list is read with one query and stays up to date as the user joins and leaves events.
      */
     private void loadRegisteredEvents() {
         if (userId == null || userId.isEmpty()) {
             Log.e("EntrantEventFragment", "User ID is null or empty.");
             return;
         }
+        if (getView() == null || registrationsListener != null) {
+            return;
+        }
 
-        db.collection("events").get().addOnCompleteListener(task -> {
-            if (task.isSuccessful() && task.getResult() != null) {
-                eventList.clear(); // Clear the existing list
-                for (QueryDocumentSnapshot eventDocument : task.getResult()) {
-                    String eventId = eventDocument.getId();
-
-                    // Check if user is in the waiting list for this event
-                    db.collection("events").document(eventId)
-                            .collection("waitingList").document(userId)
-                            .get()
-                            .addOnSuccessListener(documentSnapshot -> {
-                                if (documentSnapshot.exists()) {
-                                    Event event = parseEventFromDocument(eventDocument);
-                                    if (event != null) {
-                                        eventList.add(event);
-                                        adapter.notifyDataSetChanged();
-                                    }
-                                }
-                            })
-                            .addOnFailureListener(e -> Log.e("EntrantEventFragment", "Error checking waiting list: " + e.getMessage(), e));
+        StoreQuery registrations = StoreQuery.collection(RegistrationIndex.registrationsPath(userId))
+                .limit(RegistrationIndex.MAX_REGISTRATIONS);
+        registrationsListener = FirestoreDataStore.getInstance().listen(registrations, new DataStore.QueryListener() {
+            @Override
+            public void onChanges(List<DocumentChange> changes) {
+                for (DocumentChange change : changes) {
+                    String eventId = change.getDocument().getId();
+                    if (change.getType() == DocumentChange.Type.REMOVED) {
+                        registeredEvents.remove(eventId);
+                    } else {
+                        registeredEvents.put(eventId, EventCodec.getInstance().decode(change.getDocument()));
+                    }
                 }
-            } else {
-                Log.e("EntrantEventFragment", "Error fetching events", task.getException());
+                eventList.clear();
+                eventList.addAll(registeredEvents.values());
+                adapter.notifyDataSetChanged();
+            }
+
+            @Override
+            public void onError(DataStoreException e) {
+                Log.e("EntrantEventFragment", "Error listening to registrations: " + e.getMessage(), e);
             }
         });
     }
@@ -142,20 +160,14 @@ public class EntrantEventFragment extends Fragment {
             return;
         }
 
-        db.collection("users")
-                .whereEqualTo("deviceId", deviceId)
-                .get()
-                .addOnSuccessListener(querySnapshot -> {
-                    if (!querySnapshot.isEmpty()) {
-                        DocumentSnapshot documentSnapshot = querySnapshot.getDocuments().get(0);
-                        currentUser = documentSnapshot.toObject(User.class);
-                        if (currentUser != null) {
-                            userId = documentSnapshot.getId();
-                            Log.d("EntrantEventFragment", "User data fetched: " + currentUser.getName());
-                            loadRegisteredEvents(); // Load events the user is registered for
-                        } else {
-                            Log.e("EntrantEventFragment", "User data is null.");
-                        }
+        FirestoreDataStore.getInstance().query(StoreQuery.collection("users").whereEqualTo(UserCodec.DEVICE_ID, deviceId))
+                .addOnSuccessListener(userDocuments -> {
+                    if (!userDocuments.isEmpty()) {
+                        StoredDocument userDocument = userDocuments.get(0);
+                        currentUser = UserCodec.getInstance().decode(userDocument);
+                        userId = userDocument.getId();
+                        Log.d("EntrantEventFragment", "User data fetched: " + currentUser.getName());
+                        loadRegisteredEvents(); // Load events the user is registered for
                     } else {
                         Log.e("EntrantEventFragment", "No user found with this device ID.");
                         Toast.makeText(getContext(), "No user found with this device ID.", Toast.LENGTH_SHORT).show();
@@ -167,50 +179,6 @@ public class EntrantEventFragment extends Fragment {
                 });
     }
 
-    /**
-     * Parses a Firestore document into an Event object.
-     *
-     * @param document The Firestore document containing event data.
-     * @return A populated Event object or null if parsing fails.
-     */
-    private Event parseEventFromDocument(QueryDocumentSnapshot document) {
-        try {
-            String eventId = document.getString("eventId");
-            String eventName = document.getString("event_name");
-            String eventDescription = document.getString("event_description");
-            int eventPrice = document.contains("event_price") ? document.getLong("event_price").intValue() : 0;
-            int maxEntrants = document.contains("event_max_entrants") ? document.getLong("event_max_entrants").intValue() : 0;
-            Date registrationOpen = document.contains("registration_open") ? document.getTimestamp("registration_open").toDate() : null;
-            Date registrationClose = document.contains("registration_close") ? document.getTimestamp("registration_close").toDate() : null;
-            boolean geolocationRequirement = Boolean.TRUE.equals(document.getBoolean("geolocation_requirement"));
-            String facilityId = document.getString("facilityId");
-            String eventLocation = document.getString("event_location");
-            String eventImagePath = document.getString("event_image_path");
-            String posterUri = document.getString("posterUri");
-
-            Event event = new Event(
-                    eventId,
-                    eventName,
-                    eventDescription,
-                    eventPrice,
-                    maxEntrants,
-                    registrationOpen,
-                    registrationClose,
-                    facilityId,
-                    eventLocation,
-                    geolocationRequirement,
-                    eventImagePath
-            );
-            event.setPosterUri(posterUri);
-            event.setEventId(eventId);
-
-            return event;
-        } catch (Exception e) {
-            Log.e("ParseError", "Error parsing event document", e);
-            return null;
-        }
-    }
-
     /**
      * Retrieves the device ID.
      */
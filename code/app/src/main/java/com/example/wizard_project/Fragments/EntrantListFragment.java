@@ -17,6 +17,7 @@ import android.util.SparseBooleanArray;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.AbsListView;
 import android.widget.AdapterView;
 import android.widget.Button;
 import android.widget.EditText;
@@ -36,27 +37,31 @@ import androidx.fragment.app.Fragment;
 import com.example.wizard_project.Adapters.BrowseEntrantAdapter;
 import com.example.wizard_project.Classes.Entrant;
 import com.example.wizard_project.Classes.Event;
+import com.example.wizard_project.Core.BroadcastAudience;
+import com.example.wizard_project.Controllers.DocumentPager;
 import com.example.wizard_project.Controllers.EventController;
+import com.example.wizard_project.Controllers.WaitingListController;
 import com.example.wizard_project.LotterySystem;
 import com.example.wizard_project.MainActivity;
 import com.example.wizard_project.R;
 import com.example.wizard_project.databinding.FragmentEntrantListBinding;
-import com.google.firebase.firestore.FirebaseFirestore;
 
 import java.lang.reflect.Array;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
 
 /**
  * EntrantListFragment represents a view of the list of entrants for an event.
  */
 public class EntrantListFragment extends Fragment implements SampleAttendeeDialog.SampleAttendeesListener {
+    private static final int PAGE_SIZE = 50; // Entrants read per page
+    private static final int PREFETCH_DISTANCE = 10; // Remaining rows at which the next page is requested
     private FragmentEntrantListBinding binding;
     private EventController eventController;
+    private WaitingListController waitingListController;
     private BrowseEntrantAdapter adapter;
+    private DocumentPager<Entrant> pager;
     private Event event;
 
     /**
@@ -90,8 +95,9 @@ public class EntrantListFragment extends Fragment implements SampleAttendeeDialo
     public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
         super.onViewCreated(view, savedInstanceState);
 
-        // Initialize the event controller
+        // Initialize the controllers
         eventController = new EventController();
+        waitingListController = new WaitingListController();
 
         setupUIComponents();
         fetchAndDisplayEntrants();
@@ -110,16 +116,28 @@ public class EntrantListFragment extends Fragment implements SampleAttendeeDialo
         // Set up sample attendees button
         Button sampleAttendeesButton = binding.sampleAttendeesButton;
         sampleAttendeesButton.setOnClickListener(view -> {
-            if (adapter != null) {
-                SampleAttendeeDialog dialog = SampleAttendeeDialog.newInstance(adapter.getCount());
-                dialog.show(getChildFragmentManager(), "SampleAttendeesDialog");
-            }
+            // Count the whole waiting list, since only the pages scrolled to so far are loaded.
+            eventController.countWaitingList(event.getEventId(), new EventController.waitingListCountCallback() {
+                @Override
+                public void onSuccess(long count) {
+                    if (isAdded()) {
+                        SampleAttendeeDialog dialog = SampleAttendeeDialog.newInstance((int) count);
+                        dialog.show(getChildFragmentManager(), "SampleAttendeesDialog");
+                    }
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    Log.e("EntrantListFragment", "Error counting waiting list", e);
+                }
+            });
         });
 
         // Set up cancel entrant button
         Button cancelEntrantButton = binding.cancelEntrantButton;
         cancelEntrantButton.setOnClickListener(view -> {
             SparseBooleanArray checkedEntrants = entrantListView.getCheckedItemPositions();
+            List<Entrant> cancelledEntrants = new ArrayList<>();
             for (int i = 0; i < checkedEntrants.size(); i++) {
                 int itemKey = checkedEntrants.keyAt(i);
 
@@ -128,30 +146,54 @@ public class EntrantListFragment extends Fragment implements SampleAttendeeDialo
 
                     if (currentEntrant.getStatus().equals("Selected")) {
                         currentEntrant.setStatus("Cancelled");
-                        eventController.updateEntrantStatus(event, currentEntrant);
-                        Toast.makeText(requireContext(), "Successfully cancelled entrant: " + currentEntrant.getName(), Toast.LENGTH_SHORT).show();
+                        cancelledEntrants.add(currentEntrant);
                     }
                 }
             }
             adapter.notifyDataSetChanged();
+
+            if (!cancelledEntrants.isEmpty()) {
+                List<String> cancelledIds = new ArrayList<>();
+                for (Entrant entrant : cancelledEntrants) {
+                    cancelledIds.add(entrant.getUserId());
+                }
+                // Cancelling promotes the next-ranked entrants into the released spots.
+                waitingListController.releaseEntrants(event.getEventId(), cancelledIds, "Cancelled", new WaitingListController.OnPromotionCompleteListener() {
+                    @Override
+                    public void onComplete(List<String> promotedIds, boolean hasDrawOrder) {
+                        if (!isAdded()) {
+                            return;
+                        }
+                        Toast.makeText(requireContext(), "Successfully cancelled " + cancelledEntrants.size() + " entrant(s).", Toast.LENGTH_SHORT).show();
+                        if (!promotedIds.isEmpty()) {
+                            reloadEntrants();
+                        }
+                    }
+
+                    @Override
+                    public void onFailure(Exception e) {
+                        Log.e("EntrantListFragment", "Failed to cancel entrants", e);
+                        if (isAdded()) {
+                            Toast.makeText(requireContext(), "Failed to cancel entrants.", Toast.LENGTH_SHORT).show();
+                            reloadEntrants();
+                        }
+                    }
+                });
+            }
         });
         // set up send notification button
-        FirebaseFirestore db = FirebaseFirestore.getInstance();
-
         Button sendNotificationButton  = binding.sendNotificationButton;
         sendNotificationButton.setOnClickListener(view -> {
             NotificationMessageDialog(message -> {
                 // This block runs after the user enters a message and presses "Send"
                 if (!message.isEmpty()) {
                     List<Entrant> checked_users = adapter.getCheckedItems();
+                    List<String> recipientIds = new ArrayList<>();
                     for (Entrant entrant : checked_users) {
-
-                        Map<String, Object> notificationData = new HashMap<>();
-                        notificationData.put("Userid", entrant.getUserId());
-                        notificationData.put("message", message);
-
-                        db.collection("notifications").add(notificationData);
+                        recipientIds.add(entrant.getUserId());
                     }
+                    // One broadcast reaches every checked entrant.
+                    eventController.sendBroadcast(event.getEventId(), null, message, BroadcastAudience.users(recipientIds));
                 }
             });
 
@@ -160,56 +202,39 @@ public class EntrantListFragment extends Fragment implements SampleAttendeeDialo
         // Set up re-draw attendees button
         Button redrawAttendeesButton = binding.redrawAttendeesButton;
         redrawAttendeesButton.setOnClickListener(view -> {
-            ArrayList<Entrant> cancelledEntrants = new ArrayList<>();
-            ArrayList<Entrant> notSelectedEntrants = new ArrayList<>();
-            int selectedCount = 0;
-            // Get a list of cancelled and non-selected entrants.
-            for(int i = 0; i < adapter.getCount(); i++) {
-                Entrant entrant = adapter.getItem(i);
-
-                switch (entrant.getStatus()) {
-                    case "Cancelled":
-                        cancelledEntrants.add(entrant);
-                        break;
-                    case "Not Selected":
-                        notSelectedEntrants.add(entrant);
-                        break;
-                    case "Selected":
-                    case "Enrolled":
-                        selectedCount++;
-                        break;
-                }
-            }
-
-            // Only re-draw if there are cancelled entrants and there are replacements available.
-            if (cancelledEntrants.isEmpty()) {
-                Toast.makeText(requireContext(), "No replacements must be redrawn.", Toast.LENGTH_SHORT).show();
-            }
-            else if (notSelectedEntrants.isEmpty()) {
-                Toast.makeText(requireContext(), "No replacements are available.", Toast.LENGTH_SHORT).show(); // Edge case: Message shows when no entrants need to be redrawn, but there are cancelled entrants.
-            }
-            else {
-                int finalSelectedCount = selectedCount;
-                eventController.getDrawCount(event, new EventController.drawCountCallback() {
-                    @Override
-                    public void onSuccess(int drawCount) {
-                        int redrawCount = drawCount - finalSelectedCount;
-                        if (redrawCount == 0) {
-                            Toast.makeText(requireContext(), "No replacements must be redrawn.", Toast.LENGTH_SHORT).show();
+            eventController.getDrawCount(event, new EventController.drawCountCallback() {
+                @Override
+                public void onSuccess(int drawCount) {
+                    LotterySystem lotterySystem = new LotterySystem();
+                    lotterySystem.redrawEntrants(event, drawCount, new LotterySystem.redrawCallback() {
+                        @Override
+                        public void onComplete(int neededCount, int redrawnCount) {
+                            if (!isAdded()) {
+                                return;
+                            }
+                            if (neededCount == 0) {
+                                Toast.makeText(requireContext(), "No replacements must be redrawn.", Toast.LENGTH_SHORT).show();
+                            }
+                            else if (redrawnCount == 0) {
+                                Toast.makeText(requireContext(), "No replacements are available.", Toast.LENGTH_SHORT).show();
+                            }
+                            else {
+                                Toast.makeText(requireContext(), redrawnCount + " entrants have been redrawn.", Toast.LENGTH_SHORT).show();
+                                reloadEntrants();
+                            }
                         }
-                        else {
-                            LotterySystem lotterySystem = new LotterySystem();
-                            lotterySystem.drawEntrants(event, notSelectedEntrants, redrawCount);
-                            adapter.notifyDataSetChanged();
-                            Toast.makeText(requireContext(), redrawCount + " entrants have been redrawn.", Toast.LENGTH_SHORT).show();
+
+                        @Override
+                        public void onFailure(Exception e) {
+                            Log.e("EntrantListFragment", "Error redrawing entrants", e);
                         }
-                    }
-                    @Override
-                    public void onFailure(Exception e) {
-                        Log.e("DrawCountRetrievalError", "Error retrieving draw count: ", e);
-                    }
-                });
-            }
+                    });
+                }
+                @Override
+                public void onFailure(Exception e) {
+                    Log.e("DrawCountRetrievalError", "Error retrieving draw count: ", e);
+                }
+            });
         });
     }
     /**
@@ -238,6 +263,7 @@ public class EntrantListFragment extends Fragment implements SampleAttendeeDialo
 
     /**
      * Fetches the list of entrants from the waiting list for the specified event and updates the UI.
+     * Entrants are loaded one page at a time; the next page is requested as the user scrolls near the end of the list.
      */
     private void fetchAndDisplayEntrants() {
         // Retrieve event from arguments
@@ -251,26 +277,49 @@ public class EntrantListFragment extends Fragment implements SampleAttendeeDialo
             return;
         }
 
-        // Fetch waiting list data
-        eventController.getWaitingList(event.getEventId(), new EventController.WaitingListCallback() {
+        // Set up adapter and load the first page
+        adapter = new BrowseEntrantAdapter(requireContext(), new ArrayList<>());
+        binding.entrantListview.setAdapter(adapter);
+        binding.entrantListview.setOnScrollListener(new AbsListView.OnScrollListener() {
+            @Override
+            public void onScrollStateChanged(AbsListView view, int scrollState) {
+            }
+
             @Override
-            public void onSuccess(ArrayList<Map<String, String>> waitingList) {
-                ArrayList<Entrant> entrants = new ArrayList<>();
-                for (Map<String, String> entry : waitingList) {
-                    // Parse data from waiting list
-                    String name = entry.get("name");
-                    String status = entry.get("status");
-                    String userId = entry.get("userId");
-                    Double latitude = entry.containsKey("latitude") ? Double.valueOf(entry.get("latitude")) : null;
-                    Double longitude = entry.containsKey("longitude") ? Double.valueOf(entry.get("longitude")) : null;
-
-                    entrants.add(new Entrant(name, status, userId, latitude, longitude));
+            public void onScroll(AbsListView view, int firstVisibleItem, int visibleItemCount, int totalItemCount) {
+                if (firstVisibleItem + visibleItemCount >= totalItemCount - PREFETCH_DISTANCE) {
+                    loadNextPage();
                 }
+            }
+        });
+        reloadEntrants();
+    }
+
+    /**
+     * Clears the displayed entrants and reads the waiting list again from the first page.
+     */
+    private void reloadEntrants() {
+        pager = eventController.getWaitingListPager(event.getEventId(), PAGE_SIZE);
+        adapter.clearEntrants();
+        loadNextPage();
+    }
 
-                // Set up adapter and update list
-                adapter = new BrowseEntrantAdapter(requireContext(), entrants);
-                binding.entrantListview.setAdapter(adapter);
-                adapter.notifyDataSetChanged();
+    /**
+     * Reads the next page of the waiting list and appends it to the displayed entrants.
+     */
+    private void loadNextPage() {
+        if (pager == null || !pager.hasMore() || pager.isLoading()) {
+            return;
+        }
+        DocumentPager<Entrant> currentPager = pager;
+        currentPager.nextPage(new DocumentPager.pageCallback<Entrant>() {
+            @Override
+            public void onPage(List<Entrant> entrants) {
+                // Ignore pages from a pager that was replaced by a reload.
+                if (!isAdded() || currentPager != pager) {
+                    return;
+                }
+                adapter.addEntrants(entrants);
             }
 
             @Override
@@ -11,11 +11,12 @@ import androidx.fragment.app.Fragment;
 import androidx.navigation.NavController;
 import androidx.navigation.fragment.NavHostFragment;
 
+import com.example.wizard_project.Classes.User;
 import com.example.wizard_project.Controllers.FacilityController;
+import com.example.wizard_project.Controllers.UserRepository;
 import com.example.wizard_project.MainActivity;
 import com.example.wizard_project.R;
 import com.example.wizard_project.databinding.FragmentHomeBinding;
-import com.google.firebase.firestore.FirebaseFirestore;
 
 /**
  * HomeFragment represents the screen that users see when they open the app.
@@ -24,12 +25,10 @@ import com.google.firebase.firestore.FirebaseFirestore;
  */
 public class HomeFragment extends Fragment {
     private FragmentHomeBinding binding; // View binding accessing UI elements
-    private FirebaseFirestore db; // Firestore instance for database operations
 
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
         binding = FragmentHomeBinding.inflate(inflater, container, false);
-        db = FirebaseFirestore.getInstance(); // Initialize Firestore instance
         return binding.getRoot();
     }
 
@@ -126,30 +125,46 @@ public class HomeFragment extends Fragment {
 
     /**
      * Checks if the current user has admin privileges.
+     * The check may answer twice: first from the last known profile, then from the database if it changed.
      *
      * @param callback A callback to handle the result of the admin check.
      */
     private void checkIfAdmin(AdminCheckCallback callback) {
         String deviceId = ((MainActivity) requireActivity()).retrieveDeviceId();
 
-        db.collection("users").document(deviceId).get().addOnSuccessListener(documentSnapshot -> {
-            Boolean isAdmin = documentSnapshot.getBoolean("IsAdmin");
-            callback.onResult(Boolean.TRUE.equals(isAdmin));
-        }).addOnFailureListener(e -> callback.onResult(false));
+        UserRepository.getInstance(requireContext()).getUser(deviceId, new UserRepository.userCallback() {
+            @Override
+            public void onUserLoaded(User user) {
+                callback.onResult(user.isAdmin());
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                callback.onResult(false);
+            }
+        });
     }
 
     /**
      * Checks if the user is an organizer.
+     * The check may answer twice: first from the last known profile, then from the database if it changed.
      *
      * @param callback A callback to handle the result of the organizer check.
      */
     private void checkIfOrganizer(OrganizerCheckCallback callback) {
         String deviceId = ((MainActivity) requireActivity()).retrieveDeviceId();
 
-        db.collection("users").document(deviceId).get().addOnSuccessListener(documentSnapshot -> {
-            Boolean isOrganizer = documentSnapshot.getBoolean("isOrganizer");
-            callback.onResult(Boolean.TRUE.equals(isOrganizer));
-        }).addOnFailureListener(e -> callback.onResult(false));
+        UserRepository.getInstance(requireContext()).getUser(deviceId, new UserRepository.userCallback() {
+            @Override
+            public void onUserLoaded(User user) {
+                callback.onResult(user.isOrganizer());
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                callback.onResult(false);
+            }
+        });
     }
 
     @Override
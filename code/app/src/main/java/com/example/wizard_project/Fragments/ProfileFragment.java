@@ -1,6 +1,5 @@
 package com.example.wizard_project.Fragments;
 
-import android.net.Uri;
 import android.os.Bundle;
 import android.util.Log;
 import android.view.LayoutInflater;
@@ -15,6 +14,7 @@ import androidx.navigation.NavController;
 import androidx.navigation.Navigation;
 
 import com.bumptech.glide.Glide;
+import com.example.wizard_project.Classes.StoredImage;
 import com.example.wizard_project.Classes.User;
 import com.example.wizard_project.MainActivity;
 import com.example.wizard_project.R;
@@ -117,7 +117,7 @@ public class ProfileFragment extends Fragment {
             ImageView profilepic =  getView().findViewById(R.id.imageview_profile_image);
             if (profilePictureUri != null && !profilePictureUri.isEmpty()) {
                 Glide.with(requireContext())
-                        .load(Uri.parse(profilePictureUri))
+                        .load(StoredImage.of(user.getProfilePath(), profilePictureUri))
                         .circleCrop()
                         .into(profilepic);
             } else if (!currentUser.getName().isEmpty()){
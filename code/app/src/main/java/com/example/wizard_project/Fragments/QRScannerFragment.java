@@ -18,12 +18,12 @@ import androidx.fragment.app.Fragment;
 import androidx.navigation.fragment.NavHostFragment;
 
 import com.example.wizard_project.R;
-import com.google.firebase.firestore.DocumentSnapshot;
-import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.zxing.integration.android.IntentIntegrator;
 import com.google.zxing.integration.android.IntentResult;
 import android.content.Intent;
 import com.example.wizard_project.Classes.Event;
+import com.example.wizard_project.Controllers.EventRepository;
+import com.example.wizard_project.Store.DataStoreException;
 
 /**
  * QRScannerFragment provides functionality to scan QR codes and check event details in Firestore.
@@ -31,7 +31,6 @@ import com.example.wizard_project.Classes.Event;
  */
 public class QRScannerFragment extends Fragment {
 
-    private FirebaseFirestore db;
     private ActivityResultLauncher<Intent> scanLauncher;
 
     @Nullable
@@ -39,9 +38,6 @@ public class QRScannerFragment extends Fragment {
     public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container, @Nullable Bundle savedInstanceState) {
         View view = inflater.inflate(R.layout.fragment_qrscanner, container, false);
 
-        // Initialize Firestore
-        db = FirebaseFirestore.getInstance();
-
         // Register activity result launcher for the QR scanner
         scanLauncher = registerForActivityResult(new ActivityResultContracts.StartActivityForResult(), result -> {
             if (result.getResultCode() == getActivity().RESULT_OK && result.getData() != null) {
@@ -111,36 +107,26 @@ public class QRScannerFragment extends Fragment {
     }
 
     private void queryFirestoreForEvent(String eventId) {
-        db.collection("events").document(eventId).get()
-                .addOnSuccessListener(documentSnapshot -> {
-                    if (documentSnapshot.exists()) {
-                        Log.d("QRScannerFragment", "Event found: " + documentSnapshot.getId());
-
-                        // Create and populate the Event object
-                        Event event = new Event(
-                                documentSnapshot.getId(),
-                                documentSnapshot.getString("event_name") != null ? documentSnapshot.getString("event_name") : "Unknown Event",
-                                documentSnapshot.getString("event_description") != null ? documentSnapshot.getString("event_description") : "",
-                                documentSnapshot.getDouble("event_price") != null ? documentSnapshot.getDouble("event_price").intValue() : 0,
-                                documentSnapshot.getLong("event_max_entrants") != null ? documentSnapshot.getLong("event_max_entrants").intValue() : 0,
-                                documentSnapshot.getDate("registration_open"),
-                                documentSnapshot.getDate("registration_close"),
-                                documentSnapshot.getString("facilityId"),
-                                documentSnapshot.getString("event_location"),
-                                documentSnapshot.getBoolean("geolocation_requirement") != null ? documentSnapshot.getBoolean("geolocation_requirement") : false,
-                                documentSnapshot.getString("event_image_path")
-                        );
-
-                        // Navigate to ViewEventFragment with the Event object
-                        navigateToViewEventFragment(event);
-                    } else {
-                        Toast.makeText(requireContext(), "Event not found", Toast.LENGTH_SHORT).show();
-                    }
-                })
-                .addOnFailureListener(e -> {
+        // Events seen recently are served from the event cache without a read.
+        EventRepository.getInstance().getEvent(eventId, new EventRepository.eventCallback() {
+            @Override
+            public void onEventLoaded(Event event) {
+                Log.d("QRScannerFragment", "Event found: " + event.getEventId());
+
+                // Navigate to ViewEventFragment with the Event object
+                navigateToViewEventFragment(event);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                if (e instanceof DataStoreException && ((DataStoreException) e).getCode() == DataStoreException.Code.NOT_FOUND) {
+                    Toast.makeText(requireContext(), "Event not found", Toast.LENGTH_SHORT).show();
+                } else {
                     Log.e("QRScannerFragment", "Failed to query Firestore", e);
                     Toast.makeText(requireContext(), "Failed to query event", Toast.LENGTH_SHORT).show();
-                });
+                }
+            }
+        });
     }
 
     /**
@@ -5,7 +5,6 @@ import static com.example.wizard_project.MainActivity.LOCATION_PERMISSION_REQUES
 import android.Manifest;
 import android.app.AlertDialog;
 import android.content.pm.PackageManager;
-import android.net.Uri;
 import android.os.Bundle;
 import android.util.Log;
 import android.view.LayoutInflater;
@@ -20,16 +19,21 @@ import androidx.core.content.ContextCompat;
 import androidx.fragment.app.Fragment;
 import androidx.navigation.NavController;
 import androidx.navigation.Navigation;
+import androidx.navigation.fragment.NavHostFragment;
 import androidx.navigation.ui.NavigationUI;
 
 import com.bumptech.glide.Glide;
 import com.example.wizard_project.Classes.Event;
 import com.example.wizard_project.Classes.LatLng;
+import com.example.wizard_project.Classes.StoredImage;
 import com.example.wizard_project.Classes.User;
 import com.example.wizard_project.Controllers.EventController;
+import com.example.wizard_project.Controllers.EventRepository;
 import com.example.wizard_project.Controllers.WaitingListController;
+import com.example.wizard_project.Core.WaitingListOperations;
 import com.example.wizard_project.MainActivity;
 import com.example.wizard_project.R;
+import com.example.wizard_project.Store.DataStore;
 import com.example.wizard_project.databinding.FragmentViewEventBinding;
 import com.google.android.gms.location.FusedLocationProviderClient;
 import com.google.android.gms.location.LocationServices;
@@ -44,10 +48,12 @@ import java.text.SimpleDateFormat;
  * - Admin: Can view and delete selected events from the admin event list, and delete the QR code data for the event.
  */
 public class ViewEventFragment extends Fragment {
+    public static final String EVENT_DELETED = "eventDeleted"; // Fragment result key, with the ID of the deleted event
     private final EventController controller = new EventController();
     private FragmentViewEventBinding binding;
     private User currentUser; // The current logged-in user
     private Event displayEvent; // The event being viewed
+    private DataStore.Registration eventRegistration; // Keeps the displayed event up to date while visible
     private WaitingListController waitingListController;
     private FusedLocationProviderClient locationProvider;
 
@@ -86,6 +92,42 @@ public class ViewEventFragment extends Fragment {
         });
     }
 
+    @Override
+    public void onStart() {
+        super.onStart();
+        if (displayEvent == null || displayEvent.getEventId() == null) {
+            return;
+        }
+        // Shows changes to the event, such as an organizer's edits, while it is on screen.
+        eventRegistration = EventRepository.getInstance().observe(displayEvent.getEventId(), new EventRepository.eventListener() {
+            @Override
+            public void onEventChanged(Event event) {
+                displayEvent = event;
+                if (binding != null && currentUser != null) {
+                    bindEventData(event);
+                }
+            }
+
+            @Override
+            public void onEventRemoved(String eventId) {
+                if (!isAdded()) {
+                    return;
+                }
+                Toast.makeText(requireContext(), "This event has been deleted.", Toast.LENGTH_SHORT).show();
+                NavHostFragment.findNavController(ViewEventFragment.this).popBackStack();
+            }
+        });
+    }
+
+    @Override
+    public void onStop() {
+        super.onStop();
+        if (eventRegistration != null) {
+            eventRegistration.remove();
+            eventRegistration = null;
+        }
+    }
+
     /**
      * Binds the event data to the UI elements.
      *
@@ -123,7 +165,7 @@ public class ViewEventFragment extends Fragment {
         // Load event image
         if (event.getPosterUri() != null && !event.getPosterUri().isEmpty()) {
             Glide.with(requireContext())
-                    .load(Uri.parse(event.getPosterUri()))
+                    .load(StoredImage.of(event.getEvent_image_path(), event.getPosterUri()))
                     .into(binding.imageviewEventImage);
         } else {
             binding.imageviewEventImage.setImageResource(R.drawable.example_event); // Placeholder image
@@ -374,6 +416,10 @@ public class ViewEventFragment extends Fragment {
 
             @Override
             public void onFailure(Exception e) {
+                if (WaitingListOperations.isWaitingListFull(e)) {
+                    Toast.makeText(requireContext(), "The waiting list for this event is full.", Toast.LENGTH_SHORT).show();
+                    return;
+                }
                 Toast.makeText(requireContext(), "Failed to join the waiting list.", Toast.LENGTH_SHORT).show();
                 Log.e("ViewEventFragment", "Error joining waiting list", e);
             }
@@ -452,6 +498,9 @@ public class ViewEventFragment extends Fragment {
             @Override
             public void onSuccess() {
                 Toast.makeText(requireContext(), "Event deleted successfully", Toast.LENGTH_SHORT).show();
+                Bundle result = new Bundle();
+                result.putString("eventId", displayEvent.getEventId());
+                getParentFragmentManager().setFragmentResult(EVENT_DELETED, result);
                 navController.popBackStack();
             }
 
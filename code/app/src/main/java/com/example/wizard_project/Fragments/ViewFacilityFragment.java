@@ -16,6 +16,7 @@ import androidx.navigation.ui.NavigationUI;
 
 import com.bumptech.glide.Glide;
 import com.example.wizard_project.Classes.Facility;
+import com.example.wizard_project.Classes.StoredImage;
 import com.example.wizard_project.Classes.User;
 import com.example.wizard_project.Controllers.FacilityController;
 import com.example.wizard_project.MainActivity;
@@ -30,6 +31,7 @@ import com.google.android.material.bottomnavigation.BottomNavigationView;
  * - Admin: Can view and delete selected facilities from the admin facility list.
  */
 public class ViewFacilityFragment extends Fragment {
+    public static final String FACILITY_DELETED = "facilityDeleted"; // Fragment result key, with the ID of the deleted facility
     private final FacilityController controller = new FacilityController();
     private FragmentViewFacilityBinding binding;
     private User currentUser; // The current logged-in user
@@ -72,7 +74,7 @@ public class ViewFacilityFragment extends Fragment {
 
         // Load existing facility image or placeholder if not available
         if (displayFacility.getposterUri() != null && !displayFacility.getposterUri().isEmpty()) {
-            Glide.with(requireContext()).load(displayFacility.getposterUri()).into(binding.imageviewFacilityImage);
+            Glide.with(requireContext()).load(StoredImage.of(displayFacility.getFacilityImagePath(), displayFacility.getposterUri())).into(binding.imageviewFacilityImage);
         } else {
             binding.imageviewFacilityImage.setImageResource(R.drawable.example_facility); // Placeholder
         }
@@ -130,12 +132,14 @@ public class ViewFacilityFragment extends Fragment {
 
     /**
      * Deletes the current facility and its associated events from Firestore.
-     * TODO: delete all events associated with the facility.
      */
     private void deleteFacility() {
         controller.deleteFacilityWithEvents(displayFacility.getFacilityId(), new FacilityController.deleteCallback() {
             @Override
             public void onSuccess() {
+                Bundle result = new Bundle();
+                result.putString("facilityId", displayFacility.getFacilityId());
+                getParentFragmentManager().setFragmentResult(FACILITY_DELETED, result);
                 updateIsOrganizerField();
             }
 
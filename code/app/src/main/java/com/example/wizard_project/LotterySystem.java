@@ -2,55 +2,444 @@ package com.example.wizard_project;
 
 import android.util.Log;
 
+import com.example.wizard_project.Classes.DrawLease;
 import com.example.wizard_project.Classes.Entrant;
 import com.example.wizard_project.Classes.Event;
-import com.example.wizard_project.Classes.User;
+import com.example.wizard_project.Controllers.BatchWriter;
+import com.example.wizard_project.Controllers.DocumentPager;
 import com.example.wizard_project.Controllers.EventController;
-import com.google.firebase.firestore.FirebaseFirestore;
+import com.example.wizard_project.Controllers.WaitingListController;
+import com.example.wizard_project.Core.DrawEngine;
+import com.example.wizard_project.Core.NotificationFanout;
+import com.example.wizard_project.Store.DataStore;
+import com.example.wizard_project.Store.DataStoreException;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.UUID;
 
 /**
  * LotterySystem provides functionality to randomly draw entrants for an event.
+ * Draws are driven by an explicit seed, so any draw can be replayed exactly from the
+ * seed and the set of entrants it was performed on.
+ *
+ * <p>A streamed draw reads and writes entrant documents one page at a time, but it keeps every entrant's user ID
+ * and rank in memory while it runs, a few dozen bytes per entrant. Ranking needs the whole waiting list pinned at
+ * once: ranks computed page by page from positions in the listing would collide or leave gaps in the draw order
+ * as entrants join and leave mid-draw, and a gap would end every later promotion early.
  */
 public class LotterySystem {
-    private final EventController eventController = new EventController();
+    private static final int DRAW_PAGE_SIZE = 1000; // Entrants read and written per page during a streamed draw
+    private final EventController eventController;
+    private final WaitingListController waitingListController;
 
     /**
-     * Performs a lottery draw of entrants for an event.
+     * Constructs a LotterySystem drawing entrants from the Firestore database.
+     */
+    public LotterySystem() {
+        this(new EventController(), new WaitingListController());
+    }
+
+    /**
+     * Constructs a LotterySystem drawing entrants from the given data store.
+     *
+     * @param db The data store holding the events and their waiting lists.
+     */
+    public LotterySystem(DataStore db) {
+        this(new EventController(db), new WaitingListController(db));
+    }
+
+    private LotterySystem(EventController eventController, WaitingListController waitingListController) {
+        this.eventController = eventController;
+        this.waitingListController = waitingListController;
+    }
+
+    /**
+     * Performs a lottery draw of entrants for an event using a freshly generated seed.
      * @param event The event to perform the lottery draw on.
      * @param entrants A list of the event's entrants.
      * @param drawCount The number of entrants to draw.
      */
     public void drawEntrants(Event event, List<Entrant> entrants, int drawCount) {
-        // Randomly shuffle the list of entrants.
-        Collections.shuffle(entrants);
-        FirebaseFirestore db = FirebaseFirestore.getInstance();
-        // After shuffling, all entrants up to the max draw amount are selected; the remaining are not.
+        drawEntrants(event, entrants, drawCount, new SplittableRandom().nextLong());
+    }
+
+    /**
+     * Performs a lottery draw of entrants for an event.
+     * The seed and the selected entrants, in draw order, are recorded on the event so the draw can be audited.
+     * Entrants are sorted by user ID first, so the draw costs O(N log N) in the number of entrants;
+     * only the shuffle itself is proportional to the draw count.
+     * @param event The event to perform the lottery draw on.
+     * @param entrants A list of the event's entrants.
+     * @param drawCount The number of entrants to draw.
+     * @param seed The seed driving the draw.
+     */
+    public void drawEntrants(Event event, List<Entrant> entrants, int drawCount, long seed) {
+        String drawId = UUID.randomUUID().toString();
+
+        // Order entrants by user ID so the same seed always reproduces the same draw.
+        entrants.sort(Comparator.comparing(Entrant::getUserId, Comparator.nullsLast(Comparator.naturalOrder())));
+        int[] drawOrder = DrawEngine.drawIndices(entrants.size(), drawCount, seed);
+
+        boolean[] selected = new boolean[entrants.size()];
+        List<String> selectedIds = new ArrayList<>();
+        for (int index : drawOrder) {
+            selected[index] = true;
+            selectedIds.add(entrants.get(index).getUserId());
+        }
+
         for (int i = 0; i < entrants.size(); i++) {
-            Entrant entrant = entrants.get(i);
-            String Message = "";
-            if (i < drawCount) {
-                entrant.setStatus("Selected");
-                Message = "You have been selected for  "+ event.getEvent_name();
+            NotificationFanout.setDrawOutcome(entrants.get(i), selected[i]);
+        }
+
+        eventController.recordDraw(event, drawId, seed, selectedIds, new Date());
+        eventController.updateEntrantStatuses(event, entrants, failedEntrants -> {
+            if (!failedEntrants.isEmpty()) {
+                Log.e("LotterySystem", failedEntrants.size() + " entrant statuses failed to update for " + event.getEventId());
             }
-            else {
-                entrant.setStatus("Not Selected");
-                Message = "You have Not been selected for  "+ event.getEvent_name();
+            // The outcome is broadcast once the statuses it is matched against are written.
+            eventController.broadcastDrawOutcome(event, drawId);
+        });
+    }
+
+    /**
+     * Performs the lottery draw held by a draw lease, reading the waiting list one page at a time.
+     * The entrants are pinned first: their user IDs are read, ranked by a shuffle of the whole list and the ranking
+     * is persisted as the event's draw order, and only then is the lease marked as pinned. Each page of entrants
+     * is then assigned its status from the pinned ranking and written before the next page is read, so entrants
+     * who leave mid-draw cannot shift anyone else's rank. Entrants who join after the pin are ranked after everyone
+     * pinned. Selected entrants who left before their outcome was written are replaced from the draw order.
+     * Once every page is written, the outcome is sent as two broadcasts rather than a notification per entrant.
+     * The draw uses the lease's ID and seed, and a resumed draw reuses the pinned ranking, so running it again
+     * after an interruption reproduces the same outcome and overwrites, rather than duplicates, its broadcasts.
+     * The lease is renewed before each page is written, and the draw stops if another client has taken it over.
+     * @param event The event to perform the lottery draw on.
+     * @param drawCount The number of entrants to draw.
+     * @param lease The lease held for this draw.
+     * @param leaseMillis How long each renewal of the lease is held for.
+     * @param callback A callback containing the entrants whose status updates failed.
+     */
+    public void drawEntrants(Event event, int drawCount, DrawLease lease, long leaseMillis, drawCallback callback) {
+        pinEntrants(event, lease, new EventController.drawOrderCallback() {
+            @Override
+            public void onSuccess(Map<String, Integer> drawRanks) {
+                // Promotions made while an interrupted attempt was written are undone by writing the outcomes again.
+                eventController.clearDrawClaims(event, new EventController.updateCallback() {
+                    @Override
+                    public void onSuccess() {
+                        writeDrawOutcomes(event, drawCount, lease, leaseMillis, drawRanks, callback);
+                    }
 
+                    @Override
+                    public void onFailure(Exception e) {
+                        callback.onFailure(e);
+                    }
+                });
             }
 
-            Map<String, Object> notificationData = new HashMap<>();
-            notificationData.put("Userid", entrant.getUserId());
-            notificationData.put("message", Message);
+            @Override
+            public void onFailure(Exception e) {
+                callback.onFailure(e);
+            }
+        });
+    }
 
-            db.collection("notifications").add(notificationData);
-            eventController.updateEntrantStatus(event, entrant);
+    /**
+     * Pins and ranks the entrants of a draw, or reads the ranking a previous attempt at the draw pinned.
+     * Only the map of user IDs to ranks is kept once the entrants are ranked.
+     */
+    private void pinEntrants(Event event, DrawLease lease, EventController.drawOrderCallback callback) {
+        if (lease.getPinnedCount() != null) {
+            eventController.readDrawOrder(event.getEventId(), callback);
+            return;
         }
+        eventController.readWaitingListIds(event.getEventId(), new EventController.idsCallback() {
+            @Override
+            public void onSuccess(List<String> userIds) {
+                Map<String, Integer> drawRanks = rank(userIds, lease.getSeed());
+                int pinnedCount = drawRanks.size();
+                // An earlier attempt may have ranked more entrants before it was interrupted.
+                eventController.clearDrawOrderFrom(event, pinnedCount, new EventController.updateCallback() {
+                    @Override
+                    public void onSuccess() {
+                        eventController.writeDrawOrder(event, drawRanks, failedIds -> {
+                            if (!failedIds.isEmpty()) {
+                                callback.onFailure(new DataStoreException(failedIds.size() + " draw ranks failed to write for "
+                                        + event.getEventId(), DataStoreException.Code.UNAVAILABLE));
+                                return;
+                            }
+                            eventController.pinDrawEntrants(event, lease, pinnedCount, pinned -> {
+                                if (pinned == null) {
+                                    callback.onFailure(lostLease(event, lease));
+                                } else {
+                                    callback.onSuccess(drawRanks);
+                                }
+                            });
+                        });
+                    }
+
+                    @Override
+                    public void onFailure(Exception e) {
+                        callback.onFailure(e);
+                    }
+                });
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                callback.onFailure(e);
+            }
+        });
+    }
+
+    /**
+     * Ranks entrants by a seeded shuffle of their positions in user ID order.
+     *
+     * @return A map of user IDs to their rank in the draw order.
+     */
+    private static Map<String, Integer> rank(List<String> userIds, long seed) {
+        int[] drawOrder = DrawEngine.rankPositions(userIds.size(), seed);
+        Map<String, Integer> drawRanks = new HashMap<>(drawOrder.length * 4 / 3 + 1);
+        for (int rank = 0; rank < drawOrder.length; rank++) {
+            drawRanks.put(userIds.get(drawOrder[rank]), rank);
+        }
+        return drawRanks;
+    }
+
+    /**
+     * Writes each page of the waiting list's outcome from the pinned ranking, then records and broadcasts the draw.
+     */
+    private void writeDrawOutcomes(Event event, int drawCount, DrawLease lease, long leaseMillis,
+                                   Map<String, Integer> drawRanks, drawCallback callback) {
+        int pinnedCount = lease.getPinnedCount() != null ? lease.getPinnedCount() : drawRanks.size();
+        int selectedCount = Math.max(0, Math.min(drawCount, pinnedCount));
+        int[] nextRank = {0};
+        // The pinned selection is recorded, so every attempt at the draw records the same outcome.
+        Map<Integer, String> selectedIds = new TreeMap<>();
+        for (Map.Entry<String, Integer> drawRank : drawRanks.entrySet()) {
+            nextRank[0] = Math.max(nextRank[0], drawRank.getValue() + 1);
+            if (drawRank.getValue() < selectedCount) {
+                selectedIds.put(drawRank.getValue(), drawRank.getKey());
+            }
+        }
+        int[] writtenSelected = {0};
+        List<Entrant> failed = new ArrayList<>();
+
+        // Entrants ranked after the selected ones are promoted, in order, as selected entrants drop out.
+        eventController.setNextDrawRank(event, selectedCount);
+
+        DocumentPager<Entrant> pager = eventController.getWaitingListPager(event.getEventId(), DRAW_PAGE_SIZE);
+        pager.readAll(new DocumentPager.streamListener<Entrant>() {
+            @Override
+            public void onPage(List<Entrant> entrants, Runnable next) {
+                eventController.renewDrawLease(event, lease, leaseMillis, renewed -> {
+                    if (renewed == null) {
+                        callback.onFailure(lostLease(event, lease));
+                        return;
+                    }
+                    writePage(entrants, next);
+                });
+            }
+
+            private void writePage(List<Entrant> entrants, Runnable next) {
+                Map<String, Integer> pageRanks = new HashMap<>();
+                Map<String, Integer> lateRanks = new HashMap<>();
+                for (Entrant entrant : entrants) {
+                    Integer rank = drawRanks.get(entrant.getUserId());
+                    if (rank == null) {
+                        // Joined after the entrants were pinned, so ranked after all of them.
+                        rank = nextRank[0]++;
+                        drawRanks.put(entrant.getUserId(), rank);
+                        lateRanks.put(entrant.getUserId(), rank);
+                    }
+                    pageRanks.put(entrant.getUserId(), rank);
+                    boolean selected = rank < selectedCount;
+                    if (selected) {
+                        writtenSelected[0]++;
+                    }
+                    NotificationFanout.setDrawOutcome(entrant, selected);
+                }
+                // Write this page before reading the next one.
+                eventController.writeDrawOrder(event, lateRanks, failedIds ->
+                        eventController.updateDrawOutcomes(event, entrants, pageRanks, null, lease.getDrawId(),
+                                new BatchWriter.BatchCallback<Entrant>() {
+                                    @Override
+                                    public void onDropped(List<Entrant> leftEntrants) {
+                                        // Selected entrants who left are replaced from the draw order below.
+                                        for (Entrant entrant : leftEntrants) {
+                                            if (pageRanks.get(entrant.getUserId()) < selectedCount) {
+                                                writtenSelected[0]--;
+                                            }
+                                        }
+                                    }
+
+                                    @Override
+                                    public void onComplete(List<Entrant> failedEntrants) {
+                                        failed.addAll(failedEntrants);
+                                        // An entrant whose rank was not written could never be promoted,
+                                        // so the draw is retried.
+                                        for (Entrant entrant : entrants) {
+                                            if (failedIds.contains(entrant.getUserId())
+                                                    && !failedEntrants.contains(entrant)) {
+                                                failed.add(entrant);
+                                            }
+                                        }
+                                        next.run();
+                                    }
+                                }));
+            }
+
+            @Override
+            public void onComplete() {
+                eventController.broadcastDrawOutcome(event, lease.getDrawId());
+                eventController.recordDraw(event, lease.getDrawId(), lease.getSeed(), new ArrayList<>(selectedIds.values()), lease.getStartedAt());
+                int missingCount = selectedCount - writtenSelected[0];
+                if (missingCount == 0) {
+                    callback.onComplete(failed);
+                    return;
+                }
+                // Selected entrants who left before the outcome was written are replaced from the draw order.
+                waitingListController.promoteNextEntrants(event.getEventId(), missingCount, new WaitingListController.OnPromotionCompleteListener() {
+                    @Override
+                    public void onComplete(List<String> promotedIds, boolean hasDrawOrder) {
+                        callback.onComplete(failed);
+                    }
+
+                    @Override
+                    public void onFailure(Exception e) {
+                        callback.onFailure(e);
+                    }
+                });
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                callback.onFailure(e);
+            }
+        });
+    }
+
+    private static DataStoreException lostLease(Event event, DrawLease lease) {
+        return new DataStoreException("Draw lease for " + event.getEventId() + " is no longer held by draw "
+                + lease.getDrawId(), DataStoreException.Code.FAILED_PRECONDITION);
+    }
+
+    /**
+     * Draws replacements for cancelled entrants from the entrants that were not selected.
+     * Replacements are promoted in the event's persisted draw order. For events drawn before the draw order
+     * was persisted, replacements are drawn from a reservoir of candidates gathered while reading the waiting list,
+     * so only the reservoir is kept in memory.
+     * @param event The event to redraw entrants for.
+     * @param drawCount The total number of entrants the event should have selected.
+     * @param callback A callback containing the number of replacements needed and drawn.
+     */
+    public void redrawEntrants(Event event, int drawCount, redrawCallback callback) {
+        long seed = new SplittableRandom().nextLong();
+        DrawEngine.Reservoir<Entrant> candidates = new DrawEngine.Reservoir<>(drawCount, seed);
+        int[] selectedCount = {0};
+        int[] cancelledCount = {0};
+
+        DocumentPager<Entrant> pager = eventController.getWaitingListPager(event.getEventId(), DRAW_PAGE_SIZE);
+        pager.readAll(new DocumentPager.streamListener<Entrant>() {
+            @Override
+            public void onPage(List<Entrant> entrants, Runnable next) {
+                for (Entrant entrant : entrants) {
+                    String status = entrant.getStatus() != null ? entrant.getStatus() : "";
+                    switch (status) {
+                        case "Cancelled":
+                        case "Declined":
+                            cancelledCount[0]++;
+                            break;
+                        case "Not Selected":
+                            candidates.offer(entrant);
+                            break;
+                        case "Selected":
+                        case "Enrolled":
+                            selectedCount[0]++;
+                            break;
+                    }
+                }
+                next.run();
+            }
+
+            @Override
+            public void onComplete() {
+                // Only re-draw if there are cancelled entrants and there are replacements available.
+                int neededCount = cancelledCount[0] > 0 ? Math.max(0, drawCount - selectedCount[0]) : 0;
+                if (neededCount == 0) {
+                    callback.onComplete(0, 0);
+                    return;
+                }
+
+                waitingListController.promoteNextEntrants(event.getEventId(), neededCount, new WaitingListController.OnPromotionCompleteListener() {
+                    @Override
+                    public void onComplete(List<String> promotedIds, boolean hasDrawOrder) {
+                        if (hasDrawOrder) {
+                            callback.onComplete(neededCount, promotedIds.size());
+                        } else {
+                            redrawFromSample(event, candidates, seed, neededCount, callback);
+                        }
+                    }
+
+                    @Override
+                    public void onFailure(Exception e) {
+                        callback.onFailure(e);
+                    }
+                });
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                callback.onFailure(e);
+            }
+        });
+    }
+
+    /**
+     * Selects replacements from a reservoir of candidates, for events without a persisted draw order.
+     */
+    private void redrawFromSample(Event event, DrawEngine.Reservoir<Entrant> candidates, long seed, int neededCount, redrawCallback callback) {
+        List<Entrant> sample = candidates.getSample();
+        List<Entrant> replacements = new ArrayList<>(sample.subList(0, Math.min(neededCount, sample.size())));
+        if (replacements.isEmpty()) {
+            callback.onComplete(neededCount, 0);
+            return;
+        }
+
+        String drawId = UUID.randomUUID().toString();
+        List<String> selectedIds = new ArrayList<>();
+        Map<String, String> messages = new HashMap<>();
+        for (Entrant entrant : replacements) {
+            selectedIds.add(entrant.getUserId());
+            NotificationFanout.assignDrawOutcome(event.getEvent_name(), entrant, true, messages);
+        }
+
+        eventController.recordDraw(event, drawId, seed, selectedIds, new Date());
+        eventController.updateEntrantStatuses(event, replacements, messages, drawId, failedEntrants ->
+                callback.onComplete(neededCount, replacements.size() - failedEntrants.size()));
+    }
+
+    /**
+     * Callback interface for receiving the result of a draw.
+     */
+    public interface drawCallback {
+        void onComplete(List<Entrant> failedEntrants);
+
+        void onFailure(Exception e);
+    }
+
+    /**
+     * Callback interface for receiving the result of a redraw.
+     */
+    public interface redrawCallback {
+        void onComplete(int neededCount, int redrawnCount);
+
+        void onFailure(Exception e);
     }
 }
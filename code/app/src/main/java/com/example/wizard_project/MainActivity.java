@@ -2,7 +2,6 @@ package com.example.wizard_project;
 
 import android.Manifest;
 import android.content.pm.PackageManager;
-import android.net.Uri;
 import android.os.Bundle;
 import android.provider.Settings;
 import android.util.Log;
@@ -17,24 +16,30 @@ import androidx.navigation.Navigation;
 import androidx.navigation.ui.NavigationUI;
 
 import com.bumptech.glide.Glide;
+import com.example.wizard_project.Classes.DrawLease;
 import com.example.wizard_project.Classes.Entrant;
 import com.example.wizard_project.Classes.Event;
+import com.example.wizard_project.Classes.InboxMessage;
 import com.example.wizard_project.Classes.NotificationHandler;
+import com.example.wizard_project.Classes.StartupTracer;
+import com.example.wizard_project.Classes.StoredImage;
 import com.example.wizard_project.Classes.User;
+import com.example.wizard_project.Controllers.CascadeDeleter;
 import com.example.wizard_project.Controllers.EventController;
+import com.example.wizard_project.Controllers.FacilityController;
+import com.example.wizard_project.Controllers.FirestoreDataStore;
+import com.example.wizard_project.Controllers.NotificationInbox;
+import com.example.wizard_project.Controllers.UserRepository;
 import com.example.wizard_project.databinding.ActivityMainBinding;
 import com.google.android.material.bottomnavigation.BottomNavigationView;
-import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.QuerySnapshot;
 import com.google.firebase.storage.FirebaseStorage;
 import com.google.firebase.storage.StorageReference;
 
 import java.util.ArrayList;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * MainActivity is the central activity for the EventWizard app.
@@ -46,9 +51,16 @@ import java.util.Map;
  */
 public class MainActivity extends AppCompatActivity {
     public static final int LOCATION_PERMISSION_REQUEST_CODE = 100;
+    private static final long DRAW_LEASE_MILLIS = 2 * 60 * 1000; // How long a device may hold an event's draw lease
+    private static final int DRAW_QUERY_PAGE_SIZE = 20; // Events due for draw read per page
     private ActivityMainBinding binding;
+    private final StartupTracer startupTracer = new StartupTracer();
+    // Startup work the timing report waits for: the user, the notifications and the event draw
+    private final AtomicInteger pendingStartupWork = new AtomicInteger(3);
+    private String shownProfilePicture; // The picture, or name it is generated from, on the profile button
     private FirebaseFirestore db;
-    private FirebaseStorage storage;
+    private UserRepository userRepository;
+    private NotificationInbox notificationInbox;
     private StorageReference storageRef;
     private User currentUser;
     private User deleteUser;
@@ -59,45 +71,128 @@ public class MainActivity extends AppCompatActivity {
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
 
-        // Set up view binding and content view
-        binding = ActivityMainBinding.inflate(getLayoutInflater());
-        setContentView(binding.getRoot());
-
-        // Check for location permissions
-        checkAndRequestLocationPermissions();
-
-        //check for notification permission
-        checkNotifPermission();
-
-        // Initialize Firebase components
-        db = FirebaseFirestore.getInstance();
-        storage = FirebaseStorage.getInstance();
-        storageRef = storage.getReference();
-
-        // Initialize navigation components
-        setupNavigation();
+        // Only the layout and the user document are on the critical path; everything else waits for the first frame.
+        startupTracer.run("inflate", () -> {
+            binding = ActivityMainBinding.inflate(getLayoutInflater());
+            setContentView(binding.getRoot());
+        });
+        startupTracer.run("navigation", this::setupNavigation);
 
         // Retrieve the device ID, then initialize the user
         String deviceId = retrieveDeviceId();
+        db = FirebaseFirestore.getInstance();
+        userRepository = UserRepository.getInstance(this);
+        StartupTracer.Stage userStage = startupTracer.begin("user");
         initializeUser(deviceId, () -> {
+            // The callback runs again when the stored profile differs from the last known one. Only the picture
+            // is refreshed then; the rest of startup runs once per launch, for the user loaded first.
+            if (!userStage.end()) {
+                if (currentUser != null) {
+                    setProfilePic();
+                }
+                return;
+            }
             if (currentUser != null) {
-                fetchUserNotifications(currentUser.getDeviceId());
-                setProfilePic();
+                startupTracer.run("profilePicture", this::setProfilePic);
+                if (currentUser.isAdmin()) {
+                    CascadeDeleter.getInstance().resumeInterruptedDeletes();
+                }
+                if (currentUser.isOrganizer()) {
+                    maintainFacility(deviceId);
+                }
             } else {
                 Toast.makeText(this, "User data not available", Toast.LENGTH_SHORT).show();
             }
+            startupTracer.markInteractive(this);
+            startupWorkDone();
         });
 
+        startupTracer.onFirstFrame(binding.getRoot(), () -> runDeferredStartup(deviceId));
+    }
+
+    /**
+     * Runs the startup work that does not need to block the first frame.
+     * The notifications and the event draw only depend on the device ID, so they run alongside the user document.
+     *
+     * @param deviceId The unique device ID.
+     */
+    private void runDeferredStartup(String deviceId) {
+        startupTracer.run("permissions", () -> {
+            // Check for location permissions
+            checkAndRequestLocationPermissions();
+
+            //check for notification permission
+            checkNotifPermission();
+        });
+
+        fetchUserNotifications(deviceId);
+
         // Perform the entrant lottery draw for any eligible events.
         checkEventDraw();
     }
 
+    /**
+     * Logs the startup timing report once the user, the notifications and the event draw have all finished,
+     * so none of their stages is reported as still running.
+     */
+    private void startupWorkDone() {
+        if (pendingStartupWork.decrementAndGet() == 0) {
+            startupTracer.logReport();
+        }
+    }
+
+    /**
+     * Finishes the organizer's interrupted deletes of their facility or its events, and gives the entrants of
+     * their events who joined before registrations existed a registration, so those events show up in their lists.
+     * Entrants who joined before the events counted them are counted, so each event's maximum holds.
+     * Each organizer looks after only their own facility.
+     *
+     * @param userId The ID of the organizer.
+     */
+    private void maintainFacility(String userId) {
+        FacilityController facilityController = new FacilityController();
+        facilityController.getFacility(userId, facility -> {
+            if (facility == null) {
+                return;
+            }
+            facilityController.resumeInterruptedDeletes(facility.getFacilityId());
+            new EventController().backfillRegistrations(facility.getFacilityId(), new EventController.updateCallback() {
+                @Override
+                public void onSuccess() {
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    Log.e("MainActivity", "Failed to backfill registrations", e);
+                }
+            });
+            new EventController().backfillEntrantCounters(facility.getFacilityId(), new EventController.updateCallback() {
+                @Override
+                public void onSuccess() {
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    Log.e("MainActivity", "Failed to seed entrant counters", e);
+                }
+            });
+        });
+    }
+
+    /**
+     * Shows the current user's profile picture on the profile button, unless it is shown already.
+     */
     public void setProfilePic() {
-        ImageButton profilePictureButton = findViewById(R.id.profilePictureButton);
         String profilePictureUri = currentUser.getProfilePictureUri();
+        String picture = currentUser.getProfilePath() + "/" + profilePictureUri + "/" + currentUser.getName();
+        if (picture.equals(shownProfilePicture)) {
+            return;
+        }
+        shownProfilePicture = picture;
+        ImageButton profilePictureButton = findViewById(R.id.profilePictureButton);
         if (profilePictureUri != null && !profilePictureUri.isEmpty()) {
             Glide.with(this)
-                    .load(Uri.parse(profilePictureUri))
+                    .load(StoredImage.of(currentUser.getProfilePath(), profilePictureUri))
                     .circleCrop()
                     .into(profilePictureButton);
         } else if (!currentUser.getName().isEmpty()) {
@@ -160,65 +255,54 @@ public class MainActivity extends AppCompatActivity {
         });
     }
     /**
-     * Fetches the Notifications from the database that are associated with the given User
-     * creates a new list of messages to be displayed and sends those messages as notifications
-     * after the user has been notified it will delete those notifications from the database.
+     * Starts the user's notification inbox, which displays the notifications sent since the last launch
+     * and then any that arrive while the app is open. Delivered notifications older than the retention
+     * window are then deleted in bulk.
      * @param userId the ID of the current user
      */
     private void fetchUserNotifications(String userId) {
-        db.collection("notifications")
-                .whereEqualTo("Userid", userId)
-                .get()
-                .addOnCompleteListener(task -> {
-                    if (task.isSuccessful()) {
-                        QuerySnapshot querySnapshot = task.getResult();
-                        if (querySnapshot != null && !querySnapshot.isEmpty()) {
-                            List<String> messages = new ArrayList<>();
-                            List<String> notficationID = new ArrayList<>();
-                            querySnapshot.forEach(document -> {
-                                String message = document.getString("message");
-                                if (message != null) {
-                                    messages.add(message);
-                                    notficationID.add(document.getId());
-                                }
-                            });
-                            displayNotifications(messages);
-                            DeleteNotifications(notficationID);
-                        } else {
-                            Toast.makeText(this, "No notifications found for your account.", Toast.LENGTH_SHORT).show();
-                        }
-                    } else {
-                        Toast.makeText(this, "Error", Toast.LENGTH_SHORT).show();
-                    }
-                });
+        StartupTracer.Stage notificationStage = startupTracer.begin("notifications");
+        notificationInbox = new NotificationInbox(FirestoreDataStore.getInstance(), userId);
+        notificationInbox.start(new NotificationInbox.inboxCallback() {
+            private boolean compacted = false;
+
+            @Override
+            public void onNotifications(List<InboxMessage> messages) {
+                if (notificationStage.end()) {
+                    startupWorkDone();
+                }
+                if (!messages.isEmpty()) {
+                    displayNotifications(messages);
+                }
+                if (!compacted) {
+                    compacted = true;
+                    notificationInbox.compact();
+                }
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                if (notificationStage.end()) {
+                    startupWorkDone();
+                }
+                Toast.makeText(MainActivity.this, "Error", Toast.LENGTH_SHORT).show();
+            }
+        });
     }
-    /**
-     * Deletes the given notifications that have been displayed
-     * @param notficationID List of all the notifications to be deleted
-     */
-    private void DeleteNotifications(List<String> notficationID) {
-        for (String docId : notficationID) {
-            db.collection("notifications").document(docId).delete()
-                    .addOnSuccessListener(aVoid -> {
-                        // Log or toast the success
-                        System.out.println("Notification deleted: " + docId);
-                    })
-                    .addOnFailureListener(e -> {
-                        // Log or handle the error
-                        System.err.println("Error deleting notification: " + e.getMessage());
-                    });
+
+    @Override
+    protected void onDestroy() {
+        if (notificationInbox != null) {
+            notificationInbox.stop();
         }
+        super.onDestroy();
     }
     /**
-     * Displays a list of messages as notifications on the current system
+     * Displays a list of messages as notifications on the current system, grouped by event
      * @param messages List of all the messages to be sent as notifications
      */
-    private void displayNotifications(List<String> messages) {
-        NotificationHandler notifyHandler = new NotificationHandler(this);
-
-        for (String message : messages) {
-            notifyHandler.sendNotification("Welcome Back!", message);
-        }
+    private void displayNotifications(List<InboxMessage> messages) {
+        NotificationHandler.getInstance(this).post(messages);
     }
     /**
      * Configures the bottom navigation bar for general use (default).
@@ -265,59 +349,29 @@ public class MainActivity extends AppCompatActivity {
     }
 
     /**
-     * Initializes the user by fetching or creating the user document in Firestore.
+     * Initializes the user from the last known profile, or by fetching or creating the user document in Firestore.
+     * The callback runs again if the profile read from Firestore differs from the last known one.
      *
      * @param deviceId          The unique device ID used as the document ID in Firestore.
      * @param onUserInitialized A callback to indicate when the user is initialized.
      */
     private void initializeUser(String deviceId, Runnable onUserInitialized) {
-        db.collection("users").document(deviceId).get().addOnCompleteListener(task -> {
-            if (task.isSuccessful() && task.getResult() != null) {
-                DocumentSnapshot document = task.getResult();
-                // If the document exists, load data into currentUser
-                if (document.exists()) {
-                    currentUser = new User();
-                    currentUser.setUserData(document);
-                    // If the document does not exist, create a new user
-                } else {
-                    currentUser = new User(deviceId, "", false, false, false, "", "", "", "");
-                    Map<String, Object> userData = createUserDataMap(currentUser);
-                    db.collection("users").document(deviceId).set(userData)
-                            .addOnSuccessListener(aVoid -> Toast.makeText(this, "New user created", Toast.LENGTH_SHORT).show())
-                            .addOnFailureListener(e -> {
-                                currentUser = null;
-                                Toast.makeText(this, "Failed to create user: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-                            });
-                }
-                // Error handling (unable to fetch document)
-            } else {
+        userRepository.getUser(deviceId, new UserRepository.userCallback() {
+            @Override
+            public void onUserLoaded(User user) {
+                currentUser = user;
+                onUserInitialized.run();
+            }
+
+            @Override
+            public void onFailure(Exception e) {
                 currentUser = null;
-                Toast.makeText(this, "Error fetching user data: " + (task.getException() != null ? task.getException().getMessage() : "Unknown error"), Toast.LENGTH_SHORT).show();
+                Toast.makeText(MainActivity.this, "Error fetching user data: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+                onUserInitialized.run(); // Notify that user data is initialized (success or failure)
             }
-            onUserInitialized.run(); // Notify that user data is initialized (success or failure)
         });
     }
 
-    /**
-     * Creates a map of user data to be stored in Firestore.
-     *
-     * @param user The user object containing data to be stored.
-     * @return A map of user data.
-     */
-    private Map<String, Object> createUserDataMap(User user) {
-        Map<String, Object> userData = new HashMap<>();
-        userData.put("deviceId", user.getDeviceId());
-        userData.put("email", user.getEmail());
-        userData.put("IsAdmin", user.isAdmin());
-        userData.put("IsEntrant", user.isEntrant());
-        userData.put("isOrganizer", user.isOrganizer());
-        userData.put("name", user.getName());
-        userData.put("phoneNumber", user.getPhoneNumber());
-        userData.put("photoId", user.getProfilePictureUri());
-        userData.put("profilePath", user.getProfilePath());
-        return userData;
-    }
-
     /**
      * Checks if location permissions are granted and requests them if not.
      */
@@ -355,7 +409,7 @@ public class MainActivity extends AppCompatActivity {
     /**
      * Provides the current user to other components asynchronously.
      * If the user is already loaded into memory, it immediately executes the callback.
-     * Otherwise, it fetches the user from the database and then invokes the callback.
+     * Otherwise, it loads the user from the repository and then invokes the callback.
      *
      * @param callback A callback that will be executed once the user is available.
      */
@@ -364,79 +418,101 @@ public class MainActivity extends AppCompatActivity {
         if (currentUser != null) {
             callback.onUserLoaded(currentUser);
         } else {
-            // If the user is not loaded, fetch it from the database
-            fetchCurrentUserFromDatabase(user -> {
-                currentUser = user; // Cache the loaded user for future use
-                callback.onUserLoaded(currentUser);
+            // If the user is not loaded, wait for the repository, which shares any read already in flight
+            userRepository.refresh(retrieveDeviceId(), new UserRepository.userCallback() {
+                @Override
+                public void onUserLoaded(User user) {
+                    currentUser = user; // Cache the loaded user for future use
+                    callback.onUserLoaded(currentUser);
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    Log.e("MainActivity", "Failed to load user", e);
+                }
             });
         }
     }
 
     /**
-     * Fetches the current user from the database asynchronously.
-     * Once the user is retrieved, it invokes the provided callback.
-     *
-     * @param callback A callback to handle the loaded user object.
+     * Checks for events that are due for an entrant draw.
+     * Only events whose registration has closed and that have not been drawn are read.
+     * For each one, this device attempts to acquire the event's draw lease, and only draws entrants if it wins the lease.
      */
-    private void fetchCurrentUserFromDatabase(UserLoadCallback callback) {
-        FirebaseFirestore.getInstance()
-                .collection("users")
-                .document(retrieveDeviceId())
-                .get()
-                .addOnSuccessListener(documentSnapshot -> {
-                    User user = documentSnapshot.toObject(User.class);
-                    callback.onUserLoaded(user);
-                })
-                .addOnFailureListener(e -> Log.e("MainActivity", "Failed to load user", e));
+    public void checkEventDraw() {
+        eventController = new EventController();
+        Date currentDate = new Date();
+        StartupTracer.Stage drawStage = startupTracer.begin("eventDraw");
+        eventController.fetchEventsDueForDraw(currentDate, DRAW_QUERY_PAGE_SIZE, new EventController.dueEventsCallback() {
+            @Override
+            public void onPage(ArrayList<Event> events) {
+                for (Event event: events) {
+                    eventController.acquireDrawLease(event, retrieveDeviceId(), DRAW_LEASE_MILLIS, lease -> {
+                        if (lease != null) {
+                            runEventDraw(event, lease);
+                        }
+                    });
+                }
+            }
+
+            @Override
+            public void onComplete() {
+                if (drawStage.end()) {
+                    startupWorkDone();
+                }
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                if (drawStage.end()) {
+                    startupWorkDone();
+                }
+            }
+        });
     }
 
     /**
-     * Checks eligibility for entrant draw for all events.
-     * If conditions are met for an event, entrants are drawn.
+     * Draws entrants for an event while holding its draw lease.
+     * The event is only marked as drawn once every status update has been written; otherwise the
+     * lease is left to expire so the draw can be resumed.
+     *
+     * @param event The event to draw.
+     * @param lease The draw lease held by this device.
      */
-    public void checkEventDraw() {
-        eventController = new EventController();
+    private void runEventDraw(Event event, DrawLease lease) {
         LotterySystem lotterySystem = new LotterySystem();
-        Date currentDate = new Date();
-        eventController.fetchAllEvents(new EventController.eventCallback() {
+        eventController.getDrawCount(event, new EventController.drawCountCallback() {
             @Override
-            public void onCallback(ArrayList<Event> events) {
-                for (Event event: events) {
-                    if (!event.isDrawn() && currentDate.after(event.getRegistration_close())) {
-                        eventController.getWaitingList(event.getEventId(), new EventController.WaitingListCallback() {
+            public void onSuccess(int drawCount) {
+                lotterySystem.drawEntrants(event, drawCount, lease, DRAW_LEASE_MILLIS, new LotterySystem.drawCallback() {
+                    @Override
+                    public void onComplete(List<Entrant> failedEntrants) {
+                        if (!failedEntrants.isEmpty()) {
+                            Log.e("DrawError", failedEntrants.size() + " entrants were not updated; draw will resume after the lease expires.");
+                            return;
+                        }
+                        eventController.completeDraw(event, lease.getDrawId(), new EventController.updateCallback() {
                             @Override
-                            public void onSuccess(ArrayList<Map<String, String>> waitingList) {
-                                ArrayList<Entrant> entrants = new ArrayList<>();
-                                for (Map<String, String> entry : waitingList) {
-                                    // Parse data from waiting list
-                                    String name = entry.get("name");
-                                    String status = entry.get("status");
-                                    String userId = entry.get("userId");
-                                    Double latitude = entry.containsKey("latitude") ? Double.valueOf(entry.get("latitude")) : null;
-                                    Double longitude = entry.containsKey("longitude") ? Double.valueOf(entry.get("longitude")) : null;
-
-                                    entrants.add(new Entrant(name, status, userId, latitude, longitude));
-                                }
-                                eventController.getDrawCount(event, new EventController.drawCountCallback() {
-                                    @Override
-                                    public void onSuccess(int drawCount) {
-                                        lotterySystem.drawEntrants(event, entrants, drawCount);
-                                        event.setDrawn(true);
-                                        eventController.updateField(event, "isDrawn", "true");
-                                    }
-                                    @Override
-                                    public void onFailure(Exception e) {
-                                        Log.e("DrawCountRetrievalError", "Error retrieving draw count: ", e);
-                                    }
-                                });
+                            public void onSuccess() {
+                                Log.d("MainActivity", "Draw completed for event: " + event.getEventId());
                             }
+
                             @Override
                             public void onFailure(Exception e) {
-                                Log.e("WaitlistError", "Error retrieving waitlist: ", e);
+                                Log.e("DrawError", "Error completing draw: ", e);
                             }
                         });
                     }
-                }
+
+                    @Override
+                    public void onFailure(Exception e) {
+                        Log.e("DrawError", "Draw stopped for event " + event.getEventId() + ": ", e);
+                    }
+                });
+            }
+            @Override
+            public void onFailure(Exception e) {
+                Log.e("DrawCountRetrievalError", "Error retrieving draw count: ", e);
             }
         });
     }
@@ -462,11 +538,14 @@ public class MainActivity extends AppCompatActivity {
     }
 
     /**
-     * Retrieves the Firebase Storage reference.
+     * Retrieves the Firebase Storage reference, initializing Firebase Storage on first use.
      *
      * @return The root Firebase Storage reference.
      */
     public StorageReference getStorageRef() {
+        if (storageRef == null) {
+            storageRef = FirebaseStorage.getInstance().getReference();
+        }
         return storageRef;
     }
 
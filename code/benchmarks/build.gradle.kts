@@ -0,0 +1,25 @@
+plugins {
+    java
+    application
+    alias(libs.plugins.jmh)
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+dependencies {
+    implementation(project(":core"))
+    jmh(project(":core"))
+}
+
+application {
+    mainClass.set("com.example.wizard_project.LoadTest.WaitingListLoadTest")
+}
+
+jmh {
+    warmupIterations.set(2)
+    iterations.set(5)
+    fork.set(1)
+}
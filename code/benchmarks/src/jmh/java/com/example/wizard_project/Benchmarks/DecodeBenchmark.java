@@ -0,0 +1,139 @@
+package com.example.wizard_project.Benchmarks;
+
+import com.example.wizard_project.Classes.Event;
+import com.example.wizard_project.Classes.EventCodec;
+import com.example.wizard_project.Classes.Facility;
+import com.example.wizard_project.Classes.FacilityCodec;
+import com.example.wizard_project.Core.DocumentFields;
+import com.example.wizard_project.Core.MapDocumentFields;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures decoding stored documents into Event and Facility models with the generated codecs,
+ * against reflective decoding of the kind {@code DocumentSnapshot.toObject} performs.
+ * The Firestore mapper itself needs Android, so the reflective decoder here stands in for it: like the mapper,
+ * it creates the model through its constructor and sets each field by name through reflection.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DecodeBenchmark {
+    @Param({"100", "5000"})
+    public int documentCount;
+
+    private List<DocumentFields> eventDocuments;
+    private List<DocumentFields> facilityDocuments;
+    private Constructor<Event> eventConstructor;
+    private Field[] eventFields;
+
+    @Setup
+    public void setUp() {
+        eventDocuments = new ArrayList<>(documentCount);
+        facilityDocuments = new ArrayList<>(documentCount);
+        for (int i = 0; i < documentCount; i++) {
+            Map<String, Object> eventData = new HashMap<>();
+            eventData.put("eventId", "event-" + i);
+            eventData.put("event_name", "Swimming Lessons " + i);
+            eventData.put("event_description", "Beginner swimming lessons for all ages.");
+            eventData.put("event_price", (long) (i % 60));
+            eventData.put("event_max_entrants", 200L);
+            eventData.put("registration_open", new Date(1_700_000_000_000L));
+            eventData.put("registration_close", new Date(1_700_600_000_000L));
+            eventData.put("geolocation_requirement", i % 2 == 0);
+            eventData.put("facilityId", "facility-" + (i % 50));
+            eventData.put("event_location", "Edmonton");
+            eventData.put("event_image_path", "images/event-" + i);
+            eventData.put("posterUri", "https://example.com/images/event-" + i);
+            eventData.put("isDrawn", false);
+            eventDocuments.add(new MapDocumentFields("event-" + i, eventData));
+
+            Map<String, Object> facilityData = new HashMap<>();
+            facilityData.put("facilityId", "facility-" + i);
+            facilityData.put("name", "Community Centre " + i);
+            facilityData.put("location", "Edmonton");
+            facilityData.put("userId", "device-" + i);
+            facilityData.put("facility_imagePath", "images/facility-" + i);
+            facilityData.put("posterUri", "https://example.com/images/facility-" + i);
+            facilityDocuments.add(new MapDocumentFields("facility-" + i, facilityData));
+        }
+
+        try {
+            eventConstructor = Event.class.getDeclaredConstructor();
+            eventConstructor.setAccessible(true);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+        eventFields = Event.class.getDeclaredFields();
+        for (Field field : eventFields) {
+            field.setAccessible(true);
+        }
+    }
+
+    @Benchmark
+    public void decodeEvents(Blackhole blackhole) {
+        for (DocumentFields document : eventDocuments) {
+            Event event = EventCodec.getInstance().decode(document);
+            blackhole.consume(event);
+        }
+    }
+
+    @Benchmark
+    public void decodeEventsReflectively(Blackhole blackhole) throws ReflectiveOperationException {
+        for (DocumentFields document : eventDocuments) {
+            blackhole.consume(decodeReflectively(document));
+        }
+    }
+
+    @Benchmark
+    public void decodeFacilities(Blackhole blackhole) {
+        for (DocumentFields document : facilityDocuments) {
+            Facility facility = FacilityCodec.getInstance().decode(document);
+            blackhole.consume(facility);
+        }
+    }
+
+    /**
+     * Decodes an event by setting every field of the document that has a matching Event field through reflection.
+     * The stored names of event fields match their Java names, so no name mapping is needed.
+     */
+    private Event decodeReflectively(DocumentFields document) throws ReflectiveOperationException {
+        Event event = eventConstructor.newInstance();
+        for (Field field : eventFields) {
+            if (Modifier.isStatic(field.getModifiers())) {
+                continue;
+            }
+            Class<?> type = field.getType();
+            String name = field.getName();
+            if (type == String.class) {
+                field.set(event, document.getString(name));
+            } else if (type == Date.class) {
+                field.set(event, document.getDate(name));
+            } else if (type == int.class) {
+                Long value = document.getLong(name);
+                field.setInt(event, value != null ? value.intValue() : 0);
+            } else if (type == boolean.class) {
+                field.setBoolean(event, Boolean.TRUE.equals(document.getBoolean(name)));
+            }
+        }
+        return event;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.wizard_project.Benchmarks;
+
+import com.example.wizard_project.Core.DrawEngine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of a lottery draw as the waiting list size (N) and the draw count (k) grow.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DrawBenchmark {
+    private static final long SEED = 301L;
+
+    @Param({"1000", "20000", "100000"})
+    public int populationSize;
+
+    @Param({"50", "500"})
+    public int drawCount;
+
+    private List<String> userIds;
+
+    @Setup
+    public void setUp() {
+        userIds = new ArrayList<>(populationSize);
+        for (int i = 0; i < populationSize; i++) {
+            userIds.add(String.format("device-%08d", i));
+        }
+    }
+
+    /**
+     * Partial Fisher-Yates shuffle: only the drawn positions are swapped.
+     */
+    @Benchmark
+    public int[] partialShuffle() {
+        return DrawEngine.drawIndices(populationSize, drawCount, SEED);
+    }
+
+    /**
+     * Full ranking of every position, as persisted for promotions.
+     */
+    @Benchmark
+    public int[] fullRanking() {
+        return DrawEngine.rankPositions(populationSize, SEED);
+    }
+
+    /**
+     * Reservoir selection over a streamed waiting list.
+     */
+    @Benchmark
+    public List<String> reservoir() {
+        DrawEngine.Reservoir<String> reservoir = new DrawEngine.Reservoir<>(drawCount, SEED);
+        for (String userId : userIds) {
+            reservoir.offer(userId);
+        }
+        return reservoir.getSample();
+    }
+
+    /**
+     * The original draw: shuffle a copy of the whole list, then take the first k entrants.
+     */
+    @Benchmark
+    public void fullShuffleBaseline(Blackhole blackhole) {
+        List<String> shuffled = new ArrayList<>(userIds);
+        Collections.shuffle(shuffled, new Random(SEED));
+        blackhole.consume(shuffled.subList(0, Math.min(drawCount, shuffled.size())));
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.wizard_project.Benchmarks;
+
+import com.example.wizard_project.Classes.Entrant;
+import com.example.wizard_project.Core.EntrantFilter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures filtering an event's entrants by status, as done by the entrant list.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EntrantFilterBenchmark {
+    private static final String[] STATUSES = {"Waitlisted", "Selected", "Not Selected", "Enrolled", "Cancelled"};
+
+    @Param({"1000", "20000", "100000"})
+    public int entrantCount;
+
+    private List<Entrant> entrants;
+
+    @Setup
+    public void setUp() {
+        entrants = new ArrayList<>(entrantCount);
+        for (int i = 0; i < entrantCount; i++) {
+            entrants.add(new Entrant("Entrant " + i, STATUSES[i % STATUSES.length], "device-" + i, null, null));
+        }
+    }
+
+    @Benchmark
+    public List<Entrant> filterSelected() {
+        return EntrantFilter.filter(entrants, "Selected");
+    }
+
+    @Benchmark
+    public List<Entrant> filterAll() {
+        return EntrantFilter.filter(entrants, EntrantFilter.ALL);
+    }
+
+    @Benchmark
+    public int countNotSelected() {
+        return EntrantFilter.count(entrants, "Not Selected");
+    }
+}
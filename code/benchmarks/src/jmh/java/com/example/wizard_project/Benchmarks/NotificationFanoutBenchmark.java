@@ -0,0 +1,54 @@
+package com.example.wizard_project.Benchmarks;
+
+import com.example.wizard_project.Classes.Entrant;
+import com.example.wizard_project.Core.DrawEngine;
+import com.example.wizard_project.Core.NotificationFanout;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building the notifications sent to every entrant after a draw.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class NotificationFanoutBenchmark {
+    @Param({"1000", "20000"})
+    public int entrantCount;
+
+    private List<Entrant> entrants;
+    private boolean[] selected;
+
+    @Setup
+    public void setUp() {
+        entrants = new ArrayList<>(entrantCount);
+        for (int i = 0; i < entrantCount; i++) {
+            entrants.add(new Entrant("Entrant " + i, "Waitlisted", "device-" + i, null, null));
+        }
+        selected = new boolean[entrantCount];
+        for (int index : DrawEngine.drawIndices(entrantCount, entrantCount / 10, 301L)) {
+            selected[index] = true;
+        }
+    }
+
+    @Benchmark
+    public void drawOutcomeNotifications(Blackhole blackhole) {
+        Map<String, String> messages = NotificationFanout.drawOutcomeMessages("Swimming Lessons", entrants, selected);
+        for (Map.Entry<String, String> message : messages.entrySet()) {
+            blackhole.consume(NotificationFanout.toNotification(message.getKey(), message.getValue()));
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.wizard_project.LoadTest;
+
+import com.example.wizard_project.Core.WaitingListOperations;
+import com.example.wizard_project.Store.DataStoreException;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * OperationStats collects the latencies, rejections, failures and transaction retries of one kind of operation
+ * issued by the load test.
+ */
+public class OperationStats {
+    private final String name;
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder aborted = new LongAdder();
+    private final LongAdder transactions = new LongAdder();
+    private final LongAdder attempts = new LongAdder();
+    private final AtomicLong firstStartNanos = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong lastEndNanos = new AtomicLong(Long.MIN_VALUE);
+    private long[] latencies = new long[1024];
+    private int count;
+
+    /**
+     * Constructs OperationStats for an operation.
+     *
+     * @param name The name of the operation, as shown in the report.
+     */
+    public OperationStats(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @return The nanoTime at which an operation is being started.
+     */
+    public long start() {
+        long now = System.nanoTime();
+        firstStartNanos.accumulateAndGet(now, Math::min);
+        return now;
+    }
+
+    /**
+     * Records a completed operation.
+     *
+     * @param startNanos The value returned by {@link #start()} for the operation.
+     * @param error      The exception the operation failed with, or null if it succeeded.
+     */
+    public void finish(long startNanos, Exception error) {
+        long now = System.nanoTime();
+        lastEndNanos.accumulateAndGet(now, Math::max);
+        if (WaitingListOperations.isWaitingListFull(error)) {
+            rejected.increment(); // Refused by design, not a failure.
+        } else if (error != null) {
+            errors.increment();
+            if (error instanceof DataStoreException
+                    && ((DataStoreException) error).getCode() == DataStoreException.Code.ABORTED) {
+                aborted.increment();
+            }
+        }
+        synchronized (this) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = now - startNanos;
+        }
+    }
+
+    /**
+     * Records that a transaction was started.
+     */
+    public void recordTransaction() {
+        transactions.increment();
+    }
+
+    /**
+     * Records one attempt of a transaction function. Every attempt after the first is a retry
+     * caused by a conflicting write.
+     */
+    public void recordAttempt() {
+        attempts.increment();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public synchronized int getCount() {
+        return count;
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public long getAborted() {
+        return aborted.sum();
+    }
+
+    public long getRetries() {
+        return Math.max(0, attempts.sum() - transactions.sum());
+    }
+
+    /**
+     * @return Completed operations per second, between the first start and the last completion.
+     */
+    public double getThroughput() {
+        int completed = getCount();
+        long elapsed = lastEndNanos.get() - firstStartNanos.get();
+        return completed > 0 && elapsed > 0 ? completed * 1e9 / elapsed : 0;
+    }
+
+    /**
+     * Returns a latency percentile using the nearest-rank method.
+     *
+     * @param percentile The percentile, between 0 and 100.
+     * @return The latency in milliseconds, or 0 if no operation completed.
+     */
+    public double getLatencyMillis(double percentile) {
+        long[] sorted;
+        synchronized (this) {
+            sorted = Arrays.copyOf(latencies, count);
+        }
+        if (sorted.length == 0) {
+            return 0;
+        }
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))] / 1e6;
+    }
+
+    /**
+     * @return The header row matching {@link #toRow()}.
+     */
+    public static String header() {
+        return String.format(Locale.ROOT, "%-10s %8s %8s %7s %8s %10s %9s %9s %9s %9s %8s",
+                "operation", "count", "rejected", "errors", "aborted", "ops/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "retries");
+    }
+
+    /**
+     * @return A report row for this operation.
+     */
+    public String toRow() {
+        return String.format(Locale.ROOT, "%-10s %8d %8d %7d %8d %10.1f %9.2f %9.2f %9.2f %9.2f %8d",
+                name, getCount(), getRejected(), getErrors(), getAborted(), getThroughput(),
+                getLatencyMillis(50), getLatencyMillis(99), getLatencyMillis(99.9), getLatencyMillis(100), getRetries());
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.wizard_project.LoadTest;
+
+import com.example.wizard_project.Store.DataStore;
+import com.example.wizard_project.Store.StoreQuery;
+import com.example.wizard_project.Store.StoreTask;
+import com.example.wizard_project.Store.StoredDocument;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * RetryCountingDataStore passes every operation through to another store, counting how many times
+ * each transaction function runs. A store retries a transaction function when a document it read
+ * changed before it committed, so the extra runs are the retries caused by contention.
+ */
+public class RetryCountingDataStore implements DataStore {
+    private final DataStore delegate;
+    private final OperationStats stats;
+
+    /**
+     * Constructs a RetryCountingDataStore.
+     *
+     * @param delegate The store operations are passed to.
+     * @param stats    The stats the transactions and their attempts are recorded in.
+     */
+    public RetryCountingDataStore(DataStore delegate, OperationStats stats) {
+        this.delegate = delegate;
+        this.stats = stats;
+    }
+
+    @Override
+    public StoreTask<StoredDocument> get(String path) {
+        return delegate.get(path);
+    }
+
+    @Override
+    public StoreTask<List<StoredDocument>> query(StoreQuery query) {
+        return delegate.query(query);
+    }
+
+    @Override
+    public StoreTask<Long> count(StoreQuery query) {
+        return delegate.count(query);
+    }
+
+    @Override
+    public Registration listen(StoreQuery query, QueryListener listener) {
+        return delegate.listen(query, listener);
+    }
+
+    @Override
+    public StoreTask<Void> set(String path, Map<String, Object> data) {
+        return delegate.set(path, data);
+    }
+
+    @Override
+    public StoreTask<Void> update(String path, Map<String, Object> updates) {
+        return delegate.update(path, updates);
+    }
+
+    @Override
+    public StoreTask<Void> delete(String path) {
+        return delegate.delete(path);
+    }
+
+    @Override
+    public String newDocumentId(String collectionPath) {
+        return delegate.newDocumentId(collectionPath);
+    }
+
+    @Override
+    public Batch batch() {
+        return delegate.batch();
+    }
+
+    @Override
+    public <T> StoreTask<T> runTransaction(TransactionFunction<T> function) {
+        stats.recordTransaction();
+        return delegate.runTransaction(transaction -> {
+            stats.recordAttempt();
+            return function.apply(transaction);
+        });
+    }
+}
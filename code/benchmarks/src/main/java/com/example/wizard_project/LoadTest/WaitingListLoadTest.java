@@ -0,0 +1,336 @@
+package com.example.wizard_project.LoadTest;
+
+import com.example.wizard_project.Core.DrawEngine;
+import com.example.wizard_project.Core.RegistrationIndex;
+import com.example.wizard_project.Core.WaitingListOperations;
+import com.example.wizard_project.Store.DataStore;
+import com.example.wizard_project.Store.MemoryDataStore;
+import com.example.wizard_project.Store.StoreQuery;
+import com.example.wizard_project.Store.StoredDocument;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * WaitingListLoadTest simulates a crowd of virtual entrants using an event's waiting list at the same time,
+ * as happens when an event's QR code goes up. It runs against any {@link DataStore}, by default an in-memory
+ * store with a simulated network latency, through the same operations the app uses.
+ *
+ * <p>The test runs in three phases:
+ * <ol>
+ *     <li>Every entrant joins within the ramp window, and some of them leave again.</li>
+ *     <li>The event is drawn. This phase only prepares the next one and is not measured.</li>
+ *     <li>Every selected entrant accepts or declines within the ramp window. Declining promotes the next-ranked
+ *     entrant, who then accepts or declines in turn.</li>
+ * </ol>
+ * Throughput, latency percentiles, failures and transaction retries are reported for each operation.
+ *
+ * <p>Run with {@code ./gradlew :benchmarks:run --args="--entrants=5000 --ramp=5"}. Options:
+ * {@code --entrants}, {@code --draw}, {@code --ramp} (seconds), {@code --min-latency} and
+ * {@code --max-latency} (milliseconds), {@code --leave} and {@code --decline} (probabilities),
+ * {@code --max-entrants} (0 for no maximum), {@code --shards} (entrant counter shards),
+ * {@code --threads} (transaction threads, one per simulated device in flight), {@code --seed} and
+ * {@code --max-abort-rate} (the fraction of any operation that may abort before the run fails).
+ * The run exits with a non-zero status if any operation aborts more often than that, so it can gate a build.
+ */
+public class WaitingListLoadTest {
+    private static final String EVENT_ID = "load-test-event";
+    private static final int BATCH_SIZE = 500;
+    private static final long ROLLUP_INTERVAL_MILLIS = 1000;
+    private static final double DEFAULT_MAX_ABORT_RATE = 0.01; // Aborts are failed user actions, so nearly none are allowed
+
+    private final DataStore db;
+    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(4);
+    private final int entrants;
+    private final int drawCount;
+    private final long rampMillis;
+    private final double leaveProbability;
+    private final double declineProbability;
+    private final long seed;
+    private final long maxEntrants;
+
+    private final OperationStats joinStats = new OperationStats("join");
+    private final OperationStats leaveStats = new OperationStats("leave");
+    private final OperationStats acceptStats = new OperationStats("accept");
+    private final OperationStats declineStats = new OperationStats("decline");
+    private final WaitingListOperations joins;
+    private final WaitingListOperations leaves;
+    private final WaitingListOperations accepts;
+    private final WaitingListOperations declines;
+
+    /**
+     * Constructs a WaitingListLoadTest.
+     *
+     * @param db                 The store the entrants use.
+     * @param entrants           The number of virtual entrants.
+     * @param drawCount          The number of entrants selected by the draw.
+     * @param rampMillis         The window over which each phase's operations start.
+     * @param leaveProbability   The probability that an entrant leaves after joining.
+     * @param declineProbability The probability that a selected entrant declines.
+     * @param seed               The seed driving the draw.
+     * @param maxEntrants        The event's maximum number of entrants, or 0 for no maximum.
+     * @param entrantShards      The number of shards counting the event's entrants.
+     */
+    public WaitingListLoadTest(DataStore db, int entrants, int drawCount, long rampMillis,
+                               double leaveProbability, double declineProbability, long seed,
+                               long maxEntrants, int entrantShards) {
+        this.db = db;
+        this.entrants = entrants;
+        this.drawCount = drawCount;
+        this.rampMillis = rampMillis;
+        this.leaveProbability = leaveProbability;
+        this.declineProbability = declineProbability;
+        this.seed = seed;
+        this.maxEntrants = maxEntrants;
+
+        // Each operation goes through its own counting store, so retries are attributed to the operation.
+        this.joins = new WaitingListOperations(new RetryCountingDataStore(db, joinStats), entrantShards);
+        this.leaves = new WaitingListOperations(new RetryCountingDataStore(db, leaveStats), entrantShards);
+        this.accepts = new WaitingListOperations(new RetryCountingDataStore(db, acceptStats), entrantShards);
+        this.declines = new WaitingListOperations(new RetryCountingDataStore(db, declineStats), entrantShards);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        int entrants = Integer.parseInt(options.getOrDefault("entrants", "5000"));
+        int drawCount = Integer.parseInt(options.getOrDefault("draw", String.valueOf(Math.max(1, entrants / 10))));
+        long rampMillis = (long) (Double.parseDouble(options.getOrDefault("ramp", "5")) * 1000);
+        long minLatency = Long.parseLong(options.getOrDefault("min-latency", "20"));
+        long maxLatency = Long.parseLong(options.getOrDefault("max-latency", "80"));
+        double leave = Double.parseDouble(options.getOrDefault("leave", "0.05"));
+        double decline = Double.parseDouble(options.getOrDefault("decline", "0.3"));
+        int threads = Integer.parseInt(options.getOrDefault("threads", "1000"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "301"));
+        long maxEntrants = Long.parseLong(options.getOrDefault("max-entrants", "0"));
+        int shards = Integer.parseInt(options.getOrDefault("shards", String.valueOf(WaitingListOperations.DEFAULT_ENTRANT_SHARDS)));
+        double maxAbortRate = Double.parseDouble(options.getOrDefault("max-abort-rate", String.valueOf(DEFAULT_MAX_ABORT_RATE)));
+
+        MemoryDataStore db = new MemoryDataStore(threads);
+        db.setLatency(minLatency, maxLatency);
+        boolean passed;
+        try {
+            System.out.printf(Locale.ROOT, "%d entrants, %d max, %d drawn, %d ms ramp, %d-%d ms latency, %d transaction threads, %d shards%n",
+                    entrants, maxEntrants, drawCount, rampMillis, minLatency, maxLatency, threads, shards);
+            WaitingListLoadTest test = new WaitingListLoadTest(db, entrants, drawCount, rampMillis, leave, decline, seed, maxEntrants, shards);
+            test.run();
+            passed = test.checkAbortRate(maxAbortRate);
+        } finally {
+            db.shutdown();
+        }
+        if (!passed) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Runs every phase and prints the report.
+     */
+    public void run() throws Exception {
+        Map<String, Object> event = new HashMap<>();
+        event.put("event_name", "Load Test");
+        event.put("eventId", EVENT_ID);
+        event.put("event_max_entrants", maxEntrants);
+        db.set(DataStore.path("events", EVENT_ID), event).toFuture().get();
+
+        Phase joinPhase = new Phase();
+        for (int i = 0; i < entrants; i++) {
+            String userId = String.format(Locale.ROOT, "entrant-%07d", i);
+            submit(joinPhase, () -> join(joinPhase, userId));
+        }
+        // The entrant count is rolled up periodically while entrants join, as an organizer's device would.
+        ScheduledFuture<?> rollups = scheduler.scheduleAtFixedRate(
+                () -> joins.rollupEntrantCount(EVENT_ID), ROLLUP_INTERVAL_MILLIS, ROLLUP_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        joinPhase.await();
+        rollups.cancel(false);
+        long counted = joins.rollupEntrantCount(EVENT_ID).toFuture().get();
+
+        List<String> selectedIds = draw();
+
+        Phase respondPhase = new Phase();
+        for (String userId : selectedIds) {
+            submit(respondPhase, () -> respond(respondPhase, userId));
+        }
+        respondPhase.await();
+        scheduler.shutdown();
+
+        System.out.println(OperationStats.header());
+        for (OperationStats stats : new OperationStats[]{joinStats, leaveStats, acceptStats, declineStats}) {
+            System.out.println(stats.toRow());
+        }
+        String waitingListPath = DataStore.path("events", EVENT_ID, "waitingList");
+        long enrolled = db.count(StoreQuery.collection(waitingListPath).whereEqualTo("status", "Enrolled")).toFuture().get();
+        long selected = db.count(StoreQuery.collection(waitingListPath).whereEqualTo("status", "Selected")).toFuture().get();
+        System.out.printf(Locale.ROOT, "Entrants counted: %d, on the waiting list: %d%n",
+                counted, db.count(StoreQuery.collection(waitingListPath)).toFuture().get());
+        System.out.printf(Locale.ROOT, "Enrolled: %d, still selected: %d, spots drawn: %d%n", enrolled, selected, selectedIds.size());
+    }
+
+    /**
+     * Checks that no operation aborted more often than allowed, printing each operation that did.
+     *
+     * @param maxAbortRate The fraction of an operation's runs that may abort.
+     * @return True if every operation stayed within the rate, false otherwise.
+     */
+    public boolean checkAbortRate(double maxAbortRate) {
+        boolean passed = true;
+        for (OperationStats stats : new OperationStats[]{joinStats, leaveStats, acceptStats, declineStats}) {
+            if (stats.getCount() > 0 && stats.getAborted() > maxAbortRate * stats.getCount()) {
+                System.out.printf(Locale.ROOT, "FAILED: %d of %d %s operations aborted, more than the allowed %.2f%%%n",
+                        stats.getAborted(), stats.getCount(), stats.getName(), maxAbortRate * 100);
+                passed = false;
+            }
+        }
+        return passed;
+    }
+
+    /**
+     * Starts an operation at a random time within the ramp window, holding the phase open until it completes.
+     */
+    private void submit(Phase phase, Runnable operation) {
+        phase.register();
+        scheduler.schedule(operation, ThreadLocalRandom.current().nextLong(rampMillis + 1), TimeUnit.MILLISECONDS);
+    }
+
+    private void join(Phase phase, String userId) {
+        long start = joinStats.start();
+        joins.join(EVENT_ID, userId, userId, 53.5, -113.5, "Waitlisted")
+                .addOnCompleteListener(task -> {
+                    joinStats.finish(start, task.getException());
+                    if (task.isSuccessful() && ThreadLocalRandom.current().nextDouble() < leaveProbability) {
+                        leave(phase, userId);
+                    } else {
+                        phase.arrive();
+                    }
+                });
+    }
+
+    private void leave(Phase phase, String userId) {
+        long start = leaveStats.start();
+        leaves.leave(EVENT_ID, userId)
+                .addOnCompleteListener(task -> {
+                    leaveStats.finish(start, task.getException());
+                    phase.arrive();
+                });
+    }
+
+    /**
+     * Accepts or declines a selected spot. Entrants promoted into a declined spot respond in turn.
+     */
+    private void respond(Phase phase, String userId) {
+        if (ThreadLocalRandom.current().nextDouble() >= declineProbability) {
+            long start = acceptStats.start();
+            accepts.setStatus(EVENT_ID, userId, "Enrolled")
+                    .addOnCompleteListener(task -> {
+                        acceptStats.finish(start, task.getException());
+                        phase.arrive();
+                    });
+            return;
+        }
+
+        long start = declineStats.start();
+        declines.release(EVENT_ID, Collections.singletonList(userId), "Declined", 0)
+                .addOnCompleteListener(task -> {
+                    declineStats.finish(start, task.getException());
+                    if (task.isSuccessful() && task.getResult() != null) {
+                        for (String promotedId : task.getResult()) {
+                            submit(phase, () -> respond(phase, promotedId));
+                        }
+                    }
+                    phase.arrive();
+                });
+    }
+
+    /**
+     * Draws the event the way a draw does, ranking the whole waiting list and selecting the first ranks.
+     *
+     * @return The IDs of the selected entrants.
+     */
+    private List<String> draw() throws Exception {
+        String eventPath = DataStore.path("events", EVENT_ID);
+        List<StoredDocument> waitingList = db.query(
+                StoreQuery.collection(DataStore.path(eventPath, "waitingList")).orderBy("userId")).toFuture().get();
+        int[] drawOrder = DrawEngine.rankPositions(waitingList.size(), seed);
+        int selectedCount = Math.min(drawCount, drawOrder.length);
+        Map<String, Object> eventData = db.get(eventPath).toFuture().get().getData();
+
+        List<String> selectedIds = new ArrayList<>();
+        List<CompletableFuture<Void>> commits = new ArrayList<>();
+        DataStore.Batch batch = db.batch();
+        int operations = 0;
+        for (int rank = 0; rank < drawOrder.length; rank++) {
+            StoredDocument entrant = waitingList.get(drawOrder[rank]);
+            String userId = entrant.getString("userId");
+            boolean selected = rank < selectedCount;
+            if (selected) {
+                selectedIds.add(userId);
+            }
+
+            String status = selected ? "Selected" : "Not Selected";
+            Map<String, Object> outcome = new HashMap<>();
+            outcome.put("status", status);
+            outcome.put("drawRank", rank);
+            batch.update(entrant.getPath(), outcome);
+            batch.set(DataStore.path(eventPath, "drawOrder", String.valueOf(rank)), Collections.singletonMap("userId", userId));
+            batch.set(RegistrationIndex.registrationPath(userId, EVENT_ID),
+                    RegistrationIndex.toRegistration(EVENT_ID, eventData, status));
+            operations += 3;
+            // Leave room for the next entrant's 3 writes and the final event update.
+            if (operations + 4 > BATCH_SIZE) {
+                commits.add(batch.commit().toFuture());
+                batch = db.batch();
+                operations = 0;
+            }
+        }
+        batch.update(eventPath, "nextDrawRank", selectedCount);
+        commits.add(batch.commit().toFuture());
+        CompletableFuture.allOf(commits.toArray(new CompletableFuture<?>[0])).get();
+        return selectedIds;
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Options are given as --name=value: " + arg);
+            }
+            int separator = arg.indexOf('=');
+            options.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        return options;
+    }
+
+    /**
+     * Phase tracks the operations started in a phase, so the test can wait for all of them, including
+     * operations started by other operations.
+     */
+    private static class Phase {
+        private final AtomicInteger pending = new AtomicInteger(1);
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        void register() {
+            pending.incrementAndGet();
+        }
+
+        void arrive() {
+            if (pending.decrementAndGet() == 0) {
+                done.complete(null);
+            }
+        }
+
+        void await() throws Exception {
+            arrive();
+            done.get();
+        }
+    }
+}
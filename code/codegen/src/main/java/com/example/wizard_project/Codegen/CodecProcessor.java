@@ -0,0 +1,279 @@
+package com.example.wizard_project.Codegen;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * CodecProcessor generates a DocumentCodec for every class annotated with StoredModel.
+ * The generated codec reads each StoredField with the DocumentFields getter for its type and assigns the field
+ * directly, and writes every StoredField into a map for the database, so no reflection is needed at run time.
+ * The annotations are looked up by name, so the processor does not depend on the module that declares them.
+ */
+public class CodecProcessor extends AbstractProcessor {
+    private static final String PACKAGE = "com.example.wizard_project.Codec";
+    private static final String STORED_MODEL = PACKAGE + ".StoredModel";
+    private static final String STORED_FIELD = PACKAGE + ".StoredField";
+    private static final String DOCUMENT_CODEC = PACKAGE + ".DocumentCodec";
+    private static final String DOCUMENT_FIELDS = "com.example.wizard_project.Core.DocumentFields";
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        // StoredField is claimed too, so the compiler does not warn that nothing processed it.
+        return new HashSet<>(Arrays.asList(STORED_MODEL, STORED_FIELD));
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            if (annotation.getQualifiedName().contentEquals(STORED_FIELD)) {
+                // Stored fields are read with their model; one outside a model would silently not be stored.
+                for (Element field : roundEnv.getElementsAnnotatedWith(annotation)) {
+                    if (findAnnotation(field.getEnclosingElement(), STORED_MODEL) == null) {
+                        error(field, "@StoredField fields must be declared in a @StoredModel class");
+                    }
+                }
+                continue;
+            }
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() != ElementKind.CLASS) {
+                    error(element, "@StoredModel can only be applied to classes");
+                    continue;
+                }
+                TypeElement model = (TypeElement) element;
+                List<StoredFieldInfo> fields = readFields(model);
+                if (fields != null && hasConstructor(model)) {
+                    writeCodec(model, fields);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads the stored fields of a model class.
+     *
+     * @return The stored fields, or null if one of them cannot be generated.
+     */
+    private List<StoredFieldInfo> readFields(TypeElement model) {
+        List<StoredFieldInfo> fields = new ArrayList<>();
+        boolean valid = true;
+        for (Element member : model.getEnclosedElements()) {
+            if (member.getKind() != ElementKind.FIELD) {
+                continue;
+            }
+            AnnotationMirror storedField = findAnnotation(member, STORED_FIELD);
+            if (storedField == null) {
+                continue;
+            }
+            VariableElement field = (VariableElement) member;
+            FieldType type = FieldType.of(field.asType());
+            if (field.getModifiers().contains(Modifier.PRIVATE) || field.getModifiers().contains(Modifier.FINAL)
+                    || field.getModifiers().contains(Modifier.STATIC)) {
+                error(field, "@StoredField fields must not be private, final or static");
+                valid = false;
+            } else if (type == null) {
+                error(field, "@StoredField does not support fields of type " + field.asType());
+                valid = false;
+            } else if ((Boolean) annotationValue(storedField, "documentId") && type != FieldType.STRING) {
+                error(field, "@StoredField document IDs must be String fields");
+                valid = false;
+            } else {
+                fields.add(new StoredFieldInfo(field.getSimpleName().toString(),
+                        (String) annotationValue(storedField, "value"),
+                        (Boolean) annotationValue(storedField, "documentId"), type));
+            }
+        }
+        return valid ? fields : null;
+    }
+
+    /**
+     * Checks that a model class has a constructor without parameters that the codec can call.
+     */
+    private boolean hasConstructor(TypeElement model) {
+        for (Element member : model.getEnclosedElements()) {
+            if (member.getKind() == ElementKind.CONSTRUCTOR
+                    && ((ExecutableElement) member).getParameters().isEmpty()
+                    && !member.getModifiers().contains(Modifier.PRIVATE)) {
+                return true;
+            }
+        }
+        error(model, "@StoredModel classes need a constructor without parameters that is not private");
+        return false;
+    }
+
+    private void writeCodec(TypeElement model, List<StoredFieldInfo> fields) {
+        String packageName = ((PackageElement) model.getEnclosingElement()).getQualifiedName().toString();
+        String modelName = model.getSimpleName().toString();
+        String codecName = modelName + "Codec";
+
+        StringBuilder source = new StringBuilder();
+        source.append("package ").append(packageName).append(";\n\n");
+        source.append("/**\n")
+                .append(" * Converts ").append(modelName).append(" objects to and from their stored documents.\n")
+                .append(" * Generated by CodecProcessor from the @StoredField fields of ").append(modelName)
+                .append("; do not edit.\n")
+                .append(" */\n");
+        source.append("public final class ").append(codecName).append(" implements ")
+                .append(DOCUMENT_CODEC).append("<").append(modelName).append("> {\n");
+        for (StoredFieldInfo field : fields) {
+            source.append("    public static final String ").append(field.constantName())
+                    .append(" = \"").append(field.documentName).append("\";\n");
+        }
+        source.append("\n    private static final ").append(codecName).append(" INSTANCE = new ")
+                .append(codecName).append("();\n\n");
+        source.append("    private ").append(codecName).append("() {\n    }\n\n");
+        source.append("    public static ").append(codecName).append(" getInstance() {\n")
+                .append("        return INSTANCE;\n    }\n\n");
+
+        source.append("    @Override\n");
+        source.append("    public ").append(modelName).append(" decode(").append(DOCUMENT_FIELDS).append(" document) {\n");
+        source.append("        ").append(modelName).append(" model = new ").append(modelName).append("();\n");
+        for (StoredFieldInfo field : fields) {
+            String local = "_" + field.javaName;
+            source.append("        ").append(field.type.boxedName).append(" ").append(local)
+                    .append(" = document.").append(field.type.getter).append("(").append(field.constantName()).append(");\n");
+            if (field.documentId) {
+                source.append("        model.").append(field.javaName).append(" = ").append(local)
+                        .append(" != null ? ").append(local).append(" : document.getId();\n");
+            } else {
+                source.append("        if (").append(local).append(" != null) {\n")
+                        .append("            model.").append(field.javaName).append(" = ")
+                        .append(local).append(field.type.conversion).append(";\n")
+                        .append("        }\n");
+            }
+        }
+        source.append("        return model;\n    }\n\n");
+
+        source.append("    @Override\n");
+        source.append("    public java.util.Map<String, Object> encode(").append(modelName).append(" model) {\n");
+        source.append("        java.util.Map<String, Object> fields = new java.util.HashMap<>(")
+                .append(Math.max(16, fields.size() * 4 / 3 + 1)).append(");\n");
+        for (StoredFieldInfo field : fields) {
+            source.append("        fields.put(").append(field.constantName()).append(", model.")
+                    .append(field.javaName).append(");\n");
+        }
+        source.append("        return fields;\n    }\n}\n");
+
+        try {
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(packageName + "." + codecName, model);
+            try (Writer writer = file.openWriter()) {
+                writer.write(source.toString());
+            }
+        } catch (IOException e) {
+            error(model, "Could not write " + codecName + ": " + e.getMessage());
+        }
+    }
+
+    private static AnnotationMirror findAnnotation(Element element, String annotationName) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotationName)) {
+                return mirror;
+            }
+        }
+        return null;
+    }
+
+    private Object annotationValue(AnnotationMirror mirror, String name) {
+        Map<? extends ExecutableElement, ? extends AnnotationValue> values =
+                processingEnv.getElementUtils().getElementValuesWithDefaults(mirror);
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> value : values.entrySet()) {
+            if (value.getKey().getSimpleName().contentEquals(name)) {
+                return value.getValue().getValue();
+            }
+        }
+        return null;
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    /**
+     * A stored field of a model class.
+     */
+    private static class StoredFieldInfo {
+        private final String javaName;
+        private final String documentName;
+        private final boolean documentId;
+        private final FieldType type;
+
+        private StoredFieldInfo(String javaName, String documentName, boolean documentId, FieldType type) {
+            this.javaName = javaName;
+            this.documentName = documentName;
+            this.documentId = documentId;
+            this.type = type;
+        }
+
+        /**
+         * @return The name of the constant holding the field's document name, such as EVENT_NAME for event_name.
+         */
+        private String constantName() {
+            return javaName.replaceAll("([a-z0-9])([A-Z])", "$1_$2").toUpperCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * The field types a codec can read, with the DocumentFields getter that reads each one.
+     */
+    private enum FieldType {
+        STRING("java.lang.String", "getString", "java.lang.String", ""),
+        DATE("java.util.Date", "getDate", "java.util.Date", ""),
+        INT("int", "getLong", "java.lang.Long", ".intValue()"),
+        INTEGER("java.lang.Integer", "getLong", "java.lang.Long", ".intValue()"),
+        LONG("long", "getLong", "java.lang.Long", ""),
+        BOXED_LONG("java.lang.Long", "getLong", "java.lang.Long", ""),
+        DOUBLE("double", "getDouble", "java.lang.Double", ""),
+        BOXED_DOUBLE("java.lang.Double", "getDouble", "java.lang.Double", ""),
+        BOOLEAN("boolean", "getBoolean", "java.lang.Boolean", ""),
+        BOXED_BOOLEAN("java.lang.Boolean", "getBoolean", "java.lang.Boolean", "");
+
+        private final String typeName;
+        private final String getter;
+        private final String boxedName;
+        private final String conversion;
+
+        FieldType(String typeName, String getter, String boxedName, String conversion) {
+            this.typeName = typeName;
+            this.getter = getter;
+            this.boxedName = boxedName;
+            this.conversion = conversion;
+        }
+
+        private static FieldType of(TypeMirror type) {
+            for (FieldType fieldType : values()) {
+                if (fieldType.typeName.equals(type.toString())) {
+                    return fieldType;
+                }
+            }
+            return null;
+        }
+    }
+}
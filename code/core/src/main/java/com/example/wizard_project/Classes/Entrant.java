@@ -1,14 +1,24 @@
 package com.example.wizard_project.Classes;
 
+import com.example.wizard_project.Codec.StoredField;
+import com.example.wizard_project.Codec.StoredModel;
+
 /**
- * Represents an entrant in an event.
+ * Represents an entrant in an event, as read from the event's waiting list through the generated {@link EntrantCodec}.
  */
+@StoredModel
 public class Entrant {
-    private String name;
-    private String status;
-    private String userId;
-    private Double latitude;
-    private Double longitude;
+    @StoredField("name") String name;
+    @StoredField("status") String status;
+    @StoredField(value = "userId", documentId = true) String userId;
+    @StoredField("latitude") Double latitude;
+    @StoredField("longitude") Double longitude;
+
+    /**
+     * Constructs an empty Entrant, filled in by {@link EntrantCodec}.
+     */
+    Entrant() {
+    }
 
     /**
      * Constructs a new Entrant object with the provided details.
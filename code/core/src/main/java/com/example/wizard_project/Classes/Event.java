@@ -1,26 +1,39 @@
 package com.example.wizard_project.Classes;
 
+import com.example.wizard_project.Codec.StoredField;
+import com.example.wizard_project.Codec.StoredModel;
+
 import java.io.Serializable;
 import java.util.Date;
 import java.util.UUID;
 
 /**
  * Representation of an event, created by an organizer and joined by entrants.
+ * Events are stored and read through the generated {@link EventCodec}.
  */
+@StoredModel
 public class Event implements Serializable {
-    private final String event_location;
-    private final String facilityId;
-    private String eventId;
-    private String event_name;
-    private String event_description;
-    private int event_price;
-    private int event_max_entrants;
-    private Date registration_open;
-    private Date registration_close;
-    private boolean geolocation_requirement;
-    private String event_image_path;
-    private String posterUri;
-    private boolean isDrawn;
+    @StoredField("event_location") String event_location;
+    @StoredField("facilityId") String facilityId;
+    @StoredField(value = "eventId", documentId = true) String eventId;
+    @StoredField("event_name") String event_name;
+    @StoredField("event_description") String event_description;
+    @StoredField("event_price") int event_price;
+    @StoredField("event_max_entrants") int event_max_entrants;
+    @StoredField("registration_open") Date registration_open;
+    @StoredField("registration_close") Date registration_close;
+    @StoredField("geolocation_requirement") boolean geolocation_requirement;
+    @StoredField("event_image_path") String event_image_path;
+    @StoredField("event_card_path") String event_card_path;
+    @StoredField("event_thumbnail_path") String event_thumbnail_path;
+    @StoredField("posterUri") String posterUri;
+    @StoredField("isDrawn") boolean isDrawn;
+
+    /**
+     * Constructor for an empty event, filled in by {@link EventCodec}.
+     */
+    Event() {
+    }
 
     /**
      * Constructor for initializing an Event instance with essential details.
@@ -124,6 +137,22 @@ public class Event implements Serializable {
         this.event_image_path = eventImagePath;
     }
 
+    public String getEvent_card_path() {
+        return this.event_card_path;
+    }
+
+    public void setEvent_card_path(String eventCardPath) {
+        this.event_card_path = eventCardPath;
+    }
+
+    public String getEvent_thumbnail_path() {
+        return this.event_thumbnail_path;
+    }
+
+    public void setEvent_thumbnail_path(String eventThumbnailPath) {
+        this.event_thumbnail_path = eventThumbnailPath;
+    }
+
     public String getEvent_location() {
         return event_location;
     }
@@ -1,8 +1,7 @@
 package com.example.wizard_project.Classes;
 
-import com.google.firebase.firestore.DocumentReference;
-import com.google.firebase.firestore.DocumentSnapshot;
-import com.google.firebase.firestore.FirebaseFirestore;
+import com.example.wizard_project.Codec.StoredField;
+import com.example.wizard_project.Codec.StoredModel;
 
 import java.io.Serializable;
 import java.util.ArrayList;
@@ -10,15 +9,18 @@ import java.util.List;
 
 /**
  * The Facility class represents a facility in the application, and provides methods to manage facility data.
- * This class is designed to interact with Firestore to store and retrieve facility data.
+ * This class is independent of the database; facilities are stored and read through the generated {@link FacilityCodec}.
  */
+@StoredModel
 public class Facility implements Serializable {
-    private String facility_name;
-    private String facility_location;
-    private String userId;
-    private String facilityId;
-    private String facility_imagePath;
-    private String posterUri;
+    @StoredField("name") String facility_name;
+    @StoredField("location") String facility_location;
+    @StoredField("userId") String userId;
+    @StoredField(value = "facilityId", documentId = true) String facilityId;
+    @StoredField("facility_imagePath") String facility_imagePath;
+    @StoredField("facility_cardPath") String facility_cardPath;
+    @StoredField("facility_thumbnailPath") String facility_thumbnailPath;
+    @StoredField("posterUri") String posterUri;
     private final List<Event> eventList;
 
     /**
@@ -90,6 +92,22 @@ public class Facility implements Serializable {
         this.facility_imagePath = facilityImagePath;
     }
 
+    public String getFacilityCardPath() {
+        return this.facility_cardPath;
+    }
+
+    public void setFacilityCardPath(String facilityCardPath) {
+        this.facility_cardPath = facilityCardPath;
+    }
+
+    public String getFacilityThumbnailPath() {
+        return this.facility_thumbnailPath;
+    }
+
+    public void setFacilityThumbnailPath(String facilityThumbnailPath) {
+        this.facility_thumbnailPath = facilityThumbnailPath;
+    }
+
     public String getposterUri() {
         return this.posterUri;
     }
@@ -106,18 +124,4 @@ public class Facility implements Serializable {
     public void addEvent(Event event) {
         eventList.add(event);
     }
-
-    /**
-     * Populates the facility object with data from a Firestore document.
-     *
-     * @param document The Firestore document containing facility data.
-     */
-    public void setFacilityData(DocumentSnapshot document) {
-        this.facilityId = (String) document.get("facilityId");
-        this.facility_name = (String) document.get("name");
-        this.facility_location = (String) document.get("location");
-        this.userId = (String) document.get("userId");
-        this.posterUri = (String) document.get("posterUri");
-        this.facility_imagePath = (String) document.get("facility_imagePath");
-    }
 }
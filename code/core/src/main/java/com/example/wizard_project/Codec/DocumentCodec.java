@@ -0,0 +1,29 @@
+package com.example.wizard_project.Codec;
+
+import com.example.wizard_project.Core.DocumentFields;
+
+import java.util.Map;
+
+/**
+ * DocumentCodec converts a model to and from the fields of its stored documents.
+ * Implementations are generated for every {@link StoredModel} class.
+ *
+ * @param <T> The model class.
+ */
+public interface DocumentCodec<T> {
+    /**
+     * Constructs a model from a document.
+     *
+     * @param document The fields of the document.
+     * @return The model populated with the document's data.
+     */
+    T decode(DocumentFields document);
+
+    /**
+     * Creates a map of a model's data to be stored in the database.
+     *
+     * @param model The model to store.
+     * @return A map of every stored field of the model.
+     */
+    Map<String, Object> encode(T model);
+}
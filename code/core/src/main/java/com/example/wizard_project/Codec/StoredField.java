@@ -0,0 +1,26 @@
+package com.example.wizard_project.Codec;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a field of a {@link StoredModel} class that is stored in the model's documents.
+ * The field must be neither private nor final, so the generated codec can assign it, and must be a String, Date,
+ * int, long, double or boolean, or the boxed form of one of those types.
+ * A field missing from a document keeps the value the model's constructor gave it.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.FIELD)
+public @interface StoredField {
+    /**
+     * @return The name of the field in the document.
+     */
+    String value();
+
+    /**
+     * @return True if the field holds the document's ID, and is read from the ID when the document lacks the field.
+     */
+    boolean documentId() default false;
+}
@@ -0,0 +1,17 @@
+package com.example.wizard_project.Codec;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a model class stored as database documents. The codec processor generates a {@link DocumentCodec}
+ * named after the class, such as EventCodec for Event, in the same package. The codec reads and writes the
+ * class's {@link StoredField} fields directly, so models are decoded without reflection.
+ * The class needs a constructor without parameters that is not private.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface StoredModel {
+}
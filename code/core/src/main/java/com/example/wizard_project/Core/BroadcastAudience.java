@@ -0,0 +1,128 @@
+package com.example.wizard_project.Core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * BroadcastAudience describes which users a broadcast notification is for: every entrant on the event's
+ * waiting list, the entrants with one of a set of statuses, or an explicit set of users.
+ * Clients match broadcasts against their own waiting list entries, so a broadcast is a single document
+ * however many users it reaches.
+ */
+public final class BroadcastAudience {
+    public enum Kind {
+        ALL,
+        STATUS,
+        USERS
+    }
+
+    private final Kind kind;
+    private final List<String> values;
+
+    private BroadcastAudience(Kind kind, List<String> values) {
+        this.kind = kind;
+        this.values = Collections.unmodifiableList(new ArrayList<>(values));
+    }
+
+    /**
+     * @return The audience of every entrant on the event's waiting list.
+     */
+    public static BroadcastAudience allEntrants() {
+        return new BroadcastAudience(Kind.ALL, Collections.emptyList());
+    }
+
+    /**
+     * @param statuses The statuses an entrant must have one of, such as "Selected".
+     * @return The audience of the entrants with one of the statuses.
+     */
+    public static BroadcastAudience withStatus(String... statuses) {
+        return new BroadcastAudience(Kind.STATUS, Arrays.asList(statuses));
+    }
+
+    /**
+     * @param userIds The IDs of the users in the audience.
+     * @return The audience of the given users.
+     */
+    public static BroadcastAudience users(Collection<String> userIds) {
+        return new BroadcastAudience(Kind.USERS, new ArrayList<>(userIds));
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * @return The statuses of a STATUS audience, or the user IDs of a USERS audience.
+     */
+    public List<String> getValues() {
+        return values;
+    }
+
+    /**
+     * @return True if matching the audience needs the user's waiting list entry, false if the user ID is enough.
+     */
+    public boolean needsEntry() {
+        return kind != Kind.USERS;
+    }
+
+    /**
+     * Checks whether a user is in the audience.
+     *
+     * @param userId The ID of the user.
+     * @param status The user's status on the event's waiting list, or null if the user is not on it.
+     * @return True if the broadcast is for the user, false otherwise.
+     */
+    public boolean matches(String userId, String status) {
+        switch (kind) {
+            case ALL:
+                return status != null;
+            case STATUS:
+                return status != null && values.contains(status);
+            case USERS:
+                return values.contains(userId);
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * @return The audience as stored in a broadcast document.
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> audienceData = new HashMap<>();
+        audienceData.put("kind", kind.name());
+        audienceData.put("values", new ArrayList<>(values));
+        return audienceData;
+    }
+
+    /**
+     * Reads an audience stored in a broadcast document.
+     *
+     * @param audienceData The stored audience.
+     * @return The audience, or null if the data is not a valid audience.
+     */
+    public static BroadcastAudience fromMap(Object audienceData) {
+        if (!(audienceData instanceof Map)) {
+            return null;
+        }
+        Map<?, ?> fields = (Map<?, ?>) audienceData;
+        Kind kind;
+        try {
+            kind = Kind.valueOf(String.valueOf(fields.get("kind")));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        List<String> values = new ArrayList<>();
+        if (fields.get("values") instanceof List) {
+            for (Object value : (List<?>) fields.get("values")) {
+                values.add(String.valueOf(value));
+            }
+        }
+        return new BroadcastAudience(kind, values);
+    }
+}
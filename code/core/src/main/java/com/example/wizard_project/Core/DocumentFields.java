@@ -0,0 +1,25 @@
+package com.example.wizard_project.Core;
+
+import java.util.Date;
+
+/**
+ * DocumentFields provides read access to the fields of a stored document.
+ * It decouples model decoding from the database, so the same decoding logic runs
+ * against live database documents in the app and against in-memory data on a plain JVM.
+ */
+public interface DocumentFields {
+    /**
+     * @return The ID of the document.
+     */
+    String getId();
+
+    String getString(String field);
+
+    Long getLong(String field);
+
+    Double getDouble(String field);
+
+    Boolean getBoolean(String field);
+
+    Date getDate(String field);
+}
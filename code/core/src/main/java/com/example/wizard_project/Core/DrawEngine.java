@@ -0,0 +1,128 @@
+package com.example.wizard_project.Core;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * DrawEngine provides the seeded random selection used by lottery draws.
+ * Every method is driven by an explicit seed, so a draw can be replayed exactly from the
+ * seed and the ordered population it was performed on.
+ */
+public class DrawEngine {
+    private DrawEngine() {
+    }
+
+    /**
+     * Draws indices from a population using a partial Fisher-Yates shuffle.
+     * Only the drawn positions are swapped, so the cost is proportional to the draw count
+     * rather than the population size.
+     * @param populationSize The number of items to draw from.
+     * @param drawCount The number of items to draw.
+     * @param seed The seed driving the draw.
+     * @return The drawn indices, in the order they were drawn.
+     */
+    public static int[] drawIndices(int populationSize, int drawCount, long seed) {
+        int count = Math.max(0, Math.min(drawCount, populationSize));
+        SplittableRandom random = new SplittableRandom(seed);
+        Map<Integer, Integer> swapped = new HashMap<>();
+        int[] drawn = new int[count];
+
+        for (int i = 0; i < count; i++) {
+            int j = i + random.nextInt(populationSize - i);
+            Integer valueAtJ = swapped.get(j);
+            Integer valueAtI = swapped.get(i);
+            drawn[i] = valueAtJ != null ? valueAtJ : j;
+            swapped.put(j, valueAtI != null ? valueAtI : i);
+        }
+        return drawn;
+    }
+
+    /**
+     * Shuffles every position of a population into a full draw order.
+     * This performs the same swaps as {@link #drawIndices} with the same seed, so the first entries of
+     * the full order are exactly the indices that a smaller draw would select.
+     * @param populationSize The number of items to rank.
+     * @param seed The seed driving the draw.
+     * @return Every index of the population, in draw order.
+     */
+    public static int[] rankPositions(int populationSize, long seed) {
+        int size = Math.max(0, populationSize);
+        SplittableRandom random = new SplittableRandom(seed);
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        for (int i = 0; i < size; i++) {
+            int j = i + random.nextInt(size - i);
+            int swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+        return order;
+    }
+
+    /**
+     * Reservoir draws a fixed number of items from a stream of unknown length.
+     * Memory stays proportional to the draw count no matter how many items are offered.
+     * @param <T> The type of item drawn.
+     */
+    public static class Reservoir<T> {
+        private final int capacity;
+        private final SplittableRandom random;
+        private final long orderSeed;
+        private final List<T> sample = new ArrayList<>();
+        private long seen = 0;
+
+        /**
+         * Constructs a reservoir that keeps at most the given number of items.
+         * @param capacity The number of items to draw.
+         * @param seed The seed driving the draw.
+         */
+        public Reservoir(int capacity, long seed) {
+            this.capacity = Math.max(0, capacity);
+            this.random = new SplittableRandom(seed);
+            this.orderSeed = random.nextLong();
+        }
+
+        /**
+         * Offers the next item in the stream to the reservoir.
+         * @param item The item to offer.
+         */
+        public void offer(T item) {
+            seen++;
+            if (sample.size() < capacity) {
+                sample.add(item);
+            }
+            else if (capacity > 0) {
+                long slot = random.nextLong(seen);
+                if (slot < capacity) {
+                    sample.set((int) slot, item);
+                }
+            }
+        }
+
+        /**
+         * @return The number of items offered so far.
+         */
+        public long getSeenCount() {
+            return seen;
+        }
+
+        /**
+         * Returns the drawn items in a random draw order.
+         * The order is derived from the seed, so the same items offered with the same seed are always
+         * returned in the same order, however many times this is called.
+         * @return The drawn items.
+         */
+        public List<T> getSample() {
+            List<T> ordered = new ArrayList<>(sample.size());
+            for (int index : drawIndices(sample.size(), sample.size(), orderSeed)) {
+                ordered.add(sample.get(index));
+            }
+            return ordered;
+        }
+    }
+}
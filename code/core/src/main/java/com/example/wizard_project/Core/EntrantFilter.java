@@ -0,0 +1,64 @@
+package com.example.wizard_project.Core;
+
+import com.example.wizard_project.Classes.Entrant;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * EntrantFilter selects entrants by their status in an event.
+ */
+public class EntrantFilter {
+    public static final String ALL = "All";
+
+    private EntrantFilter() {
+    }
+
+    /**
+     * Checks whether an entrant is shown under a status filter.
+     *
+     * @param entrant The entrant to check.
+     * @param status  The status filter, or null, empty or "All" for no filter.
+     * @return True if the entrant is shown, false otherwise.
+     */
+    public static boolean matches(Entrant entrant, CharSequence status) {
+        if (status == null || status.length() == 0 || ALL.contentEquals(status)) {
+            return true;
+        }
+        return entrant.getStatus() != null && entrant.getStatus().equalsIgnoreCase(status.toString());
+    }
+
+    /**
+     * Returns the entrants shown under a status filter, in their original order.
+     *
+     * @param entrants The entrants to filter.
+     * @param status   The status filter, or null, empty or "All" for no filter.
+     * @return A new list of the matching entrants.
+     */
+    public static List<Entrant> filter(List<Entrant> entrants, CharSequence status) {
+        List<Entrant> filtered = new ArrayList<>();
+        for (Entrant entrant : entrants) {
+            if (matches(entrant, status)) {
+                filtered.add(entrant);
+            }
+        }
+        return filtered;
+    }
+
+    /**
+     * Counts the entrants shown under a status filter.
+     *
+     * @param entrants The entrants to count.
+     * @param status   The status filter, or null, empty or "All" for no filter.
+     * @return The number of matching entrants.
+     */
+    public static int count(List<Entrant> entrants, CharSequence status) {
+        int count = 0;
+        for (Entrant entrant : entrants) {
+            if (matches(entrant, status)) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
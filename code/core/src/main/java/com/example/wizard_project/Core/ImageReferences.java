@@ -0,0 +1,257 @@
+package com.example.wizard_project.Core;
+
+import com.example.wizard_project.Store.DataStore;
+import com.example.wizard_project.Store.DataStoreException;
+import com.example.wizard_project.Store.FieldTransform;
+import com.example.wizard_project.Store.StoreTask;
+import com.example.wizard_project.Store.StoredDocument;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * ImageReferences counts how many documents refer to each stored image. Images are stored under the SHA-256 hash
+ * of their content, so the same picture uploaded twice is stored once, and imageBlobs/{hash} counts the documents
+ * that recorded it. The image's files are only deleted once its last reference is released.
+ *
+ * <p>Uploading an image only records that it is stored. The reference is counted by {@link #moveReference}, in the
+ * same transaction that saves the image's path on the document, which also releases the image the document
+ * recorded before. A save that never happens counts nothing, and saving a document with the image it already
+ * records changes no count.
+ *
+ * <p>Storing an image and counting a reference to it stamp the blob's {@link #LAST_REFERENCED_FIELD}, and the
+ * {@code ImageCollector} marks a blob as {@link #SWEEPING_FIELD} before deleting any of its files. A blob referenced
+ * since a collection started is not swept, and a blob being swept counts as not stored, so a duplicate upload
+ * uploads the files again instead of referring to files about to be deleted.
+ *
+ * <p>Images uploaded before images were counted have no count, and belong to the single document that
+ * recorded them, so releasing one always deletes it.
+ */
+public class ImageReferences {
+    public static final String BLOBS_COLLECTION = "imageBlobs";
+    public static final String REFERENCES_FIELD = "references";
+    public static final String LAST_REFERENCED_FIELD = "lastReferencedAt"; // Server time the image was last stored or referenced
+    public static final String SWEEPING_FIELD = "sweeping"; // Set while the collector deletes the image's files
+    private final DataStore db;
+
+    /**
+     * Constructs ImageReferences for the counts in the given data store.
+     *
+     * @param db The data store holding the counts.
+     */
+    public ImageReferences(DataStore db) {
+        this.db = db;
+    }
+
+    /**
+     * @param imageId The ID of the image, the hash of its content.
+     * @return The path of the image's reference count.
+     */
+    public static String blobPath(String imageId) {
+        return DataStore.path(BLOBS_COLLECTION, imageId);
+    }
+
+    /**
+     * Checks whether an image is already stored, so a duplicate upload can be skipped.
+     *
+     * @param imageId The ID of the image.
+     * @return A task resolving to true if the image is stored, or false if it has to be uploaded first,
+     * including while its files are being swept.
+     */
+    public StoreTask<Boolean> isStored(String imageId) {
+        return db.get(blobPath(imageId)).onSuccessTask(blob -> StoreTask.forResult(isStored(blob)));
+    }
+
+    /**
+     * Records that an image's files are uploaded, with no references yet unless it was already recorded.
+     * A sweep of the image's files that is still running leaves the newly uploaded files alone.
+     *
+     * @param imageId The ID of the image.
+     * @return A task that completes once the image is recorded.
+     */
+    public StoreTask<Void> store(String imageId) {
+        String blobPath = blobPath(imageId);
+        return db.runTransaction(transaction -> {
+            StoredDocument blob = transaction.get(blobPath);
+            Map<String, Object> stored = new HashMap<>();
+            stored.put(LAST_REFERENCED_FIELD, FieldTransform.serverTimestamp());
+            if (blob.exists()) {
+                stored.put(SWEEPING_FIELD, FieldTransform.delete());
+                transaction.update(blobPath, stored);
+            } else {
+                stored.put(REFERENCES_FIELD, 0L);
+                transaction.set(blobPath, stored);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Marks an image as being swept before one of its files is deleted, unless it was stored or referenced since
+     * the given time. Images without a count, uploaded before images were counted, can always be swept.
+     *
+     * @param imageId The ID of the image.
+     * @param since   The time the collection started.
+     * @return A task resolving to true if the file may be deleted, or false if the image is in use again.
+     */
+    public StoreTask<Boolean> markSweeping(String imageId, Date since) {
+        String blobPath = blobPath(imageId);
+        return db.runTransaction(transaction -> {
+            StoredDocument blob = transaction.get(blobPath);
+            if (!blob.exists()) {
+                return true;
+            }
+            Date lastReferenced = blob.getDate(LAST_REFERENCED_FIELD);
+            if (lastReferenced != null && !lastReferenced.before(since)) {
+                return false;
+            }
+            transaction.update(blobPath, SWEEPING_FIELD, true);
+            return true;
+        });
+    }
+
+    /**
+     * Moves a document's reference from the image it records to the image it is about to be saved with.
+     * This runs the reads and the count writes of a transaction that then saves the document, so the counts
+     * change only if the document is saved. Nothing changes if the document keeps the same image.
+     *
+     * @param transaction The transaction saving the document, before any of its writes.
+     * @param ownerPath   The path of the document, which need not exist yet.
+     * @param field       The field holding the storage path of the full image.
+     * @param newPath     The storage path of the full image the document is saved with, or empty for none.
+     * @return The ID of the image the document recorded before if that was its last reference, so its files should
+     * be deleted once the transaction commits, or null otherwise.
+     * @throws DataStoreException If the new image is no longer stored, or the reads fail.
+     */
+    public String moveReference(DataStore.Transaction transaction, String ownerPath, String field, String newPath)
+            throws DataStoreException {
+        StoredDocument owner = transaction.get(ownerPath);
+        String oldId = imageIdOf(owner.exists() ? owner.getString(field) : null);
+        String newId = imageIdOf(newPath);
+        if (Objects.equals(oldId, newId)) {
+            return null;
+        }
+
+        StoredDocument newBlob = newId != null ? transaction.get(blobPath(newId)) : null;
+        if (newBlob != null && !isStored(newBlob)) {
+            throw new DataStoreException("Image " + newId + " is no longer stored", DataStoreException.Code.NOT_FOUND);
+        }
+        StoredDocument oldBlob = oldId != null ? transaction.get(blobPath(oldId)) : null;
+
+        if (newBlob != null) {
+            Map<String, Object> referenced = new HashMap<>();
+            referenced.put(REFERENCES_FIELD, references(newBlob) + 1);
+            referenced.put(LAST_REFERENCED_FIELD, FieldTransform.serverTimestamp());
+            transaction.update(blobPath(newId), referenced);
+        }
+        if (oldBlob == null) {
+            return null;
+        }
+        long references = references(oldBlob);
+        if (references <= 1) {
+            if (oldBlob.exists()) {
+                transaction.delete(blobPath(oldId));
+            }
+            return oldId;
+        }
+        transaction.update(blobPath(oldId), REFERENCES_FIELD, references - 1);
+        return null;
+    }
+
+    /**
+     * Releases a reference to an image. The count is deleted with the last reference.
+     *
+     * @param imageId The ID of the image.
+     * @return A task resolving to true if that was the last reference, so the image's files should be deleted.
+     */
+    public StoreTask<Boolean> release(String imageId) {
+        String blobPath = blobPath(imageId);
+        return db.runTransaction(transaction -> {
+            StoredDocument blob = transaction.get(blobPath);
+            long references = references(blob);
+            if (references <= 1) {
+                if (blob.exists()) {
+                    transaction.delete(blobPath);
+                }
+                return true;
+            }
+            transaction.update(blobPath, REFERENCES_FIELD, references - 1);
+            return false;
+        });
+    }
+
+    /**
+     * Releases the reference a document holds to its image and clears the document's image path, in one
+     * transaction. A document whose image path is already cleared holds no reference, so releasing it again,
+     * such as when an interrupted delete is resumed, releases nothing.
+     *
+     * @param ownerPath The path of the document referring to the image.
+     * @param field     The field holding the storage path of the full image.
+     * @return A task resolving to the ID of the image if that was its last reference, so its files should be
+     * deleted, or to null otherwise.
+     */
+    public StoreTask<String> releaseFrom(String ownerPath, String field) {
+        return db.runTransaction(transaction -> {
+            StoredDocument owner = transaction.get(ownerPath);
+            String path = owner.exists() ? owner.getString(field) : null;
+            if (path == null || path.isEmpty()) {
+                return null;
+            }
+            String imageId = ImageRenditions.imageId(path);
+            String blobPath = blobPath(imageId);
+            StoredDocument blob = transaction.get(blobPath);
+            long references = references(blob);
+            if (references <= 1) {
+                if (blob.exists()) {
+                    transaction.delete(blobPath);
+                }
+            } else {
+                transaction.update(blobPath, REFERENCES_FIELD, references - 1);
+            }
+            transaction.update(ownerPath, field, "");
+            return references <= 1 ? imageId : null;
+        });
+    }
+
+    /**
+     * Forgets every reference to an image, such as when an admin removes the image for everyone.
+     *
+     * @param imageId The ID of the image.
+     * @return A task that completes once the count is deleted.
+     */
+    public StoreTask<Void> clear(String imageId) {
+        return db.delete(blobPath(imageId));
+    }
+
+    /**
+     * Forgets an image whose files were swept, unless it has been stored again since it was marked as sweeping.
+     *
+     * @param imageId The ID of the image.
+     * @return A task that completes once the count is deleted, or left alone.
+     */
+    public StoreTask<Void> clearSwept(String imageId) {
+        String blobPath = blobPath(imageId);
+        return db.runTransaction(transaction -> {
+            StoredDocument blob = transaction.get(blobPath);
+            if (blob.exists() && Boolean.TRUE.equals(blob.getBoolean(SWEEPING_FIELD))) {
+                transaction.delete(blobPath);
+            }
+            return null;
+        });
+    }
+
+    private static boolean isStored(StoredDocument blob) {
+        return blob.exists() && !Boolean.TRUE.equals(blob.getBoolean(SWEEPING_FIELD));
+    }
+
+    private static String imageIdOf(String path) {
+        return path != null && !path.isEmpty() ? ImageRenditions.imageId(path) : null;
+    }
+
+    private static long references(StoredDocument blob) {
+        Long references = blob.exists() ? blob.getLong(REFERENCES_FIELD) : null;
+        return references != null ? references : 0;
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.wizard_project.Core;
+
+/**
+ * ImageRenditions describes the sizes an uploaded image is stored at, and where each size is stored.
+ * The full rendition is stored at images/{imageId}, the path recorded on the owning document as its image path,
+ * and the smaller ones at renditions/{rendition}/{imageId}, so they can be found from the full image's path.
+ * The image ID is the hash of the image's content; see {@link ImageReferences}.
+ */
+public final class ImageRenditions {
+    public static final String IMAGES_FOLDER = "images";
+    public static final String RENDITIONS_FOLDER = "renditions";
+    public static final int QUALITY = 80; // WebP quality of every rendition
+
+    /**
+     * The sizes an image is stored at, largest first.
+     */
+    public enum Rendition {
+        FULL("full", 1600), // Detail screens
+        CARD("card", 640), // List rows and cards
+        THUMBNAIL("thumbnail", 160); // Avatars and small previews
+
+        private final String name;
+        private final int maxEdge;
+
+        Rendition(String name, int maxEdge) {
+            this.name = name;
+            this.maxEdge = maxEdge;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return The longest edge of the rendition in pixels. Smaller images are not enlarged.
+         */
+        public int getMaxEdge() {
+            return maxEdge;
+        }
+    }
+
+    private ImageRenditions() {
+    }
+
+    /**
+     * @param imageId   The ID of the image.
+     * @param rendition The rendition.
+     * @return The storage path of the rendition.
+     */
+    public static String path(String imageId, Rendition rendition) {
+        return folder(rendition) + "/" + imageId;
+    }
+
+    /**
+     * @param rendition The rendition.
+     * @return The storage folder holding the rendition of every image.
+     */
+    public static String folder(Rendition rendition) {
+        if (rendition == Rendition.FULL) {
+            return IMAGES_FOLDER;
+        }
+        return RENDITIONS_FOLDER + "/" + rendition.getName();
+    }
+
+    /**
+     * Finds the path of a rendition from the path of the full image.
+     *
+     * @param fullPath  The storage path of the full image, such as an image path recorded on a document.
+     * @param rendition The rendition.
+     * @return The storage path of the rendition.
+     */
+    public static String renditionPath(String fullPath, Rendition rendition) {
+        return path(imageId(fullPath), rendition);
+    }
+
+    /**
+     * @param path The storage path of any rendition of an image.
+     * @return The ID of the image.
+     */
+    public static String imageId(String path) {
+        return path.substring(path.lastIndexOf('/') + 1);
+    }
+
+    /**
+     * Picks the smallest rendition that fills a view without being enlarged.
+     *
+     * @param width  The width of the view in pixels, or a non-positive value if it is not known.
+     * @param height The height of the view in pixels, or a non-positive value if it is not known.
+     * @return The smallest rendition at least as large as the view, or the full rendition if none is,
+     * or if the size of the view is not known.
+     */
+    public static Rendition forSize(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            return Rendition.FULL;
+        }
+        int longEdge = Math.max(width, height);
+        Rendition[] renditions = Rendition.values();
+        for (int i = renditions.length - 1; i >= 0; i--) {
+            if (renditions[i].getMaxEdge() >= longEdge) {
+                return renditions[i];
+            }
+        }
+        return Rendition.FULL;
+    }
+
+    /**
+     * Returns the largest power of two an image can be subsampled by while decoding, such that the decoded
+     * image is still at least as large as the full rendition. Decoding a subsampled image keeps the memory
+     * needed for a large camera photo bounded.
+     *
+     * @param width  The width of the encoded image.
+     * @param height The height of the encoded image.
+     * @return The sample size to decode with.
+     */
+    public static int sampleSize(int width, int height) {
+        int longEdge = Math.max(width, height);
+        int sampleSize = 1;
+        while (longEdge / (sampleSize * 2) >= Rendition.FULL.getMaxEdge()) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    /**
+     * Returns the scale to draw an image at for a rendition, keeping its aspect ratio.
+     *
+     * @param width     The width of the decoded image.
+     * @param height    The height of the decoded image.
+     * @param rendition The rendition.
+     * @return The scale, at most 1.
+     */
+    public static float scale(int width, int height, Rendition rendition) {
+        int longEdge = Math.max(width, height);
+        return longEdge <= rendition.getMaxEdge() ? 1f : (float) rendition.getMaxEdge() / longEdge;
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.wizard_project.Core;
+
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * MapDocumentFields exposes an in-memory map of field values as a document.
+ * Number fields are converted between integer and floating point types the same way the database does.
+ */
+public class MapDocumentFields implements DocumentFields {
+    private final String id;
+    private final Map<String, Object> fields;
+
+    /**
+     * Constructs a document from a map of field values.
+     *
+     * @param id     The ID of the document.
+     * @param fields The field values of the document.
+     */
+    public MapDocumentFields(String id, Map<String, Object> fields) {
+        this.id = id;
+        this.fields = fields;
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public String getString(String field) {
+        Object value = fields.get(field);
+        return value instanceof String ? (String) value : null;
+    }
+
+    @Override
+    public Long getLong(String field) {
+        Object value = fields.get(field);
+        return value instanceof Number ? ((Number) value).longValue() : null;
+    }
+
+    @Override
+    public Double getDouble(String field) {
+        Object value = fields.get(field);
+        return value instanceof Number ? ((Number) value).doubleValue() : null;
+    }
+
+    @Override
+    public Boolean getBoolean(String field) {
+        Object value = fields.get(field);
+        return value instanceof Boolean ? (Boolean) value : null;
+    }
+
+    @Override
+    public Date getDate(String field) {
+        Object value = fields.get(field);
+        return value instanceof Date ? (Date) value : null;
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.wizard_project.Core;
+
+import com.example.wizard_project.Classes.Entrant;
+import com.example.wizard_project.Store.FieldTransform;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * NotificationFanout builds the notification messages and documents sent to entrants.
+ */
+public class NotificationFanout {
+    private NotificationFanout() {
+    }
+
+    /**
+     * Sets an entrant's status for the outcome of a draw and adds the matching notification message.
+     *
+     * @param eventName The name of the event the entrant was drawn for.
+     * @param entrant   The entrant whose outcome is set.
+     * @param selected  Whether the entrant was selected.
+     * @param messages  A map of user IDs to notification messages, to add the entrant's message to.
+     */
+    public static void assignDrawOutcome(String eventName, Entrant entrant, boolean selected, Map<String, String> messages) {
+        setDrawOutcome(entrant, selected);
+        messages.put(entrant.getUserId(), drawOutcomeMessage(eventName, selected));
+    }
+
+    /**
+     * Sets an entrant's status for the outcome of a draw.
+     *
+     * @param entrant  The entrant whose outcome is set.
+     * @param selected Whether the entrant was selected.
+     */
+    public static void setDrawOutcome(Entrant entrant, boolean selected) {
+        entrant.setStatus(selected ? "Selected" : "Not Selected");
+    }
+
+    /**
+     * @param eventName The name of the event that was drawn.
+     * @param selected  Whether the message is for the selected entrants.
+     * @return The message telling an entrant the outcome of a draw.
+     */
+    public static String drawOutcomeMessage(String eventName, boolean selected) {
+        return selected
+                ? "You have been selected for  " + eventName
+                : "You have Not been selected for  " + eventName;
+    }
+
+    /**
+     * Builds the messages sent to every entrant for the outcome of a draw.
+     *
+     * @param eventName The name of the event that was drawn.
+     * @param entrants  The entrants who took part in the draw.
+     * @param selected  Whether each entrant, by position, was selected.
+     * @return A map of user IDs to notification messages.
+     */
+    public static Map<String, String> drawOutcomeMessages(String eventName, List<Entrant> entrants, boolean[] selected) {
+        Map<String, String> messages = new HashMap<>();
+        for (int i = 0; i < entrants.size(); i++) {
+            assignDrawOutcome(eventName, entrants.get(i), selected[i], messages);
+        }
+        return messages;
+    }
+
+    /**
+     * Creates the document data of a notification sent to a user.
+     * The notification's sequence number is the server timestamp of the write that sends it,
+     * which orders it in the user's inbox.
+     *
+     * @param userId  The ID of the user receiving the notification.
+     * @param message The notification message.
+     * @return A map of notification data.
+     */
+    public static Map<String, Object> toNotification(String userId, String message) {
+        return toNotification(userId, null, message);
+    }
+
+    /**
+     * Creates the document data of a notification about an event, sent to a user.
+     * The event ID lets the user's device group the event's notifications together.
+     *
+     * @param userId  The ID of the user receiving the notification.
+     * @param eventId The ID of the event the notification is about, or null if it is not about an event.
+     * @param message The notification message.
+     * @return A map of notification data.
+     */
+    public static Map<String, Object> toNotification(String userId, String eventId, String message) {
+        Map<String, Object> notificationData = new HashMap<>();
+        notificationData.put("Userid", userId);
+        if (eventId != null) {
+            notificationData.put("eventId", eventId);
+        }
+        notificationData.put("message", message);
+        notificationData.put("seq", FieldTransform.serverTimestamp());
+        return notificationData;
+    }
+
+    /**
+     * Creates the document data of a broadcast: a single notification for every user in an event's audience.
+     * Like a notification, its sequence number is the server timestamp of the write that sends it.
+     *
+     * @param eventId  The ID of the event the broadcast is about.
+     * @param message  The notification message.
+     * @param audience The users the broadcast is for.
+     * @return A map of broadcast data.
+     */
+    public static Map<String, Object> toBroadcast(String eventId, String message, BroadcastAudience audience) {
+        Map<String, Object> broadcastData = new HashMap<>();
+        broadcastData.put("eventId", eventId);
+        broadcastData.put("message", message);
+        broadcastData.put("audience", audience.toMap());
+        broadcastData.put("seq", FieldTransform.serverTimestamp());
+        return broadcastData;
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.wizard_project.Core;
+
+import com.example.wizard_project.Classes.EventCodec;
+import com.example.wizard_project.Store.DataStore;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * RegistrationIndex builds each user's index of the events they are registered for, stored at
+ * users/{userId}/registrations/{eventId}. A registration holds the user's waiting list status and a summary
+ * of the event, using the event's own field names, so a user's events are listed with one query on their
+ * registrations instead of a waiting list read per event.
+ * Registrations are written in the same transaction or batch as the waiting list entry they mirror,
+ * and are always written whole, so a status change also repairs a missing or outdated registration.
+ * An edit to the event patches the summary of each of its registrations, and an event is marked with
+ * {@link #INDEXED_FIELD} once every entrant on its waiting list has a registration.
+ */
+public final class RegistrationIndex {
+    public static final String STATUS_FIELD = "status";
+    public static final String INDEXED_FIELD = "registrationsIndexed"; // Set on an event once its entrants are indexed
+    public static final int MAX_REGISTRATIONS = 200; // Registrations listed for one user
+    // The event fields copied into each registration, enough to show the event in a list.
+    private static final String[] SUMMARY_FIELDS = {
+            EventCodec.EVENT_ID,
+            EventCodec.EVENT_NAME,
+            EventCodec.EVENT_DESCRIPTION,
+            EventCodec.EVENT_LOCATION,
+            EventCodec.FACILITY_ID,
+            EventCodec.POSTER_URI,
+            EventCodec.EVENT_CARD_PATH,
+            EventCodec.EVENT_THUMBNAIL_PATH,
+            EventCodec.EVENT_MAX_ENTRANTS,
+            EventCodec.REGISTRATION_OPEN,
+            EventCodec.REGISTRATION_CLOSE
+    };
+
+    private RegistrationIndex() {
+    }
+
+    /**
+     * @param userId The ID of the user.
+     * @return The path of the user's registrations collection.
+     */
+    public static String registrationsPath(String userId) {
+        return DataStore.path("users", userId, "registrations");
+    }
+
+    /**
+     * @param userId  The ID of the user.
+     * @param eventId The ID of the event.
+     * @return The path of the user's registration for the event.
+     */
+    public static String registrationPath(String userId, String eventId) {
+        return DataStore.path(registrationsPath(userId), eventId);
+    }
+
+    /**
+     * Creates a registration document.
+     *
+     * @param eventId   The ID of the event.
+     * @param eventData The fields of the event document, or null if they are unknown.
+     * @param status    The user's status on the event's waiting list.
+     * @return The registration to store.
+     */
+    public static Map<String, Object> toRegistration(String eventId, Map<String, Object> eventData, String status) {
+        Map<String, Object> registration = toSummary(eventId, eventData);
+        registration.put(STATUS_FIELD, status);
+        return registration;
+    }
+
+    /**
+     * Creates the summary of an event that each of its registrations holds, without the user's status,
+     * so an edit to the event can be copied onto existing registrations.
+     *
+     * @param eventId   The ID of the event.
+     * @param eventData The fields of the event document, or null if they are unknown.
+     * @return The summary fields of a registration.
+     */
+    public static Map<String, Object> toSummary(String eventId, Map<String, Object> eventData) {
+        Map<String, Object> summary = new HashMap<>();
+        if (eventData != null) {
+            for (String field : SUMMARY_FIELDS) {
+                if (eventData.containsKey(field)) {
+                    summary.put(field, eventData.get(field));
+                }
+            }
+        }
+        summary.put(EventCodec.EVENT_ID, eventId);
+        return summary;
+    }
+}
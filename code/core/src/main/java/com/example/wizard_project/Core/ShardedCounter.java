@@ -0,0 +1,208 @@
+package com.example.wizard_project.Core;
+
+import com.example.wizard_project.Store.DataStore;
+import com.example.wizard_project.Store.DataStoreException;
+import com.example.wizard_project.Store.FieldTransform;
+import com.example.wizard_project.Store.StoreQuery;
+import com.example.wizard_project.Store.StoreTask;
+import com.example.wizard_project.Store.StoredDocument;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * ShardedCounter spreads a count over a fixed number of shard documents in one collection,
+ * so concurrent increments land on different documents instead of contending for one.
+ * The total is the sum of every shard.
+ *
+ * <p>A counter with a limit gives each shard an equal share of the limit. A shard that has reached its share
+ * refuses increments, so the total never exceeds the limit even though no transaction reads every shard.
+ * An increment reads at most {@link #MAX_PROBES} shards, so a transaction's reads, and the writes it can
+ * conflict with, stay few however full the counter is. When every probed shard is full, the caller looks up
+ * the shards that still have room with {@link #shardsWithRoom} and tries those.
+ * The number of shards must stay the same for the life of a counter.
+ */
+public class ShardedCounter {
+    public static final String COUNT_FIELD = "count";
+    public static final int MAX_PROBES = 3; // Shards an increment reads before giving up
+    private final DataStore db;
+    private final String collectionPath;
+    private final int shardCount;
+
+    /**
+     * Constructs a ShardedCounter.
+     *
+     * @param db             The data store holding the shards.
+     * @param collectionPath The path of the collection holding the shards.
+     * @param shardCount     The number of shards.
+     */
+    public ShardedCounter(DataStore db, String collectionPath, int shardCount) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("A counter needs at least one shard");
+        }
+        this.db = db;
+        this.collectionPath = collectionPath;
+        this.shardCount = shardCount;
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    /**
+     * @return The path of a shard document.
+     */
+    public String shardPath(int shard) {
+        return DataStore.path(collectionPath, String.valueOf(shard));
+    }
+
+    /**
+     * Returns the share of a limit held by a shard. The remainder of the division goes to the lowest shards.
+     *
+     * @param limit The limit of the whole counter.
+     * @param shard The shard.
+     * @return The most the shard may count.
+     */
+    public long shardLimit(long limit, int shard) {
+        return limit / shardCount + (shard < limit % shardCount ? 1 : 0);
+    }
+
+    /**
+     * Increments one shard within a transaction, probing up to {@link #MAX_PROBES} random shards until one
+     * is below its share of the limit. Shards with no share are never probed.
+     * This reads the shards before writing the chosen one, so the transaction must make all its other reads first.
+     *
+     * @param transaction The transaction the increment is part of.
+     * @param limit       The limit of the whole counter.
+     * @return The shard that was incremented, or -1 if every probed shard has reached its share of the limit.
+     * @throws DataStoreException If a shard could not be read.
+     */
+    public int tryIncrement(DataStore.Transaction transaction, long limit) throws DataStoreException {
+        List<Integer> shards = new ArrayList<>(shardCount);
+        for (int shard = 0; shard < shardCount; shard++) {
+            if (shardLimit(limit, shard) > 0) {
+                shards.add(shard);
+            }
+        }
+        return tryIncrement(transaction, limit, shards);
+    }
+
+    /**
+     * Increments one of the given shards within a transaction, probing up to {@link #MAX_PROBES} of them
+     * at random until one is below its share of the limit.
+     *
+     * @param transaction The transaction the increment is part of.
+     * @param limit       The limit of the whole counter.
+     * @param shards      The shards to probe, such as those {@link #shardsWithRoom} found.
+     * @return The shard that was incremented, or -1 if every probed shard has reached its share of the limit.
+     * @throws DataStoreException If a shard could not be read.
+     */
+    public int tryIncrement(DataStore.Transaction transaction, long limit, List<Integer> shards) throws DataStoreException {
+        List<Integer> candidates = new ArrayList<>(shards);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int probe = 0; probe < MAX_PROBES && !candidates.isEmpty(); probe++) {
+            int shard = candidates.remove(random.nextInt(candidates.size()));
+            StoredDocument shardSnapshot = transaction.get(shardPath(shard));
+            Long count = shardSnapshot.getLong(COUNT_FIELD);
+            long current = count != null ? count : 0;
+            if (current < shardLimit(limit, shard)) {
+                transaction.set(shardPath(shard), Collections.singletonMap(COUNT_FIELD, current + 1));
+                return shard;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Reads every shard and finds those below their share of the limit.
+     *
+     * @param limit The limit of the whole counter.
+     * @return A task containing the shards with room, empty if the counter has reached its limit.
+     */
+    public StoreTask<List<Integer>> shardsWithRoom(long limit) {
+        return db.query(StoreQuery.collection(collectionPath)).onSuccessTask(shardSnapshots -> {
+            long[] counts = new long[shardCount];
+            for (StoredDocument shardSnapshot : shardSnapshots) {
+                int shard = Integer.parseInt(shardSnapshot.getId());
+                Long count = shardSnapshot.getLong(COUNT_FIELD);
+                if (shard < shardCount && count != null) {
+                    counts[shard] = count;
+                }
+            }
+            List<Integer> shards = new ArrayList<>();
+            for (int shard = 0; shard < shardCount; shard++) {
+                if (counts[shard] < shardLimit(limit, shard)) {
+                    shards.add(shard);
+                }
+            }
+            return StoreTask.forResult(shards);
+        });
+    }
+
+    /**
+     * Decrements a shard within a transaction. The shard must have been incremented before.
+     *
+     * @param transaction The transaction the decrement is part of.
+     * @param shard       The shard to decrement.
+     */
+    public void decrement(DataStore.Transaction transaction, int shard) {
+        transaction.update(shardPath(shard), COUNT_FIELD, FieldTransform.increment(-1));
+    }
+
+    /**
+     * Counts entries within a transaction even past the limit, such as entries that existed before the counter.
+     * Each entry goes to the lowest shard below its share of the limit, so the limit holds afterwards as if the
+     * entries had been counted one at a time; entries past the limit are spread over every shard.
+     * This reads every shard before writing, so the transaction must make all its other reads first.
+     *
+     * @param transaction The transaction the increments are part of.
+     * @param limit       The limit of the whole counter.
+     * @param entries     The number of entries to count.
+     * @return The shard each entry was counted on.
+     * @throws DataStoreException If a shard could not be read.
+     */
+    public List<Integer> incrementAll(DataStore.Transaction transaction, long limit, int entries) throws DataStoreException {
+        long[] counts = new long[shardCount];
+        for (int shard = 0; shard < shardCount; shard++) {
+            Long count = transaction.get(shardPath(shard)).getLong(COUNT_FIELD);
+            counts[shard] = count != null ? count : 0;
+        }
+
+        List<Integer> shards = new ArrayList<>(entries);
+        boolean[] changed = new boolean[shardCount];
+        int lowestWithRoom = 0;
+        for (int entry = 0; entry < entries; entry++) {
+            while (lowestWithRoom < shardCount && counts[lowestWithRoom] >= shardLimit(limit, lowestWithRoom)) {
+                lowestWithRoom++;
+            }
+            int shard = lowestWithRoom < shardCount ? lowestWithRoom : entry % shardCount;
+            counts[shard]++;
+            changed[shard] = true;
+            shards.add(shard);
+        }
+        for (int shard = 0; shard < shardCount; shard++) {
+            if (changed[shard]) {
+                transaction.set(shardPath(shard), Collections.singletonMap(COUNT_FIELD, counts[shard]));
+            }
+        }
+        return shards;
+    }
+
+    /**
+     * Reads every shard and adds up the total.
+     *
+     * @return A task containing the total of the counter.
+     */
+    public StoreTask<Long> sum() {
+        return db.query(StoreQuery.collection(collectionPath)).onSuccessTask(shards -> {
+            long total = 0;
+            for (StoredDocument shard : shards) {
+                Long count = shard.getLong(COUNT_FIELD);
+                total += count != null ? count : 0;
+            }
+            return StoreTask.forResult(total);
+        });
+    }
+}
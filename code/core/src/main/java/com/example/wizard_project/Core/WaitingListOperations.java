@@ -0,0 +1,543 @@
+package com.example.wizard_project.Core;
+
+import com.example.wizard_project.Store.DataStore;
+import com.example.wizard_project.Store.DataStoreException;
+import com.example.wizard_project.Store.StoreQuery;
+import com.example.wizard_project.Store.StoreTask;
+import com.example.wizard_project.Store.StoredDocument;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * WaitingListOperations performs the writes entrants make to an event's waiting list:
+ * joining, leaving, responding to a selection and releasing a selected spot.
+ * It holds no Android state, so the same operations back the app's controllers and the load tests.
+ * Every write to an entrant's waiting list entry also writes the user's registration for the event,
+ * in the same transaction or batch; see {@link RegistrationIndex}.
+ */
+public class WaitingListOperations {
+    public static final int MAX_SKIPPED_RANKS = 50; // Ranks a promotion may skip before giving up
+    public static final int MAX_ADMISSION_ATTEMPTS = 3; // Times a contended join is tried before it fails
+    public static final int MAX_CLAIM_ATTEMPTS = 3; // Times a contended rank is claimed before a promotion fails
+    public static final int DEFAULT_ENTRANT_SHARDS = 100; // Enough shards for hundreds of joins a second
+    public static final int SEED_PAGE_SIZE = 200; // Entrants counted per transaction when seeding a counter
+    public static final String COUNTER_SEEDED_FIELD = "entrantCounterSeeded"; // Set on an event once every entrant is counted
+    private static final String COUNTER_SHARD_FIELD = "counterShard";
+    private final DataStore db;
+    private final int entrantShards;
+    // Rollups started by joins and leaves, so a burst of them shares one transaction per event
+    private final Set<String> pendingRollups = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Constructs WaitingListOperations for the waiting lists in the given data store.
+     *
+     * @param db The data store holding the waiting lists.
+     */
+    public WaitingListOperations(DataStore db) {
+        this(db, DEFAULT_ENTRANT_SHARDS);
+    }
+
+    /**
+     * Constructs WaitingListOperations counting entrants over the given number of shards.
+     * Every client must use the same number of shards.
+     *
+     * @param db            The data store holding the waiting lists.
+     * @param entrantShards The number of shards in each event's entrant counter.
+     */
+    public WaitingListOperations(DataStore db, int entrantShards) {
+        this.db = db;
+        this.entrantShards = entrantShards;
+    }
+
+    /**
+     * Adds a user to the waiting list for an event, replacing any existing entry.
+     * A new entrant is admitted only while the event has fewer entrants than its maximum, which is enforced
+     * by the event's sharded entrant counter. A join probes a few random shards; if they are all full, the shards
+     * with room are looked up and the join is tried on those. A join the store gave up on because of contention
+     * is tried again. Once the event is full the join fails with {@link DataStoreException.Code#RESOURCE_EXHAUSTED}
+     * and the event is marked full, so later joins are refused without a transaction.
+     *
+     * @param eventId   The ID of the event.
+     * @param userId    The ID of the user.
+     * @param name      The user's name.
+     * @param latitude  The latitude of the user's location.
+     * @param longitude The longitude of the user's location.
+     * @param status    The user's event status (e.g., "Waitlisted").
+     * @return A task that completes once the entry and the user's registration are written.
+     */
+    public StoreTask<Void> join(String eventId, String userId, String name, Double latitude, Double longitude, String status) {
+        String eventPath = DataStore.path("events", eventId);
+        return db.get(eventPath).onSuccessTask(eventSnapshot -> {
+            if (!eventSnapshot.exists()) {
+                return StoreTask.forException(new DataStoreException("Event " + eventId + " does not exist",
+                        DataStoreException.Code.NOT_FOUND));
+            }
+            long limit = entrantLimit(eventSnapshot);
+            if (limit != Long.MAX_VALUE && Boolean.TRUE.equals(eventSnapshot.getBoolean("waitingListFull"))) {
+                return StoreTask.forException(waitingListFull(eventId));
+            }
+
+            Map<String, Object> userData = new HashMap<>();
+            userData.put("userId", userId);
+            userData.put("name", name);
+            userData.put("latitude", latitude);
+            userData.put("longitude", longitude);
+            userData.put("status", status);
+            Map<String, Object> registration = RegistrationIndex.toRegistration(eventId, eventSnapshot.getData(), status);
+
+            StoreTask<Boolean> admission = admit(eventId, userId, userData, registration, limit, null, 1)
+                    .onSuccessTask(admitted -> admitted
+                            ? StoreTask.forResult(true)
+                            // The probed shards were full, so the join is tried on the shards that still have room.
+                            : entrantCounter(eventId).shardsWithRoom(limit).onSuccessTask(shards -> shards.isEmpty()
+                                    ? StoreTask.forResult(false)
+                                    : admit(eventId, userId, userData, registration, limit, shards, 1)));
+            return admission.onSuccessTask(admitted -> {
+                if (admitted) {
+                    return StoreTask.forResult(null);
+                }
+                rollupInBackground(eventId);
+                return StoreTask.forException(waitingListFull(eventId));
+            });
+        });
+    }
+
+    /**
+     * Writes a joining entrant's entry and registration in a transaction that counts them, unless they are
+     * counted already. A transaction the store gave up on because of contention is tried again on new shards.
+     *
+     * @param shards The shards to probe, or null to probe any shard.
+     * @return A task resolving to true if the entrant was admitted, or false if every probed shard was full.
+     */
+    private StoreTask<Boolean> admit(String eventId, String userId, Map<String, Object> userData,
+                                     Map<String, Object> registration, long limit, List<Integer> shards, int attempt) {
+        String entrantPath = entrantPath(eventId, userId);
+        ShardedCounter counter = entrantCounter(eventId);
+        return db.<Boolean>runTransaction(transaction -> {
+            // An entrant who is already counted keeps their shard when rejoining.
+            Long countedShard = transaction.get(entrantPath).getLong(COUNTER_SHARD_FIELD);
+            int shard;
+            if (countedShard != null) {
+                shard = countedShard.intValue();
+            } else if (shards != null) {
+                shard = counter.tryIncrement(transaction, limit, shards);
+            } else {
+                shard = counter.tryIncrement(transaction, limit);
+            }
+            if (shard < 0) {
+                return false;
+            }
+
+            Map<String, Object> entry = new HashMap<>(userData);
+            entry.put(COUNTER_SHARD_FIELD, shard);
+            transaction.set(entrantPath, entry);
+            transaction.set(RegistrationIndex.registrationPath(userId, eventId), registration);
+            return true;
+        }).onFailureTask(e -> isAborted(e) && attempt < MAX_ADMISSION_ATTEMPTS
+                ? admit(eventId, userId, userData, registration, limit, shards, attempt + 1)
+                : StoreTask.forException(e));
+    }
+
+    /**
+     * Removes a user from the waiting list for an event, releasing their place in the entrant count.
+     *
+     * @param eventId The ID of the event.
+     * @param userId  The ID of the user.
+     * @return A task that completes once the entry and the user's registration are deleted.
+     */
+    public StoreTask<Void> leave(String eventId, String userId) {
+        String eventPath = DataStore.path("events", eventId);
+        String entrantPath = entrantPath(eventId, userId);
+        String registrationPath = RegistrationIndex.registrationPath(userId, eventId);
+        ShardedCounter counter = entrantCounter(eventId);
+        return db.<Void>runTransaction(transaction -> {
+            StoredDocument entrantSnapshot = transaction.get(entrantPath);
+            if (!entrantSnapshot.exists()) {
+                transaction.delete(registrationPath); // Clears a registration left without an entry.
+                return null;
+            }
+            Long shard = entrantSnapshot.getLong(COUNTER_SHARD_FIELD);
+            if (shard != null) {
+                counter.decrement(transaction, shard.intValue());
+            }
+            transaction.delete(entrantPath);
+            transaction.delete(registrationPath);
+            return null;
+        }).onSuccessTask(result -> db.get(eventPath)).onSuccessTask(eventSnapshot -> {
+            // A place has opened up, so a full event has to be counted again before it accepts joins.
+            if (Boolean.TRUE.equals(eventSnapshot.getBoolean("waitingListFull"))) {
+                rollupInBackground(eventId);
+            }
+            return StoreTask.forResult(null);
+        });
+    }
+
+    /**
+     * Adds up the event's entrant counter and records the total on the event, along with whether the event is full,
+     * such as after its maximum changes. The shards are summed with one plain query, outside the transaction,
+     * so a rollup costs a single read of the counter and never makes the joins writing the shards retry.
+     * Only the event is read and written in the transaction. A total can therefore be a moment old if entrants
+     * join or leave while it is summed; the next rollup corrects it, and leaving a full event starts one.
+     * The totals on the event are for display and for refusing joins early; the counter itself enforces the maximum.
+     *
+     * @param eventId The ID of the event.
+     * @return A task containing the number of entrants counted.
+     */
+    public StoreTask<Long> rollupEntrantCount(String eventId) {
+        String eventPath = DataStore.path("events", eventId);
+        return entrantCounter(eventId).sum().onSuccessTask(total -> db.runTransaction(transaction -> {
+            StoredDocument eventSnapshot = transaction.get(eventPath);
+            if (!eventSnapshot.exists()) {
+                throw new DataStoreException("Event " + eventId + " does not exist", DataStoreException.Code.NOT_FOUND);
+            }
+            boolean full = total >= entrantLimit(eventSnapshot);
+            // An unchanged total is not written, so rollups running at once do not make each other retry.
+            if (!total.equals(eventSnapshot.getLong("entrantCount"))
+                    || !Boolean.valueOf(full).equals(eventSnapshot.getBoolean("waitingListFull"))) {
+                Map<String, Object> updates = new HashMap<>();
+                updates.put("entrantCount", total);
+                updates.put("waitingListFull", full);
+                transaction.update(eventPath, updates);
+            }
+            return total;
+        }));
+    }
+
+    /**
+     * Counts the entrants who joined an event's waiting list before it had an entrant counter, so the counter
+     * matches the waiting list. Uncounted entrants are counted on shards below their share of the event's maximum,
+     * so the maximum holds afterwards, and are counted even past it, since they are on the list already.
+     * The waiting list is read a page at a time
+     * and each page is counted in one transaction, which rereads its entrants so one who joined or left meanwhile
+     * is not counted twice or at all. Once every page is counted the event is marked with
+     * {@link #COUNTER_SEEDED_FIELD} and its count is rolled up; a marked event is not read again.
+     *
+     * @param eventId The ID of the event.
+     * @return A task containing the number of entrants this counted.
+     */
+    public StoreTask<Long> seedEntrantCounter(String eventId) {
+        String eventPath = DataStore.path("events", eventId);
+        return db.get(eventPath).onSuccessTask(eventSnapshot -> {
+            if (!eventSnapshot.exists()) {
+                return StoreTask.forException(new DataStoreException("Event " + eventId + " does not exist",
+                        DataStoreException.Code.NOT_FOUND));
+            }
+            if (Boolean.TRUE.equals(eventSnapshot.getBoolean(COUNTER_SEEDED_FIELD))) {
+                return StoreTask.forResult(0L);
+            }
+            StoreQuery firstPage = StoreQuery.collection(DataStore.path("events", eventId, "waitingList"))
+                    .orderBy("userId")
+                    .limit(SEED_PAGE_SIZE);
+            return seedPages(eventId, entrantLimit(eventSnapshot), firstPage, 0).onSuccessTask(seeded -> db.update(eventPath, COUNTER_SEEDED_FIELD, true)
+                    .onSuccessTask(result -> rollupEntrantCount(eventId))
+                    .onSuccessTask(total -> StoreTask.forResult(seeded)));
+        });
+    }
+
+    private StoreTask<Long> seedPages(String eventId, long limit, StoreQuery page, long seeded) {
+        return db.query(page).onSuccessTask(entrants -> {
+            List<String> uncounted = new ArrayList<>();
+            for (StoredDocument entrant : entrants) {
+                if (!entrant.contains(COUNTER_SHARD_FIELD)) {
+                    uncounted.add(entrant.getId());
+                }
+            }
+            StoreTask<Integer> counting = uncounted.isEmpty() ? StoreTask.forResult(0) : seedEntrants(eventId, limit, uncounted);
+            return counting.onSuccessTask(counted -> entrants.size() < SEED_PAGE_SIZE
+                    ? StoreTask.forResult(seeded + counted)
+                    : seedPages(eventId, limit, page.startAfter(entrants.get(entrants.size() - 1)), seeded + counted));
+        });
+    }
+
+    /**
+     * Counts entrants who have no shard yet in one transaction.
+     *
+     * @return A task containing the number of entrants counted.
+     */
+    private StoreTask<Integer> seedEntrants(String eventId, long limit, List<String> userIds) {
+        ShardedCounter counter = entrantCounter(eventId);
+        return db.runTransaction(transaction -> {
+            // All reads happen before any writes.
+            List<String> uncounted = new ArrayList<>();
+            for (String userId : userIds) {
+                StoredDocument entrantSnapshot = transaction.get(entrantPath(eventId, userId));
+                if (entrantSnapshot.exists() && !entrantSnapshot.contains(COUNTER_SHARD_FIELD)) {
+                    uncounted.add(userId);
+                }
+            }
+            List<Integer> shards = counter.incrementAll(transaction, limit, uncounted.size());
+            for (int i = 0; i < uncounted.size(); i++) {
+                transaction.update(entrantPath(eventId, uncounted.get(i)), COUNTER_SHARD_FIELD, shards.get(i));
+            }
+            return uncounted.size();
+        });
+    }
+
+    /**
+     * Rolls up the event's entrant count unless a rollup this object started is still running for it,
+     * so joins refused in a burst share one.
+     */
+    private void rollupInBackground(String eventId) {
+        if (pendingRollups.add(eventId)) {
+            rollupEntrantCount(eventId).addOnCompleteListener(task -> pendingRollups.remove(eventId));
+        }
+    }
+
+    /**
+     * Checks whether an operation failed because the event's waiting list is full.
+     *
+     * @param e The exception the operation failed with.
+     * @return True if the waiting list is full, false otherwise.
+     */
+    public static boolean isWaitingListFull(Exception e) {
+        return e instanceof DataStoreException
+                && ((DataStoreException) e).getCode() == DataStoreException.Code.RESOURCE_EXHAUSTED;
+    }
+
+    /**
+     * Sets the status of a user on the waiting list without promoting anyone.
+     * The event is read first, so the user's registration is rewritten with a current summary of the event.
+     *
+     * @param eventId   The ID of the event.
+     * @param userId    The ID of the user.
+     * @param newStatus The new status.
+     * @return A task that completes once the status is written.
+     */
+    public StoreTask<Void> setStatus(String eventId, String userId, String newStatus) {
+        return db.get(DataStore.path("events", eventId)).onSuccessTask(eventSnapshot -> db.batch()
+                .update(entrantPath(eventId, userId), RegistrationIndex.STATUS_FIELD, newStatus)
+                .set(RegistrationIndex.registrationPath(userId, eventId),
+                        RegistrationIndex.toRegistration(eventId, eventSnapshot.getData(), newStatus))
+                .commit());
+    }
+
+    /**
+     * Releases entrants and promotes their replacements. The released entrants are set to the new status first,
+     * in a transaction of their own, so a release is committed even while other releases are promoting.
+     * Then, for every released entrant who was selected, plus any extra slots, the next "Not Selected" entrant
+     * in the draw order is selected.
+     *
+     * <p>Each rank of the draw order is claimed by creating its drawClaims/{rank} document in a transaction that
+     * only reads that rank, so concurrent releases contend only when they reach the same rank. A promotion starts
+     * at the lowest unclaimed rank from the event's nextDrawRank on, found from the highest claimed rank, and
+     * moves to the next rank only once a rank is claimed, by itself or by a release that got there first.
+     * Entrants are therefore promoted exactly in their draw order, so promotions can be audited against the
+     * seeded draw, and each promotion costs a constant number of reads regardless of the size of the waiting
+     * list.
+     *
+     * @param eventId     The ID of the event.
+     * @param releasedIds The IDs of the users being released.
+     * @param newStatus   The releasing status to set, or null when nobody is released.
+     * @param extraSlots  The number of entrants to promote in addition to those replacing released entrants.
+     * @return A task containing the IDs of the promoted users, or null if the event has no draw order.
+     */
+    public StoreTask<List<String>> release(String eventId, List<String> releasedIds, String newStatus, int extraSlots) {
+        String eventPath = DataStore.path("events", eventId);
+        return db.get(eventPath).onSuccessTask(eventSnapshot -> {
+            StoreTask<Integer> releasing = releasedIds.isEmpty()
+                    ? StoreTask.forResult(0)
+                    : setReleasedStatuses(eventId, eventSnapshot.getData(), releasedIds, newStatus);
+            return releasing.onSuccessTask(releasedSelected -> {
+                Long nextDrawRank = eventSnapshot.getLong("nextDrawRank");
+                if (nextDrawRank == null) {
+                    return StoreTask.forResult(null);
+                }
+                Promotion promotion = new Promotion(eventId, eventSnapshot.getData(), new HashSet<>(releasedIds),
+                        releasedSelected + extraSlots, nextDrawRank);
+                return promotion.claimNext().onSuccessTask(result -> StoreTask.forResult(promotion.promotedIds));
+            });
+        });
+    }
+
+    /**
+     * Sets the status of the released entrants who are on the waiting list.
+     *
+     * @return A task containing the number of released entrants who were selected.
+     */
+    private StoreTask<Integer> setReleasedStatuses(String eventId, Map<String, Object> eventData,
+                                                   List<String> releasedIds, String newStatus) {
+        return db.runTransaction(transaction -> {
+            // All reads happen before any writes.
+            List<String> releasedUserIds = new ArrayList<>();
+            int releasedSelected = 0;
+            for (String userId : releasedIds) {
+                StoredDocument entrantSnapshot = transaction.get(entrantPath(eventId, userId));
+                if (entrantSnapshot.exists()) {
+                    releasedUserIds.add(userId);
+                    if ("Selected".equals(entrantSnapshot.getString("status"))) {
+                        releasedSelected++;
+                    }
+                }
+            }
+            for (String userId : releasedUserIds) {
+                transaction.update(entrantPath(eventId, userId), RegistrationIndex.STATUS_FIELD, newStatus);
+                transaction.set(RegistrationIndex.registrationPath(userId, eventId),
+                        RegistrationIndex.toRegistration(eventId, eventData, newStatus));
+            }
+            return releasedSelected;
+        });
+    }
+
+    /**
+     * Promotion claims ranks of an event's draw order one at a time until enough entrants are promoted,
+     * the draw order is exhausted, or too many claimed ranks held nobody to promote.
+     */
+    private class Promotion {
+        private final String eventId;
+        private final Map<String, Object> eventData;
+        private final Set<String> released;
+        private final int openSlots;
+        private final long firstRank;
+        private final List<String> promotedIds = new ArrayList<>();
+        private long rank = -1; // The rank to claim next, or -1 to look up the lowest unclaimed rank first
+        private int skippedRanks = 0;
+
+        Promotion(String eventId, Map<String, Object> eventData, Set<String> released, int openSlots, long firstRank) {
+            this.eventId = eventId;
+            this.eventData = eventData;
+            this.released = released;
+            this.openSlots = openSlots;
+            this.firstRank = firstRank;
+        }
+
+        StoreTask<Void> claimNext() {
+            if (promotedIds.size() >= openSlots || skippedRanks >= MAX_SKIPPED_RANKS) {
+                return StoreTask.forResult(null);
+            }
+            if (rank < 0) {
+                return nextUnclaimedRank().onSuccessTask(nextRank -> {
+                    rank = nextRank;
+                    return claimNext();
+                });
+            }
+            return claim(rank, 1).onSuccessTask(claim -> {
+                switch (claim.outcome) {
+                    case EXHAUSTED:
+                        return StoreTask.forResult(null);
+                    case PROMOTED:
+                        promotedIds.add(claim.userId);
+                        break;
+                    case SKIPPED:
+                        skippedRanks++;
+                        break;
+                    default: // Claimed by another release first, so the next rank is the lowest unclaimed one.
+                        break;
+                }
+                rank++;
+                return claimNext();
+            });
+        }
+
+        /**
+         * @return A task containing the rank after the highest claimed rank, or the event's nextDrawRank if no rank
+         * from it on is claimed yet. Ranks are claimed in order, so this is the lowest unclaimed rank.
+         */
+        private StoreTask<Long> nextUnclaimedRank() {
+            StoreQuery lastClaim = StoreQuery.collection(DataStore.path("events", eventId, "drawClaims"))
+                    .orderBy("rank", StoreQuery.Direction.DESCENDING)
+                    .limit(1);
+            return db.query(lastClaim).onSuccessTask(claims -> {
+                Long lastRank = claims.isEmpty() ? null : claims.get(0).getLong("rank");
+                return StoreTask.forResult(lastRank != null ? Math.max(firstRank, lastRank + 1) : firstRank);
+            });
+        }
+
+        /**
+         * Claims a rank of the draw order, promoting its entrant if they are still waiting for a spot.
+         * A claim the store gave up on because of contention is tried again, rather than failing the release
+         * whose status is already committed.
+         */
+        private StoreTask<Claim> claim(long rank, int attempt) {
+            return tryClaim(rank).onFailureTask(e -> isAborted(e) && attempt < MAX_CLAIM_ATTEMPTS
+                    ? claim(rank, attempt + 1)
+                    : StoreTask.forException(e));
+        }
+
+        private StoreTask<Claim> tryClaim(long rank) {
+            String eventPath = DataStore.path("events", eventId);
+            String claimPath = DataStore.path(eventPath, "drawClaims", String.valueOf(rank));
+            return db.runTransaction(transaction -> {
+                if (transaction.get(claimPath).exists()) {
+                    return new Claim(Claim.Outcome.TAKEN, null);
+                }
+                StoredDocument rankSnapshot = transaction.get(DataStore.path(eventPath, "drawOrder", String.valueOf(rank)));
+                if (!rankSnapshot.exists()) {
+                    return new Claim(Claim.Outcome.EXHAUSTED, null);
+                }
+
+                // Skip entrants who left the waiting list or are no longer waiting for a spot.
+                String candidateId = rankSnapshot.getString("userId");
+                boolean promote = candidateId != null && !released.contains(candidateId)
+                        && "Not Selected".equals(transaction.get(entrantPath(eventId, candidateId)).getString("status"));
+
+                Map<String, Object> claimData = new HashMap<>();
+                claimData.put("rank", rank);
+                claimData.put("userId", candidateId);
+                claimData.put("promoted", promote);
+                transaction.set(claimPath, claimData);
+                if (!promote) {
+                    return new Claim(Claim.Outcome.SKIPPED, candidateId);
+                }
+
+                transaction.update(entrantPath(eventId, candidateId), RegistrationIndex.STATUS_FIELD, "Selected");
+                transaction.set(RegistrationIndex.registrationPath(candidateId, eventId),
+                        RegistrationIndex.toRegistration(eventId, eventData, "Selected"));
+                transaction.set(DataStore.path("notifications", db.newDocumentId("notifications")),
+                        NotificationFanout.toNotification(candidateId, eventId,
+                                "You have been selected for  " + eventData.get("event_name")));
+                return new Claim(Claim.Outcome.PROMOTED, candidateId);
+            });
+        }
+    }
+
+    /**
+     * The outcome of claiming one rank of a draw order.
+     */
+    private static class Claim {
+        enum Outcome {
+            PROMOTED, // The rank's entrant was selected.
+            SKIPPED, // The rank's entrant was no longer waiting for a spot.
+            TAKEN, // Another release claimed the rank first.
+            EXHAUSTED // The draw order has no such rank.
+        }
+
+        final Outcome outcome;
+        final String userId;
+
+        Claim(Outcome outcome, String userId) {
+            this.outcome = outcome;
+            this.userId = userId;
+        }
+    }
+
+    private static boolean isAborted(Exception e) {
+        return e instanceof DataStoreException && ((DataStoreException) e).getCode() == DataStoreException.Code.ABORTED;
+    }
+
+    private ShardedCounter entrantCounter(String eventId) {
+        return new ShardedCounter(db, DataStore.path("events", eventId, "entrantCounter"), entrantShards);
+    }
+
+    /**
+     * @return The event's maximum number of entrants, or Long.MAX_VALUE if it has none.
+     */
+    private static long entrantLimit(StoredDocument eventSnapshot) {
+        Long maxEntrants = eventSnapshot.getLong("event_max_entrants");
+        return maxEntrants == null || maxEntrants <= 0 || maxEntrants >= Integer.MAX_VALUE ? Long.MAX_VALUE : maxEntrants;
+    }
+
+    private static DataStoreException waitingListFull(String eventId) {
+        return new DataStoreException("The waiting list for event " + eventId + " is full",
+                DataStoreException.Code.RESOURCE_EXHAUSTED);
+    }
+
+    private static String entrantPath(String eventId, String userId) {
+        return DataStore.path("events", eventId, "waitingList", userId);
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.wizard_project.Store;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DataStore is the document database the controllers read from and write to.
+ * Documents are addressed by slash-separated paths such as "events/{eventId}/waitingList/{userId}",
+ * and every operation completes asynchronously.
+ * The app uses the Firestore-backed store; {@link MemoryDataStore} runs the same flows on a plain JVM.
+ */
+public interface DataStore {
+    /**
+     * Reads a document.
+     *
+     * @param path The full path of the document.
+     * @return A task containing the document, which does not exist if nothing is stored at the path.
+     */
+    StoreTask<StoredDocument> get(String path);
+
+    /**
+     * Runs a query.
+     *
+     * @param query The query to run.
+     * @return A task containing the matching documents, in query order.
+     */
+    StoreTask<List<StoredDocument>> query(StoreQuery query);
+
+    /**
+     * Counts the documents matching a query without reading them.
+     *
+     * @param query The query to count.
+     * @return A task containing the number of matching documents.
+     */
+    StoreTask<Long> count(StoreQuery query);
+
+    /**
+     * Writes a document, replacing it if it exists.
+     *
+     * @param path The full path of the document.
+     * @param data The fields of the document.
+     * @return A task completed once the write is applied.
+     */
+    StoreTask<Void> set(String path, Map<String, Object> data);
+
+    /**
+     * Updates fields of an existing document. Keys may be dotted paths into nested fields.
+     *
+     * @param path    The full path of the document.
+     * @param updates The fields to update.
+     * @return A task completed once the update is applied, failing with NOT_FOUND if the document does not exist.
+     */
+    StoreTask<Void> update(String path, Map<String, Object> updates);
+
+    /**
+     * Updates a single field of an existing document.
+     *
+     * @param path  The full path of the document.
+     * @param field The dotted path of the field.
+     * @param value The new value of the field.
+     * @return A task completed once the update is applied, failing with NOT_FOUND if the document does not exist.
+     */
+    default StoreTask<Void> update(String path, String field, Object value) {
+        return update(path, Collections.singletonMap(field, value));
+    }
+
+    /**
+     * Deletes a document. Deleting a missing document succeeds.
+     *
+     * @param path The full path of the document.
+     * @return A task completed once the delete is applied.
+     */
+    StoreTask<Void> delete(String path);
+
+    /**
+     * Generates a new unique document ID for a collection, without writing anything.
+     *
+     * @param collectionPath The full path of the collection.
+     * @return The new document ID.
+     */
+    String newDocumentId(String collectionPath);
+
+    /**
+     * @return A new empty batch of writes that are applied atomically.
+     */
+    Batch batch();
+
+    /**
+     * Runs a transaction. The function may be run more than once if the documents it read were changed
+     * by another writer before the transaction committed, so it must not have side effects of its own.
+     *
+     * @param function The reads and writes of the transaction.
+     * @return A task containing the function's result once the transaction commits.
+     */
+    <T> StoreTask<T> runTransaction(TransactionFunction<T> function);
+
+    /**
+     * Listens to the results of a query. The listener is first called with every matching document as added,
+     * then with only the documents added to, modified in or removed from the results since its previous call.
+     *
+     * @param query    The query to listen to.
+     * @param listener The listener receiving the changes.
+     * @return The registration to remove once the changes are no longer needed.
+     */
+    Registration listen(StoreQuery query, QueryListener listener);
+
+    /**
+     * Joins path segments into a document or collection path.
+     *
+     * @param segments The path segments, e.g. "events", eventId, "waitingList".
+     * @return The slash-separated path.
+     */
+    static String path(String... segments) {
+        return String.join("/", segments);
+    }
+
+    /**
+     * A group of writes committed atomically.
+     */
+    interface Batch {
+        Batch set(String path, Map<String, Object> data);
+
+        Batch update(String path, Map<String, Object> updates);
+
+        default Batch update(String path, String field, Object value) {
+            return update(path, Collections.singletonMap(field, value));
+        }
+
+        Batch delete(String path);
+
+        StoreTask<Void> commit();
+    }
+
+    /**
+     * The reads and writes of a running transaction. All reads must happen before any writes.
+     */
+    interface Transaction {
+        StoredDocument get(String path) throws DataStoreException;
+
+        Transaction set(String path, Map<String, Object> data);
+
+        Transaction update(String path, Map<String, Object> updates);
+
+        default Transaction update(String path, String field, Object value) {
+            return update(path, Collections.singletonMap(field, value));
+        }
+
+        Transaction delete(String path);
+    }
+
+    interface TransactionFunction<T> {
+        T apply(Transaction transaction) throws DataStoreException;
+    }
+
+    /**
+     * Receives the changes to the results of a listened query.
+     */
+    interface QueryListener {
+        void onChanges(List<DocumentChange> changes);
+
+        void onError(DataStoreException e);
+    }
+
+    /**
+     * A registered query listener.
+     */
+    interface Registration {
+        void remove();
+    }
+}
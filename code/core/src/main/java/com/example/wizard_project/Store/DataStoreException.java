@@ -0,0 +1,53 @@
+package com.example.wizard_project.Store;
+
+/**
+ * DataStoreException reports a failed data store operation.
+ * The error codes mirror the database's own codes, so callers can react to contention
+ * ({@link Code#ABORTED}) or missing documents ({@link Code#NOT_FOUND}) the same way on every store.
+ */
+public class DataStoreException extends Exception {
+    public enum Code {
+        ABORTED,
+        ALREADY_EXISTS,
+        CANCELLED,
+        DEADLINE_EXCEEDED,
+        FAILED_PRECONDITION,
+        INVALID_ARGUMENT,
+        NOT_FOUND,
+        PERMISSION_DENIED,
+        RESOURCE_EXHAUSTED,
+        UNAVAILABLE,
+        UNKNOWN
+    }
+
+    private static final long serialVersionUID = 1L;
+
+    private final Code code;
+
+    /**
+     * Constructs a DataStoreException with a message and an error code.
+     *
+     * @param message The detail message.
+     * @param code    The error code.
+     */
+    public DataStoreException(String message, Code code) {
+        super(message);
+        this.code = code;
+    }
+
+    /**
+     * Constructs a DataStoreException with a message, an error code and the underlying cause.
+     *
+     * @param message The detail message.
+     * @param code    The error code.
+     * @param cause   The exception that caused the failure.
+     */
+    public DataStoreException(String message, Code code, Throwable cause) {
+        super(message, cause);
+        this.code = code;
+    }
+
+    public Code getCode() {
+        return code;
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.wizard_project.Store;
+
+/**
+ * DocumentChange describes how a document in the results of a listened query changed.
+ */
+public final class DocumentChange {
+    public enum Type {
+        ADDED,
+        MODIFIED,
+        REMOVED
+    }
+
+    private final Type type;
+    private final StoredDocument document;
+
+    /**
+     * Constructs a DocumentChange.
+     *
+     * @param type     How the document changed.
+     * @param document The document after the change, or before it for a removal.
+     */
+    public DocumentChange(Type type, StoredDocument document) {
+        this.type = type;
+        this.document = document;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public StoredDocument getDocument() {
+        return document;
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.wizard_project.Store;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * FieldTransform is a placeholder value that is resolved by the data store when a write is applied,
+ * such as deleting a field, incrementing a number or adding elements to an array.
+ * Transforms are applied atomically against the stored value, so concurrent writers do not overwrite each other.
+ */
+public final class FieldTransform {
+    public enum Kind {
+        DELETE,
+        SERVER_TIMESTAMP,
+        INCREMENT,
+        ARRAY_UNION,
+        ARRAY_REMOVE
+    }
+
+    private final Kind kind;
+    private final Number amount;
+    private final List<Object> elements;
+
+    private FieldTransform(Kind kind, Number amount, List<Object> elements) {
+        this.kind = kind;
+        this.amount = amount;
+        this.elements = elements;
+    }
+
+    /**
+     * @return A transform that removes the field from the document.
+     */
+    public static FieldTransform delete() {
+        return new FieldTransform(Kind.DELETE, null, Collections.emptyList());
+    }
+
+    /**
+     * @return A transform that sets the field to the time the write is applied.
+     */
+    public static FieldTransform serverTimestamp() {
+        return new FieldTransform(Kind.SERVER_TIMESTAMP, null, Collections.emptyList());
+    }
+
+    /**
+     * @param amount The amount to add to the field. A missing field is treated as zero.
+     * @return A transform that adds to a numeric field.
+     */
+    public static FieldTransform increment(long amount) {
+        return new FieldTransform(Kind.INCREMENT, amount, Collections.emptyList());
+    }
+
+    /**
+     * @param elements The elements to add to the field's array, skipping those already present.
+     * @return A transform that adds elements to an array field.
+     */
+    public static FieldTransform arrayUnion(Object... elements) {
+        return new FieldTransform(Kind.ARRAY_UNION, null, Collections.unmodifiableList(Arrays.asList(elements)));
+    }
+
+    /**
+     * @param elements The elements to remove from the field's array.
+     * @return A transform that removes elements from an array field.
+     */
+    public static FieldTransform arrayRemove(Object... elements) {
+        return new FieldTransform(Kind.ARRAY_REMOVE, null, Collections.unmodifiableList(Arrays.asList(elements)));
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public Number getAmount() {
+        return amount;
+    }
+
+    public List<Object> getElements() {
+        return elements;
+    }
+}
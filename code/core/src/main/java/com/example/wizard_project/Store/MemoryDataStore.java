@@ -0,0 +1,892 @@
+package com.example.wizard_project.Store;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * MemoryDataStore is a thread-safe, in-memory {@link DataStore} for running the app's database flows
+ * on a plain JVM, such as replaying events with a hundred thousand entrants in a load test.
+ * It supports collections and subcollections, equality and range queries, query listeners, atomic batches, and
+ * optimistic transactions that are retried when a document they read changes before they commit.
+ * A simulated latency can be added to every round trip to approximate a real network.
+ */
+public class MemoryDataStore implements DataStore {
+    public static final int MAX_TRANSACTION_ATTEMPTS = 5; // Same number of attempts as the database client
+    private static final int DEFAULT_TRANSACTION_THREADS = 64;
+    private static final String AUTO_ID_CHARACTERS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
+    private static final int AUTO_ID_LENGTH = 20;
+
+    // Collection path -> document ID -> record. Guarded by lock.
+    private final Map<String, TreeMap<String, StoredRecord>> collections = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private long lastVersion = 0; // Guarded by the write lock
+    private long lastCommitMillis = 0; // Guarded by the write lock
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService transactionExecutor;
+    private final List<MemoryListener> listeners = new CopyOnWriteArrayList<>();
+    private volatile long minLatencyMillis = 0;
+    private volatile long maxLatencyMillis = 0;
+
+    /**
+     * Constructs an empty MemoryDataStore without latency.
+     */
+    public MemoryDataStore() {
+        this(DEFAULT_TRANSACTION_THREADS);
+    }
+
+    /**
+     * Constructs an empty MemoryDataStore without latency.
+     *
+     * @param transactionThreads The maximum number of transactions running at once.
+     */
+    public MemoryDataStore(int transactionThreads) {
+        this.scheduler = Executors.newScheduledThreadPool(Runtime.getRuntime().availableProcessors(), daemonThreads("memory-store"));
+        this.transactionExecutor = Executors.newFixedThreadPool(transactionThreads, daemonThreads("memory-store-transaction"));
+    }
+
+    /**
+     * Sets the simulated latency added to every round trip. Each round trip waits a random time between the bounds.
+     *
+     * @param minMillis The minimum latency in milliseconds.
+     * @param maxMillis The maximum latency in milliseconds.
+     */
+    public void setLatency(long minMillis, long maxMillis) {
+        if (minMillis < 0 || maxMillis < minMillis) {
+            throw new IllegalArgumentException("Latency bounds must satisfy 0 <= min <= max");
+        }
+        this.minLatencyMillis = minMillis;
+        this.maxLatencyMillis = maxMillis;
+    }
+
+    /**
+     * Stops the store's threads. Operations started afterwards are rejected.
+     */
+    public void shutdown() {
+        scheduler.shutdownNow();
+        transactionExecutor.shutdownNow();
+    }
+
+    @Override
+    public StoreTask<StoredDocument> get(String path) {
+        splitDocumentPath(path);
+        return schedule(() -> read(path));
+    }
+
+    @Override
+    public StoreTask<List<StoredDocument>> query(StoreQuery query) {
+        return schedule(() -> runQuery(query));
+    }
+
+    @Override
+    public StoreTask<Long> count(StoreQuery query) {
+        return schedule(() -> (long) runQuery(query).size());
+    }
+
+    @Override
+    public StoreTask<Void> set(String path, Map<String, Object> data) {
+        return batch().set(path, data).commit();
+    }
+
+    @Override
+    public StoreTask<Void> update(String path, Map<String, Object> updates) {
+        return batch().update(path, updates).commit();
+    }
+
+    @Override
+    public StoreTask<Void> delete(String path) {
+        return batch().delete(path).commit();
+    }
+
+    @Override
+    public String newDocumentId(String collectionPath) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        StringBuilder id = new StringBuilder(AUTO_ID_LENGTH);
+        for (int i = 0; i < AUTO_ID_LENGTH; i++) {
+            id.append(AUTO_ID_CHARACTERS.charAt(random.nextInt(AUTO_ID_CHARACTERS.length())));
+        }
+        return id.toString();
+    }
+
+    @Override
+    public Batch batch() {
+        return new MemoryBatch();
+    }
+
+    @Override
+    public <T> StoreTask<T> runTransaction(TransactionFunction<T> function) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        transactionExecutor.execute(() -> {
+            try {
+                future.complete(runTransactionAttempts(function));
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return new StoreTask<>(future);
+    }
+
+    @Override
+    public Registration listen(StoreQuery query, QueryListener listener) {
+        MemoryListener memoryListener = new MemoryListener(query, listener);
+        listeners.add(memoryListener);
+        memoryListener.scheduleRefresh();
+        return memoryListener::remove;
+    }
+
+    /**
+     * Runs a transaction function until its reads are still current when it commits.
+     */
+    private <T> T runTransactionAttempts(TransactionFunction<T> function) throws DataStoreException {
+        for (int attempt = 1; ; attempt++) {
+            MemoryTransaction transaction = new MemoryTransaction();
+            T result = function.apply(transaction);
+            simulateRoundTrip(nextLatency());
+            if (transaction.commit()) {
+                return result;
+            }
+            if (attempt == MAX_TRANSACTION_ATTEMPTS) {
+                throw new DataStoreException("Transaction failed after " + attempt + " attempts because the documents it read kept changing",
+                        DataStoreException.Code.ABORTED);
+            }
+            // Back off for a random time that grows with each attempt, so contending transactions spread out.
+            simulateRoundTrip(ThreadLocalRandom.current().nextLong(maxLatencyMillis * attempt + 1));
+        }
+    }
+
+    /**
+     * Runs an operation on the scheduler after the simulated latency.
+     */
+    private <T> StoreTask<T> schedule(Callable<T> operation) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        scheduler.schedule(() -> {
+            try {
+                future.complete(operation.call());
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+            }
+        }, nextLatency(), TimeUnit.MILLISECONDS);
+        return new StoreTask<>(future);
+    }
+
+    private long nextLatency() {
+        long min = minLatencyMillis;
+        long max = maxLatencyMillis;
+        return max > min ? min + ThreadLocalRandom.current().nextLong(max - min + 1) : min;
+    }
+
+    /**
+     * Blocks the calling transaction thread for a simulated round trip.
+     */
+    private static void simulateRoundTrip(long millis) throws DataStoreException {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataStoreException("Transaction was interrupted", DataStoreException.Code.CANCELLED, e);
+        }
+    }
+
+    private StoredDocument read(String path) {
+        lock.readLock().lock();
+        try {
+            StoredRecord record = find(path);
+            return new StoredDocument(path, record != null ? record.data : null);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the record stored at a document path. The caller must hold the lock.
+     */
+    private StoredRecord find(String path) {
+        String[] location = splitDocumentPath(path);
+        TreeMap<String, StoredRecord> collection = collections.get(location[0]);
+        return collection != null ? collection.get(location[1]) : null;
+    }
+
+    /**
+     * Applies writes atomically.
+     */
+    private void applyWrites(List<Write> writes) throws DataStoreException {
+        lock.writeLock().lock();
+        try {
+            commitWrites(writes);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Applies writes in order. Either every write is applied or none are. The caller must hold the write lock.
+     */
+    private void commitWrites(List<Write> writes) throws DataStoreException {
+        Map<String, Map<String, Object>> staged = new LinkedHashMap<>();
+        // Every commit gets a later timestamp than the one before, as in the database, so server timestamps
+        // can order the writes of different commits.
+        Date now = new Date(Math.max(System.currentTimeMillis(), lastCommitMillis + 1));
+        for (Write write : writes) {
+            Map<String, Object> current;
+            if (staged.containsKey(write.path)) {
+                current = staged.get(write.path);
+            } else {
+                StoredRecord record = find(write.path);
+                current = record != null ? record.data : null;
+            }
+
+            Map<String, Object> result = null;
+            if (write.type == Write.Type.SET) {
+                result = new LinkedHashMap<>();
+                applyFields(result, write.fields, false, now);
+            } else if (write.type == Write.Type.UPDATE) {
+                if (current == null) {
+                    throw new DataStoreException("No document to update: " + write.path, DataStoreException.Code.NOT_FOUND);
+                }
+                result = copyFields(current);
+                applyFields(result, write.fields, true, now);
+            }
+            staged.put(write.path, result);
+        }
+
+        lastCommitMillis = now.getTime();
+        Set<String> changedCollections = new HashSet<>();
+        for (Map.Entry<String, Map<String, Object>> entry : staged.entrySet()) {
+            String[] location = splitDocumentPath(entry.getKey());
+            changedCollections.add(location[0]);
+            if (entry.getValue() == null) {
+                TreeMap<String, StoredRecord> collection = collections.get(location[0]);
+                if (collection != null) {
+                    collection.remove(location[1]);
+                }
+            } else {
+                collections.computeIfAbsent(location[0], path -> new TreeMap<>())
+                        .put(location[1], new StoredRecord(++lastVersion, freezeMap(entry.getValue())));
+            }
+        }
+
+        for (MemoryListener listener : listeners) {
+            if (changedCollections.contains(listener.query.getCollectionPath())) {
+                listener.scheduleRefresh();
+            }
+        }
+    }
+
+    /**
+     * Applies written fields to a document. Update keys are dotted paths into nested fields.
+     */
+    @SuppressWarnings("unchecked")
+    private static void applyFields(Map<String, Object> document, Map<String, Object> fields, boolean dotted, Date now)
+            throws DataStoreException {
+        for (Map.Entry<String, Object> field : fields.entrySet()) {
+            String[] segments = dotted ? field.getKey().split("\\.") : new String[]{field.getKey()};
+            Object value = field.getValue();
+            boolean deleting = value instanceof FieldTransform && ((FieldTransform) value).getKind() == FieldTransform.Kind.DELETE;
+
+            Map<String, Object> parent = document;
+            for (int i = 0; i < segments.length - 1 && parent != null; i++) {
+                Object child = parent.get(segments[i]);
+                if (!(child instanceof Map)) {
+                    if (deleting) {
+                        parent = null; // Nothing to delete.
+                        break;
+                    }
+                    child = new LinkedHashMap<String, Object>();
+                    parent.put(segments[i], child);
+                }
+                parent = (Map<String, Object>) child;
+            }
+            if (parent == null) {
+                continue;
+            }
+
+            String name = segments[segments.length - 1];
+            if (deleting) {
+                parent.remove(name);
+            } else {
+                parent.put(name, resolve(value, parent.get(name), now));
+            }
+        }
+    }
+
+    /**
+     * Resolves a written value against the current value, applying any field transforms.
+     */
+    @SuppressWarnings("unchecked")
+    private static Object resolve(Object value, Object current, Date now) throws DataStoreException {
+        if (value instanceof Map) {
+            Map<String, Object> resolved = new LinkedHashMap<>();
+            for (Map.Entry<String, Object> entry : ((Map<String, Object>) value).entrySet()) {
+                resolved.put(entry.getKey(), resolve(entry.getValue(), null, now));
+            }
+            return resolved;
+        }
+        if (!(value instanceof FieldTransform)) {
+            return value;
+        }
+
+        FieldTransform transform = (FieldTransform) value;
+        switch (transform.getKind()) {
+            case SERVER_TIMESTAMP:
+                return new Date(now.getTime());
+            case INCREMENT:
+                Number amount = transform.getAmount();
+                if (!(current instanceof Number)) {
+                    return amount;
+                }
+                if (isIntegral(current) && isIntegral(amount)) {
+                    return ((Number) current).longValue() + amount.longValue();
+                }
+                return ((Number) current).doubleValue() + amount.doubleValue();
+            case ARRAY_UNION:
+                List<Object> union = current instanceof List ? copyList((List<Object>) current) : new ArrayList<>();
+                for (Object element : transform.getElements()) {
+                    Object copy = copyValue(element);
+                    if (!union.contains(copy)) {
+                        union.add(copy);
+                    }
+                }
+                return union;
+            case ARRAY_REMOVE:
+                List<Object> remaining = current instanceof List ? copyList((List<Object>) current) : new ArrayList<>();
+                for (Object element : transform.getElements()) {
+                    Object copy = copyValue(element);
+                    while (remaining.remove(copy)) {
+                        // Remove every occurrence.
+                    }
+                }
+                return remaining;
+            default:
+                throw new DataStoreException("A field can only be deleted by an update", DataStoreException.Code.INVALID_ARGUMENT);
+        }
+    }
+
+    private List<StoredDocument> runQuery(StoreQuery query) {
+        List<StoreQuery.Order> orders = query.getOrders();
+        List<QueryRow> rows = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            TreeMap<String, StoredRecord> collection = collections.get(query.getCollectionPath());
+            if (collection != null) {
+                for (Map.Entry<String, StoredRecord> entry : collection.entrySet()) {
+                    StoredDocument document = new StoredDocument(query.getCollectionPath() + "/" + entry.getKey(), entry.getValue().data);
+                    if (matchesFilters(document, query.getFilters())) {
+                        QueryRow row = QueryRow.of(document, orders);
+                        if (row != null) {
+                            rows.add(row);
+                        }
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Comparator<QueryRow> ordering = (a, b) -> compareRows(a.keys, a.document.getId(), b.keys, b.document.getId(), orders);
+        rows.sort(ordering);
+
+        List<StoredDocument> results = new ArrayList<>();
+        Object[] cursorKeys = query.getCursorValues() != null ? query.getCursorValues().toArray() : null;
+        for (QueryRow row : rows) {
+            if (cursorKeys != null && compareRows(row.keys, row.document.getId(), cursorKeys, query.getCursorId(), orders) <= 0) {
+                continue;
+            }
+            results.add(row.document);
+            if (query.getLimit() > 0 && results.size() == query.getLimit()) {
+                break;
+            }
+        }
+        return results;
+    }
+
+    private static boolean matchesFilters(StoredDocument document, List<StoreQuery.Filter> filters) {
+        for (StoreQuery.Filter filter : filters) {
+            if (!document.contains(filter.getField())) {
+                return false;
+            }
+            Object value = document.get(filter.getField());
+            Object expected = filter.getValue();
+            if (filter.getOperator() == StoreQuery.Operator.EQUAL_TO) {
+                if (!valuesEqual(value, expected)) {
+                    return false;
+                }
+                continue;
+            }
+            if (filter.getOperator() == StoreQuery.Operator.IN) {
+                boolean matchesAny = false;
+                for (Object candidate : (List<?>) expected) {
+                    matchesAny |= valuesEqual(value, candidate);
+                }
+                if (!matchesAny) {
+                    return false;
+                }
+                continue;
+            }
+
+            // Range filters only match values of the same type.
+            if (typeRank(value) != typeRank(expected)) {
+                return false;
+            }
+            int comparison = compareValues(value, expected);
+            boolean matches;
+            switch (filter.getOperator()) {
+                case LESS_THAN:
+                    matches = comparison < 0;
+                    break;
+                case LESS_THAN_OR_EQUAL_TO:
+                    matches = comparison <= 0;
+                    break;
+                case GREATER_THAN:
+                    matches = comparison > 0;
+                    break;
+                default:
+                    matches = comparison >= 0;
+                    break;
+            }
+            if (!matches) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compares two result positions by their orderBy values, then by document ID.
+     */
+    private static int compareRows(Object[] aKeys, String aId, Object[] bKeys, String bId, List<StoreQuery.Order> orders) {
+        StoreQuery.Direction direction = StoreQuery.Direction.ASCENDING;
+        for (int i = 0; i < orders.size(); i++) {
+            direction = orders.get(i).getDirection();
+            int comparison = compareValues(aKeys[i], bKeys[i]);
+            if (comparison != 0) {
+                return direction == StoreQuery.Direction.DESCENDING ? -comparison : comparison;
+            }
+        }
+        int comparison = aId.compareTo(bId);
+        return direction == StoreQuery.Direction.DESCENDING ? -comparison : comparison;
+    }
+
+    /**
+     * Orders values the way the database does: null, booleans, numbers, dates, strings, arrays, then maps.
+     */
+    private static int typeRank(Object value) {
+        if (value == null) {
+            return 0;
+        } else if (value instanceof Boolean) {
+            return 1;
+        } else if (value instanceof Number) {
+            return 2;
+        } else if (value instanceof Date) {
+            return 3;
+        } else if (value instanceof String) {
+            return 4;
+        } else if (value instanceof List) {
+            return 5;
+        } else if (value instanceof Map) {
+            return 6;
+        }
+        return 7;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int compareValues(Object a, Object b) {
+        int rank = typeRank(a);
+        if (rank != typeRank(b)) {
+            return Integer.compare(rank, typeRank(b));
+        }
+        switch (rank) {
+            case 1:
+                return Boolean.compare((Boolean) a, (Boolean) b);
+            case 2:
+                if (isIntegral(a) && isIntegral(b)) {
+                    return Long.compare(((Number) a).longValue(), ((Number) b).longValue());
+                }
+                return Double.compare(((Number) a).doubleValue(), ((Number) b).doubleValue());
+            case 3:
+                return ((Date) a).compareTo((Date) b);
+            case 4:
+                return ((String) a).compareTo((String) b);
+            case 5:
+                List<Object> aList = (List<Object>) a;
+                List<Object> bList = (List<Object>) b;
+                for (int i = 0; i < Math.min(aList.size(), bList.size()); i++) {
+                    int comparison = compareValues(aList.get(i), bList.get(i));
+                    if (comparison != 0) {
+                        return comparison;
+                    }
+                }
+                return Integer.compare(aList.size(), bList.size());
+            default:
+                return 0;
+        }
+    }
+
+    private static boolean valuesEqual(Object a, Object b) {
+        int rank = typeRank(a);
+        if (rank != typeRank(b)) {
+            return false;
+        }
+        return rank <= 4 ? compareValues(a, b) == 0 : Objects.equals(copyValue(a), copyValue(b));
+    }
+
+    private static boolean isIntegral(Object value) {
+        return value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte;
+    }
+
+    /**
+     * Copies a written value, converting numbers to the types the database stores.
+     */
+    @SuppressWarnings("unchecked")
+    private static Object copyValue(Object value) {
+        if (value instanceof Map) {
+            return copyFields((Map<String, Object>) value);
+        }
+        if (value instanceof Collection) {
+            return copyList((Collection<Object>) value);
+        }
+        if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof Float) {
+            return ((Float) value).doubleValue();
+        }
+        if (value instanceof Date) {
+            return new Date(((Date) value).getTime());
+        }
+        return value;
+    }
+
+    private static Map<String, Object> copyFields(Map<String, Object> fields) {
+        Map<String, Object> copy = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> field : fields.entrySet()) {
+            copy.put(String.valueOf(field.getKey()), copyValue(field.getValue()));
+        }
+        return copy;
+    }
+
+    private static List<Object> copyList(Collection<Object> values) {
+        List<Object> copy = new ArrayList<>(values.size());
+        for (Object value : values) {
+            copy.add(copyValue(value));
+        }
+        return copy;
+    }
+
+    /**
+     * Makes stored data read-only, so snapshots handed to callers cannot change the store.
+     */
+    @SuppressWarnings("unchecked")
+    private static Object freeze(Object value) {
+        if (value instanceof Map) {
+            return freezeMap((Map<String, Object>) value);
+        }
+        if (value instanceof List) {
+            List<Object> frozen = new ArrayList<>();
+            for (Object element : (List<Object>) value) {
+                frozen.add(freeze(element));
+            }
+            return Collections.unmodifiableList(frozen);
+        }
+        return value;
+    }
+
+    private static Map<String, Object> freezeMap(Map<String, Object> fields) {
+        Map<String, Object> frozen = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> field : fields.entrySet()) {
+            frozen.put(field.getKey(), freeze(field.getValue()));
+        }
+        return Collections.unmodifiableMap(frozen);
+    }
+
+    /**
+     * Splits a document path into its collection path and document ID.
+     */
+    private static String[] splitDocumentPath(String path) {
+        int slashes = 0;
+        for (int i = 0; i < path.length(); i++) {
+            if (path.charAt(i) == '/') {
+                slashes++;
+            }
+        }
+        int lastSlash = path.lastIndexOf('/');
+        if (slashes % 2 == 0 || lastSlash <= 0 || lastSlash == path.length() - 1) {
+            throw new IllegalArgumentException("Invalid document path: " + path);
+        }
+        return new String[]{path.substring(0, lastSlash), path.substring(lastSlash + 1)};
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * A stored document and the version assigned by the write that produced it.
+     */
+    private static final class StoredRecord {
+        private final long version;
+        private final Map<String, Object> data;
+
+        private StoredRecord(long version, Map<String, Object> data) {
+            this.version = version;
+            this.data = data;
+        }
+    }
+
+    /**
+     * A query match and its orderBy values.
+     */
+    private static final class QueryRow {
+        private final StoredDocument document;
+        private final Object[] keys;
+
+        private QueryRow(StoredDocument document, Object[] keys) {
+            this.document = document;
+            this.keys = keys;
+        }
+
+        /**
+         * @return The row, or null if the document is missing an orderBy field.
+         */
+        private static QueryRow of(StoredDocument document, List<StoreQuery.Order> orders) {
+            Object[] keys = new Object[orders.size()];
+            for (int i = 0; i < keys.length; i++) {
+                String field = orders.get(i).getField();
+                if (!document.contains(field)) {
+                    return null;
+                }
+                keys[i] = document.get(field);
+            }
+            return new QueryRow(document, keys);
+        }
+    }
+
+    private static final class Write {
+        private enum Type {
+            SET,
+            UPDATE,
+            DELETE
+        }
+
+        private final Type type;
+        private final String path;
+        private final Map<String, Object> fields;
+
+        private Write(Type type, String path, Map<String, Object> fields) {
+            splitDocumentPath(path);
+            this.type = type;
+            this.path = path;
+            this.fields = fields != null ? copyFields(fields) : null;
+        }
+    }
+
+    private final class MemoryBatch implements Batch {
+        private final List<Write> writes = new ArrayList<>();
+        private boolean committed = false;
+
+        @Override
+        public Batch set(String path, Map<String, Object> data) {
+            return add(new Write(Write.Type.SET, path, data));
+        }
+
+        @Override
+        public Batch update(String path, Map<String, Object> updates) {
+            return add(new Write(Write.Type.UPDATE, path, updates));
+        }
+
+        @Override
+        public Batch delete(String path) {
+            return add(new Write(Write.Type.DELETE, path, null));
+        }
+
+        private Batch add(Write write) {
+            if (committed) {
+                throw new IllegalStateException("A batch cannot be changed after it is committed");
+            }
+            writes.add(write);
+            return this;
+        }
+
+        @Override
+        public StoreTask<Void> commit() {
+            committed = true;
+            List<Write> batchWrites = new ArrayList<>(writes);
+            return schedule(() -> {
+                applyWrites(batchWrites);
+                return null;
+            });
+        }
+    }
+
+    /**
+     * A query listener. Its query is rerun after writes to the query's collection, and the results are compared
+     * with the previous run to find the changes. Writes made while a rerun is pending share that rerun.
+     */
+    private final class MemoryListener {
+        private final StoreQuery query;
+        private final QueryListener listener;
+        private final AtomicBoolean refreshPending = new AtomicBoolean(false);
+        private Map<String, StoredDocument> results; // Guarded by this
+        private boolean removed = false; // Guarded by this
+
+        private MemoryListener(StoreQuery query, QueryListener listener) {
+            this.query = query;
+            this.listener = listener;
+        }
+
+        private void scheduleRefresh() {
+            if (!refreshPending.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                scheduler.schedule(this::refresh, nextLatency(), TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                refreshPending.set(false); // The store has been shut down.
+            }
+        }
+
+        private synchronized void refresh() {
+            refreshPending.set(false);
+            if (removed) {
+                return;
+            }
+            Map<String, StoredDocument> current = new LinkedHashMap<>();
+            for (StoredDocument document : runQuery(query)) {
+                current.put(document.getId(), document);
+            }
+
+            boolean initial = results == null;
+            List<DocumentChange> changes = new ArrayList<>();
+            for (StoredDocument document : current.values()) {
+                StoredDocument previous = initial ? null : results.get(document.getId());
+                if (previous == null) {
+                    changes.add(new DocumentChange(DocumentChange.Type.ADDED, document));
+                } else if (!previous.getData().equals(document.getData())) {
+                    changes.add(new DocumentChange(DocumentChange.Type.MODIFIED, document));
+                }
+            }
+            if (!initial) {
+                for (StoredDocument previous : results.values()) {
+                    if (!current.containsKey(previous.getId())) {
+                        changes.add(new DocumentChange(DocumentChange.Type.REMOVED, previous));
+                    }
+                }
+            }
+            results = current;
+
+            if (initial || !changes.isEmpty()) {
+                try {
+                    listener.onChanges(changes);
+                } catch (RuntimeException e) {
+                    Thread thread = Thread.currentThread();
+                    thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+                }
+            }
+        }
+
+        private synchronized void remove() {
+            removed = true;
+            listeners.remove(this);
+        }
+    }
+
+    private final class MemoryTransaction implements Transaction {
+        private final Map<String, Long> readVersions = new HashMap<>();
+        private final List<Write> writes = new ArrayList<>();
+        private boolean readChanged = false;
+
+        @Override
+        public StoredDocument get(String path) throws DataStoreException {
+            if (!writes.isEmpty()) {
+                throw new IllegalStateException("All reads in a transaction must happen before any writes");
+            }
+            simulateRoundTrip(nextLatency());
+            lock.readLock().lock();
+            try {
+                StoredRecord record = find(path);
+                long version = record != null ? record.version : 0;
+                Long previousVersion = readVersions.putIfAbsent(path, version);
+                if (previousVersion != null && previousVersion != version) {
+                    readChanged = true;
+                }
+                return new StoredDocument(path, record != null ? record.data : null);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        @Override
+        public Transaction set(String path, Map<String, Object> data) {
+            writes.add(new Write(Write.Type.SET, path, data));
+            return this;
+        }
+
+        @Override
+        public Transaction update(String path, Map<String, Object> updates) {
+            writes.add(new Write(Write.Type.UPDATE, path, updates));
+            return this;
+        }
+
+        @Override
+        public Transaction delete(String path) {
+            writes.add(new Write(Write.Type.DELETE, path, null));
+            return this;
+        }
+
+        /**
+         * Applies the transaction's writes if every document it read is unchanged.
+         *
+         * @return True if the writes were applied, false if a read document changed and the transaction must be retried.
+         */
+        private boolean commit() throws DataStoreException {
+            if (readChanged) {
+                return false;
+            }
+            lock.writeLock().lock();
+            try {
+                for (Map.Entry<String, Long> read : readVersions.entrySet()) {
+                    StoredRecord record = find(read.getKey());
+                    long version = record != null ? record.version : 0;
+                    if (version != read.getValue()) {
+                        return false;
+                    }
+                }
+                commitWrites(writes);
+                return true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.example.wizard_project.Store;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * StoreQuery describes a query over the documents of a single collection.
+ * Queries are immutable; every method returns a new query, so a base query can be shared between pages.
+ * Results are ordered by the orderBy fields and then by document ID, and documents missing an
+ * orderBy field or a filtered field are excluded, as in the database.
+ */
+public final class StoreQuery {
+    public static final int MAX_IN_VALUES = 30; // Values one whereIn filter may list, as in the database
+    public enum Operator {
+        EQUAL_TO,
+        LESS_THAN,
+        LESS_THAN_OR_EQUAL_TO,
+        GREATER_THAN,
+        GREATER_THAN_OR_EQUAL_TO,
+        IN
+    }
+
+    public enum Direction {
+        ASCENDING,
+        DESCENDING
+    }
+
+    /**
+     * A condition a field value must satisfy.
+     */
+    public static final class Filter {
+        private final String field;
+        private final Operator operator;
+        private final Object value;
+
+        private Filter(String field, Operator operator, Object value) {
+            this.field = field;
+            this.operator = operator;
+            this.value = value;
+        }
+
+        public String getField() {
+            return field;
+        }
+
+        public Operator getOperator() {
+            return operator;
+        }
+
+        public Object getValue() {
+            return value;
+        }
+    }
+
+    /**
+     * A field the results are sorted by.
+     */
+    public static final class Order {
+        private final String field;
+        private final Direction direction;
+
+        private Order(String field, Direction direction) {
+            this.field = field;
+            this.direction = direction;
+        }
+
+        public String getField() {
+            return field;
+        }
+
+        public Direction getDirection() {
+            return direction;
+        }
+    }
+
+    private final String collectionPath;
+    private final List<Filter> filters;
+    private final List<Order> orders;
+    private final List<Object> cursorValues;
+    private final String cursorId;
+    private final int limit;
+
+    private StoreQuery(String collectionPath, List<Filter> filters, List<Order> orders,
+                       List<Object> cursorValues, String cursorId, int limit) {
+        this.collectionPath = collectionPath;
+        this.filters = filters;
+        this.orders = orders;
+        this.cursorValues = cursorValues;
+        this.cursorId = cursorId;
+        this.limit = limit;
+    }
+
+    /**
+     * Creates a query returning every document of a collection.
+     *
+     * @param collectionPath The full path of the collection, e.g. "events/{eventId}/waitingList".
+     * @return The query.
+     */
+    public static StoreQuery collection(String collectionPath) {
+        return new StoreQuery(collectionPath, Collections.emptyList(), Collections.emptyList(), null, null, 0);
+    }
+
+    public StoreQuery whereEqualTo(String field, Object value) {
+        return where(field, Operator.EQUAL_TO, value);
+    }
+
+    public StoreQuery whereLessThan(String field, Object value) {
+        return where(field, Operator.LESS_THAN, value);
+    }
+
+    public StoreQuery whereLessThanOrEqualTo(String field, Object value) {
+        return where(field, Operator.LESS_THAN_OR_EQUAL_TO, value);
+    }
+
+    public StoreQuery whereGreaterThan(String field, Object value) {
+        return where(field, Operator.GREATER_THAN, value);
+    }
+
+    public StoreQuery whereGreaterThanOrEqualTo(String field, Object value) {
+        return where(field, Operator.GREATER_THAN_OR_EQUAL_TO, value);
+    }
+
+    /**
+     * Matches documents whose field equals any of the given values.
+     *
+     * @param field  The field to match.
+     * @param values Between 1 and {@link #MAX_IN_VALUES} values; split longer lists over several queries.
+     * @return The query.
+     * @throws IllegalArgumentException If there are no values or too many.
+     */
+    public StoreQuery whereIn(String field, List<?> values) {
+        if (values.isEmpty() || values.size() > MAX_IN_VALUES) {
+            throw new IllegalArgumentException("whereIn takes 1 to " + MAX_IN_VALUES + " values, not " + values.size());
+        }
+        return where(field, Operator.IN, Collections.unmodifiableList(new ArrayList<>(values)));
+    }
+
+    private StoreQuery where(String field, Operator operator, Object value) {
+        List<Filter> newFilters = new ArrayList<>(filters);
+        newFilters.add(new Filter(field, operator, value));
+        return new StoreQuery(collectionPath, Collections.unmodifiableList(newFilters), orders, cursorValues, cursorId, limit);
+    }
+
+    public StoreQuery orderBy(String field) {
+        return orderBy(field, Direction.ASCENDING);
+    }
+
+    public StoreQuery orderBy(String field, Direction direction) {
+        List<Order> newOrders = new ArrayList<>(orders);
+        newOrders.add(new Order(field, direction));
+        return new StoreQuery(collectionPath, filters, Collections.unmodifiableList(newOrders), cursorValues, cursorId, limit);
+    }
+
+    /**
+     * @param limit The maximum number of documents returned.
+     * @return A query returning at most {@code limit} documents.
+     */
+    public StoreQuery limit(int limit) {
+        return new StoreQuery(collectionPath, filters, orders, cursorValues, cursorId, limit);
+    }
+
+    /**
+     * Starts the results after a document, which is usually the last document of the previous page.
+     * Call this after every orderBy, since the cursor records the document's values for those fields.
+     *
+     * @param document The document to start after.
+     * @return A query returning the documents ordered after {@code document}.
+     */
+    public StoreQuery startAfter(StoredDocument document) {
+        List<Object> values = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            values.add(document.get(order.getField()));
+        }
+        return new StoreQuery(collectionPath, filters, orders, Collections.unmodifiableList(values), document.getId(), limit);
+    }
+
+    public String getCollectionPath() {
+        return collectionPath;
+    }
+
+    public List<Filter> getFilters() {
+        return filters;
+    }
+
+    public List<Order> getOrders() {
+        return orders;
+    }
+
+    /**
+     * @return The orderBy field values of the document to start after, or null if the query has no cursor.
+     */
+    public List<Object> getCursorValues() {
+        return cursorValues;
+    }
+
+    /**
+     * @return The ID of the document to start after, or null if the query has no cursor.
+     */
+    public String getCursorId() {
+        return cursorId;
+    }
+
+    /**
+     * @return The maximum number of documents returned, or 0 for no limit.
+     */
+    public int getLimit() {
+        return limit;
+    }
+}
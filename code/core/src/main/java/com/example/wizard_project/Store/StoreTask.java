@@ -0,0 +1,155 @@
+package com.example.wizard_project.Store;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * StoreTask is the pending result of an asynchronous {@link DataStore} operation.
+ * Listeners are attached the same way as on database tasks, and are called once the operation finishes.
+ *
+ * @param <T> The type of the result.
+ */
+public final class StoreTask<T> {
+    private final CompletableFuture<T> future;
+
+    /**
+     * Constructs a task completed by the given future.
+     *
+     * @param future The future completed when the operation finishes.
+     */
+    public StoreTask(CompletableFuture<T> future) {
+        this.future = future;
+    }
+
+    /**
+     * @return A task that has already succeeded with the result.
+     */
+    public static <T> StoreTask<T> forResult(T result) {
+        return new StoreTask<>(CompletableFuture.completedFuture(result));
+    }
+
+    /**
+     * @return A task that has already failed with the exception.
+     */
+    public static <T> StoreTask<T> forException(Exception e) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(e);
+        return new StoreTask<>(future);
+    }
+
+    public StoreTask<T> addOnSuccessListener(Consumer<? super T> listener) {
+        future.whenComplete((result, error) -> {
+            if (error == null) {
+                deliver(() -> listener.accept(result));
+            }
+        });
+        return this;
+    }
+
+    public StoreTask<T> addOnFailureListener(Consumer<? super Exception> listener) {
+        future.whenComplete((result, error) -> {
+            if (error != null) {
+                deliver(() -> listener.accept(unwrap(error)));
+            }
+        });
+        return this;
+    }
+
+    public StoreTask<T> addOnCompleteListener(Consumer<StoreTask<T>> listener) {
+        future.whenComplete((result, error) -> deliver(() -> listener.accept(this)));
+        return this;
+    }
+
+    /**
+     * Runs another operation once this one succeeds.
+     *
+     * @param continuation Starts the next operation from this task's result.
+     * @return A task for the result of the next operation, failing if either operation fails.
+     */
+    public <R> StoreTask<R> onSuccessTask(Function<? super T, StoreTask<R>> continuation) {
+        return new StoreTask<>(future.thenCompose(result -> continuation.apply(result).future));
+    }
+
+    /**
+     * Runs another operation if this one fails, such as retrying it.
+     *
+     * @param continuation Starts the next operation from this task's exception.
+     * @return A task for this task's result if it succeeds, or for the result of the next operation otherwise.
+     */
+    public StoreTask<T> onFailureTask(Function<? super Exception, StoreTask<T>> continuation) {
+        return new StoreTask<>(future.handle((result, error) -> error == null ? future : continuation.apply(unwrap(error)).future)
+                .thenCompose(Function.identity()));
+    }
+
+    public boolean isComplete() {
+        return future.isDone();
+    }
+
+    public boolean isSuccessful() {
+        return future.isDone() && !future.isCompletedExceptionally();
+    }
+
+    /**
+     * @return The result of a successful task.
+     * @throws IllegalStateException If the task is not complete or has failed.
+     */
+    public T getResult() {
+        if (!isSuccessful()) {
+            throw new IllegalStateException("Task has not completed successfully", getException());
+        }
+        return future.join();
+    }
+
+    /**
+     * @return The exception of a failed task, or null if the task has not failed.
+     */
+    public Exception getException() {
+        if (!future.isCompletedExceptionally()) {
+            return null;
+        }
+        try {
+            future.join();
+            return null;
+        } catch (CompletionException | CancellationException e) {
+            return unwrap(e);
+        }
+    }
+
+    /**
+     * @return A future completed with the task's result, for callers that compose or wait on operations.
+     */
+    public CompletableFuture<T> toFuture() {
+        return future;
+    }
+
+    /**
+     * Returns the exception that caused a failure, unwrapping the wrappers added by futures.
+     */
+    static Exception unwrap(Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof Exception) {
+            return (Exception) cause;
+        }
+        return new DataStoreException(cause.toString(), DataStoreException.Code.UNKNOWN, cause);
+    }
+
+    /**
+     * Runs a listener, passing anything it throws to the thread's uncaught exception handler instead of
+     * silently storing it in a derived future.
+     */
+    private static void deliver(Runnable listener) {
+        try {
+            listener.run();
+        } catch (RuntimeException | Error e) {
+            Thread thread = Thread.currentThread();
+            thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+        }
+    }
+}
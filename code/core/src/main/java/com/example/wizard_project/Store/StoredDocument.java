@@ -0,0 +1,122 @@
+package com.example.wizard_project.Store;
+
+import com.example.wizard_project.Core.DocumentFields;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * StoredDocument is a read-only snapshot of a document in a {@link DataStore}.
+ * Nested fields are read with dotted field paths, such as "drawLease.drawId".
+ */
+public class StoredDocument implements DocumentFields {
+    private final String path;
+    private final Map<String, Object> data;
+
+    /**
+     * Constructs a snapshot of a document.
+     *
+     * @param path The full path of the document, e.g. "events/{eventId}".
+     * @param data The fields of the document, or null if the document does not exist.
+     */
+    public StoredDocument(String path, Map<String, Object> data) {
+        this.path = path;
+        this.data = data != null ? Collections.unmodifiableMap(data) : null;
+    }
+
+    /**
+     * @return True if the document exists, false otherwise.
+     */
+    public boolean exists() {
+        return data != null;
+    }
+
+    @Override
+    public String getId() {
+        return path.substring(path.lastIndexOf('/') + 1);
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * @return The fields of the document, or null if the document does not exist.
+     */
+    public Map<String, Object> getData() {
+        return data;
+    }
+
+    /**
+     * Checks whether the document contains a field.
+     *
+     * @param field The dotted path of the field.
+     * @return True if the field is present, even when its value is null.
+     */
+    public boolean contains(String field) {
+        if (data == null) {
+            return false;
+        }
+        Map<?, ?> fields = data;
+        String[] segments = field.split("\\.");
+        for (int i = 0; i < segments.length - 1; i++) {
+            Object value = fields.get(segments[i]);
+            if (!(value instanceof Map)) {
+                return false;
+            }
+            fields = (Map<?, ?>) value;
+        }
+        return fields.containsKey(segments[segments.length - 1]);
+    }
+
+    /**
+     * Reads the value of a field.
+     *
+     * @param field The dotted path of the field.
+     * @return The value of the field, or null if it is not present.
+     */
+    public Object get(String field) {
+        if (data == null) {
+            return null;
+        }
+        Object value = data;
+        for (String segment : field.split("\\.")) {
+            if (!(value instanceof Map)) {
+                return null;
+            }
+            value = ((Map<?, ?>) value).get(segment);
+        }
+        return value;
+    }
+
+    @Override
+    public String getString(String field) {
+        Object value = get(field);
+        return value instanceof String ? (String) value : null;
+    }
+
+    @Override
+    public Long getLong(String field) {
+        Object value = get(field);
+        return value instanceof Number ? ((Number) value).longValue() : null;
+    }
+
+    @Override
+    public Double getDouble(String field) {
+        Object value = get(field);
+        return value instanceof Number ? ((Number) value).doubleValue() : null;
+    }
+
+    @Override
+    public Boolean getBoolean(String field) {
+        Object value = get(field);
+        return value instanceof Boolean ? (Boolean) value : null;
+    }
+
+    @Override
+    public Date getDate(String field) {
+        Object value = get(field);
+        return value instanceof Date ? new Date(((Date) value).getTime()) : null;
+    }
+}
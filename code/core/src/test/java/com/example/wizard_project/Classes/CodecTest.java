@@ -0,0 +1,86 @@
+package com.example.wizard_project.Classes;
+
+import com.example.wizard_project.Core.MapDocumentFields;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the codecs CodecProcessor generates for the models.
+ */
+public class CodecTest {
+    @Test
+    public void entrantCodec_roundTrips() {
+        Entrant entrant = new Entrant("Ada", "Selected", "user", 53.5, -113.5);
+        Map<String, Object> fields = EntrantCodec.getInstance().encode(entrant);
+
+        assertEquals("Ada", fields.get(EntrantCodec.NAME));
+        assertEquals("user", fields.get(EntrantCodec.USER_ID));
+        Entrant decoded = EntrantCodec.getInstance().decode(new MapDocumentFields("user", fields));
+        assertEquals("Ada", decoded.getName());
+        assertEquals("Selected", decoded.getStatus());
+        assertEquals("user", decoded.getUserId());
+        assertEquals(53.5, decoded.getLatitude());
+        assertEquals(-113.5, decoded.getLongitude());
+    }
+
+    @Test
+    public void entrantCodec_readsMissingIdFromDocument() {
+        Map<String, Object> fields = new HashMap<>();
+        fields.put(EntrantCodec.NAME, "Ada");
+        Entrant decoded = EntrantCodec.getInstance().decode(new MapDocumentFields("documentId", fields));
+        assertEquals("documentId", decoded.getUserId());
+        assertNull(decoded.getStatus());
+        assertNull(decoded.getLatitude());
+    }
+
+    @Test
+    public void eventCodec_roundTrips() {
+        Date open = new Date(1_700_000_000_000L);
+        Date close = new Date(1_700_600_000_000L);
+        Event event = new Event("event", "Swim", "Lessons", 25, 40, open, close, "facility", "Pool", true,
+                "images/abc");
+        Map<String, Object> fields = EventCodec.getInstance().encode(event);
+
+        Event decoded = EventCodec.getInstance().decode(new MapDocumentFields("other", fields));
+        assertEquals("event", decoded.getEventId());
+        assertEquals("Swim", decoded.getEvent_name());
+        assertEquals(25, decoded.getEvent_price());
+        assertEquals(40, decoded.getEvent_max_entrants());
+        assertEquals(open, decoded.getRegistration_open());
+        assertEquals(close, decoded.getRegistration_close());
+        assertTrue(decoded.isGeolocation_requirement());
+        assertEquals("images/abc", decoded.getEvent_image_path());
+        assertFalse(decoded.isDrawn());
+    }
+
+    @Test
+    public void eventCodec_readsStoredNumbersAsLongs() {
+        // The database returns whole numbers as longs, which are narrowed back to the model's int fields.
+        Map<String, Object> fields = new HashMap<>();
+        fields.put(EventCodec.EVENT_PRICE, 12L);
+        fields.put(EventCodec.EVENT_MAX_ENTRANTS, 300L);
+        fields.put(EventCodec.IS_DRAWN, true);
+        Event decoded = EventCodec.getInstance().decode(new MapDocumentFields("event", fields));
+        assertEquals("event", decoded.getEventId());
+        assertEquals(12, decoded.getEvent_price());
+        assertEquals(300, decoded.getEvent_max_entrants());
+        assertTrue(decoded.isDrawn());
+        assertNull(decoded.getEvent_name());
+    }
+
+    @Test
+    public void codecs_encodeEveryStoredField() {
+        assertEquals(5, EntrantCodec.getInstance().encode(new Entrant("a", "b", "c", null, null)).size());
+        Map<String, Object> eventFields = EventCodec.getInstance().encode(
+                new Event("event", "a", "b", 0, 0, null, null, "f", "l", false, ""));
+        assertEquals(15, eventFields.size());
+        assertTrue(eventFields.containsKey(EventCodec.POSTER_URI));
+        assertNull(eventFields.get(EventCodec.POSTER_URI));
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.wizard_project.Core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link BroadcastAudience}.
+ */
+public class BroadcastAudienceTest {
+    @Test
+    public void allEntrants_matchesAnyoneOnWaitingList() {
+        BroadcastAudience audience = BroadcastAudience.allEntrants();
+        assertTrue(audience.matches("user", "Waitlisted"));
+        assertTrue(audience.matches("user", "Selected"));
+        assertFalse(audience.matches("user", null));
+        assertTrue(audience.needsEntry());
+    }
+
+    @Test
+    public void withStatus_matchesOnlyGivenStatuses() {
+        BroadcastAudience audience = BroadcastAudience.withStatus("Selected", "Enrolled");
+        assertTrue(audience.matches("user", "Selected"));
+        assertTrue(audience.matches("user", "Enrolled"));
+        assertFalse(audience.matches("user", "Not Selected"));
+        assertFalse(audience.matches("user", null));
+        assertTrue(audience.needsEntry());
+    }
+
+    @Test
+    public void users_matchesGivenUsersWithoutEntry() {
+        BroadcastAudience audience = BroadcastAudience.users(List.of("a", "b"));
+        assertTrue(audience.matches("a", null));
+        assertTrue(audience.matches("b", "Cancelled"));
+        assertFalse(audience.matches("c", "Selected"));
+        assertFalse(audience.needsEntry());
+    }
+
+    @Test
+    public void toMap_roundTrips() {
+        BroadcastAudience audience = BroadcastAudience.fromMap(BroadcastAudience.withStatus("Selected").toMap());
+        assertNotNull(audience);
+        assertEquals(BroadcastAudience.Kind.STATUS, audience.getKind());
+        assertEquals(List.of("Selected"), audience.getValues());
+
+        BroadcastAudience all = BroadcastAudience.fromMap(BroadcastAudience.allEntrants().toMap());
+        assertNotNull(all);
+        assertEquals(BroadcastAudience.Kind.ALL, all.getKind());
+        assertTrue(all.getValues().isEmpty());
+    }
+
+    @Test
+    public void fromMap_rejectsInvalidAudience() {
+        assertNull(BroadcastAudience.fromMap(null));
+        assertNull(BroadcastAudience.fromMap("ALL"));
+        Map<String, Object> unknown = new HashMap<>();
+        unknown.put("kind", "EVERYONE");
+        assertNull(BroadcastAudience.fromMap(unknown));
+    }
+
+    @Test
+    public void fromMap_readsMissingValuesAsEmpty() {
+        Map<String, Object> stored = new HashMap<>();
+        stored.put("kind", "USERS");
+        BroadcastAudience audience = BroadcastAudience.fromMap(stored);
+        assertNotNull(audience);
+        assertFalse(audience.matches("user", "Selected"));
+    }
+
+    @Test
+    public void getValues_isUnmodifiable() {
+        BroadcastAudience audience = BroadcastAudience.withStatus("Selected");
+        assertThrows(UnsupportedOperationException.class, () -> audience.getValues().add("Enrolled"));
+    }
+}
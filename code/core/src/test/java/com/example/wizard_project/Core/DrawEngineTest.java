@@ -0,0 +1,103 @@
+package com.example.wizard_project.Core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link DrawEngine}.
+ */
+public class DrawEngineTest {
+    @Test
+    public void drawIndices_isReplayedFromSeed() {
+        assertArrayEquals(DrawEngine.drawIndices(1000, 50, 42L), DrawEngine.drawIndices(1000, 50, 42L));
+        assertFalse(Arrays.equals(DrawEngine.drawIndices(1000, 50, 42L), DrawEngine.drawIndices(1000, 50, 43L)));
+    }
+
+    @Test
+    public void drawIndices_areDistinctAndInRange() {
+        int[] drawn = DrawEngine.drawIndices(100, 60, 7L);
+        Set<Integer> distinct = new HashSet<>();
+        for (int index : drawn) {
+            assertTrue(index >= 0 && index < 100);
+            distinct.add(index);
+        }
+        assertEquals(60, distinct.size());
+    }
+
+    @Test
+    public void drawIndices_clampsDrawCount() {
+        assertEquals(5, DrawEngine.drawIndices(5, 10, 1L).length);
+        assertEquals(0, DrawEngine.drawIndices(5, -1, 1L).length);
+        assertEquals(0, DrawEngine.drawIndices(0, 3, 1L).length);
+    }
+
+    @Test
+    public void rankPositions_startsWithSmallerDraw() {
+        int[] order = DrawEngine.rankPositions(500, 99L);
+        int[] drawn = DrawEngine.drawIndices(500, 20, 99L);
+        assertArrayEquals(drawn, Arrays.copyOf(order, 20));
+    }
+
+    @Test
+    public void rankPositions_isPermutation() {
+        int[] order = DrawEngine.rankPositions(200, 3L);
+        int[] sorted = order.clone();
+        Arrays.sort(sorted);
+        for (int i = 0; i < sorted.length; i++) {
+            assertEquals(i, sorted[i]);
+        }
+        assertEquals(0, DrawEngine.rankPositions(-4, 3L).length);
+    }
+
+    @Test
+    public void reservoir_keepsCapacityOfOfferedItems() {
+        DrawEngine.Reservoir<Integer> reservoir = new DrawEngine.Reservoir<>(10, 5L);
+        for (int i = 0; i < 1000; i++) {
+            reservoir.offer(i);
+        }
+        List<Integer> sample = reservoir.getSample();
+        assertEquals(1000, reservoir.getSeenCount());
+        assertEquals(10, sample.size());
+        assertEquals(10, new HashSet<>(sample).size());
+        for (int item : sample) {
+            assertTrue(item >= 0 && item < 1000);
+        }
+    }
+
+    @Test
+    public void reservoir_keepsEveryItemOfShortStream() {
+        DrawEngine.Reservoir<String> reservoir = new DrawEngine.Reservoir<>(10, 5L);
+        List<String> items = Arrays.asList("a", "b", "c");
+        items.forEach(reservoir::offer);
+        assertEquals(new HashSet<>(items), new HashSet<>(reservoir.getSample()));
+    }
+
+    @Test
+    public void reservoir_isReplayedFromSeed() {
+        DrawEngine.Reservoir<Integer> first = new DrawEngine.Reservoir<>(25, 11L);
+        DrawEngine.Reservoir<Integer> second = new DrawEngine.Reservoir<>(25, 11L);
+        for (int i = 0; i < 500; i++) {
+            first.offer(i);
+            second.offer(i);
+        }
+        List<Integer> sample = new ArrayList<>(first.getSample());
+        assertEquals(sample, second.getSample());
+        assertEquals(sample, first.getSample());
+    }
+
+    @Test
+    public void reservoir_withNoCapacityDrawsNothing() {
+        DrawEngine.Reservoir<Integer> reservoir = new DrawEngine.Reservoir<>(0, 1L);
+        reservoir.offer(1);
+        reservoir.offer(2);
+        assertTrue(reservoir.getSample().isEmpty());
+        assertEquals(2, reservoir.getSeenCount());
+    }
+}
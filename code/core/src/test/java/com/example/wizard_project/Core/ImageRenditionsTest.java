@@ -0,0 +1,58 @@
+package com.example.wizard_project.Core;
+
+import com.example.wizard_project.Core.ImageRenditions.Rendition;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link ImageRenditions}.
+ */
+public class ImageRenditionsTest {
+    @Test
+    public void forSize_picksSmallestRenditionFillingView() {
+        assertEquals(Rendition.THUMBNAIL, ImageRenditions.forSize(48, 48));
+        assertEquals(Rendition.THUMBNAIL, ImageRenditions.forSize(160, 90));
+        assertEquals(Rendition.CARD, ImageRenditions.forSize(90, 161));
+        assertEquals(Rendition.CARD, ImageRenditions.forSize(640, 360));
+        assertEquals(Rendition.FULL, ImageRenditions.forSize(641, 360));
+        assertEquals(Rendition.FULL, ImageRenditions.forSize(4000, 3000));
+    }
+
+    @Test
+    public void forSize_usesFullRenditionForUnknownSize() {
+        assertEquals(Rendition.FULL, ImageRenditions.forSize(0, 100));
+        assertEquals(Rendition.FULL, ImageRenditions.forSize(100, -1));
+    }
+
+    @Test
+    public void sampleSize_keepsDecodedImageAtLeastFullSize() {
+        assertEquals(1, ImageRenditions.sampleSize(800, 600));
+        assertEquals(1, ImageRenditions.sampleSize(3199, 2000));
+        assertEquals(2, ImageRenditions.sampleSize(3200, 2400));
+        assertEquals(2, ImageRenditions.sampleSize(3000, 4000));
+        assertEquals(4, ImageRenditions.sampleSize(6400, 4800));
+        for (int edge = 1; edge < 20000; edge += 97) {
+            int sampleSize = ImageRenditions.sampleSize(edge, 1);
+            assertTrue(edge < Rendition.FULL.getMaxEdge() || edge / sampleSize >= Rendition.FULL.getMaxEdge());
+            assertTrue(edge / (sampleSize * 2) < Rendition.FULL.getMaxEdge());
+        }
+    }
+
+    @Test
+    public void scale_neverEnlarges() {
+        assertEquals(1f, ImageRenditions.scale(100, 50, Rendition.CARD));
+        assertEquals(0.5f, ImageRenditions.scale(1280, 720, Rendition.CARD));
+        assertEquals(0.1f, ImageRenditions.scale(1000, 1600, Rendition.THUMBNAIL));
+    }
+
+    @Test
+    public void paths_findRenditionsFromFullImage() {
+        assertEquals("images/abc", ImageRenditions.path("abc", Rendition.FULL));
+        assertEquals("renditions/card/abc", ImageRenditions.path("abc", Rendition.CARD));
+        assertEquals("renditions/thumbnail/abc", ImageRenditions.renditionPath("images/abc", Rendition.THUMBNAIL));
+        assertEquals("abc", ImageRenditions.imageId("renditions/card/abc"));
+        assertEquals("abc", ImageRenditions.imageId("abc"));
+    }
+}
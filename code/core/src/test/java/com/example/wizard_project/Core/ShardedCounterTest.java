@@ -0,0 +1,105 @@
+package com.example.wizard_project.Core;
+
+import com.example.wizard_project.Store.MemoryDataStore;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link ShardedCounter} on an in-memory store.
+ */
+public class ShardedCounterTest {
+    private final MemoryDataStore db = new MemoryDataStore();
+    private final ShardedCounter counter = new ShardedCounter(db, "counters/test/shards", 4);
+
+    @AfterEach
+    public void shutdown() {
+        db.shutdown();
+    }
+
+    @Test
+    public void shardLimit_givesRemainderToLowestShards() {
+        assertEquals(3, counter.shardLimit(10, 0));
+        assertEquals(3, counter.shardLimit(10, 1));
+        assertEquals(2, counter.shardLimit(10, 2));
+        assertEquals(2, counter.shardLimit(10, 3));
+        assertEquals(0, counter.shardLimit(2, 3));
+    }
+
+    @Test
+    public void constructor_rejectsNoShards() {
+        assertThrows(IllegalArgumentException.class, () -> new ShardedCounter(db, "counters/none/shards", 0));
+    }
+
+    @Test
+    public void tryIncrement_neverExceedsLimit() throws Exception {
+        long limit = 7;
+        int admitted = 0;
+        for (int i = 0; i < 20; i++) {
+            if (increment(limit) >= 0) {
+                admitted++;
+            }
+        }
+        assertEquals(limit, admitted);
+        assertEquals(limit, (long) counter.sum().toFuture().get());
+        assertTrue(counter.shardsWithRoom(limit).toFuture().get().isEmpty());
+    }
+
+    @Test
+    public void tryIncrement_skipsShardsWithNoShare() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            int shard = db.runTransaction(transaction -> counter.tryIncrement(transaction, 2)).toFuture().get();
+            assertTrue(shard == 0 || shard == 1);
+        }
+        assertEquals(-1, (int) db.runTransaction(transaction -> counter.tryIncrement(transaction, 2)).toFuture().get());
+    }
+
+    @Test
+    public void decrement_makesRoom() throws Exception {
+        long limit = 4;
+        for (int i = 0; i < limit; i++) {
+            assertTrue(increment(limit) >= 0);
+        }
+        db.runTransaction(transaction -> {
+            counter.decrement(transaction, 2);
+            return null;
+        }).toFuture().get();
+
+        List<Integer> shards = counter.shardsWithRoom(limit).toFuture().get();
+        assertEquals(List.of(2), shards);
+        assertEquals(3, (long) counter.sum().toFuture().get());
+        assertEquals(2, increment(limit));
+    }
+
+    @Test
+    public void incrementAll_fillsSharesBeforeExceedingLimit() throws Exception {
+        long limit = 6;
+        List<Integer> shards = db.runTransaction(transaction -> counter.incrementAll(transaction, limit, 3)).toFuture().get();
+        assertEquals(List.of(0, 0, 1), shards);
+        assertEquals(List.of(1, 2, 3), counter.shardsWithRoom(limit).toFuture().get());
+
+        shards = db.runTransaction(transaction -> counter.incrementAll(transaction, limit, 5)).toFuture().get();
+        assertEquals(List.of(1, 2, 3, 3, 0), shards);
+        assertEquals(8, (long) counter.sum().toFuture().get());
+        assertEquals(-1, increment(limit));
+    }
+
+    /**
+     * Increments the counter the way a join does: probing random shards, then the shards with room.
+     */
+    private int increment(long limit) throws Exception {
+        int shard = db.runTransaction(transaction -> counter.tryIncrement(transaction, limit)).toFuture().get();
+        if (shard >= 0) {
+            return shard;
+        }
+        List<Integer> shards = counter.shardsWithRoom(limit).toFuture().get();
+        if (shards.isEmpty()) {
+            return -1;
+        }
+        return db.runTransaction(transaction -> counter.tryIncrement(transaction, limit, shards)).toFuture().get();
+    }
+}
@@ -0,0 +1,229 @@
+package com.example.wizard_project.Core;
+
+import com.example.wizard_project.Store.DataStore;
+import com.example.wizard_project.Store.MemoryDataStore;
+import com.example.wizard_project.Store.StoreQuery;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link WaitingListOperations} on an in-memory store.
+ */
+public class WaitingListOperationsTest {
+    private static final String EVENT_ID = "event";
+    private final MemoryDataStore db = new MemoryDataStore();
+    private final WaitingListOperations operations = new WaitingListOperations(db, 4);
+
+    @AfterEach
+    public void shutdown() {
+        db.shutdown();
+    }
+
+    @Test
+    public void join_refusesEntrantsOverMaximum() throws Exception {
+        createEvent(3, null);
+        int refused = 0;
+        for (int i = 0; i < 5; i++) {
+            try {
+                operations.join(EVENT_ID, "user" + i, "User " + i, null, null, "Waitlisted").toFuture().get();
+            } catch (ExecutionException e) {
+                assertTrue(WaitingListOperations.isWaitingListFull((Exception) e.getCause()));
+                refused++;
+            }
+        }
+        assertEquals(2, refused);
+        assertEquals(3, (long) operations.rollupEntrantCount(EVENT_ID).toFuture().get());
+        assertEquals(3, (long) db.count(StoreQuery.collection(waitingListPath())).toFuture().get());
+        assertTrue(db.get(RegistrationIndex.registrationPath("user0", EVENT_ID)).toFuture().get().exists());
+    }
+
+    @Test
+    public void join_rejoiningKeepsItsPlace() throws Exception {
+        createEvent(1, null);
+        operations.join(EVENT_ID, "user", "User", null, null, "Waitlisted").toFuture().get();
+        operations.join(EVENT_ID, "user", "User", null, null, "Waitlisted").toFuture().get();
+        assertEquals(1, (long) operations.rollupEntrantCount(EVENT_ID).toFuture().get());
+    }
+
+    @Test
+    public void leave_freesPlaceForNextJoin() throws Exception {
+        createEvent(2, null);
+        operations.join(EVENT_ID, "first", "First", null, null, "Waitlisted").toFuture().get();
+        operations.join(EVENT_ID, "second", "Second", null, null, "Waitlisted").toFuture().get();
+        operations.leave(EVENT_ID, "first").toFuture().get();
+
+        operations.join(EVENT_ID, "third", "Third", null, null, "Waitlisted").toFuture().get();
+        assertFalse(db.get(entrantPath("first")).toFuture().get().exists());
+        assertFalse(db.get(RegistrationIndex.registrationPath("first", EVENT_ID)).toFuture().get().exists());
+        assertEquals(2, (long) operations.rollupEntrantCount(EVENT_ID).toFuture().get());
+    }
+
+    @Test
+    public void seedEntrantCounter_countsEntrantsWhoJoinedBeforeCounter() throws Exception {
+        createEvent(300, null);
+        DataStore.Batch batch = db.batch();
+        for (int i = 0; i < WaitingListOperations.SEED_PAGE_SIZE + 50; i++) {
+            batch.set(entrantPath("legacy" + i), entrant("legacy" + i, "Waitlisted"));
+        }
+        batch.commit().toFuture().get();
+        operations.join(EVENT_ID, "joined", "Joined", null, null, "Waitlisted").toFuture().get();
+
+        assertEquals(WaitingListOperations.SEED_PAGE_SIZE + 50, (long) operations.seedEntrantCounter(EVENT_ID).toFuture().get());
+        assertEquals(WaitingListOperations.SEED_PAGE_SIZE + 51, (long) operations.rollupEntrantCount(EVENT_ID).toFuture().get());
+        assertNotNull(db.get(entrantPath("legacy0")).toFuture().get().getLong("counterShard"));
+        assertEquals(Boolean.TRUE, db.get(DataStore.path("events", EVENT_ID)).toFuture().get()
+                .getBoolean(WaitingListOperations.COUNTER_SEEDED_FIELD));
+
+        // A seeded event is not counted again.
+        assertEquals(0, (long) operations.seedEntrantCounter(EVENT_ID).toFuture().get());
+        assertEquals(WaitingListOperations.SEED_PAGE_SIZE + 51, (long) operations.rollupEntrantCount(EVENT_ID).toFuture().get());
+    }
+
+    @Test
+    public void seedEntrantCounter_enforcesMaximumOverEntrantsAlreadyWaiting() throws Exception {
+        createEvent(3, null);
+        for (int i = 0; i < 3; i++) {
+            db.set(entrantPath("legacy" + i), entrant("legacy" + i, "Waitlisted")).toFuture().get();
+        }
+
+        operations.seedEntrantCounter(EVENT_ID).toFuture().get();
+        operations.leave(EVENT_ID, "legacy0").toFuture().get();
+        operations.rollupEntrantCount(EVENT_ID).toFuture().get();
+        operations.join(EVENT_ID, "first", "First", null, null, "Waitlisted").toFuture().get();
+
+        ExecutionException e = assertThrows(ExecutionException.class, () ->
+                operations.join(EVENT_ID, "second", "Second", null, null, "Waitlisted").toFuture().get());
+        assertTrue(WaitingListOperations.isWaitingListFull((Exception) e.getCause()));
+        assertEquals(3, (long) operations.rollupEntrantCount(EVENT_ID).toFuture().get());
+    }
+
+    @Test
+    public void release_promotesEntrantWaitingForSpot() throws Exception {
+        createDrawnEvent("Selected", "Selected", "Not Selected", "Waitlisted");
+
+        List<String> promoted = operations.release(EVENT_ID, List.of("user0"), "Cancelled", 0).toFuture().get();
+
+        assertEquals(List.of("user2"), promoted);
+        assertEquals("Cancelled", status("user0"));
+        assertEquals("Cancelled", registrationStatus("user0"));
+        assertEquals("Selected", status("user2"));
+        assertEquals("Selected", registrationStatus("user2"));
+        assertEquals("Waitlisted", status("user3"));
+        assertEquals(1, (long) db.count(StoreQuery.collection("notifications")).toFuture().get());
+    }
+
+    @Test
+    public void release_setsStatusBeforePromoting() throws Exception {
+        createDrawnEvent("Selected", "Selected", "Not Selected", "Not Selected");
+
+        // The released entrant is next in the draw order, so they are passed over rather than selected.
+        List<String> promoted = operations.release(EVENT_ID, List.of("user2"), "Declined", 1).toFuture().get();
+
+        assertEquals(List.of("user3"), promoted);
+        assertEquals("Declined", status("user2"));
+        assertEquals("Declined", registrationStatus("user2"));
+        assertEquals("Selected", status("user3"));
+    }
+
+    @Test
+    public void release_skipsEntrantsNoLongerWaiting() throws Exception {
+        createDrawnEvent("Selected", "Not Selected", "Enrolled", "Not Selected");
+
+        List<String> promoted = operations.release(EVENT_ID, List.of("user0"), "Cancelled", 1).toFuture().get();
+
+        assertEquals(List.of("user1", "user3"), promoted);
+        assertEquals("Enrolled", status("user2"));
+    }
+
+    @Test
+    public void release_promotesInDrawOrder() throws Exception {
+        createDrawnEvent("Selected", "Not Selected", "Not Selected", "Not Selected");
+
+        assertEquals(List.of("user1"), operations.release(EVENT_ID, List.of("user0"), "Cancelled", 0).toFuture().get());
+        assertEquals(List.of("user2"), operations.release(EVENT_ID, List.of("user1"), "Declined", 0).toFuture().get());
+        assertEquals(List.of("user3"), operations.release(EVENT_ID, Collections.emptyList(), null, 1).toFuture().get());
+        assertEquals("Declined", status("user1"));
+        assertEquals(List.of(), operations.release(EVENT_ID, Collections.emptyList(), null, 1).toFuture().get());
+    }
+
+    @Test
+    public void release_stopsAtEndOfDrawOrder() throws Exception {
+        createDrawnEvent("Selected", "Not Selected");
+
+        List<String> promoted = operations.release(EVENT_ID, Collections.emptyList(), null, 3).toFuture().get();
+
+        assertEquals(List.of("user1"), promoted);
+    }
+
+    @Test
+    public void release_withoutDrawOrderOnlySetsStatus() throws Exception {
+        createEvent(10, null);
+        db.set(entrantPath("user"), entrant("user", "Selected")).toFuture().get();
+
+        assertNull(operations.release(EVENT_ID, List.of("user"), "Cancelled", 0).toFuture().get());
+        assertEquals("Cancelled", status("user"));
+    }
+
+    private void createEvent(long maxEntrants, Long nextDrawRank) throws Exception {
+        Map<String, Object> event = new HashMap<>();
+        event.put("eventId", EVENT_ID);
+        event.put("event_name", "Event");
+        event.put("event_max_entrants", maxEntrants);
+        if (nextDrawRank != null) {
+            event.put("nextDrawRank", nextDrawRank);
+        }
+        db.set(DataStore.path("events", EVENT_ID), event).toFuture().get();
+    }
+
+    /**
+     * Creates an event drawn in user order, whose entrants have the given statuses. Entrants already selected
+     * come first in the draw order, so promotions start at the first entrant who was not.
+     */
+    private void createDrawnEvent(String... statuses) throws Exception {
+        long nextDrawRank = 0;
+        while (nextDrawRank < statuses.length && "Selected".equals(statuses[(int) nextDrawRank])) {
+            nextDrawRank++;
+        }
+        createEvent(statuses.length, nextDrawRank);
+        for (int rank = 0; rank < statuses.length; rank++) {
+            String userId = "user" + rank;
+            db.set(entrantPath(userId), entrant(userId, statuses[rank])).toFuture().get();
+            db.set(DataStore.path("events", EVENT_ID, "drawOrder", String.valueOf(rank)),
+                    Collections.singletonMap("userId", userId)).toFuture().get();
+        }
+    }
+
+    private static Map<String, Object> entrant(String userId, String status) {
+        Map<String, Object> entrant = new HashMap<>();
+        entrant.put("userId", userId);
+        entrant.put("name", userId);
+        entrant.put("status", status);
+        return entrant;
+    }
+
+    private String status(String userId) throws Exception {
+        return db.get(entrantPath(userId)).toFuture().get().getString(RegistrationIndex.STATUS_FIELD);
+    }
+
+    private String registrationStatus(String userId) throws Exception {
+        return db.get(RegistrationIndex.registrationPath(userId, EVENT_ID)).toFuture().get()
+                .getString(RegistrationIndex.STATUS_FIELD);
+    }
+
+    private static String waitingListPath() {
+        return DataStore.path("events", EVENT_ID, "waitingList");
+    }
+
+    private static String entrantPath(String userId) {
+        return DataStore.path(waitingListPath(), userId);
+    }
+}
@@ -0,0 +1,235 @@
+package com.example.wizard_project.Store;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link MemoryDataStore}.
+ */
+public class MemoryDataStoreTest {
+    private final MemoryDataStore db = new MemoryDataStore();
+
+    @AfterEach
+    public void shutdown() {
+        db.shutdown();
+    }
+
+    @Test
+    public void runTransaction_retriesWhenReadDocumentChanges() throws Exception {
+        db.set("counters/a", Map.of("count", 0L)).toFuture().get();
+        AtomicInteger attempts = new AtomicInteger();
+
+        long count = db.runTransaction(transaction -> {
+            long current = transaction.get("counters/a").getLong("count");
+            if (attempts.incrementAndGet() == 1) {
+                awaitWrite(db.set("counters/a", Map.of("count", 10L)));
+            }
+            transaction.update("counters/a", "count", current + 1);
+            return current + 1;
+        }).toFuture().get();
+
+        assertEquals(2, attempts.get());
+        assertEquals(11L, count);
+        assertEquals(11L, (long) db.get("counters/a").toFuture().get().getLong("count"));
+    }
+
+    @Test
+    public void runTransaction_abortsAfterMaxAttempts() throws Exception {
+        db.set("counters/a", Map.of("count", 0L)).toFuture().get();
+        AtomicInteger attempts = new AtomicInteger();
+
+        DataStoreException e = failure(db.runTransaction(transaction -> {
+            transaction.get("counters/a");
+            awaitWrite(db.set("counters/a", Map.of("count", (long) attempts.incrementAndGet())));
+            transaction.update("counters/a", "count", -1L);
+            return null;
+        }));
+
+        assertEquals(DataStoreException.Code.ABORTED, e.getCode());
+        assertEquals(MemoryDataStore.MAX_TRANSACTION_ATTEMPTS, attempts.get());
+        assertEquals((long) attempts.get(), (long) db.get("counters/a").toFuture().get().getLong("count"));
+    }
+
+    @Test
+    public void runTransaction_doesNotRetryForUnreadDocuments() throws Exception {
+        db.set("counters/a", Map.of("count", 0L)).toFuture().get();
+        AtomicInteger attempts = new AtomicInteger();
+
+        db.runTransaction(transaction -> {
+            transaction.get("counters/a");
+            attempts.incrementAndGet();
+            awaitWrite(db.set("counters/b", Map.of("count", 5L)));
+            transaction.update("counters/a", "count", 1L);
+            return null;
+        }).toFuture().get();
+
+        assertEquals(1, attempts.get());
+        assertEquals(1L, (long) db.get("counters/a").toFuture().get().getLong("count"));
+    }
+
+    @Test
+    public void batch_isAtomicWhenAWriteFails() throws Exception {
+        DataStoreException e = failure(db.batch()
+                .set("events/a", Map.of("name", "A"))
+                .update("events/missing", Map.of("name", "B"))
+                .commit());
+
+        assertEquals(DataStoreException.Code.NOT_FOUND, e.getCode());
+        assertFalse(db.get("events/a").toFuture().get().exists());
+    }
+
+    @Test
+    public void update_appliesFieldTransforms() throws Exception {
+        db.set("events/a", Map.of("count", 1L, "tags", List.of("a", "b"), "note", "x")).toFuture().get();
+
+        db.update("events/a", Map.of(
+                "count", FieldTransform.increment(2),
+                "tags", FieldTransform.arrayRemove("a"),
+                "note", FieldTransform.delete(),
+                "updatedAt", FieldTransform.serverTimestamp())).toFuture().get();
+
+        StoredDocument event = db.get("events/a").toFuture().get();
+        assertEquals(3L, (long) event.getLong("count"));
+        assertEquals(List.of("b"), event.get("tags"));
+        assertFalse(event.contains("note"));
+        assertNotNull(event.getDate("updatedAt"));
+    }
+
+    @Test
+    public void query_appliesFilters() throws Exception {
+        addScores();
+
+        assertEquals(List.of("b"), ids(StoreQuery.collection("scores").whereEqualTo("score", 20L)));
+        assertEquals(List.of("a", "b"), ids(StoreQuery.collection("scores").whereLessThan("score", 30L)));
+        assertEquals(List.of("c", "d", "e"), ids(StoreQuery.collection("scores").whereGreaterThanOrEqualTo("score", 30L)));
+        assertEquals(List.of("a", "e"), ids(StoreQuery.collection("scores").whereIn("score", List.of(10L, 50L))));
+        assertEquals(List.of("d"), ids(StoreQuery.collection("scores").whereGreaterThan("score", 30L).whereLessThanOrEqualTo("score", 40L)));
+        // Range filters do not match values of another type.
+        assertEquals(List.of(), ids(StoreQuery.collection("scores").whereGreaterThan("score", "")));
+    }
+
+    @Test
+    public void query_ordersAndLimits() throws Exception {
+        addScores();
+
+        assertEquals(List.of("e", "d", "c"), ids(StoreQuery.collection("scores")
+                .orderBy("score", StoreQuery.Direction.DESCENDING).limit(3)));
+        // Equal values are ordered by document ID.
+        db.set("scores/f", Map.of("score", 20L)).toFuture().get();
+        assertEquals(List.of("a", "b", "f", "c"), ids(StoreQuery.collection("scores").orderBy("score").limit(4)));
+    }
+
+    @Test
+    public void query_pagesWithStartAfter() throws Exception {
+        addScores();
+        db.set("scores/f", Map.of("score", 30L)).toFuture().get();
+        StoreQuery query = StoreQuery.collection("scores").orderBy("score").limit(2);
+
+        List<String> paged = new ArrayList<>();
+        List<StoredDocument> page = db.query(query).toFuture().get();
+        while (!page.isEmpty()) {
+            for (StoredDocument document : page) {
+                paged.add(document.getId());
+            }
+            page = db.query(query.startAfter(page.get(page.size() - 1))).toFuture().get();
+        }
+
+        assertEquals(List.of("a", "b", "c", "f", "d", "e"), paged);
+    }
+
+    @Test
+    public void count_countsMatches() throws Exception {
+        addScores();
+
+        assertEquals(2L, (long) db.count(StoreQuery.collection("scores").whereGreaterThan("score", 30L)).toFuture().get());
+    }
+
+    @Test
+    public void listen_deliversChangesUntilRemoved() throws Exception {
+        db.set("scores/a", Map.of("score", 10L)).toFuture().get();
+        BlockingQueue<List<DocumentChange>> received = new LinkedBlockingQueue<>();
+        DataStore.Registration registration = db.listen(StoreQuery.collection("scores").whereLessThan("score", 100L),
+                new DataStore.QueryListener() {
+                    @Override
+                    public void onChanges(List<DocumentChange> changes) {
+                        received.add(changes);
+                    }
+
+                    @Override
+                    public void onError(DataStoreException e) {
+                        fail(e);
+                    }
+                });
+
+        assertEquals(List.of("ADDED a"), describe(received.poll(5, TimeUnit.SECONDS)));
+
+        db.set("scores/b", Map.of("score", 20L)).toFuture().get();
+        assertEquals(List.of("ADDED b"), describe(received.poll(5, TimeUnit.SECONDS)));
+
+        db.update("scores/a", Map.of("score", 15L)).toFuture().get();
+        assertEquals(List.of("MODIFIED a"), describe(received.poll(5, TimeUnit.SECONDS)));
+
+        // A document leaving the results is removed, even though it is still stored.
+        db.update("scores/b", Map.of("score", 200L)).toFuture().get();
+        assertEquals(List.of("REMOVED b"), describe(received.poll(5, TimeUnit.SECONDS)));
+
+        registration.remove();
+        db.delete("scores/a").toFuture().get();
+        assertNull(received.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    private void addScores() throws Exception {
+        DataStore.Batch batch = db.batch();
+        List<String> ids = Arrays.asList("a", "b", "c", "d", "e");
+        for (int i = 0; i < ids.size(); i++) {
+            batch.set("scores/" + ids.get(i), Map.of("score", 10L * (i + 1)));
+        }
+        batch.commit().toFuture().get();
+    }
+
+    private List<String> ids(StoreQuery query) throws Exception {
+        List<String> ids = new ArrayList<>();
+        for (StoredDocument document : db.query(query).toFuture().get()) {
+            ids.add(document.getId());
+        }
+        return ids;
+    }
+
+    private static List<String> describe(List<DocumentChange> changes) {
+        assertNotNull(changes);
+        List<String> descriptions = new ArrayList<>();
+        for (DocumentChange change : changes) {
+            descriptions.add(change.getType() + " " + change.getDocument().getId());
+        }
+        return descriptions;
+    }
+
+    /**
+     * Waits for a write made from inside a transaction function, outside the transaction.
+     */
+    private static void awaitWrite(StoreTask<Void> write) throws DataStoreException {
+        try {
+            write.toFuture().get();
+        } catch (InterruptedException | ExecutionException e) {
+            throw new DataStoreException("Write failed", DataStoreException.Code.UNKNOWN, e);
+        }
+    }
+
+    private static DataStoreException failure(StoreTask<?> task) {
+        ExecutionException e = assertThrows(ExecutionException.class, () -> task.toFuture().get());
+        assertTrue(e.getCause() instanceof DataStoreException);
+        return (DataStoreException) e.getCause();
+    }
+}
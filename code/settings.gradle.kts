@@ -21,4 +21,7 @@ dependencyResolutionManagement {
 
 rootProject.name = "wizard-project"
 include(":app")
+include(":core")
+include(":codegen")
+include(":benchmarks")
  
\ No newline at end of file